@@ -111,6 +111,66 @@ public interface Configuration {
    */
   void setHttpClientFactory(HttpClientFactory factory);
 
+  /**
+   * Checks whether HTTP connections are kept in a pool and reused for subsequent requests.
+   * This is used only if no HttpClient factory has been set.
+   *
+   * @return whether HTTP connections are pooled
+   */
+  boolean isConnectionPooling();
+
+  /**
+   * Sets whether HTTP connections are kept in a pool and reused for subsequent requests.
+   * The pool is created with the current pool settings when the first request is executed;
+   * if the pool settings are changed later, the pool is shut down and replaced with the next request.
+   * The pool can be shut down through its factory, see {@link #getHttpClientFactory()}.
+   *
+   * @param value 'TRUE' to use a connection pool.
+   */
+  void setConnectionPooling(boolean value);
+
+  /**
+   * Gets the maximum number of pooled connections to the same host.
+   *
+   * @return maximum number of connections per route
+   */
+  int getMaxConnectionsPerRoute();
+
+  /**
+   * Sets the maximum number of pooled connections to the same host.
+   *
+   * @param value maximum number of connections per route
+   */
+  void setMaxConnectionsPerRoute(int value);
+
+  /**
+   * Gets the maximum number of pooled connections.
+   *
+   * @return maximum number of connections
+   */
+  int getMaxConnectionsTotal();
+
+  /**
+   * Sets the maximum number of pooled connections.
+   *
+   * @param value maximum number of connections
+   */
+  void setMaxConnectionsTotal(int value);
+
+  /**
+   * Gets the time after which an unused pooled connection is closed.
+   *
+   * @return idle timeout in milliseconds
+   */
+  long getConnectionIdleTimeout();
+
+  /**
+   * Sets the time after which an unused pooled connection is closed.
+   *
+   * @param value idle timeout in milliseconds
+   */
+  void setConnectionIdleTimeout(long value);
+
   /**
    * Gets the HttpUriRequest factory for generating requests to be executed.
    *
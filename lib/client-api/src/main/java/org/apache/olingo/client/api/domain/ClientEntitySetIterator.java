@@ -30,6 +30,7 @@ import java.util.NoSuchElementException;
 import org.apache.commons.io.IOUtils;
 import org.apache.olingo.client.api.ODataClient;
 import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.client.api.serialization.EntitySetStreamReader;
 import org.apache.olingo.client.api.serialization.ODataDeserializerException;
 import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.data.Entity;
@@ -67,6 +68,8 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
 
   private final String namespaces;
 
+  private final EntitySetStreamReader reader;
+
   private boolean available = true;
 
   /**
@@ -87,16 +90,12 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
     if(contentType.isCompatible(ContentType.APPLICATION_ATOM_SVC)
         || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML)) {
       namespaces = getAllElementAttributes(stream, "feed", osEntitySet);
+      reader = null;
     } else {
       namespaces = null;
       try {
-        if (consume(stream, "\"value\":", osEntitySet, true) >= 0) {
-          int c = 0;
-          while (c != '[' && (c = stream.read()) >= 0) {
-            osEntitySet.write(c);
-          }
-        }
-      } catch (IOException e) {
+        reader = odataClient.getDeserializer(contentType).toEntitySetStream(stream);
+      } catch (final ODataDeserializerException e) {
         LOG.error("Error parsing entity set", e);
         throw new IllegalStateException(e);
       }
@@ -107,18 +106,19 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
   @Override
   public boolean hasNext() {
     if (available && cached == null) {
-      if (contentType.isCompatible(ContentType.APPLICATION_ATOM_SVC)
-          || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML)) {
+      if (reader == null) {
         cached = nextAtomEntityFromEntitySet(stream, osEntitySet, namespaces);
       } else {
-        cached = nextJSONEntityFromEntitySet(stream, osEntitySet);
+        cached = nextJSONEntityFromEntitySet();
       }
 
       if (cached == null) {
         available = false;
         try {
-          entitySet = (T) odataClient.getReader().
-                  readEntitySet(new ByteArrayInputStream(osEntitySet.toByteArray()), contentType);
+          entitySet = reader == null ?
+              (T) odataClient.getReader().
+                  readEntitySet(new ByteArrayInputStream(osEntitySet.toByteArray()), contentType) :
+              (T) odataClient.getBinder().getODataEntitySet(reader.getEntitySet());
         } catch (final ODataDeserializerException e) {
           available = false;
         }
@@ -153,6 +153,9 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
    * Closes the current iterator.
    */
   public void close() {
+    if (reader != null) {
+      reader.close();
+    }
     IOUtils.closeQuietly(stream);
     IOUtils.closeQuietly(osEntitySet);
   }
@@ -169,52 +172,11 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
     return entitySet.getNext();
   }
 
-  private ResWrap<Entity> nextJSONEntityFromEntitySet(final InputStream input, final OutputStream osEntitySet) {
-    final ByteArrayOutputStream entity = new ByteArrayOutputStream();
-
+  private ResWrap<Entity> nextJSONEntityFromEntitySet() {
     ResWrap<Entity> jsonEntity = null;
     try {
-      int c;
-
-      boolean foundNewOne = false;
-
-      do {
-        c = input.read();
-        if (c == '{') {
-          entity.write(c);
-          c = -1;
-          foundNewOne = true;
-        }
-        if (c == ']') {
-          osEntitySet.write(c);
-          c = -1;
-        }
-      } while (c >= 0);
-
-      if (foundNewOne) {
-        int count = 1;
-        c = 0;
-
-        while (count > 0 && c >= 0) {
-          c = input.read();
-          if (c == '{') {
-            count++;
-          } else if (c == '}') {
-            count--;
-          }
-          entity.write(c);
-        }
-
-        if (c >= 0) {
-          jsonEntity = odataClient.getDeserializer(ContentType.JSON).toEntity(
-                  new ByteArrayInputStream(entity.toByteArray()));
-        }
-      } else {
-        while ((c = input.read()) >= 0) {
-          osEntitySet.write(c);
-        }
-      }
-    } catch (Exception e) {
+      jsonEntity = reader.nextEntity();
+    } catch (final ODataDeserializerException e) {
       LOG.error("Error retrieving entities from EntitySet", e);
     }
 
@@ -55,4 +55,14 @@ public interface ClientODataDeserializer extends ODataDeserializer {
    * @throws ODataDeserializerException
    */
   ResWrap<Delta> toDelta(InputStream input) throws ODataDeserializerException;
+
+  /**
+   * Gets a reader for the entities of an entity set, which reads one entity after the other
+   * from the given InputStream.
+   *
+   * @param input stream to be de-serialized.
+   * @return {@link EntitySetStreamReader} instance.
+   * @throws ODataDeserializerException if the format does not support reading entities one after the other
+   */
+  EntitySetStreamReader toEntitySetStream(InputStream input) throws ODataDeserializerException;
 }
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.serialization;
+
+import java.io.Closeable;
+
+import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+
+/**
+ * Reads the entities of an entity set one after the other from a stream,
+ * without reading the whole entity set into memory.
+ */
+public interface EntitySetStreamReader extends Closeable {
+
+  /**
+   * Reads the next entity.
+   *
+   * @return the next entity or <tt>null</tt> if there are no more entities
+   * @throws ODataDeserializerException
+   */
+  ResWrap<Entity> nextEntity() throws ODataDeserializerException;
+
+  /**
+   * Gets the entity set with everything but its entities, e.g., count, next link, and annotations.
+   * Information following the entities in the stream is available only after all entities have been read.
+   *
+   * @return entity set without entities
+   * @throws ODataDeserializerException
+   */
+  ResWrap<EntityCollection> getEntitySet() throws ODataDeserializerException;
+
+  /**
+   * Closes the reader and the underlying stream.
+   */
+  @Override
+  void close();
+}
@@ -28,6 +28,7 @@ import org.apache.olingo.client.api.http.HttpClientFactory;
 import org.apache.olingo.client.api.http.HttpUriRequestFactory;
 import org.apache.olingo.client.core.http.DefaultHttpClientFactory;
 import org.apache.olingo.client.core.http.DefaultHttpUriRequestFactory;
+import org.apache.olingo.client.core.http.PoolingHttpClientFactory;
 import org.apache.olingo.commons.api.format.ContentType;
 
 public class ConfigurationImpl implements Configuration {
@@ -42,6 +43,16 @@ public class ConfigurationImpl implements Configuration {
 
   private static final String HTTP_CLIENT_FACTORY = "httpClientFactory";
 
+  private static final String POOLING_HTTP_CLIENT_FACTORY = "poolingHttpClientFactory";
+
+  private static final String CONNECTION_POOLING = "connectionPooling";
+
+  private static final String MAX_CONNECTIONS_PER_ROUTE = "maxConnectionsPerRoute";
+
+  private static final String MAX_CONNECTIONS_TOTAL = "maxConnectionsTotal";
+
+  private static final String CONNECTION_IDLE_TIMEOUT = "connectionIdleTimeout";
+
   private static final String HTTP_URI_REQUEST_FACTORY = "httpUriRequestFactory";
 
   private static final String USE_XHTTP_METHOD = "useHTTPMethod";
@@ -132,7 +143,36 @@ public class ConfigurationImpl implements Configuration {
 
   @Override
   public HttpClientFactory getHttpClientFactory() {
-    return (HttpClientFactory) getProperty(HTTP_CLIENT_FACTORY, new DefaultHttpClientFactory());
+    if (CONF.containsKey(HTTP_CLIENT_FACTORY)) {
+      return (HttpClientFactory) CONF.get(HTTP_CLIENT_FACTORY);
+    } else if (isConnectionPooling()) {
+      return getPoolingHttpClientFactory();
+    } else {
+      return new DefaultHttpClientFactory();
+    }
+  }
+
+  /**
+   * Gets the factory sharing the connection pool.
+   * The pool is created on first use with the settings at that time. It is replaced by a new pool if the settings
+   * have been changed since or if it has been shut down; a replaced pool is shut down.
+   *
+   * @return pooling HttpClient factory
+   */
+  protected synchronized HttpClientFactory getPoolingHttpClientFactory() {
+    PoolingHttpClientFactory factory = (PoolingHttpClientFactory) getProperty(POOLING_HTTP_CLIENT_FACTORY, null);
+    if (factory == null || factory.isShutdown()
+        || factory.getMaxConnectionsPerRoute() != getMaxConnectionsPerRoute()
+        || factory.getMaxConnectionsTotal() != getMaxConnectionsTotal()
+        || factory.getIdleTimeout() != getConnectionIdleTimeout()) {
+      if (factory != null) {
+        factory.shutdown();
+      }
+      factory = new PoolingHttpClientFactory(getMaxConnectionsPerRoute(), getMaxConnectionsTotal(),
+          getConnectionIdleTimeout());
+      setProperty(POOLING_HTTP_CLIENT_FACTORY, factory);
+    }
+    return factory;
   }
 
   @Override
@@ -140,6 +180,46 @@ public class ConfigurationImpl implements Configuration {
     setProperty(HTTP_CLIENT_FACTORY, factory);
   }
 
+  @Override
+  public boolean isConnectionPooling() {
+    return (Boolean) getProperty(CONNECTION_POOLING, false);
+  }
+
+  @Override
+  public void setConnectionPooling(final boolean value) {
+    setProperty(CONNECTION_POOLING, value);
+  }
+
+  @Override
+  public int getMaxConnectionsPerRoute() {
+    return (Integer) getProperty(MAX_CONNECTIONS_PER_ROUTE, PoolingHttpClientFactory.DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+  }
+
+  @Override
+  public void setMaxConnectionsPerRoute(final int value) {
+    setProperty(MAX_CONNECTIONS_PER_ROUTE, value);
+  }
+
+  @Override
+  public int getMaxConnectionsTotal() {
+    return (Integer) getProperty(MAX_CONNECTIONS_TOTAL, PoolingHttpClientFactory.DEFAULT_MAX_CONNECTIONS_TOTAL);
+  }
+
+  @Override
+  public void setMaxConnectionsTotal(final int value) {
+    setProperty(MAX_CONNECTIONS_TOTAL, value);
+  }
+
+  @Override
+  public long getConnectionIdleTimeout() {
+    return (Long) getProperty(CONNECTION_IDLE_TIMEOUT, PoolingHttpClientFactory.DEFAULT_IDLE_TIMEOUT);
+  }
+
+  @Override
+  public void setConnectionIdleTimeout(final long value) {
+    setProperty(CONNECTION_IDLE_TIMEOUT, value);
+  }
+
   @Override
   public HttpUriRequestFactory getHttpUriRequestFactory() {
     return (HttpUriRequestFactory) getProperty(HTTP_URI_REQUEST_FACTORY, new DefaultHttpUriRequestFactory());
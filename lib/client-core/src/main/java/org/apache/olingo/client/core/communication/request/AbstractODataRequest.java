@@ -41,6 +41,8 @@ import org.apache.olingo.client.api.communication.request.ODataRequest;
 import org.apache.olingo.client.api.communication.request.ODataStreamer;
 import org.apache.olingo.client.api.communication.response.ODataResponse;
 import org.apache.olingo.client.api.http.HttpClientException;
+import org.apache.olingo.client.api.http.HttpClientFactory;
+import org.apache.olingo.client.core.http.PoolingHttpClientFactory;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.format.ContentType;
@@ -309,7 +311,12 @@ public abstract class AbstractODataRequest extends AbstractRequest implements OD
     try {
       checkResponse(odataClient, response, getAccept());
     } catch (ODataRuntimeException e) {
-      odataClient.getConfiguration().getHttpClientFactory().close(httpClient);
+      final HttpClientFactory httpClientFactory = odataClient.getConfiguration().getHttpClientFactory();
+      // Give the connection back before the client is closed, so that it can be reused if it is pooled.
+      if (httpClientFactory instanceof PoolingHttpClientFactory) {
+        ((PoolingHttpClientFactory) httpClientFactory).release(response);
+      }
+      httpClientFactory.close(httpClient);
       throw e;
     }
 
@@ -39,10 +39,12 @@ import org.apache.olingo.client.api.ODataClient;
 import org.apache.olingo.client.api.communication.request.ODataStreamer;
 import org.apache.olingo.client.api.communication.request.batch.ODataBatchLineIterator;
 import org.apache.olingo.client.api.communication.response.ODataResponse;
+import org.apache.olingo.client.api.http.HttpClientFactory;
 import org.apache.olingo.client.api.http.NoContentException;
 import org.apache.olingo.client.core.communication.request.batch.ODataBatchController;
 import org.apache.olingo.client.core.communication.request.batch.ODataBatchLineIteratorImpl;
 import org.apache.olingo.client.core.communication.request.batch.ODataBatchUtilities;
+import org.apache.olingo.client.core.http.PoolingHttpClientFactory;
 import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpHeader;
@@ -243,7 +245,12 @@ public abstract class AbstractODataResponse implements ODataResponse {
 
   @Override
   public void close() {
-    odataClient.getConfiguration().getHttpClientFactory().close(httpClient);
+    final HttpClientFactory httpClientFactory = odataClient.getConfiguration().getHttpClientFactory();
+    // Give the connection back before the client is closed, so that it can be reused if it is pooled.
+    if (res != null && httpClientFactory instanceof PoolingHttpClientFactory) {
+      ((PoolingHttpClientFactory) httpClientFactory).release(res);
+    }
+    httpClientFactory.close(httpClient);
 
     if (batchInfo != null) {
       batchInfo.setValidBatch(false);
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.CoreProtocolPNames;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.apache.olingo.commons.api.http.HttpMethod;
+
+/**
+ * Implementation returning HttpClients which share a pool of connections.
+ * <br/>
+ * Connections are kept open after a request and reused for the next request to the same host, so the TCP and TLS
+ * handshakes are done only once per connection. Connections which have been idle for longer than the idle timeout
+ * are closed; the idle timeout is also used as keep-alive duration if the server does not send a
+ * <tt>Keep-Alive</tt> header.
+ * <br/>
+ * Since all clients share the connection pool, the same factory instance must be used for all requests and the
+ * response of a request must be consumed or released with {@link #release(HttpResponse)} to give its connection
+ * back to the pool. {@link #shutdown()} closes all connections.
+ */
+public class PoolingHttpClientFactory extends DefaultHttpClientFactory {
+
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+  public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 100;
+
+  public static final long DEFAULT_IDLE_TIMEOUT = 30000;
+
+  /**
+   * Maximum length of response content which is read to the end to reuse the connection;
+   * the connection of a response with longer or unknown content length is closed instead.
+   */
+  public static final long MAX_CONSUMED_CONTENT_LENGTH = 64 * 1024;
+
+  private final PoolingClientConnectionManager connectionManager;
+
+  private final long idleTimeout;
+
+  private final ConnectionKeepAliveStrategy keepAliveStrategy;
+
+  private volatile long lastEviction;
+
+  private volatile boolean shutdown;
+
+  public PoolingHttpClientFactory() {
+    this(DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS_TOTAL, DEFAULT_IDLE_TIMEOUT);
+  }
+
+  /**
+   * Creates a factory with its own connection pool.
+   *
+   * @param maxConnectionsPerRoute maximum number of connections to the same host
+   * @param maxConnectionsTotal maximum number of connections
+   * @param idleTimeout time in milliseconds after which an unused connection is closed
+   */
+  public PoolingHttpClientFactory(final int maxConnectionsPerRoute, final int maxConnectionsTotal,
+      final long idleTimeout) {
+
+    connectionManager = new PoolingClientConnectionManager();
+    connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+    connectionManager.setMaxTotal(maxConnectionsTotal);
+    this.idleTimeout = idleTimeout;
+    lastEviction = System.currentTimeMillis();
+
+    keepAliveStrategy = new DefaultConnectionKeepAliveStrategy() {
+      @Override
+      public long getKeepAliveDuration(final HttpResponse response, final HttpContext context) {
+        final long duration = super.getKeepAliveDuration(response, context);
+        final long maxDuration = PoolingHttpClientFactory.this.idleTimeout;
+        return duration < 0 ? maxDuration : Math.min(duration, maxDuration);
+      }
+    };
+  }
+
+  @Override
+  public DefaultHttpClient create(final HttpMethod method, final URI uri) {
+    evictIdleConnections();
+
+    final DefaultHttpClient client = new DefaultHttpClient(connectionManager);
+    client.getParams().setParameter(CoreProtocolPNames.USER_AGENT, USER_AGENT);
+    client.setKeepAliveStrategy(keepAliveStrategy);
+    return client;
+  }
+
+  /**
+   * Does not shut down the shared connection manager; the connection of the request has already been given back
+   * to the pool when the response has been consumed.
+   */
+  @Override
+  public void close(final HttpClient httpClient) {
+    // The connection pool is kept open for the next request.
+  }
+
+  /**
+   * Gets the pool of connections shared by all clients created by this factory.
+   *
+   * @return connection manager
+   */
+  public PoolingClientConnectionManager getConnectionManager() {
+    return connectionManager;
+  }
+
+  /**
+   * Gives the connection of a response back to the pool or closes it, without waiting for long content.
+   * If the response content has not been read to the end, the rest of it is read only if its length is known and
+   * small; otherwise, e.g., for a large entity set that has been read partially, the connection is closed.
+   * Connections of responses which have been read completely are already back in the pool.
+   *
+   * @param response HTTP response
+   */
+  public void release(final HttpResponse response) {
+    final HttpEntity entity = response.getEntity();
+    if (entity == null) {
+      return;
+    }
+    final long contentLength = entity.getContentLength();
+    if (contentLength >= 0 && contentLength <= MAX_CONSUMED_CONTENT_LENGTH) {
+      EntityUtils.consumeQuietly(entity);
+    } else if (entity instanceof ConnectionReleaseTrigger) {
+      try {
+        ((ConnectionReleaseTrigger) entity).abortConnection();
+      } catch (final IOException e) {
+        // The connection is not used anymore.
+      }
+    }
+  }
+
+  /**
+   * Gets the maximum number of connections to the same host.
+   *
+   * @return maximum number of connections per route
+   */
+  public int getMaxConnectionsPerRoute() {
+    return connectionManager.getDefaultMaxPerRoute();
+  }
+
+  /**
+   * Gets the maximum number of connections.
+   *
+   * @return maximum number of connections
+   */
+  public int getMaxConnectionsTotal() {
+    return connectionManager.getMaxTotal();
+  }
+
+  /**
+   * Gets the time in milliseconds after which an unused connection is closed.
+   *
+   * @return idle timeout
+   */
+  public long getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  /**
+   * Closes all connections of the pool. The factory must not be used afterwards.
+   */
+  public void shutdown() {
+    shutdown = true;
+    connectionManager.shutdown();
+  }
+
+  /**
+   * Tells whether the pool has been shut down.
+   *
+   * @return <code>true</code> after {@link #shutdown()}
+   */
+  public boolean isShutdown() {
+    return shutdown;
+  }
+
+  /**
+   * Closes expired and idle connections, at most once per idle timeout, so that the server does not see
+   * connections which are never used again and the client does not try to reuse connections closed by the server.
+   */
+  private void evictIdleConnections() {
+    final long now = System.currentTimeMillis();
+    if (now - lastEviction >= idleTimeout) {
+      lastEviction = now;
+      connectionManager.closeExpiredConnections();
+      connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+    }
+  }
+}
@@ -35,6 +35,7 @@ import org.apache.olingo.client.api.data.ServiceDocument;
 import org.apache.olingo.client.api.edm.xml.Edmx;
 import org.apache.olingo.client.api.edm.xml.XMLMetadata;
 import org.apache.olingo.client.api.serialization.ClientODataDeserializer;
+import org.apache.olingo.client.api.serialization.EntitySetStreamReader;
 import org.apache.olingo.client.api.serialization.ODataDeserializer;
 import org.apache.olingo.client.api.serialization.ODataDeserializerException;
 import org.apache.olingo.client.core.data.JSONServiceDocumentDeserializer;
@@ -219,6 +220,15 @@ public class ClientODataDeserializerImpl implements ClientODataDeserializer {
     }
   }
 
+  @Override
+  public EntitySetStreamReader toEntitySetStream(final InputStream input) throws ODataDeserializerException {
+    if (deserializer instanceof JsonDeserializer) {
+      return ((JsonDeserializer) deserializer).toEntitySetStream(input);
+    } else {
+      throw new ODataDeserializerException("Entity set streaming is not supported for " + contentType);
+    }
+  }
+
   @Override
   public List<CsdlSchema> fetchTermDefinitionSchema(List<InputStream> input) {
     List<CsdlSchema> schemas = new ArrayList<CsdlSchema>();
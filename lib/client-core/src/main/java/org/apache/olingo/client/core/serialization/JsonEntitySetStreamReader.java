@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.serialization;
+
+import java.io.IOException;
+
+import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.client.api.serialization.EntitySetStreamReader;
+import org.apache.olingo.client.api.serialization.ODataDeserializerException;
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Reads a JSON entity set with a single streaming parser, one entity after the other.
+ * <br/>
+ * All members of the entity set object other than <tt>value</tt> are kept as (small) JSON trees,
+ * regardless of whether they appear before or after the entities.
+ */
+public class JsonEntitySetStreamReader implements EntitySetStreamReader {
+
+  private final boolean serverMode;
+
+  private final JsonParser parser;
+
+  private final ObjectNode envelope = JsonNodeFactory.instance.objectNode();
+
+  private boolean inValue = false;
+
+  private boolean done = false;
+
+  private boolean hasValue = false;
+
+  public JsonEntitySetStreamReader(final boolean serverMode, final JsonParser parser) throws IOException {
+    this.serverMode = serverMode;
+    this.parser = parser;
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new JsonParseException(parser, "Expected OData EntitySet");
+    }
+  }
+
+  @Override
+  public ResWrap<Entity> nextEntity() throws ODataDeserializerException {
+    try {
+      if (!inValue && !done) {
+        readEnvelope();
+      }
+      if (!inValue) {
+        return null;
+      }
+
+      final JsonToken token = parser.nextToken();
+      if (token == JsonToken.START_OBJECT) {
+        return new JsonEntityDeserializer(serverMode).doDeserialize(parser);
+      } else if (token == JsonToken.END_ARRAY) {
+        inValue = false;
+        readEnvelope();
+        return null;
+      } else {
+        throw new JsonParseException(parser, "Expected OData Entity, found " + token);
+      }
+    } catch (final IOException e) {
+      throw new ODataDeserializerException(e);
+    }
+  }
+
+  /**
+   * Reads the members of the entity set object up to the start of the <tt>value</tt> array
+   * or up to the end of the object.
+   */
+  private void readEnvelope() throws IOException {
+    JsonToken token = parser.nextToken();
+    while (token == JsonToken.FIELD_NAME) {
+      final String name = parser.getCurrentName();
+      token = parser.nextToken();
+      if (Constants.VALUE.equals(name) && token == JsonToken.START_ARRAY) {
+        hasValue = true;
+        inValue = true;
+        return;
+      }
+      final JsonNode node = parser.getCodec().readTree(parser);
+      envelope.set(name, node);
+      token = parser.nextToken();
+    }
+    if (token != JsonToken.END_OBJECT) {
+      throw new JsonParseException(parser, "Unexpected token " + token);
+    }
+    done = true;
+  }
+
+  @Override
+  public ResWrap<EntityCollection> getEntitySet() throws ODataDeserializerException {
+    final ObjectNode tree = envelope.deepCopy();
+    if (hasValue) {
+      tree.putArray(Constants.VALUE);
+    }
+    try {
+      return new JsonEntitySetDeserializer(serverMode).doDeserialize(tree.traverse(parser.getCodec()));
+    } catch (final IOException e) {
+      throw new ODataDeserializerException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      parser.close();
+    } catch (final IOException e) {
+      // ignore
+    }
+  }
+}
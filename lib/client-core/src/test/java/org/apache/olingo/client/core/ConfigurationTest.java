@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.olingo.client.api.Configuration;
+import org.apache.olingo.client.api.http.HttpClientFactory;
+import org.apache.olingo.client.core.http.DefaultHttpClientFactory;
+import org.apache.olingo.client.core.http.PoolingHttpClientFactory;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.junit.Test;
+
+public class ConfigurationTest {
+
+  @Test
+  public void defaultHttpClientFactory() {
+    final Configuration configuration = new ConfigurationImpl();
+    assertTrue(configuration.getHttpClientFactory() instanceof DefaultHttpClientFactory);
+    assertNotSame(configuration.getHttpClientFactory(), configuration.getHttpClientFactory());
+  }
+
+  @Test
+  public void connectionPooling() {
+    final Configuration configuration = new ConfigurationImpl();
+    configuration.setConnectionPooling(true);
+    configuration.setMaxConnectionsPerRoute(5);
+    configuration.setMaxConnectionsTotal(7);
+    configuration.setConnectionIdleTimeout(1000L);
+
+    final HttpClientFactory factory = configuration.getHttpClientFactory();
+    assertTrue(factory instanceof PoolingHttpClientFactory);
+    assertSame(factory, configuration.getHttpClientFactory());
+
+    final PoolingHttpClientFactory poolingFactory = (PoolingHttpClientFactory) factory;
+    assertEquals(5, poolingFactory.getConnectionManager().getDefaultMaxPerRoute());
+    assertEquals(7, poolingFactory.getConnectionManager().getMaxTotal());
+
+    final HttpClient client = factory.create(HttpMethod.GET, URI.create("http://localhost/odata"));
+    assertSame(poolingFactory.getConnectionManager(), client.getConnectionManager());
+    // Closing the client must keep the pool usable for the next client.
+    factory.close(client);
+    assertSame(poolingFactory.getConnectionManager(),
+        factory.create(HttpMethod.GET, URI.create("http://localhost/odata")).getConnectionManager());
+    assertEquals(0, poolingFactory.getConnectionManager().getTotalStats().getLeased());
+    poolingFactory.shutdown();
+  }
+
+  @Test
+  public void explicitHttpClientFactory() {
+    final Configuration configuration = new ConfigurationImpl();
+    configuration.setConnectionPooling(true);
+    final HttpClientFactory factory = new DefaultHttpClientFactory();
+    configuration.setHttpClientFactory(factory);
+    assertSame(factory, configuration.getHttpClientFactory());
+  }
+
+  @Test
+  public void changedPoolSettings() {
+    final Configuration configuration = new ConfigurationImpl();
+    configuration.setConnectionPooling(true);
+    final PoolingHttpClientFactory factory = (PoolingHttpClientFactory) configuration.getHttpClientFactory();
+
+    configuration.setMaxConnectionsTotal(9);
+    final PoolingHttpClientFactory changedFactory = (PoolingHttpClientFactory) configuration.getHttpClientFactory();
+    assertNotSame(factory, changedFactory);
+    assertTrue(factory.isShutdown());
+    assertEquals(9, changedFactory.getMaxConnectionsTotal());
+
+    changedFactory.shutdown();
+    final PoolingHttpClientFactory newFactory = (PoolingHttpClientFactory) configuration.getHttpClientFactory();
+    assertNotSame(changedFactory, newFactory);
+    assertFalse(newFactory.isShutdown());
+    newFactory.shutdown();
+  }
+
+  @Test
+  public void releaseSmallResponse() {
+    final PoolingHttpClientFactory factory = new PoolingHttpClientFactory();
+    final TestEntity entity = new TestEntity(100);
+    factory.release(createResponse(entity));
+    assertTrue(entity.consumed);
+    assertFalse(entity.aborted);
+    factory.shutdown();
+  }
+
+  @Test
+  public void releaseLargeResponse() {
+    final PoolingHttpClientFactory factory = new PoolingHttpClientFactory();
+    // Content of unknown length, e.g., a large entity set sent in chunks, is not read to the end.
+    final TestEntity entity = new TestEntity(-1);
+    factory.release(createResponse(entity));
+    assertFalse(entity.consumed);
+    assertTrue(entity.aborted);
+    factory.shutdown();
+  }
+
+  private HttpResponse createResponse(final TestEntity entity) {
+    final HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    response.setEntity(entity);
+    return response;
+  }
+
+  private static class TestEntity extends BasicHttpEntity implements ConnectionReleaseTrigger {
+    private boolean consumed;
+    private boolean aborted;
+
+    TestEntity(final long contentLength) {
+      setContentLength(contentLength);
+      // Closing the content of a managed entity reads it to the end and gives the connection back.
+      setContent(new ByteArrayInputStream(new byte[100]) {
+        @Override
+        public void close() throws IOException {
+          consumed = true;
+        }
+      });
+    }
+
+    @Override
+    public void releaseConnection() throws IOException {
+      // not used
+    }
+
+    @Override
+    public void abortConnection() throws IOException {
+      aborted = true;
+    }
+  }
+}
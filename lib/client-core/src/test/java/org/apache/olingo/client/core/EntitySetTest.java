@@ -19,9 +19,12 @@
 package org.apache.olingo.client.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -30,6 +33,7 @@ import org.apache.olingo.client.api.EdmEnabledODataClient;
 import org.apache.olingo.client.api.data.ResWrap;
 import org.apache.olingo.client.api.domain.ClientEntity;
 import org.apache.olingo.client.api.domain.ClientEntitySet;
+import org.apache.olingo.client.api.domain.ClientEntitySetIterator;
 import org.apache.olingo.client.api.serialization.ODataDeserializerException;
 import org.apache.olingo.commons.api.data.EntityCollection;
 import org.apache.olingo.commons.api.edm.Edm;
@@ -99,6 +103,26 @@ private EdmEnabledODataClient getEdmEnabledClient1() {
     read(ContentType.JSON);
   }
 
+  @Test
+  public void iterateJSON() throws Exception {
+    final String payload = "{\"@odata.context\":\"http://host/service/$metadata#Customers\","
+        + "\"@odata.count\":2,"
+        + "\"value\":[{\"Name\":\"{ not [ an object\"},{\"Name\":\"} ] \\\" }\"}],"
+        + "\"@odata.nextLink\":\"http://host/service/Customers?$skiptoken=2\","
+        + "\"@org.example.Note\":\"streamed\"}";
+    final ClientEntitySetIterator<ClientEntitySet, ClientEntity> iterator =
+        new ClientEntitySetIterator<ClientEntitySet, ClientEntity>(
+            client, new ByteArrayInputStream(payload.getBytes("UTF-8")), ContentType.JSON);
+
+    assertTrue(iterator.hasNext());
+    assertEquals("{ not [ an object", iterator.next().getProperty("Name").getPrimitiveValue().toString());
+    assertTrue(iterator.hasNext());
+    assertEquals("} ] \" }", iterator.next().getProperty("Name").getPrimitiveValue().toString());
+    assertFalse(iterator.hasNext());
+
+    assertEquals(URI.create("http://host/service/Customers?$skiptoken=2"), iterator.getNext());
+  }
+
   private void ref(final ContentType contentType) throws ODataDeserializerException {
     final InputStream input = getClass().getResourceAsStream("collectionOfEntityReferences." + getSuffix(contentType));
     final ClientEntitySet entitySet = client.getBinder().getODataEntitySet(
@@ -0,0 +1,483 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Entity which keeps the values of the structural properties of its type in slots given by a
+ * {@link PropertyLayout}, instead of in a list of {@link Property} objects.
+ * <p>A property value is stored without a property object as long as the property has no annotations
+ * and no operations, its value type is the one of the layout, and its type name is either not set or the
+ * one of the layout. Numeric values of the default Java type of their EDM type are stored unboxed.
+ * Properties which are not part of the layout (e.g., dynamic properties) are kept in a list.</p>
+ * <p>The methods of {@link Entity} work as usual: {@link #getProperty(String)} and the list returned by
+ * {@link #getProperties()} create the property object of a slot when it is accessed for the first time and keep
+ * it from then on, so that changes to it are reflected in the entity. Within the list, the properties of the
+ * layout come first and in the order of the type definition; adding a property which is already present
+ * replaces it.</p>
+ * <p>Consumers which only read values, like serializers, should use {@link #getValue(int)} or
+ * {@link #readProperty(String)}, which do neither search nor create property objects permanently.</p>
+ */
+public class IndexedEntity extends Entity {
+
+  /** Marks a slot holding the value <code>null</code>. */
+  private static final Object NULL = new Object();
+  /** Marks a slot whose value is in the numeric slots. */
+  private static final Object NUMERIC = new Object();
+
+  private final PropertyLayout layout;
+  /** Per slot: <code>null</code> if not set, {@link #NULL}, {@link #NUMERIC}, a property object, or the value. */
+  private final Object[] values;
+  private final long[] numbers;
+  /** Bit set of the slots whose type name has been set. */
+  private final long[] typed;
+  private int count;
+  private List<Property> otherProperties;
+  private List<Property> propertyList;
+
+  /**
+   * Creates an entity without properties.
+   * @param layout the layout of the entity type
+   */
+  public IndexedEntity(final PropertyLayout layout) {
+    this.layout = layout;
+    values = new Object[layout.getSlotCount()];
+    numbers = layout.getNumericCount() == 0 ? null : new long[layout.getNumericCount()];
+    typed = new long[(values.length + 63) >> 6];
+  }
+
+  public PropertyLayout getLayout() {
+    return layout;
+  }
+
+  /**
+   * Returns whether the property in a slot is present.
+   * @param slot the slot
+   */
+  public boolean isSet(final int slot) {
+    return values[slot] != null;
+  }
+
+  /**
+   * Gets the value of the property in a slot.
+   * @param slot the slot
+   * @return the value or <code>null</code> if the property is not present or its value is <code>null</code>
+   */
+  public Object getValue(final int slot) {
+    final Object value = values[slot];
+    if (value == NUMERIC) {
+      return fromNumber(layout.getNumericType(slot), numbers[layout.getNumericIndex(slot)]);
+    } else if (value == NULL) {
+      return null;
+    } else if (value instanceof Property) {
+      return ((Property) value).getValue();
+    } else {
+      return value;
+    }
+  }
+
+  /**
+   * Sets the value of the property in a slot, with the value type of the layout.
+   * The property becomes present if it has not been present before.
+   * @param slot the slot
+   * @param value the value
+   * @return this entity
+   */
+  public IndexedEntity setValue(final int slot, final Object value) {
+    final Object current = values[slot];
+    if (current instanceof Property) {
+      ((Property) current).setValue(layout.getValueType(slot), value);
+    } else {
+      if (current == null) {
+        count++;
+      }
+      store(slot, value);
+    }
+    return this;
+  }
+
+  /**
+   * Gets a property for reading.
+   * If no property object has been created for the property, a new one is returned which is not kept;
+   * changes to it are not reflected in the entity.
+   * @param slot the slot
+   * @return the property or <code>null</code> if it is not present
+   */
+  public Property readProperty(final int slot) {
+    final Object value = values[slot];
+    return value == null ? null :
+        value instanceof Property ? (Property) value :
+        createProperty(slot);
+  }
+
+  /**
+   * Gets a property for reading, see {@link #readProperty(int)}.
+   * @param name the name of the property
+   * @return the property or <code>null</code> if it is not present
+   */
+  public Property readProperty(final String name) {
+    final int slot = layout.getSlot(name);
+    return slot < 0 ? getOtherProperty(name) : readProperty(slot);
+  }
+
+  @Override
+  public Entity addProperty(final Property property) {
+    final int slot = layout.getSlot(property.getName());
+    if (slot < 0) {
+      if (otherProperties == null) {
+        otherProperties = new ArrayList<Property>();
+      }
+      otherProperties.add(property);
+      return this;
+    }
+    if (values[slot] == null) {
+      count++;
+    }
+    if (property.getAnnotations().isEmpty() && property.getOperations().isEmpty()
+        && property.getValueType() == layout.getValueType(slot)
+        && (property.getType() == null || property.getType().equals(layout.getTypeName(slot)))) {
+      store(slot, property.getValue());
+      if (property.getType() != null) {
+        typed[slot >> 6] |= 1L << slot;
+      }
+    } else {
+      values[slot] = property;
+    }
+    return this;
+  }
+
+  @Override
+  public List<Property> getProperties() {
+    if (propertyList == null) {
+      propertyList = new PropertyList();
+    }
+    return propertyList;
+  }
+
+  @Override
+  public Property getProperty(final String name) {
+    final int slot = layout.getSlot(name);
+    return slot < 0 ? getOtherProperty(name) : getBoundProperty(slot);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder().append('[');
+    for (int slot = 0; slot < values.length; slot++) {
+      if (values[slot] != null) {
+        result.append(result.length() > 1 ? ", " : "").append(readProperty(slot));
+      }
+    }
+    if (otherProperties != null) {
+      for (final Property property : otherProperties) {
+        result.append(result.length() > 1 ? ", " : "").append(property);
+      }
+    }
+    return result.append(']').toString();
+  }
+
+  private Property getOtherProperty(final String name) {
+    if (otherProperties != null) {
+      for (final Property property : otherProperties) {
+        if (name.equals(property.getName())) {
+          return property;
+        }
+      }
+    }
+    return null;
+  }
+
+  /** Gets the property object of a slot, which is created and kept if it does not exist yet. */
+  private Property getBoundProperty(final int slot) {
+    final Object value = values[slot];
+    if (value == null || value instanceof Property) {
+      return (Property) value;
+    }
+    final Property property = createProperty(slot);
+    values[slot] = property;
+    typed[slot >> 6] &= ~(1L << slot);
+    return property;
+  }
+
+  private Property createProperty(final int slot) {
+    return new Property((typed[slot >> 6] & 1L << slot) == 0 ? null : layout.getTypeName(slot),
+        layout.getName(slot), layout.getValueType(slot), getValue(slot));
+  }
+
+  private void store(final int slot, final Object value) {
+    typed[slot >> 6] &= ~(1L << slot);
+    final Class<?> numericType = layout.getNumericType(slot);
+    if (value == null) {
+      values[slot] = NULL;
+    } else if (numericType != null && value.getClass() == numericType) {
+      numbers[layout.getNumericIndex(slot)] = toNumber(value);
+      values[slot] = NUMERIC;
+    } else {
+      values[slot] = value;
+    }
+  }
+
+  private void remove(final int slot) {
+    values[slot] = null;
+    typed[slot >> 6] &= ~(1L << slot);
+    count--;
+  }
+
+  /** Gets the first slot from the given one on whose property is present, or the number of slots. */
+  private int getNextSlot(final int slot) {
+    int next = slot;
+    while (next < values.length && values[next] == null) {
+      next++;
+    }
+    return next;
+  }
+
+  /**
+   * Compares the property in a slot with the one in the same slot of another entity with the same layout.
+   * Values stored without property object are compared directly.
+   */
+  private boolean slotEquals(final int slot, final IndexedEntity other) {
+    final Object value = values[slot];
+    final Object otherValue = other.values[slot];
+    if (value == null || otherValue == null) {
+      return value == otherValue;
+    } else if (value instanceof Property || otherValue instanceof Property) {
+      return readProperty(slot).equals(other.readProperty(slot));
+    } else if ((typed[slot >> 6] & 1L << slot) != (other.typed[slot >> 6] & 1L << slot)) {
+      return false;
+    } else if (value == NUMERIC && otherValue == NUMERIC
+        && numbers[layout.getNumericIndex(slot)] == other.numbers[layout.getNumericIndex(slot)]) {
+      return true;
+    } else {
+      final Object current = getValue(slot);
+      return current == null ? other.getValue(slot) == null : current.equals(other.getValue(slot));
+    }
+  }
+
+  /** Gets the slot of the property at a position in the list of present properties of the layout. */
+  private int getSlotAt(final int index) {
+    if (count == values.length) {
+      return index;
+    }
+    int remaining = index;
+    for (int slot = 0; slot < values.length; slot++) {
+      if (values[slot] != null && remaining-- == 0) {
+        return slot;
+      }
+    }
+    throw new IndexOutOfBoundsException("Index: " + index);
+  }
+
+  private static long toNumber(final Object value) {
+    if (value instanceof Boolean) {
+      return (Boolean) value ? 1 : 0;
+    } else if (value instanceof Float) {
+      return Float.floatToRawIntBits((Float) value);
+    } else if (value instanceof Double) {
+      return Double.doubleToRawLongBits((Double) value);
+    } else {
+      return ((Number) value).longValue();
+    }
+  }
+
+  private static Object fromNumber(final Class<?> type, final long number) {
+    if (type == Boolean.class) {
+      return number != 0;
+    } else if (type == Float.class) {
+      return Float.intBitsToFloat((int) number);
+    } else if (type == Double.class) {
+      return Double.longBitsToDouble(number);
+    } else if (type == Long.class) {
+      return number;
+    } else if (type == Integer.class) {
+      return (int) number;
+    } else if (type == Short.class) {
+      return (short) number;
+    } else {
+      return (byte) number;
+    }
+  }
+
+  /** Live list of the properties; positions are determined by the present slots followed by other properties. */
+  private class PropertyList extends AbstractList<Property> {
+
+    @Override
+    public Property get(final int index) {
+      if (index < count) {
+        return getBoundProperty(getSlotAt(index));
+      } else if (otherProperties != null && index >= 0) {
+        return otherProperties.get(index - count);
+      } else {
+        throw new IndexOutOfBoundsException("Index: " + index);
+      }
+    }
+
+    @Override
+    public int size() {
+      return count + (otherProperties == null ? 0 : otherProperties.size());
+    }
+
+    /** Adds the property; properties of the layout are placed according to their slot, independent of the index. */
+    @Override
+    public void add(final int index, final Property property) {
+      addProperty(property);
+      modCount++;
+    }
+
+    @Override
+    public Property set(final int index, final Property property) {
+      final Property previous = remove(index);
+      addProperty(property);
+      return previous;
+    }
+
+    @Override
+    public Property remove(final int index) {
+      final Property previous = get(index);
+      if (index < count) {
+        IndexedEntity.this.remove(getSlotAt(index));
+      } else {
+        otherProperties.remove(index - count);
+      }
+      modCount++;
+      return previous;
+    }
+
+    /** Iterates over the present slots once instead of searching the slot of each position. */
+    @Override
+    public Iterator<Property> iterator() {
+      return new PropertyIterator();
+    }
+
+    /** Compares the properties slot by slot, without binding property objects, if both entities share the layout. */
+    @Override
+    public boolean equals(final Object o) {
+      if (o == this) {
+        return true;
+      } else if (o instanceof PropertyList && ((PropertyList) o).getEntity().layout == layout) {
+        final IndexedEntity other = ((PropertyList) o).getEntity();
+        if (count != other.count) {
+          return false;
+        }
+        for (int slot = 0; slot < values.length; slot++) {
+          if (!slotEquals(slot, other)) {
+            return false;
+          }
+        }
+        return otherProperties == null || otherProperties.isEmpty() ?
+            other.otherProperties == null || other.otherProperties.isEmpty() :
+            otherProperties.equals(other.otherProperties);
+      } else if (o instanceof List) {
+        Iterator<Property> iterator = iterator();
+        Iterator<?> otherIterator = ((List<?>) o).iterator();
+        while (iterator.hasNext() && otherIterator.hasNext()) {
+          final Object otherProperty = otherIterator.next();
+          if (!iterator.next().equals(otherProperty)) {
+            return false;
+          }
+        }
+        return !iterator.hasNext() && !otherIterator.hasNext();
+      } else {
+        return false;
+      }
+    }
+
+    /** Computes the hash code of a list of the properties, without binding property objects. */
+    @Override
+    public int hashCode() {
+      int result = 1;
+      for (int slot = 0; slot < values.length; slot++) {
+        if (values[slot] != null) {
+          result = 31 * result + readProperty(slot).hashCode();
+        }
+      }
+      if (otherProperties != null) {
+        for (final Property property : otherProperties) {
+          result = 31 * result + (property == null ? 0 : property.hashCode());
+        }
+      }
+      return result;
+    }
+
+    private IndexedEntity getEntity() {
+      return IndexedEntity.this;
+    }
+
+    /** Iterator over the present slots followed by the other properties. */
+    private class PropertyIterator implements Iterator<Property> {
+
+      private int nextSlot = getNextSlot(0);
+      private int nextOther;
+      private int lastSlot = -1;
+      private boolean lastOther;
+      private int expectedModCount = modCount;
+
+      @Override
+      public boolean hasNext() {
+        return nextSlot < values.length || otherProperties != null && nextOther < otherProperties.size();
+      }
+
+      @Override
+      public Property next() {
+        checkModCount();
+        if (nextSlot < values.length) {
+          lastSlot = nextSlot;
+          lastOther = false;
+          nextSlot = getNextSlot(nextSlot + 1);
+          return getBoundProperty(lastSlot);
+        } else if (otherProperties != null && nextOther < otherProperties.size()) {
+          lastSlot = -1;
+          lastOther = true;
+          return otherProperties.get(nextOther++);
+        } else {
+          throw new NoSuchElementException();
+        }
+      }
+
+      @Override
+      public void remove() {
+        if (lastSlot < 0 && !lastOther) {
+          throw new IllegalStateException();
+        }
+        checkModCount();
+        if (lastOther) {
+          otherProperties.remove(--nextOther);
+        } else {
+          IndexedEntity.this.remove(lastSlot);
+        }
+        lastSlot = -1;
+        lastOther = false;
+        modCount++;
+        expectedModCount = modCount;
+      }
+
+      private void checkModCount() {
+        if (modCount != expectedModCount) {
+          throw new ConcurrentModificationException();
+        }
+      }
+    }
+  }
+}
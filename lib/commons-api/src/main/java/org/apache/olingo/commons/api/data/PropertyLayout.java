@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+
+/**
+ * Assignment of the structural properties of a type to the value slots of an {@link IndexedEntity}.
+ * <p>The slots follow the order of the properties in the type definition.
+ * Single-valued properties of the types Boolean, Byte, SByte, Int16, Int32, Int64, Single, and Double
+ * additionally get a numeric slot, so that their values need not be kept as objects.</p>
+ * <p>A layout is immutable; it is created once per type and shared by all its entities.</p>
+ */
+public final class PropertyLayout {
+
+  private final EdmStructuredType type;
+  private final String[] names;
+  private final String[] typeNames;
+  private final ValueType[] valueTypes;
+  private final Class<?>[] numericTypes;
+  private final int[] numericIndexes;
+  private final int numericCount;
+  private final Map<String, Integer> slots;
+
+  /**
+   * Creates the layout for a structured type.
+   * @param type the entity type or complex type
+   */
+  public PropertyLayout(final EdmStructuredType type) {
+    this.type = type;
+    final List<String> propertyNames = type.getPropertyNames();
+    final int count = propertyNames.size();
+    names = new String[count];
+    typeNames = new String[count];
+    valueTypes = new ValueType[count];
+    numericTypes = new Class<?>[count];
+    numericIndexes = new int[count];
+    slots = new HashMap<String, Integer>(count * 2);
+    int numerics = 0;
+    for (int slot = 0; slot < count; slot++) {
+      final EdmProperty property = type.getStructuralProperty(propertyNames.get(slot));
+      names[slot] = property.getName();
+      typeNames[slot] = property.getType().getFullQualifiedName().getFullQualifiedNameAsString();
+      valueTypes[slot] = getValueType(property);
+      numericTypes[slot] = property.isCollection() ? null : getNumericType(property.getType());
+      numericIndexes[slot] = numericTypes[slot] == null ? -1 : numerics++;
+      slots.put(names[slot], slot);
+    }
+    numericCount = numerics;
+  }
+
+  /** Gets the type this layout has been created for. */
+  public EdmStructuredType getType() {
+    return type;
+  }
+
+  /** Gets the number of slots, i.e., the number of structural properties of the type. */
+  public int getSlotCount() {
+    return names.length;
+  }
+
+  /**
+   * Gets the slot of a property.
+   * @param name the name of the property
+   * @return the slot or -1 if the type has no structural property with this name
+   */
+  public int getSlot(final String name) {
+    final Integer slot = slots.get(name);
+    return slot == null ? -1 : slot;
+  }
+
+  /** Gets the name of the property in a slot. */
+  public String getName(final int slot) {
+    return names[slot];
+  }
+
+  /** Gets the full-qualified name of the type of the property in a slot. */
+  public String getTypeName(final int slot) {
+    return typeNames[slot];
+  }
+
+  /** Gets the value type of the property in a slot. */
+  public ValueType getValueType(final int slot) {
+    return valueTypes[slot];
+  }
+
+  /** Gets the Java type of values kept in the numeric slot, or <code>null</code> if the slot has none. */
+  Class<?> getNumericType(final int slot) {
+    return numericTypes[slot];
+  }
+
+  /** Gets the position of the numeric slot among all numeric slots, or -1 if the slot has none. */
+  int getNumericIndex(final int slot) {
+    return numericIndexes[slot];
+  }
+
+  int getNumericCount() {
+    return numericCount;
+  }
+
+  private static ValueType getValueType(final EdmProperty property) {
+    final EdmTypeKind kind = property.getType().getKind();
+    if (kind == EdmTypeKind.COMPLEX) {
+      return property.isCollection() ? ValueType.COLLECTION_COMPLEX : ValueType.COMPLEX;
+    } else if (kind == EdmTypeKind.ENUM) {
+      return property.isCollection() ? ValueType.COLLECTION_ENUM : ValueType.ENUM;
+    } else {
+      return property.isCollection() ? ValueType.COLLECTION_PRIMITIVE : ValueType.PRIMITIVE;
+    }
+  }
+
+  private static Class<?> getNumericType(final EdmType type) {
+    if (type.getKind() != EdmTypeKind.PRIMITIVE) {
+      return null;
+    }
+    switch (EdmPrimitiveTypeKind.valueOfFQN(type.getFullQualifiedName())) {
+    case Boolean:
+    case Byte:
+    case SByte:
+    case Int16:
+    case Int32:
+    case Int64:
+    case Single:
+    case Double:
+      return ((EdmPrimitiveType) type).getDefaultType();
+    default:
+      return null;
+    }
+  }
+}
@@ -18,10 +18,12 @@
  */
 package org.apache.olingo.netty.server.api;
 
+import java.io.InputStream;
 import java.util.Map;
 
 import org.apache.olingo.server.api.processor.Processor;
 
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 
@@ -36,6 +38,21 @@ public interface ODataNettyHandler {
    * @param response - HTTP OData response
    */
   void processNettyRequest(HttpRequest request, HttpResponse response, Map<String, String> requestParameters);
+
+  /**
+   * <p>Processes a NettyRequest as an OData request without aggregating request or response content.</p>
+   * <p>The request body is read from the given stream while the request is processed, for example from an
+   * {@link ODataNettyRequestBody} fed with the incoming HTTP chunks. The response is written to the channel
+   * as an {@link HttpResponse} followed by chunks of content as the serializer produces them. While the
+   * channel is not writable the calling thread waits, so this method must not be called on the event loop
+   * of the channel.</p>
+   * @param request - must be a HTTP OData request; its content (if any) is ignored
+   * @param body - request body, or <code>null</code> for requests without body
+   * @param context - context of the channel the response is written to
+   * @param requestParameters - the same parameters as for the aggregated variant
+   */
+  void processNettyRequest(HttpRequest request, InputStream body, ChannelHandlerContext context,
+      Map<String, String> requestParameters);
   
   /**
    * <p>Registers additional custom processor implementations for handling OData requests.</p>
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.netty.server.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * <p>Request body of a non-aggregated Netty request.</p>
+ * <p>The channel handler passes every received {@link HttpContent} to {@link #offer(HttpContent)} on the event
+ * loop, while the OData request is processed on another thread which reads this stream.
+ * If more than the configured number of bytes is waiting to be read, automatic reading from the channel is
+ * suspended until the reader has caught up.</p>
+ * <p>{@link #fail(Throwable)} has to be called if the channel becomes inactive before the last content has been
+ * received, otherwise the reading thread waits forever.</p>
+ */
+public class ODataNettyRequestBody extends InputStream {
+
+  /** Default number of received but unread bytes above which reading from the channel is suspended. */
+  public static final int DEFAULT_MAX_BUFFERED_BYTES = 1024 * 1024;
+
+  /** Marks the end of the body; empty contents are never queued. */
+  private static final ByteBuf END = Unpooled.EMPTY_BUFFER;
+
+  private final Channel channel;
+  private final int maxBufferedBytes;
+  private final BlockingQueue<ByteBuf> queue = new LinkedBlockingQueue<ByteBuf>();
+  private final AtomicInteger bufferedBytes = new AtomicInteger();
+  private volatile IOException failure;
+  private volatile boolean closed;
+  private ByteBuf current;
+  private boolean finished;
+
+  public ODataNettyRequestBody(final Channel channel) {
+    this(channel, DEFAULT_MAX_BUFFERED_BYTES);
+  }
+
+  public ODataNettyRequestBody(final Channel channel, final int maxBufferedBytes) {
+    this.channel = channel;
+    this.maxBufferedBytes = maxBufferedBytes;
+  }
+
+  /**
+   * Adds received content to the body. The content is retained as long as it has not been read,
+   * so the caller releases it as usual.
+   * @param content - received HTTP content; {@link LastHttpContent} ends the body
+   */
+  public void offer(final HttpContent content) {
+    final ByteBuf data = content.content();
+    if (data.isReadable()) {
+      if (bufferedBytes.addAndGet(data.readableBytes()) > maxBufferedBytes) {
+        channel.config().setAutoRead(false);
+      }
+      queue.add(data.retain());
+    }
+    if (content instanceof LastHttpContent) {
+      queue.add(END);
+    }
+    if (closed) {
+      releaseQueued();
+    }
+  }
+
+  /**
+   * Ends the body with an error; the reading thread gets an {@link IOException} once it has read
+   * the content received so far.
+   * @param cause - reason why no further content will be received
+   */
+  public void fail(final Throwable cause) {
+    failure = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+    queue.add(END);
+  }
+
+  @Override
+  public int read() throws IOException {
+    final ByteBuf buffer = nextBuffer();
+    return buffer == null ? -1 : buffer.readByte() & 0xFF;
+  }
+
+  @Override
+  public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    final ByteBuf buffer = nextBuffer();
+    if (buffer == null) {
+      return -1;
+    }
+    final int count = Math.min(length, buffer.readableBytes());
+    buffer.readBytes(bytes, offset, count);
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return current == null ? 0 : current.readableBytes();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    finished = true;
+    releaseCurrent();
+    releaseQueued();
+    resumeReading();
+  }
+
+  private ByteBuf nextBuffer() throws IOException {
+    if (current != null && current.isReadable()) {
+      return current;
+    }
+    releaseCurrent();
+    if (!finished) {
+      final ByteBuf next;
+      try {
+        next = queue.take();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for request content");
+      }
+      if (next != END) {
+        if (bufferedBytes.addAndGet(-next.readableBytes()) <= maxBufferedBytes / 2) {
+          resumeReading();
+        }
+        current = next;
+        return current;
+      }
+      finished = true;
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return null;
+  }
+
+  private void resumeReading() {
+    if (!channel.config().isAutoRead()) {
+      channel.config().setAutoRead(true);
+    }
+  }
+
+  private void releaseCurrent() {
+    if (current != null) {
+      current.release();
+      current = null;
+    }
+  }
+
+  private void releaseQueued() {
+    ByteBuf buffer;
+    while ((buffer = queue.poll()) != null) {
+      if (buffer != END) {
+        bufferedBytes.addAndGet(-buffer.readableBytes());
+        buffer.release();
+      }
+    }
+  }
+}
@@ -33,11 +33,13 @@ import org.apache.olingo.server.api.deserializer.FixedFormatDeserializer;
 import org.apache.olingo.server.api.deserializer.ODataDeserializer;
 import org.apache.olingo.server.api.etag.ETagHelper;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.paging.KeysetPagingHelper;
 import org.apache.olingo.server.api.prefer.Preferences;
 import org.apache.olingo.server.api.serializer.EdmAssistedSerializer;
 import org.apache.olingo.server.api.serializer.EdmDeltaSerializer;
 import org.apache.olingo.server.api.serializer.FixedFormatSerializer;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.serializer.RowBatchSerializer;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriHelper;
 
@@ -179,6 +181,14 @@ public abstract class OData {
    */
   public abstract Preferences createPreferences(Collection<String> preferHeaders);
 
+  /**
+   * Creates a new keyset-paging helper object for server-side paging with compact skiptokens.
+   * @param signingKey the secret key to sign skiptokens with HMAC-SHA256,
+   * or <code>null</code> to create unsigned skiptokens
+   * @see KeysetPagingHelper
+   */
+  public abstract KeysetPagingHelper createKeysetPagingHelper(byte[] signingKey);
+
   /**
    * Creates a DebugResponseHelper for the given debugFormat.
    * If the format is not supported no exception is thrown.
@@ -196,6 +206,13 @@ public abstract class OData {
   public abstract EdmAssistedSerializer createEdmAssistedSerializer(final ContentType contentType)
       throws SerializerException;
   
+  /**
+   * Creates a new serializer object for rendering entity collections supplied as row batches
+   * in the specified format.
+   * @param contentType a content type supported by Olingo
+   */
+  public abstract RowBatchSerializer createRowBatchSerializer(ContentType contentType) throws SerializerException;
+
   /**
    * Creates a new serializer object capable of working without EDM information
    * for rendering delta content in the specified format.
@@ -43,6 +43,8 @@ public interface ODataHandler {
    * <p>Registers additional custom processor implementations for handling OData requests.</p>
    * <p>If request processing requires a processor that is not registered then a
    * "not implemented" exception will happen.</p>
+   * <p>The processor is initialized once, at registration, and not before each request;
+   * see {@link Processor#init(OData, ServiceMetadata)}.</p>
    */
   void register(Processor processor);
 
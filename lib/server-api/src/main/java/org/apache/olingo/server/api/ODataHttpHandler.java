@@ -27,6 +27,7 @@ import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 
 /**
  * Handles HTTP requests as OData requests.
+ * Once its processors and extensions are registered, a handler can be shared by all threads of the service.
  */
 public interface ODataHttpHandler extends ODataHandler {
 
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.async;
+
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataHandler;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.OlingoExtension;
+
+/**
+ * Processes requests with the preference <code>respond-async</code> in the background
+ * and serves the status monitor resources for these requests.
+ * Since the status of a request has to outlive the handler which accepted it,
+ * one instance is shared by all handlers of a service.
+ * It is registered at an {@link org.apache.olingo.server.api.ODataHttpHandler} as {@link OlingoExtension};
+ * requests to its status monitor resources are handled by that handler, too.
+ */
+public interface AsyncSupport extends OlingoExtension {
+
+  /** Path segment after the service root under which status monitor resources are located. */
+  String STATUS_MONITOR_SEGMENT = "$async";
+
+  /**
+   * Initializes the async support implementation.
+   * Is called when the async support is registered at a handler.
+   * @param odata related OData/Olingo service factory
+   */
+  void init(OData odata);
+
+  /**
+   * Determines whether the request addresses a status monitor resource.
+   * @param request the OData request
+   * @return true if the request has to be processed by {@link #processStatusMonitorRequest(ODataRequest)}
+   */
+  boolean isStatusMonitorRequest(ODataRequest request);
+
+  /**
+   * Processes a request to a status monitor resource.
+   * A GET request returns the status of the processing or its result; a DELETE request cancels the processing.
+   * This method MUST NEVER throw an exception.
+   * @param request the OData request
+   * @return the response to the status monitor request
+   */
+  ODataResponse processStatusMonitorRequest(ODataRequest request);
+
+  /**
+   * Starts the processing of a request which prefers an asynchronous response.
+   * The request body has been read completely when this method returns.
+   * @param request the OData request
+   * @param handler the handler processing the request in the background; it may process other requests concurrently
+   * @return the response which points the client to the status monitor resource,
+   * or <code>null</code> if the request has to be processed synchronously
+   */
+  ODataResponse processAsync(ODataRequest request, ODataHandler handler);
+}
@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.async;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.format.PreferenceName;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataHandler;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.serializer.SerializerException;
+
+/**
+ * <p>Supports asynchronous processing with an executor and keeps the results in memory.</p>
+ * <p>At most a configured number of requests is accepted for asynchronous processing at the same time;
+ * further requests are handled according to the {@link RejectionPolicy}.
+ * A result is kept until it has been retrieved from its status monitor resource or until its time to live
+ * has expired.</p>
+ * <p>The status monitor resources are located at
+ * <code>{serviceRoot}/$async/{id}</code> where the id is a random UUID.</p>
+ */
+public class DefaultAsyncSupport implements AsyncSupport {
+
+  /** What happens to a request if no further request can be processed asynchronously. */
+  public enum RejectionPolicy {
+    /** The request is processed synchronously, i.e., the preference <code>respond-async</code> is ignored. */
+    PROCESS_SYNCHRONOUSLY,
+    /** The request is rejected with status code 503 (Service Unavailable). */
+    SERVICE_UNAVAILABLE
+  }
+
+  public static final int DEFAULT_MAX_JOBS = 100;
+  public static final long DEFAULT_RESULT_TIME_TO_LIVE_MINUTES = 10;
+
+  private static final String STATUS_MONITOR_PATH = "/" + STATUS_MONITOR_SEGMENT + "/";
+  private static final String CONTENT_TRANSFER_ENCODING = "Content-Transfer-Encoding";
+  private static final long EVICTION_INTERVAL = 1000;
+  private static final int COPY_BUFFER_SIZE = 8192;
+
+  private final Executor executor;
+  private final ExecutorService ownExecutor;
+  private final int maxJobs;
+  private final long resultTimeToLive;
+  private final RejectionPolicy rejectionPolicy;
+  private final ConcurrentMap<String, Job> jobs = new ConcurrentHashMap<String, Job>();
+  private final AtomicInteger unfinishedJobs = new AtomicInteger();
+  private final AtomicLong nextEviction = new AtomicLong();
+  private volatile OData odata;
+
+  /**
+   * Creates async support with its own pool of the given number of threads,
+   * the default limit of unfinished requests and the default time to live of results.
+   * The requests exceeding the limit are processed synchronously.
+   * The pool is shut down with {@link #shutdown()}.
+   * @param threads number of threads processing requests
+   */
+  public DefaultAsyncSupport(final int threads) {
+    this(Executors.newFixedThreadPool(threads), DEFAULT_MAX_JOBS,
+        DEFAULT_RESULT_TIME_TO_LIVE_MINUTES, TimeUnit.MINUTES, RejectionPolicy.PROCESS_SYNCHRONOUSLY, true);
+  }
+
+  /**
+   * Creates async support with the given executor; the executor is not shut down by this class.
+   * @param executor executes the requests, e.g., with one thread per request
+   * @param maxJobs maximum number of requests accepted but not yet finished
+   * @param resultTimeToLive time a result is kept after the processing has finished
+   * @param unit unit of the time to live
+   * @param rejectionPolicy how requests exceeding the maximum number are handled
+   */
+  public DefaultAsyncSupport(final Executor executor, final int maxJobs, final long resultTimeToLive,
+      final TimeUnit unit, final RejectionPolicy rejectionPolicy) {
+    this(executor, maxJobs, resultTimeToLive, unit, rejectionPolicy, false);
+  }
+
+  private DefaultAsyncSupport(final Executor executor, final int maxJobs, final long resultTimeToLive,
+      final TimeUnit unit, final RejectionPolicy rejectionPolicy, final boolean ownsExecutor) {
+    this.executor = executor;
+    ownExecutor = ownsExecutor ? (ExecutorService) executor : null;
+    this.maxJobs = maxJobs;
+    this.resultTimeToLive = unit.toMillis(resultTimeToLive);
+    this.rejectionPolicy = rejectionPolicy;
+  }
+
+  @Override
+  public void init(final OData odata) {
+    this.odata = odata;
+  }
+
+  @Override
+  public boolean isStatusMonitorRequest(final ODataRequest request) {
+    return request.getRawODataPath() != null && request.getRawODataPath().startsWith(STATUS_MONITOR_PATH);
+  }
+
+  @Override
+  public ODataResponse processStatusMonitorRequest(final ODataRequest request) {
+    evictExpiredResults();
+    final String id = request.getRawODataPath().substring(STATUS_MONITOR_PATH.length());
+    final Job job = jobs.get(id);
+    ODataResponse response = new ODataResponse();
+    if (job == null) {
+      response.setStatusCode(HttpStatusCode.NOT_FOUND.getStatusCode());
+    } else if (request.getMethod() == HttpMethod.DELETE) {
+      jobs.remove(id, job);
+      job.cancel(true);
+      response.setStatusCode(HttpStatusCode.NO_CONTENT.getStatusCode());
+    } else if (request.getMethod() != HttpMethod.GET) {
+      response.setStatusCode(HttpStatusCode.METHOD_NOT_ALLOWED.getStatusCode());
+    } else if (!job.isDone()) {
+      response.setStatusCode(HttpStatusCode.ACCEPTED.getStatusCode());
+      response.setHeader(HttpHeader.LOCATION, request.getRawBaseUri() + request.getRawODataPath());
+    } else if (!jobs.remove(id, job)) {
+      // The result has been delivered or cancelled concurrently.
+      response.setStatusCode(HttpStatusCode.NOT_FOUND.getStatusCode());
+    } else {
+      try {
+        final byte[] result = job.get();
+        response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+        response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_HTTP.toContentTypeString());
+        response.setHeader(CONTENT_TRANSFER_ENCODING, "binary");
+        response.setContent(new ByteArrayInputStream(result));
+      } catch (final ExecutionException e) {
+        response.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        response.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+      }
+    }
+    return response;
+  }
+
+  @Override
+  public ODataResponse processAsync(final ODataRequest request, final ODataHandler handler) {
+    evictExpiredResults();
+    if (unfinishedJobs.incrementAndGet() > maxJobs) {
+      unfinishedJobs.decrementAndGet();
+      return reject();
+    }
+
+    final byte[] body;
+    try {
+      body = readBody(request.getBody());
+    } catch (final IOException e) {
+      unfinishedJobs.decrementAndGet();
+      throw new ODataRuntimeException("Error on reading request content", e);
+    }
+    final ODataRequest asyncRequest = copyRequest(request, body);
+    final String id = UUID.randomUUID().toString();
+    final Job job = new Job(new Callable<byte[]>() {
+      @Override
+      public byte[] call() throws SerializerException, IOException {
+        return readBody(odata.createFixedFormatSerializer().asyncResponse(handler.process(asyncRequest)));
+      }
+    });
+    jobs.put(id, job);
+    try {
+      executor.execute(job);
+    } catch (final RejectedExecutionException e) {
+      jobs.remove(id);
+      unfinishedJobs.decrementAndGet();
+      request.setBody(body == null ? null : new ByteArrayInputStream(body));
+      return reject();
+    }
+
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.ACCEPTED.getStatusCode());
+    response.setHeader(HttpHeader.LOCATION, request.getRawBaseUri() + STATUS_MONITOR_PATH + id);
+    response.setHeader(HttpHeader.PREFERENCE_APPLIED, PreferenceName.RESPOND_ASYNC.getName());
+    return response;
+  }
+
+  /**
+   * Cancels all unfinished requests, drops all results, and shuts down the thread pool
+   * if it has been created by this class.
+   */
+  public void shutdown() {
+    for (Job job : jobs.values()) {
+      job.cancel(true);
+    }
+    jobs.clear();
+    if (ownExecutor != null) {
+      ownExecutor.shutdownNow();
+    }
+  }
+
+  /**
+   * Gets the number of requests which have been accepted but not yet finished.
+   * @return number of unfinished requests
+   */
+  public int getUnfinishedCount() {
+    return unfinishedJobs.get();
+  }
+
+  private ODataResponse reject() {
+    if (rejectionPolicy == RejectionPolicy.PROCESS_SYNCHRONOUSLY) {
+      return null;
+    }
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.SERVICE_UNAVAILABLE.getStatusCode());
+    return response;
+  }
+
+  /** Removes expired results; the map is scanned at most once per eviction interval. */
+  private void evictExpiredResults() {
+    final long now = System.currentTimeMillis();
+    final long next = nextEviction.get();
+    if (now < next || !nextEviction.compareAndSet(next, now + EVICTION_INTERVAL)) {
+      return;
+    }
+    for (Map.Entry<String, Job> entry : jobs.entrySet()) {
+      final Job job = entry.getValue();
+      if (job.finishedAt > 0 && now - job.finishedAt > resultTimeToLive) {
+        jobs.remove(entry.getKey(), job);
+      }
+    }
+  }
+
+  private static ODataRequest copyRequest(final ODataRequest request, final byte[] body) {
+    ODataRequest copy = new ODataRequest();
+    copy.setBody(body == null ? null : new ByteArrayInputStream(body));
+    copy.setMethod(request.getMethod());
+    copy.setProtocol(request.getProtocol());
+    copy.setRawBaseUri(request.getRawBaseUri());
+    copy.setRawODataPath(request.getRawODataPath());
+    copy.setRawQueryPath(request.getRawQueryPath());
+    copy.setRawRequestUri(request.getRawRequestUri());
+    copy.setRawServiceResolutionUri(request.getRawServiceResolutionUri());
+    for (Map.Entry<String, List<String>> header : request.getAllHeaders().entrySet()) {
+      if (HttpHeader.PREFER.equalsIgnoreCase(header.getKey())) {
+        // Other preferences still apply to the processing.
+        final List<String> preferences = removeRespondAsync(header.getValue());
+        if (!preferences.isEmpty()) {
+          copy.addHeader(header.getKey(), preferences);
+        }
+      } else {
+        copy.addHeader(header.getKey(), header.getValue());
+      }
+    }
+    return copy;
+  }
+
+  private static List<String> removeRespondAsync(final List<String> preferHeaders) {
+    List<String> result = new ArrayList<String>();
+    for (final String preferHeader : preferHeaders) {
+      StringBuilder kept = new StringBuilder();
+      for (final String preference : preferHeader.split(",")) {
+        final String name = preference.split("[=;]", 2)[0].trim();
+        if (!PreferenceName.RESPOND_ASYNC.getName().equalsIgnoreCase(name) && name.length() > 0) {
+          kept.append(kept.length() == 0 ? "" : ",").append(preference);
+        }
+      }
+      if (kept.length() > 0) {
+        result.add(kept.toString().trim());
+      }
+    }
+    return result;
+  }
+
+  private static byte[] readBody(final InputStream input) throws IOException {
+    if (input == null) {
+      return null;
+    }
+    try {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      byte[] buffer = new byte[COPY_BUFFER_SIZE];
+      int count;
+      while ((count = input.read(buffer)) != -1) {
+        output.write(buffer, 0, count);
+      }
+      return output.toByteArray();
+    } finally {
+      input.close();
+    }
+  }
+
+  /**
+   * A request in the background which records when it has finished.
+   * It counts as unfinished until the executing thread has left it, also if it has been cancelled meanwhile.
+   */
+  private class Job extends FutureTask<byte[]> {
+    private volatile long finishedAt;
+
+    Job(final Callable<byte[]> callable) {
+      super(callable);
+    }
+
+    @Override
+    public void run() {
+      try {
+        super.run();
+      } finally {
+        unfinishedJobs.decrementAndGet();
+      }
+    }
+
+    @Override
+    protected void done() {
+      finishedAt = System.currentTimeMillis();
+    }
+  }
+}
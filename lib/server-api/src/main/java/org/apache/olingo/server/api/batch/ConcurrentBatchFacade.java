@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.batch;
+
+import java.util.List;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
+
+/**
+ * Batch facade that can handle several batch-request parts at once,
+ * executing GET requests outside of change sets concurrently.
+ * <p>The facade passed to a {@link org.apache.olingo.server.api.processor.BatchProcessor BatchProcessor}
+ * by the handler implements this interface. It is separate from {@link BatchFacade} so that existing
+ * implementations of that interface are not affected.</p>
+ */
+public interface ConcurrentBatchFacade extends BatchFacade {
+
+  /**
+   * Handles several BatchRequestParts and returns the responses in the same order.
+   * <p>If the handler has been configured with an executor for batch requests,
+   * consecutive GET requests outside of change sets are executed concurrently;
+   * all other parts are executed one after the other as with {@link #handleBatchRequest(BatchRequestPart)},
+   * after all previous parts have been completed.</p>
+   * @param requests Requests to process
+   * @return corresponding list of {@link ODataResponsePart}s
+   * @throws ODataApplicationException
+   * @throws ODataLibraryException
+   */
+  List<ODataResponsePart> handleBatchRequests(List<BatchRequestPart> requests)
+      throws ODataApplicationException, ODataLibraryException;
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.deserializer;
+
+import org.apache.olingo.commons.api.data.Entity;
+
+/**
+ * Reads the entities of an entity-collection payload one after the other.
+ * <br/>
+ * The entities are not kept by the iterator, so a processor can handle each of them
+ * (e.g., store it) while the rest of the payload is still to be read.
+ * Content following the entities is validated only when {@link #hasNext()}
+ * has returned <code>false</code>, so the iteration should always be completed.
+ */
+public interface EntityCollectionIterator {
+
+  /**
+   * Reads the payload up to the next entity, if any.
+   * @return <code>true</code> if there is a further entity
+   * @throws DeserializerException if the payload is not valid
+   */
+  boolean hasNext() throws DeserializerException;
+
+  /**
+   * Gets the next entity.
+   * @return the next entity
+   * @throws DeserializerException if the payload is not valid
+   * @throws java.util.NoSuchElementException if there are no further entities
+   */
+  Entity next() throws DeserializerException;
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.deserializer;
+
+import java.io.InputStream;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+
+/**
+ * Deserializer that can also read an entity collection entity by entity.
+ * <p>The JSON and XML deserializers created by
+ * {@link org.apache.olingo.server.api.OData#createDeserializer(org.apache.olingo.commons.api.format.ContentType)}
+ * implement this interface. It is separate from {@link ODataDeserializer} so that existing implementations
+ * of that interface are not affected.</p>
+ */
+public interface EntityCollectionStreamDeserializer extends ODataDeserializer {
+
+  /**
+   * Deserializes an entity collection stream entity by entity.
+   * Validates the same as {@link #entityCollection(InputStream, EdmEntityType)} but returns
+   * each entity as soon as it has been read so that the whole collection is never held in memory.
+   * @param stream
+   * @param edmEntityType
+   * @return {@link EntityCollectionIterator} reading the entities while iterating
+   * @throws DeserializerException
+   */
+  EntityCollectionIterator entityCollectionIterator(InputStream stream, EdmEntityType edmEntityType)
+      throws DeserializerException;
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.deserializer;
+
+import java.io.InputStream;
+
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
+import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartReader;
+
+/**
+ * Fixed-format deserializer that can also read batch requests part by part.
+ * <p>The deserializer created by {@link org.apache.olingo.server.api.OData#createFixedFormatDeserializer()}
+ * implements this interface. It is separate from {@link FixedFormatDeserializer} so that existing
+ * implementations of that interface are not affected.</p>
+ */
+public interface FixedFormatStreamDeserializer extends FixedFormatDeserializer {
+
+  /**
+   * Reads batch data from an InputStream part by part.
+   * In contrast to {@link #parseBatchRequest(InputStream, String, BatchOptions)}, the content
+   * is not read completely in advance, so the parts can be processed while the content is still arriving.
+   * @param content the data as multipart input stream
+   * @param boundary the boundary between the parts
+   * @param options options for the deserializer
+   * @return a reader for the batch-request parts
+   */
+  BatchRequestPartReader readBatchRequest(InputStream content, String boundary, BatchOptions options)
+      throws BatchDeserializerException;
+}
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.deserializer.batch;
+
+/**
+ * Reads the parts of a batch request one after the other while the request body is still arriving.
+ * <p>A part is parsed only when it is requested with {@link #next()}.
+ * The body of a request outside of a change set is read directly from the batch request body;
+ * it is available only until the next part is requested.
+ * The bodies of the requests in a change set are read completely when the change set is parsed.</p>
+ */
+public interface BatchRequestPartReader {
+
+  /**
+   * Reads the next part of the batch request.
+   * @return the next part or <code>null</code> if there are no more parts
+   * @throws BatchDeserializerException if the part is not valid or the batch request is incomplete
+   */
+  BatchRequestPart next() throws BatchDeserializerException;
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.OData;
+
+/**
+ * <p>Metrics support which keeps a {@link Histogram} per entity set, HTTP method, and request phase,
+ * a histogram of the response sizes, and the number of responses per status class.</p>
+ * <p>Histograms are created when the first value for them is recorded;
+ * after that, recording neither locks nor allocates memory.
+ * The same instance can be registered at all handlers of a service.</p>
+ */
+public class DefaultMetricsSupport implements MetricsSupport {
+
+  /** Key for requests without entity set; entity-set names are never empty. */
+  private static final String NO_ENTITY_SET = "";
+  private static final int PHASE_COUNT = RequestPhase.values().length;
+  private static final int METHOD_COUNT = HttpMethod.values().length;
+  /** Histograms per method: one per phase and one for the response sizes. */
+  private static final int HISTOGRAMS_PER_METHOD = PHASE_COUNT + 1;
+  /** Status classes 1xx to 5xx; index 0 counts invalid status codes. */
+  private static final int STATUS_CLASS_COUNT = 6;
+
+  private final ConcurrentMap<String, EntitySetMetrics> entitySets =
+      new ConcurrentHashMap<String, EntitySetMetrics>();
+
+  @Override
+  public void init(final OData odata) {
+    // not needed
+  }
+
+  @Override
+  public void recordPhase(final RequestPhase phase, final String entitySetName, final HttpMethod method,
+      final int statusCode, final long nanos) {
+    final EntitySetMetrics metrics = getOrCreate(entitySetName);
+    metrics.getOrCreateHistogram(method.ordinal() * HISTOGRAMS_PER_METHOD + phase.ordinal()).record(nanos);
+    if (phase == RequestPhase.REQUEST) {
+      final int statusClass = statusCode >= 100 && statusCode < 600 ? statusCode / 100 : 0;
+      metrics.responses.incrementAndGet(method.ordinal() * STATUS_CLASS_COUNT + statusClass);
+    }
+  }
+
+  @Override
+  public void recordBytesWritten(final String entitySetName, final HttpMethod method, final int statusCode,
+      final long bytes) {
+    getOrCreate(entitySetName)
+        .getOrCreateHistogram(method.ordinal() * HISTOGRAMS_PER_METHOD + PHASE_COUNT).record(bytes);
+  }
+
+  /**
+   * Gets the names of the entity sets for which metrics have been recorded.
+   * The result does not contain <code>null</code> for requests without entity set.
+   */
+  public Set<String> getEntitySetNames() {
+    Set<String> names = new HashSet<String>(entitySets.keySet());
+    names.remove(NO_ENTITY_SET);
+    return names;
+  }
+
+  /**
+   * Gets the durations in nanoseconds of a request phase.
+   * @param entitySetName the name of the entity set, or <code>null</code> for requests without entity set
+   * @param method the HTTP method
+   * @param phase the request phase
+   * @return the histogram, or <code>null</code> if no duration has been recorded
+   */
+  public Histogram getHistogram(final String entitySetName, final HttpMethod method, final RequestPhase phase) {
+    return getHistogram(entitySetName, method.ordinal() * HISTOGRAMS_PER_METHOD + phase.ordinal());
+  }
+
+  /**
+   * Gets the sizes in bytes of the written response contents.
+   * @param entitySetName the name of the entity set, or <code>null</code> for requests without entity set
+   * @param method the HTTP method
+   * @return the histogram, or <code>null</code> if no size has been recorded
+   */
+  public Histogram getBytesWritten(final String entitySetName, final HttpMethod method) {
+    return getHistogram(entitySetName, method.ordinal() * HISTOGRAMS_PER_METHOD + PHASE_COUNT);
+  }
+
+  /**
+   * Gets the number of responses with a status code of the given class.
+   * @param entitySetName the name of the entity set, or <code>null</code> for requests without entity set
+   * @param method the HTTP method
+   * @param statusClass the first digit of the status code, e.g., 2 for successful responses
+   * @return the number of responses
+   */
+  public long getResponseCount(final String entitySetName, final HttpMethod method, final int statusClass) {
+    if (statusClass < 1 || statusClass >= STATUS_CLASS_COUNT) {
+      throw new IllegalArgumentException("The status class must be between 1 and 5.");
+    }
+    final EntitySetMetrics metrics = entitySets.get(entitySetName == null ? NO_ENTITY_SET : entitySetName);
+    return metrics == null ? 0 : metrics.responses.get(method.ordinal() * STATUS_CLASS_COUNT + statusClass);
+  }
+
+  /** Removes all recorded metrics. */
+  public void clear() {
+    entitySets.clear();
+  }
+
+  private Histogram getHistogram(final String entitySetName, final int index) {
+    final EntitySetMetrics metrics = entitySets.get(entitySetName == null ? NO_ENTITY_SET : entitySetName);
+    return metrics == null ? null : metrics.histograms.get(index);
+  }
+
+  private EntitySetMetrics getOrCreate(final String entitySetName) {
+    final String key = entitySetName == null ? NO_ENTITY_SET : entitySetName;
+    EntitySetMetrics metrics = entitySets.get(key);
+    if (metrics == null) {
+      metrics = new EntitySetMetrics();
+      final EntitySetMetrics existing = entitySets.putIfAbsent(key, metrics);
+      if (existing != null) {
+        metrics = existing;
+      }
+    }
+    return metrics;
+  }
+
+  private static class EntitySetMetrics {
+    private final AtomicReferenceArray<Histogram> histograms =
+        new AtomicReferenceArray<Histogram>(METHOD_COUNT * HISTOGRAMS_PER_METHOD);
+    private final AtomicLongArray responses = new AtomicLongArray(METHOD_COUNT * STATUS_CLASS_COUNT);
+
+    private Histogram getOrCreateHistogram(final int index) {
+      Histogram histogram = histograms.get(index);
+      if (histogram == null) {
+        histograms.compareAndSet(index, null, new Histogram());
+        histogram = histograms.get(index);
+      }
+      return histogram;
+    }
+  }
+}
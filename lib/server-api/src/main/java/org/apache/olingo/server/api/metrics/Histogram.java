@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Lock-free histogram of non-negative long values, e.g., durations in nanoseconds or sizes in bytes.</p>
+ * <p>Values are counted in buckets whose width grows with the value:
+ * values below 8 have a bucket of their own, larger values share a bucket with values that differ
+ * by less than an eighth, so every value returned by {@link #getValueAtPercentile(double)}
+ * is at most 12.5 percent above the recorded value.
+ * Recording a value neither locks nor allocates memory, so it can be done on the path of every request.</p>
+ * <p>The values are read without synchronization with concurrent recording; a read while values are recorded
+ * may reflect some of the concurrently recorded values but not others.</p>
+ */
+public final class Histogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a value; negative values are recorded as zero.
+   * @param value the value
+   */
+  public void record(final long value) {
+    final long recorded = value < 0 ? 0 : value;
+    buckets.incrementAndGet(getBucketIndex(recorded));
+    count.incrementAndGet();
+    sum.addAndGet(recorded);
+    long currentMax = max.get();
+    while (recorded > currentMax && !max.compareAndSet(currentMax, recorded)) {
+      currentMax = max.get();
+    }
+  }
+
+  /** Gets the number of recorded values. */
+  public long getCount() {
+    return count.get();
+  }
+
+  /** Gets the sum of the recorded values. */
+  public long getSum() {
+    return sum.get();
+  }
+
+  /** Gets the largest recorded value, or 0 if no value has been recorded. */
+  public long getMax() {
+    return max.get();
+  }
+
+  /** Gets the arithmetic mean of the recorded values, or 0 if no value has been recorded. */
+  public double getMean() {
+    final long currentCount = count.get();
+    return currentCount == 0 ? 0 : (double) sum.get() / currentCount;
+  }
+
+  /**
+   * Gets the value below or at which the given percentage of the recorded values lies.
+   * The result is the upper bound of the bucket containing that value, but never more than the largest value.
+   * @param percentile the percentage, between 0 and 100
+   * @return the value, or 0 if no value has been recorded
+   */
+  public long getValueAtPercentile(final double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("The percentile must be between 0 and 100.");
+    }
+    long total = 0;
+    for (int index = 0; index < BUCKET_COUNT; index++) {
+      total += buckets.get(index);
+    }
+    if (total == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long cumulated = 0;
+    for (int index = 0; index < BUCKET_COUNT; index++) {
+      cumulated += buckets.get(index);
+      if (cumulated >= rank) {
+        return Math.min(getBucketUpperBound(index), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  private static int getBucketIndex(final long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    // The bits below the highest one-bit which are not used to select the sub-bucket.
+    final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKET_COUNT + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+  }
+
+  private static long getBucketUpperBound(final int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final int shift = index / SUB_BUCKET_COUNT - 1;
+    final long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+    return lowerBound + (1L << shift) - 1;
+  }
+}
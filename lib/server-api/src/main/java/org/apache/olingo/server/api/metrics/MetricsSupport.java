@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.OlingoExtension;
+
+/**
+ * <p>Register this interface to collect metrics about the processing of requests.</p>
+ * <p>In contrast to the runtime measurements of the debug support, metrics are recorded for every request.
+ * The callbacks are invoked when the response of a request is complete, so they carry its status code.
+ * They are invoked concurrently for different requests, so implementations must be thread-safe;
+ * they are on the path of every request and should neither block nor allocate memory.
+ * The callbacks MUST NEVER throw an exception.</p>
+ * <p>The entity set is the one addressed by the first segment of the resource path,
+ * or <code>null</code> for requests which do not start with an entity set,
+ * e.g., for the service document, the metadata document, or batch requests.
+ * The parts of a batch request are recorded as requests of their own.</p>
+ * <p>It is registered at an {@link org.apache.olingo.server.api.ODataHttpHandler} as {@link OlingoExtension}.</p>
+ * @see DefaultMetricsSupport
+ */
+public interface MetricsSupport extends OlingoExtension {
+
+  /**
+   * Initializes the metrics support implementation.
+   * Is called when the metrics support is registered at a handler.
+   * @param odata related OData/Olingo service factory
+   */
+  void init(OData odata);
+
+  /**
+   * Records the time a phase of the processing of a request took.
+   * Phases which have not been reached, e.g., because the URI could not be parsed, are not recorded;
+   * the phase {@link RequestPhase#REQUEST} is recorded for every request.
+   * @param phase the phase
+   * @param entitySetName the name of the entity set, or <code>null</code>
+   * @param method the HTTP method of the request
+   * @param statusCode the HTTP status code of the response
+   * @param nanos the elapsed time in nanoseconds
+   */
+  void recordPhase(RequestPhase phase, String entitySetName, HttpMethod method, int statusCode, long nanos);
+
+  /**
+   * Records the number of bytes written as response content.
+   * It is recorded only if the handler writes the response, e.g., not for the parts of a batch request.
+   * @param entitySetName the name of the entity set, or <code>null</code>
+   * @param method the HTTP method of the request
+   * @param statusCode the HTTP status code of the response
+   * @param bytes the number of bytes
+   */
+  void recordBytesWritten(String entitySetName, HttpMethod method, int statusCode, long bytes);
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+/**
+ * Phases of the processing of a request for which {@link MetricsSupport} receives the elapsed time.
+ */
+public enum RequestPhase {
+  /** Parsing of the resource path and the query options. */
+  URI_PARSING,
+  /** Validation of the parsed URI against the HTTP method. */
+  URI_VALIDATION,
+  /** Dispatching to a processor, including the content negotiation. */
+  DISPATCHING,
+  /** Execution of the processor selected by the dispatcher. */
+  PROCESSING,
+  /** Writing of the response content, which includes the serialization of streamed content. */
+  SERIALIZATION,
+  /** The complete processing of the request. */
+  REQUEST
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.paging;
+
+import java.net.URI;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+
+/**
+ * <p>One page of a collection of entities which is paged by keyset (seek-based) paging.</p>
+ * <p>The entities are ordered by the {@link #getKeyParts() key parts}: the properties of the
+ * effective <code>$orderby</code> option followed by the key properties of the entity type.
+ * The page contains the first {@link #getPageSize()} entities which come
+ * {@link #getStartAfter() after the last entity of the previous page} in this order.
+ * A processor can push the start position down to its data source,
+ * so that reading a deep page costs as much as reading the first one.</p>
+ * <p><code>null</code> values are ordered before all other values, in ascending order.</p>
+ */
+public interface KeysetPage {
+
+  /**
+   * Gets the parts of the key by which the entities are ordered.
+   * @return the key parts; the values of all parts together identify an entity
+   */
+  List<SeekKeyPart> getKeyParts();
+
+  /**
+   * Gets the values of the key parts of the last entity of the previous page, decoded from the skiptoken.
+   * @return the values in the order of the key parts, or <code>null</code> for the first page
+   */
+  List<Object> getStartAfter();
+
+  /**
+   * Gets the maximum number of entities of this page.
+   * For a following page, it is the page size of the first page, which is carried in the skiptoken,
+   * but not more than the page size requested for the following page; so a forged skiptoken cannot enlarge it.
+   */
+  int getPageSize();
+
+  /**
+   * Gets the values of the key parts of an entity.
+   * @param entity the entity
+   * @return the values in the order of the key parts
+   */
+  List<Object> getKeyValues(Entity entity);
+
+  /**
+   * Determines whether an entity comes after the start position of this page;
+   * used by processors which cannot push the start position down to their data source.
+   * @param entity the entity
+   * @return <code>true</code> if the entity belongs on this page or a following one
+   */
+  boolean isAfterStart(Entity entity);
+
+  /**
+   * Creates the skiptoken for the page following the given entity.
+   * @param lastEntity the last entity of this page
+   * @return the URL-safe skiptoken
+   */
+  String createSkipToken(Entity lastEntity) throws SkipTokenException;
+
+  /**
+   * Creates the next link for the page following the given entity.
+   * @param rawRequestUri the raw URI of the current request
+   * @param lastEntity the last entity of this page
+   * @return the next link
+   * @see KeysetPagingHelper#createNextLink(String, String)
+   */
+  URI createNextLink(String rawRequestUri, Entity lastEntity) throws SkipTokenException;
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.paging;
+
+import java.net.URI;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.SkipTokenOption;
+
+/**
+ * <p>Used for keyset (seek-based) server-side paging.</p>
+ * <p>The skiptoken contains the page size and the values of the key parts of the last entity
+ * of the previous page in a compact binary form, encoded in base64url.
+ * If the helper has been created with a signing key, the skiptoken is signed with HMAC-SHA256,
+ * so that clients cannot forge start positions.
+ * Instances are immutable and can be used concurrently.</p>
+ */
+public interface KeysetPagingHelper {
+
+  /**
+   * Creates the page requested by a client.
+   * @param entityType the type of the entities in the collection
+   * @param orderByOption the effective orderby option, or <code>null</code> to order by the key properties only
+   * @param skipTokenOption the skiptoken option of the request (from a previous next link), or <code>null</code>
+   * @param pageSize the page size for the first page and the maximum page size for the following pages
+   * @return the page
+   * @throws SkipTokenException if the skiptoken is invalid, does not belong to the requested order,
+   * or if an orderby expression is not a path to a primitive property
+   */
+  KeysetPage createPage(EdmEntityType entityType, OrderByOption orderByOption, SkipTokenOption skipTokenOption,
+      int pageSize) throws SkipTokenException;
+
+  /**
+   * <p>Creates a next link from the URI of the current request: an existing skiptoken
+   * is removed from the query, all other query options are kept unchanged,
+   * and the given skiptoken is appended.</p>
+   * <p>This method can be used with any kind of skiptoken, not only the ones of keyset paging.</p>
+   * @param rawRequestUri the raw URI of the current request
+   * @param skipToken the new skiptoken; it is percent-encoded as needed
+   * @return the next link
+   * @throws IllegalArgumentException if the request URI is not a valid URI
+   */
+  URI createNextLink(String rawRequestUri, String skipToken);
+}
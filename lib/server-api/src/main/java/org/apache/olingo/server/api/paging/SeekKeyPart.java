@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.paging;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmProperty;
+
+/**
+ * One part of the key by which the entities of a keyset-paged collection are ordered:
+ * a primitive property, given by its path from the entity type, and the sort direction.
+ */
+public final class SeekKeyPart {
+
+  private final List<String> path;
+  private final EdmProperty property;
+  private final boolean descending;
+
+  /**
+   * @param path the names of the complex properties which contain the property and the name of the property itself
+   * @param property the primitive property
+   * @param descending whether the entities are sorted in descending order of the property values
+   */
+  public SeekKeyPart(final List<String> path, final EdmProperty property, final boolean descending) {
+    this.path = path;
+    this.property = property;
+    this.descending = descending;
+  }
+
+  /** Gets the names of the complex properties which contain the property and the name of the property itself. */
+  public List<String> getPath() {
+    return path;
+  }
+
+  public EdmProperty getProperty() {
+    return property;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    for (final String name : path) {
+      result.append(result.length() > 0 ? "/" : "").append(name);
+    }
+    return result.append(descending ? " desc" : " asc").toString();
+  }
+}
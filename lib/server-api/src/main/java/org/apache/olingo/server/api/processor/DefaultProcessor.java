@@ -20,6 +20,7 @@ package org.apache.olingo.server.api.processor;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.Charset;
+import java.util.List;
 
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
@@ -34,6 +35,8 @@ import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.etag.ETagHelper;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.serializer.CachedDocument;
+import org.apache.olingo.server.api.serializer.DocumentCache;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.uri.UriInfo;
 
@@ -44,8 +47,12 @@ import org.apache.olingo.server.api.uri.UriInfo;
  * <li>error handling</li></ul></p>
  * <p>This implementation is registered in the ODataHandler by default.
  * The default can be replaced by re-registering a custom implementation.</p>
+ * <p>If the service metadata is also a {@link DocumentCache}, the metadata document and the service document
+ * are taken from the cache, and their ETags are derived from their content.</p>
  */
 public class DefaultProcessor implements MetadataProcessor, ServiceDocumentProcessor, ErrorProcessor {
+  private static final String GZIP = "gzip";
+
   private OData odata;
   private ServiceMetadata serviceMetadata;
 
@@ -58,14 +65,28 @@ public class DefaultProcessor implements MetadataProcessor, ServiceDocumentProce
   @Override
   public void readServiceDocument(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
       final ContentType requestedContentType) throws ODataApplicationException, ODataLibraryException {
-    boolean isNotModified = false;
+    final CachedDocument cachedDocument = serviceMetadata instanceof DocumentCache ?
+        ((DocumentCache) serviceMetadata).getServiceDocument(requestedContentType) :
+        null;
+    final boolean compressed = sendsCompressedContent(request, response, cachedDocument);
+    String eTag = null;
     ServiceMetadataETagSupport eTagSupport = serviceMetadata.getServiceMetadataETagSupport();
     if (eTagSupport != null && eTagSupport.getServiceDocumentETag() != null) {
-      // Set application etag at response
-      response.setHeader(HttpHeader.ETAG, eTagSupport.getServiceDocumentETag());
+      // Use application etag; the compressed representation needs an etag of its own
+      eTag = eTagSupport.getServiceDocumentETag();
+      if (compressed) {
+        eTag = getCompressedETag(eTag);
+      }
+    } else if (cachedDocument != null) {
+      // Use etag derived from the cached content; the compressed representation has an etag of its own
+      eTag = compressed ? cachedDocument.getCompressedETag() : cachedDocument.getETag();
+    }
+    boolean isNotModified = false;
+    if (eTag != null) {
+      response.setHeader(HttpHeader.ETAG, eTag);
       // Check if service document has been modified
       ETagHelper eTagHelper = odata.createETagHelper();
-      isNotModified = eTagHelper.checkReadPreconditions(eTagSupport.getServiceDocumentETag(), request
+      isNotModified = eTagHelper.checkReadPreconditions(eTag, request
           .getHeaders(HttpHeader.IF_MATCH), request.getHeaders(HttpHeader.IF_NONE_MATCH));
     }
 
@@ -74,28 +95,50 @@ public class DefaultProcessor implements MetadataProcessor, ServiceDocumentProce
       response.setStatusCode(HttpStatusCode.NOT_MODIFIED.getStatusCode());
     } else {
       // HTTP HEAD requires no payload but a 200 OK response
-      if (HttpMethod.HEAD == request.getMethod()) {
-        response.setStatusCode(HttpStatusCode.OK.getStatusCode());
-      } else {
-        ODataSerializer serializer = odata.createSerializer(requestedContentType);
-        response.setContent(serializer.serviceDocument(serviceMetadata, null).getContent());
-        response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+      if (HttpMethod.HEAD != request.getMethod()) {
+        if (cachedDocument == null) {
+          ODataSerializer serializer = odata.createSerializer(requestedContentType);
+          response.setContent(serializer.serviceDocument(serviceMetadata, null).getContent());
+        } else if (compressed) {
+          response.setContent(cachedDocument.getCompressedContent());
+        } else {
+          response.setContent(cachedDocument.getContent());
+        }
         response.setHeader(HttpHeader.CONTENT_TYPE, requestedContentType.toContentTypeString());
       }
+      // The ETag of the compressed content is only correct together with its content coding, also for HEAD.
+      if (compressed) {
+        response.setHeader(HttpHeader.CONTENT_ENCODING, GZIP);
+      }
+      response.setStatusCode(HttpStatusCode.OK.getStatusCode());
     }
   }
 
   @Override
   public void readMetadata(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
       final ContentType requestedContentType) throws ODataApplicationException, ODataLibraryException {
-    boolean isNotModified = false;
+    final CachedDocument cachedDocument = serviceMetadata instanceof DocumentCache ?
+        ((DocumentCache) serviceMetadata).getMetadataDocument(requestedContentType) :
+        null;
+    final boolean compressed = sendsCompressedContent(request, response, cachedDocument);
+    String eTag = null;
     ServiceMetadataETagSupport eTagSupport = serviceMetadata.getServiceMetadataETagSupport();
     if (eTagSupport != null && eTagSupport.getMetadataETag() != null) {
-      // Set application etag at response
-      response.setHeader(HttpHeader.ETAG, eTagSupport.getMetadataETag());
+      // Use application etag; the compressed representation needs an etag of its own
+      eTag = eTagSupport.getMetadataETag();
+      if (compressed) {
+        eTag = getCompressedETag(eTag);
+      }
+    } else if (cachedDocument != null) {
+      // Use etag derived from the cached content; the compressed representation has an etag of its own
+      eTag = compressed ? cachedDocument.getCompressedETag() : cachedDocument.getETag();
+    }
+    boolean isNotModified = false;
+    if (eTag != null) {
+      response.setHeader(HttpHeader.ETAG, eTag);
       // Check if metadata document has been modified
       ETagHelper eTagHelper = odata.createETagHelper();
-      isNotModified = eTagHelper.checkReadPreconditions(eTagSupport.getMetadataETag(), request
+      isNotModified = eTagHelper.checkReadPreconditions(eTag, request
           .getHeaders(HttpHeader.IF_MATCH), request.getHeaders(HttpHeader.IF_NONE_MATCH));
     }
 
@@ -104,15 +147,59 @@ public class DefaultProcessor implements MetadataProcessor, ServiceDocumentProce
       response.setStatusCode(HttpStatusCode.NOT_MODIFIED.getStatusCode());
     } else {
       // HTTP HEAD requires no payload but a 200 OK response
-      if (HttpMethod.HEAD == request.getMethod()) {
-        response.setStatusCode(HttpStatusCode.OK.getStatusCode());
-      } else {
-        ODataSerializer serializer = odata.createSerializer(requestedContentType);
-        response.setContent(serializer.metadataDocument(serviceMetadata).getContent());
-        response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+      if (HttpMethod.HEAD != request.getMethod()) {
+        if (cachedDocument == null) {
+          ODataSerializer serializer = odata.createSerializer(requestedContentType);
+          response.setContent(serializer.metadataDocument(serviceMetadata).getContent());
+        } else if (compressed) {
+          response.setContent(cachedDocument.getCompressedContent());
+        } else {
+          response.setContent(cachedDocument.getContent());
+        }
         response.setHeader(HttpHeader.CONTENT_TYPE, requestedContentType.toContentTypeString());
       }
+      // The ETag of the compressed content is only correct together with its content coding, also for HEAD.
+      if (compressed) {
+        response.setHeader(HttpHeader.CONTENT_ENCODING, GZIP);
+      }
+      response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    }
+  }
+
+  /**
+   * Determines whether the compressed content of a cached document is sent,
+   * i.e., whether there is one and the client accepts it.
+   * If there is compressed content, the response varies with the accepted encodings.
+   */
+  private boolean sendsCompressedContent(final ODataRequest request, final ODataResponse response,
+      final CachedDocument document) {
+    if (document == null || document.getCompressedETag() == null) {
+      return false;
+    }
+    response.setHeader(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+    return acceptsGzip(request.getHeaders(HttpHeader.ACCEPT_ENCODING));
+  }
+
+  /** Derives the ETag of the gzip-compressed representation from the ETag of the uncompressed one. */
+  private String getCompressedETag(final String eTag) {
+    return eTag.endsWith("\"") ?
+        eTag.substring(0, eTag.length() - 1) + "-" + GZIP + "\"" :
+        eTag + "-" + GZIP;
+  }
+
+  private boolean acceptsGzip(final List<String> acceptEncodingHeaders) {
+    if (acceptEncodingHeaders != null) {
+      for (final String header : acceptEncodingHeaders) {
+        for (final String coding : header.split(",")) {
+          final String[] parts = coding.split(";");
+          if (GZIP.equalsIgnoreCase(parts[0].trim())) {
+            // A quality value of zero means "not acceptable".
+            return parts.length == 1 || !parts[1].trim().matches("[qQ]\\s*=\\s*0(\\.0*)?");
+          }
+        }
+      }
     }
+    return false;
   }
 
   @Override
@@ -29,7 +29,10 @@ import org.apache.olingo.server.api.ServiceMetadata;
 public interface Processor {
 
   /**
-   * Initializes the processor for each HTTP request - response cycle.
+   * Initializes the processor once when it is registered at a handler.
+   * Since a handler processes requests concurrently, the processor must not keep request-specific state.
+   * <p>Earlier versions called this method before every request the processor handled.
+   * Processors that relied on that, e.g., to reset state between requests, have to be adapted.</p>
    * @param odata Olingo's root object, acting as a factory for various object types
    * @param serviceMetadata metadata of the OData service like the EDM that have to be created
    * before the OData request handling takes place
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.serializer;
+
+import java.io.InputStream;
+
+/**
+ * A serialized document that is kept in memory, e.g., the metadata document.
+ * The content of a cached document never changes.
+ */
+public interface CachedDocument {
+
+  /**
+   * Gets the content.
+   * @return a new stream for the content with every call
+   */
+  InputStream getContent();
+
+  /**
+   * Gets the content compressed with gzip.
+   * @return a new stream for the compressed content with every call,
+   * or <code>null</code> if no compressed content is kept
+   */
+  InputStream getCompressedContent();
+
+  /**
+   * Gets the strong ETag derived from the content.
+   * @return ETag value, including the quotes
+   */
+  String getETag();
+
+  /**
+   * Gets the strong ETag of the compressed content.
+   * It differs from the ETag of the uncompressed content because the two representations are not
+   * byte-for-byte identical.
+   * @return ETag value, including the quotes, or <code>null</code> if no compressed content is kept
+   */
+  String getCompressedETag();
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.serializer;
+
+import org.apache.olingo.commons.api.format.ContentType;
+
+/**
+ * Cache for the documents of a service that do not depend on the request,
+ * so that they can be serialized once and then sent to all clients.
+ * <br/>
+ * The {@link org.apache.olingo.server.api.processor.DefaultProcessor DefaultProcessor} uses the cache
+ * if the {@link org.apache.olingo.server.api.ServiceMetadata ServiceMetadata} implements this interface.
+ */
+public interface DocumentCache {
+
+  /**
+   * Gets the serialized metadata document.
+   * @param contentType the content type, including the parameters, e.g., the character set
+   * @return the cached document or <code>null</code> if the metadata document is not cached
+   * @throws SerializerException if the document has to be serialized and that fails
+   */
+  CachedDocument getMetadataDocument(ContentType contentType) throws SerializerException;
+
+  /**
+   * Gets the serialized service document, with a context URL relative to the service root.
+   * @param contentType the content type, including the parameters, e.g., the metadata level
+   * @return the cached document or <code>null</code> if the service document is not cached
+   * @throws SerializerException if the document has to be serialized and that fails
+   */
+  CachedDocument getServiceDocument(ContentType contentType) throws SerializerException;
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.serializer;
+
+import java.util.Iterator;
+
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
+
+/**
+ * Fixed-format serializer that can also write batch responses part by part.
+ * <p>The serializer created by {@link org.apache.olingo.server.api.OData#createFixedFormatSerializer()}
+ * implements this interface. It is separate from {@link FixedFormatSerializer} so that existing
+ * implementations of that interface are not affected.</p>
+ */
+public interface FixedFormatStreamSerializer extends FixedFormatSerializer {
+
+  /**
+   * Serializes a batch response while it is written.
+   * The response parts are requested from the iterator and written one after the other,
+   * so a part is not kept in memory after it has been written.
+   * @param batchResponses the response parts
+   * @param boundary the boundary between the parts
+   * @return response as content to be written
+   */
+  ODataContent batchResponseContent(Iterator<ODataResponsePart> batchResponses, String boundary)
+      throws BatchSerializerException;
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.serializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A batch of rows of an entity collection, given column by column.</p>
+ * <p>Each column holds the values of one primitive property for all rows of the batch in one array.
+ * Integral numbers, floating-point numbers and booleans are held in arrays of the corresponding Java primitive type;
+ * their null values are marked in a bitmap where bit <code>row % 64</code> of the element <code>row / 64</code>
+ * is set for a null value at position <code>row</code>. All other values are held in object arrays
+ * with the same value classes as in {@link org.apache.olingo.commons.api.data.Property} objects;
+ * a <code>null</code> element is a null value.</p>
+ * <p>The arrays are used as they are, without copying them, so they can be reused for the next batch
+ * as soon as the batch has been serialized.</p>
+ * @see RowBatchSource
+ * @see RowBatchSerializer
+ */
+public final class RowBatch {
+
+  /** How the values of a column are held. */
+  public enum ColumnKind {
+    /** values in a <code>long[]</code> */
+    LONG,
+    /** values in a <code>double[]</code> */
+    DOUBLE,
+    /** values in a <code>boolean[]</code> */
+    BOOLEAN,
+    /** values in an <code>Object[]</code> */
+    OBJECT
+  }
+
+  private final int rowCount;
+  private final List<String> names = new ArrayList<String>();
+  private final List<ColumnKind> kinds = new ArrayList<ColumnKind>();
+  private final List<Object> values = new ArrayList<Object>();
+  private final List<long[]> nulls = new ArrayList<long[]>();
+
+  /**
+   * Creates an empty batch.
+   * @param rowCount the number of rows in the batch
+   */
+  public RowBatch(final int rowCount) {
+    if (rowCount < 0) {
+      throw new IllegalArgumentException("Negative row count: " + rowCount);
+    }
+    this.rowCount = rowCount;
+  }
+
+  /**
+   * Adds a column of integral numbers; it can be used for properties of the types
+   * Edm.Byte, Edm.SByte, Edm.Int16, Edm.Int32, Edm.Int64, and Edm.Decimal,
+   * and for Edm.Date and Edm.DateTimeOffset properties with milliseconds since the epoch.
+   * @param propertyName the name of the property
+   * @param columnValues the values; the array has at least as many elements as the batch has rows
+   * @param nullBitmap the bitmap of null values or <code>null</code> if there are no null values
+   * @return this batch
+   */
+  public RowBatch addColumn(final String propertyName, final long[] columnValues, final long[] nullBitmap) {
+    checkLength(propertyName, columnValues.length, nullBitmap);
+    return add(propertyName, ColumnKind.LONG, columnValues, nullBitmap);
+  }
+
+  /**
+   * Adds a column of floating-point numbers; it can be used for properties of the types
+   * Edm.Double, Edm.Single, and Edm.Decimal.
+   * @param propertyName the name of the property
+   * @param columnValues the values; the array has at least as many elements as the batch has rows
+   * @param nullBitmap the bitmap of null values or <code>null</code> if there are no null values
+   * @return this batch
+   */
+  public RowBatch addColumn(final String propertyName, final double[] columnValues, final long[] nullBitmap) {
+    checkLength(propertyName, columnValues.length, nullBitmap);
+    return add(propertyName, ColumnKind.DOUBLE, columnValues, nullBitmap);
+  }
+
+  /**
+   * Adds a column of boolean values for a property of type Edm.Boolean.
+   * @param propertyName the name of the property
+   * @param columnValues the values; the array has at least as many elements as the batch has rows
+   * @param nullBitmap the bitmap of null values or <code>null</code> if there are no null values
+   * @return this batch
+   */
+  public RowBatch addColumn(final String propertyName, final boolean[] columnValues, final long[] nullBitmap) {
+    checkLength(propertyName, columnValues.length, nullBitmap);
+    return add(propertyName, ColumnKind.BOOLEAN, columnValues, nullBitmap);
+  }
+
+  /**
+   * Adds a column of values of any primitive, enumeration, or type-definition property.
+   * @param propertyName the name of the property
+   * @param columnValues the values, <code>null</code> elements for null values;
+   * the array has at least as many elements as the batch has rows
+   * @return this batch
+   */
+  public RowBatch addColumn(final String propertyName, final Object[] columnValues) {
+    checkLength(propertyName, columnValues.length, null);
+    return add(propertyName, ColumnKind.OBJECT, columnValues, null);
+  }
+
+  private RowBatch add(final String propertyName, final ColumnKind kind, final Object columnValues,
+      final long[] nullBitmap) {
+    if (names.contains(propertyName)) {
+      throw new IllegalArgumentException("Duplicate column: " + propertyName);
+    }
+    names.add(propertyName);
+    kinds.add(kind);
+    values.add(columnValues);
+    nulls.add(nullBitmap);
+    return this;
+  }
+
+  private void checkLength(final String propertyName, final int length, final long[] nullBitmap) {
+    if (length < rowCount || nullBitmap != null && nullBitmap.length * 64L < rowCount) {
+      throw new IllegalArgumentException("Column " + propertyName + " has less than " + rowCount + " rows.");
+    }
+  }
+
+  /** Gets the number of rows. */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /** Gets the number of columns. */
+  public int getColumnCount() {
+    return names.size();
+  }
+
+  /** Gets the name of the property of the column at the given index. */
+  public String getPropertyName(final int column) {
+    return names.get(column);
+  }
+
+  /** Gets how the values of the column at the given index are held. */
+  public ColumnKind getKind(final int column) {
+    return kinds.get(column);
+  }
+
+  /** Gets the values of a column of kind {@link ColumnKind#LONG}. */
+  public long[] getLongs(final int column) {
+    return (long[]) values.get(column);
+  }
+
+  /** Gets the values of a column of kind {@link ColumnKind#DOUBLE}. */
+  public double[] getDoubles(final int column) {
+    return (double[]) values.get(column);
+  }
+
+  /** Gets the values of a column of kind {@link ColumnKind#BOOLEAN}. */
+  public boolean[] getBooleans(final int column) {
+    return (boolean[]) values.get(column);
+  }
+
+  /** Gets the values of a column of kind {@link ColumnKind#OBJECT}. */
+  public Object[] getObjects(final int column) {
+    return (Object[]) values.get(column);
+  }
+
+  /**
+   * Gets the bitmap of null values of a column of a primitive kind.
+   * @return the bitmap or <code>null</code> if the column has no null values or is of kind {@link ColumnKind#OBJECT}
+   */
+  public long[] getNullBitmap(final int column) {
+    return nulls.get(column);
+  }
+
+  /** Returns whether the value in the given column and row is null. */
+  public boolean isNull(final int column, final int row) {
+    if (kinds.get(column) == ColumnKind.OBJECT) {
+      return getObjects(column)[row] == null;
+    }
+    final long[] bitmap = nulls.get(column);
+    return bitmap != null && (bitmap[row >>> 6] & 1L << row) != 0;
+  }
+
+  /**
+   * Gets the value in the given column and row as object, as it would be held in a property.
+   * Serializers use the typed arrays instead; this method is meant for the rare cases that need an object.
+   * @return the value or <code>null</code>
+   */
+  public Object getValue(final int column, final int row) {
+    if (isNull(column, row)) {
+      return null;
+    }
+    switch (kinds.get(column)) {
+    case LONG:
+      return getLongs(column)[row];
+    case DOUBLE:
+      return getDoubles(column)[row];
+    case BOOLEAN:
+      return getBooleans(column)[row];
+    default:
+      return getObjects(column)[row];
+    }
+  }
+}
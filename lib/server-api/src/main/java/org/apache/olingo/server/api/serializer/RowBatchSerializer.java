@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.serializer;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.server.api.ServiceMetadata;
+
+/**
+ * Serializer for entity collections supplied as {@link RowBatch row batches}.
+ * The values are written directly from the column arrays, without entity or property objects in between;
+ * the output is the same as for the corresponding entities without links, annotations, and operations.
+ */
+public interface RowBatchSerializer {
+
+  /**
+   * Writes an entity collection streamed from a row-batch source.
+   * Only single-valued primitive, enumeration, and type-definition properties can be given as columns;
+   * selected properties without a column are written as null values. Expanding is not supported.
+   * @param metadata   metadata for the service
+   * @param entityType the {@link EdmEntityType}
+   * @param source     the source of the row batches
+   * @param options    options for the serializer
+   */
+  SerializerStreamResult entityCollectionStreamed(ServiceMetadata metadata, EdmEntityType entityType,
+      RowBatchSource source, EntityCollectionSerializerOptions options) throws SerializerException;
+}
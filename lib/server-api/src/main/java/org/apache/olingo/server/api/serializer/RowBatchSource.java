@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.serializer;
+
+import java.net.URI;
+
+/**
+ * <p>Supplies the result of a request for an entity collection as a sequence of {@link RowBatch row batches}
+ * while it is serialized.</p>
+ * <p>Like an {@link org.apache.olingo.commons.api.data.EntityIterator}, the source is read only once,
+ * when the response content is written; but no entity or property objects are created for the rows.</p>
+ */
+public abstract class RowBatchSource {
+
+  private URI next;
+
+  private Integer count;
+
+  /**
+   * Gets the next batch of rows.
+   * The previously returned batch is not used anymore when this method is called,
+   * so its arrays can be filled with the new rows.
+   * @return the next batch or <code>null</code> if there are no more rows
+   */
+  public abstract RowBatch nextBatch();
+
+  /**
+   * Gets count
+   *
+   */
+  public Integer getCount() {
+    return count;
+  }
+
+  /**
+   * Gets next link.
+   *
+   */
+  public URI getNext() {
+    return next;
+  }
+
+  /**
+   * Sets next link.
+   *
+   * @param next next link.
+   */
+  public void setNext(final URI next) {
+    this.next = next;
+  }
+
+  /**
+   * Sets count.
+   *
+   * @param count count value.
+   */
+  public void setCount(final Integer count) {
+    this.count = count;
+  }
+}
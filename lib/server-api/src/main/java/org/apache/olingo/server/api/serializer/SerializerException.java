@@ -52,6 +52,8 @@ public class SerializerException extends ODataLibraryException {
     UNKNOWN_TYPE,
     WRONG_BASE_TYPE,
     UNSUPPORTED_OPERATION_TYPE,
+    /** parameter: property name */
+    UNSUPPORTED_COLUMN,
     /** parameter: encoding-name */
     UNSUPPORTED_ENCODING;
 
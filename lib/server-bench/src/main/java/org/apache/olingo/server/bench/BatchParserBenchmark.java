@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.deserializer.FixedFormatStreamDeserializer;
+import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses a batch request consisting of GET requests and one change set with create requests,
+ * completely in advance and part by part.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchParserBenchmark {
+
+  private static final String CRLF = "\r\n";
+  private static final String BOUNDARY = "batch_8194-cf13-1f56";
+  private static final String CHANGESET_BOUNDARY = "changeset_f980-1cb6-94dd";
+  private static final String MIME_HEADERS = "Content-Type: application/http" + CRLF
+      + "Content-Transfer-Encoding: binary" + CRLF;
+
+  /** Number of requests outside of the change set; the change set contains a tenth of this number. */
+  @Param({ "10", "100" })
+  public int requests;
+
+  private FixedFormatStreamDeserializer deserializer;
+  private BatchOptions options;
+  private byte[] content;
+
+  @Setup
+  public void setup() throws Exception {
+    deserializer = (FixedFormatStreamDeserializer) new TecsvcFixture().odata.createFixedFormatDeserializer();
+    options = BatchOptions.with()
+        .rawBaseUri(TecsvcFixture.BASE_URI)
+        .rawServiceResolutionUri("")
+        .build();
+
+    StringBuilder batch = new StringBuilder();
+    for (int i = 0; i < requests; i++) {
+      batch.append("--").append(BOUNDARY).append(CRLF)
+          .append(MIME_HEADERS)
+          .append(CRLF)
+          .append("GET ESAllPrim(").append(i).append(")?$select=PropertyString HTTP/1.1").append(CRLF)
+          .append("Accept: application/json;odata.metadata=minimal").append(CRLF)
+          .append(CRLF)
+          .append(CRLF);
+    }
+    batch.append("--").append(BOUNDARY).append(CRLF)
+        .append("Content-Type: multipart/mixed; boundary=").append(CHANGESET_BOUNDARY).append(CRLF)
+        .append(CRLF);
+    for (int i = 0; i < Math.max(1, requests / 10); i++) {
+      final String body = "{\"PropertyInt16\":" + i + ",\"PropertyString\":\"Test String " + i + "\"}";
+      batch.append("--").append(CHANGESET_BOUNDARY).append(CRLF)
+          .append(MIME_HEADERS)
+          .append("Content-ID: ").append(i + 1).append(CRLF)
+          .append(CRLF)
+          .append("POST ESAllPrim HTTP/1.1").append(CRLF)
+          .append("Content-Type: application/json").append(CRLF)
+          .append("Content-Length: ").append(body.length()).append(CRLF)
+          .append(CRLF)
+          .append(body).append(CRLF);
+    }
+    batch.append("--").append(CHANGESET_BOUNDARY).append("--").append(CRLF)
+        .append("--").append(BOUNDARY).append("--").append(CRLF);
+    content = batch.toString().getBytes("UTF-8");
+  }
+
+  @Benchmark
+  public long parseBatchRequest() throws Exception {
+    final List<BatchRequestPart> parts =
+        deserializer.parseBatchRequest(new ByteArrayInputStream(content), BOUNDARY, options);
+    long count = 0;
+    for (final BatchRequestPart part : parts) {
+      for (final ODataRequest request : part.getRequests()) {
+        count += TecsvcFixture.drain(request.getBody());
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public long readBatchRequest() throws Exception {
+    final BatchRequestPartReader reader =
+        deserializer.readBatchRequest(new ByteArrayInputStream(content), BOUNDARY, options);
+    long count = 0;
+    BatchRequestPart part;
+    while ((part = reader.next()) != null) {
+      for (final ODataRequest request : part.getRequests()) {
+        count += TecsvcFixture.drain(request.getBody());
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.serializer.RepresentationType;
+import org.apache.olingo.server.core.ContentNegotiator;
+import org.apache.olingo.server.core.uri.queryoption.FormatOptionImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Determines the response content type of an entity-collection request
+ * from typical Accept headers or the system query option $format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentNegotiatorBenchmark {
+
+  @Param({ "none", "json", "browser", "format" })
+  public String accept;
+
+  private ODataRequest request;
+  private FormatOptionImpl formatOption;
+
+  @Setup
+  public void setup() {
+    request = new ODataRequest();
+    if ("json".equals(accept)) {
+      request.addHeader(HttpHeader.ACCEPT, "application/json;odata.metadata=minimal;IEEE754Compatible=false");
+    } else if ("browser".equals(accept)) {
+      request.addHeader(HttpHeader.ACCEPT,
+          "text/html,application/xhtml+xml,application/xml;q=0.9,application/json;q=0.8,*/*;q=0.1");
+      request.addHeader(HttpHeader.ACCEPT_CHARSET, "utf-8, iso-8859-1;q=0.5");
+    } else if ("format".equals(accept)) {
+      formatOption = new FormatOptionImpl().setFormat("json");
+    }
+  }
+
+  @Benchmark
+  public ContentType doContentNegotiation() throws Exception {
+    return ContentNegotiator.doContentNegotiation(formatOption, request, null,
+        RepresentationType.COLLECTION_ENTITY);
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.api.domain.ClientEntitySet;
+import org.apache.olingo.client.api.domain.ClientEntitySetIterator;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.deserializer.DeserializerResult;
+import org.apache.olingo.server.api.deserializer.ODataDeserializer;
+import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Deserializes JSON payloads created by the server serializer:
+ * a single entity with the server deserializer as for a create request,
+ * and entity collections with the client deserializer, completely and entity by entity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeserializerBenchmark {
+
+  @Param({ "ESAllPrim", "ESCompAllPrim" })
+  public String entitySetName;
+
+  @Param({ "10", "1000" })
+  public int size;
+
+  private EdmEntityType entityType;
+  private ODataDeserializer serverDeserializer;
+  private ODataClient client;
+  private byte[] entityPayload;
+  private byte[] collectionPayload;
+
+  @Setup
+  public void setup() throws Exception {
+    final TecsvcFixture fixture = new TecsvcFixture();
+    final EdmEntitySet entitySet = fixture.getEntitySet(entitySetName);
+    entityType = entitySet.getEntityType();
+    final EntityCollection entities = fixture.createEntities(entitySet, size);
+
+    entityPayload = TecsvcFixture.toByteArray(fixture.odata.createSerializer(ContentType.JSON_NO_METADATA)
+        .entity(fixture.metadata, entityType, entities.getEntities().get(0),
+            EntitySerializerOptions.with()
+                .contextURL(ContextURL.with().entitySet(entitySet).suffix(ContextURL.Suffix.ENTITY).build())
+                .build())
+        .getContent());
+    collectionPayload = fixture.serializeJson(entitySet, entities);
+
+    serverDeserializer = fixture.odata.createDeserializer(ContentType.JSON, fixture.metadata);
+    client = ODataClientFactory.getClient();
+  }
+
+  @Benchmark
+  public Entity serverEntity() throws Exception {
+    final DeserializerResult result =
+        serverDeserializer.entity(new ByteArrayInputStream(entityPayload), entityType);
+    return result.getEntity();
+  }
+
+  @Benchmark
+  public ResWrap<EntityCollection> clientEntitySet() throws Exception {
+    return client.getDeserializer(ContentType.JSON).toEntitySet(new ByteArrayInputStream(collectionPayload));
+  }
+
+  @Benchmark
+  public void clientEntitySetIterator(final Blackhole blackhole) {
+    ClientEntitySetIterator<ClientEntitySet, ClientEntity> iterator =
+        new ClientEntitySetIterator<ClientEntitySet, ClientEntity>(client,
+            new ByteArrayInputStream(collectionPayload), ContentType.JSON);
+    try {
+      while (iterator.hasNext()) {
+        blackhole.consume(iterator.next());
+      }
+    } finally {
+      iterator.close();
+    }
+  }
+}
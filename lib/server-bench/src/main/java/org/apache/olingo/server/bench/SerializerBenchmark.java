@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serializes entity collections as JSON, completely and streamed, and as XML.
+ * The serialized content is read completely, so the measured time includes the work
+ * done lazily while the content is consumed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+  @Param({ "ESAllPrim", "ESMixPrimCollComp" })
+  public String entitySetName;
+
+  @Param({ "10", "1000" })
+  public int size;
+
+  private TecsvcFixture fixture;
+  private EdmEntitySet entitySet;
+  private EntityCollection entities;
+  private EntityCollectionSerializerOptions options;
+  private ODataSerializer jsonSerializer;
+  private ODataSerializer xmlSerializer;
+
+  @Setup
+  public void setup() throws Exception {
+    fixture = new TecsvcFixture();
+    entitySet = fixture.getEntitySet(entitySetName);
+    entities = fixture.createEntities(entitySet, size);
+    options = fixture.getCollectionOptions(entitySet);
+    jsonSerializer = fixture.odata.createSerializer(ContentType.JSON);
+    xmlSerializer = fixture.odata.createSerializer(ContentType.APPLICATION_XML);
+  }
+
+  @Benchmark
+  public long jsonEntityCollection() throws Exception {
+    return TecsvcFixture.drain(
+        jsonSerializer.entityCollection(fixture.metadata, entitySet.getEntityType(), entities, options)
+            .getContent());
+  }
+
+  @Benchmark
+  public long jsonEntityCollectionStreamed() throws Exception {
+    TecsvcFixture.CountingOutputStream output = new TecsvcFixture.CountingOutputStream();
+    jsonSerializer.entityCollectionStreamed(fixture.metadata, entitySet.getEntityType(),
+        TecsvcFixture.iterate(entities), options)
+        .getODataContent().write(output);
+    return output.getCount();
+  }
+
+  @Benchmark
+  public long xmlEntityCollection() throws Exception {
+    return TecsvcFixture.drain(
+        xmlSerializer.entityCollection(fixture.metadata, entitySet.getEntityType(), entities, options)
+            .getContent());
+  }
+}
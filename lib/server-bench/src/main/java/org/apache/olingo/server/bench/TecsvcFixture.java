@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+
+/**
+ * Test data of the benchmarks: the EDM of the technical service and entities created by its data provider.
+ */
+final class TecsvcFixture {
+
+  static final String BASE_URI = "http://localhost/odata.svc";
+
+  final OData odata = OData.newInstance();
+  final ServiceMetadata metadata =
+      odata.createServiceMetadata(new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+  final Edm edm = metadata.getEdm();
+  private final DataProvider data = new DataProvider(odata, edm);
+
+  EdmEntitySet getEntitySet(final String name) {
+    return edm.getEntityContainer().getEntitySet(name);
+  }
+
+  /**
+   * Creates an entity collection of the given size by repeating the entities of an entity set.
+   * @param entitySet the entity set providing the entities
+   * @param size the number of entities in the result
+   */
+  EntityCollection createEntities(final EdmEntitySet entitySet, final int size) throws Exception {
+    final List<Entity> source = data.readAll(entitySet).getEntities();
+    EntityCollection result = new EntityCollection();
+    for (int i = 0; i < size; i++) {
+      result.getEntities().add(source.get(i % source.size()));
+    }
+    return result;
+  }
+
+  EntityCollectionSerializerOptions getCollectionOptions(final EdmEntitySet entitySet) {
+    return EntityCollectionSerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(entitySet).build())
+        .id(BASE_URI + '/' + entitySet.getName())
+        .build();
+  }
+
+  /** Serializes the entity collection as JSON with minimal metadata. */
+  byte[] serializeJson(final EdmEntitySet entitySet, final EntityCollection entities) throws Exception {
+    return toByteArray(odata.createSerializer(ContentType.JSON)
+        .entityCollection(metadata, entitySet.getEntityType(), entities, getCollectionOptions(entitySet))
+        .getContent());
+  }
+
+  static EntityIterator iterate(final EntityCollection entities) {
+    final Iterator<Entity> iterator = entities.iterator();
+    return new EntityIterator() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        return iterator.next();
+      }
+    };
+  }
+
+  /**
+   * Reads the stream until its end and closes it.
+   * @return the number of bytes read
+   */
+  static long drain(final InputStream stream) throws IOException {
+    return copy(stream, null);
+  }
+
+  /** Reads the stream until its end into a byte array and closes it. */
+  static byte[] toByteArray(final InputStream stream) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    copy(stream, result);
+    return result.toByteArray();
+  }
+
+  private static long copy(final InputStream stream, final OutputStream target) throws IOException {
+    byte[] buffer = new byte[8192];
+    long count = 0;
+    try {
+      int read;
+      while ((read = stream.read(buffer)) != -1) {
+        if (target != null) {
+          target.write(buffer, 0, read);
+        }
+        count += read;
+      }
+    } finally {
+      stream.close();
+    }
+    return count;
+  }
+
+  /** Output stream which only counts the written bytes. */
+  static final class CountingOutputStream extends OutputStream {
+
+    private long count;
+
+    @Override
+    public void write(final int b) {
+      count++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+      count += len;
+    }
+
+    long getCount() {
+      return count;
+    }
+  }
+}
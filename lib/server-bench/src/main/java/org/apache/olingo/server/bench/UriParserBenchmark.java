@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.core.uri.parser.UriInfoCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses resource paths with typical system query options, the way the handler does for each request,
+ * and looks them up in a {@link UriInfoCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UriParserBenchmark {
+
+  private static final Map<String, String[]> URIS = new HashMap<String, String[]>();
+  static {
+    URIS.put("key", new String[] { "/ESAllPrim(32767)", "$select=PropertyString,PropertyInt16" });
+    URIS.put("filter", new String[] { "/ESAllPrim",
+        "$filter=PropertyInt16 gt 0 and (startswith(PropertyString,'Second') or PropertyDecimal le 34.27)"
+            + "&$orderby=PropertyString desc,PropertyInt16&$top=10&$skip=5&$count=true" });
+    URIS.put("lambda", new String[] { "/ESKeyNav",
+        "$filter=NavPropertyETTwoKeyNavMany/any(d:d/PropertyString eq 'string' and d/PropertyInt16 lt 10)"
+            + "&$select=PropertyInt16,PropertyString" });
+    URIS.put("expand", new String[] { "/ESKeyNav",
+        "$expand=NavPropertyETTwoKeyNavOne($select=PropertyString;$expand=NavPropertyETKeyNavOne),"
+            + "NavPropertyETKeyNavMany($filter=PropertyInt16 lt 10;$orderby=PropertyString;$top=5)"
+            + "&$select=PropertyInt16,PropertyCompNav/PropertyInt16" });
+    URIS.put("apply", new String[] { "/ESAllPrim",
+        "$apply=filter(PropertyInt16 gt 0)/groupby((PropertyString),aggregate(PropertyDecimal with sum as Total))" });
+  }
+
+  @Param({ "key", "filter", "lambda", "expand", "apply" })
+  public String uri;
+
+  private TecsvcFixture fixture;
+  private String path;
+  private String query;
+  private UriInfoCache cache;
+
+  @Setup
+  public void setup() {
+    fixture = new TecsvcFixture();
+    path = URIS.get(uri)[0];
+    query = URIS.get(uri)[1];
+    cache = new UriInfoCache(fixture.edm, 100);
+  }
+
+  @Benchmark
+  public UriInfo parseUri() throws Exception {
+    return new Parser(fixture.edm, fixture.odata).parseUri(path, query, null, TecsvcFixture.BASE_URI);
+  }
+
+  @Benchmark
+  public UriInfo parseUriCached() throws Exception {
+    return cache.parseUri(fixture.odata, path, query, TecsvcFixture.BASE_URI);
+  }
+}
@@ -0,0 +1,4 @@
+package org.apache.olingo.server.bench.generated;
+public class BatchParserBenchmark_jmhType extends BatchParserBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.olingo.server.bench.generated;
+public class ContentNegotiatorBenchmark_jmhType extends ContentNegotiatorBenchmark_jmhType_B3 {
+}
+
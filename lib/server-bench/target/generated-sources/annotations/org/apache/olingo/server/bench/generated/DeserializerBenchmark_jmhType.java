@@ -0,0 +1,4 @@
+package org.apache.olingo.server.bench.generated;
+public class DeserializerBenchmark_jmhType extends DeserializerBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.olingo.server.bench.generated;
+public class SerializerBenchmark_jmhType extends SerializerBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.olingo.server.bench.generated;
+public class UriParserBenchmark_jmhType extends UriParserBenchmark_jmhType_B3 {
+}
+
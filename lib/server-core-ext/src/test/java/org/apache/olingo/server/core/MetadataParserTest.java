@@ -28,9 +28,16 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.olingo.commons.api.ex.ODataException;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
 import org.apache.olingo.commons.api.edm.provider.CsdlAction;
@@ -256,4 +263,32 @@ public class MetadataParserTest {
     Assert.assertNotNull(provider.getSchema("Org.OData.Core.V1"));
 
   }
+
+  @Test
+  public void testConcurrentParsing() throws Exception {
+    // All parsers share one XMLInputFactory.
+    final String csdl = IOUtils.toString(new FileReader("src/test/resources/trippin.xml"));
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<SchemaBasedEdmProvider>> results = new ArrayList<Future<SchemaBasedEdmProvider>>();
+      for (int i = 0; i < 32; i++) {
+        results.add(executor.submit(new Callable<SchemaBasedEdmProvider>() {
+          @Override
+          public SchemaBasedEdmProvider call() throws Exception {
+            return new MetadataParser().buildEdmProvider(new StringReader(csdl));
+          }
+        }));
+      }
+      for (Future<SchemaBasedEdmProvider> result : results) {
+        SchemaBasedEdmProvider parsed = result.get();
+        CsdlEntityType et = parsed.getEntityType(new FullQualifiedName(NS, "Photo"));
+        assertNotNull(et);
+        assertEquals("Id", et.getKey().get(0).getName());
+        assertEquals(1, parsed.getActions(new FullQualifiedName(NS, "ResetDataSource")).size());
+        assertNotNull(parsed.getEntitySet(EC, "People"));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
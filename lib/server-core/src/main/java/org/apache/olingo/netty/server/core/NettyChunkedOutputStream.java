@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.netty.server.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * Writes the response content as HTTP content chunks of pooled buffers.
+ * Before a chunk is written to a channel which is not writable the previous write is awaited,
+ * so at most the channel's high water mark plus one chunk is held in memory.
+ */
+class NettyChunkedOutputStream extends OutputStream {
+
+  private final ChannelHandlerContext context;
+  private final int chunkSize;
+  private ByteBuf buffer;
+  private ChannelFuture lastWrite;
+  private boolean closed;
+
+  NettyChunkedOutputStream(final ChannelHandlerContext context, final int chunkSize) {
+    this.context = context;
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    ensureBuffer().writeByte(b);
+    if (!buffer.isWritable()) {
+      writeChunk();
+    }
+  }
+
+  @Override
+  public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+    int position = offset;
+    int remaining = length;
+    while (remaining > 0) {
+      final ByteBuf target = ensureBuffer();
+      final int count = Math.min(remaining, target.writableBytes());
+      target.writeBytes(bytes, position, count);
+      position += count;
+      remaining -= count;
+      if (!target.isWritable()) {
+        writeChunk();
+      }
+    }
+  }
+
+  /**
+   * Reads the input stream directly into the chunk buffers until its end.
+   * @param input - stream to copy; it is not closed
+   */
+  void transferFrom(final InputStream input) throws IOException {
+    while (ensureBuffer().writeBytes(input, buffer.writableBytes()) != -1) {
+      if (!buffer.isWritable()) {
+        writeChunk();
+      }
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (buffer != null && buffer.isReadable()) {
+      writeChunk();
+    }
+  }
+
+  /** Writes the pending content and ends the response; the stream can be closed more than once. */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      flush();
+    } finally {
+      if (buffer != null) {
+        buffer.release();
+        buffer = null;
+      }
+      lastWrite = context.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+    }
+  }
+
+  /**
+   * Releases the pending content without ending the response, e.g., because the content could not be produced.
+   * The stream cannot be used afterwards.
+   */
+  void abort() {
+    closed = true;
+    if (buffer != null) {
+      buffer.release();
+      buffer = null;
+    }
+  }
+
+  /** Future of the last write, or <code>null</code> if nothing has been written yet. */
+  ChannelFuture getLastWrite() {
+    return lastWrite;
+  }
+
+  private ByteBuf ensureBuffer() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if (buffer == null) {
+      buffer = context.alloc().buffer(chunkSize, chunkSize);
+    }
+    return buffer;
+  }
+
+  private void writeChunk() throws IOException {
+    final ByteBuf chunk = buffer;
+    buffer = null;
+    try {
+      awaitWritable();
+    } catch (final IOException e) {
+      chunk.release();
+      throw e;
+    }
+    lastWrite = context.writeAndFlush(new DefaultHttpContent(chunk));
+  }
+
+  private void awaitWritable() throws IOException {
+    if (lastWrite == null) {
+      return;
+    }
+    if (!context.channel().isWritable() && !context.executor().inEventLoop()) {
+      lastWrite.awaitUninterruptibly();
+    }
+    if (lastWrite.isDone() && !lastWrite.isSuccess()) {
+      throw new IOException("Writing response content failed", lastWrite.cause());
+    }
+    if (!context.channel().isActive()) {
+      throw new IOException("Channel closed while writing response content");
+    }
+  }
+}
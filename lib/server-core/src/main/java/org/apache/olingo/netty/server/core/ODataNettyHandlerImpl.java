@@ -18,13 +18,9 @@
  */
 package org.apache.olingo.netty.server.core;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
-import java.nio.channels.Channel;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -51,11 +47,18 @@ import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
 
 public class ODataNettyHandlerImpl implements ODataNettyHandler {
 
@@ -116,37 +119,85 @@ public class ODataNettyHandlerImpl implements ODataNettyHandler {
    */
   static void writeContent(final ODataResponse odataResponse, final HttpResponse response) {
     ODataContent res = odataResponse.getODataContent();
-    res.write(Channels.newChannel(new ByteBufOutputStream(((HttpContent)response).content())));
+    res.write(new ByteBufOutputStream(((HttpContent)response).content()));
   }
-  
-  static void copyContent(final InputStream inputStream, final HttpResponse response) {
-	    copyContent(Channels.newChannel(inputStream), response);
-	  }
 
   /** 
    * Copy OData content to netty content
-   * @param input
+   * @param inputStream
    * @param response
    */
-  static void copyContent(final ReadableByteChannel input, final HttpResponse response) {
-    WritableByteChannel output = null;
+  static void copyContent(final InputStream inputStream, final HttpResponse response) {
+    final ByteBuf content = ((HttpContent) response).content();
     try {
-      ByteBuffer inBuffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
-      output = Channels.newChannel(new ByteBufOutputStream(((HttpContent)response).content()));
-      while (input.read(inBuffer) > 0) {
-        inBuffer.flip();
-        output.write(inBuffer);
-        inBuffer.clear();
+      while (content.writeBytes(inputStream, COPY_BUFFER_SIZE) != -1) {
+        // reads directly into the response buffer
       }
     } catch (IOException e) {
       throw new ODataRuntimeException("Error on reading request content", e);
     } finally {
-      closeStream(input);
-      closeStream(output);
+      closeStream(inputStream);
+    }
+  }
+
+  /**
+   * Write the OData response to the channel as response head followed by content chunks
+   * @param request
+   * @param odResponse
+   * @param context
+   */
+  static void writeChunkedResponse(final HttpRequest request, final ODataResponse odResponse,
+      final ChannelHandlerContext context) {
+    final HttpResponse response = new DefaultHttpResponse(request.protocolVersion(),
+        HttpResponseStatus.valueOf(odResponse.getStatusCode()));
+    for (Entry<String, List<String>> entry : odResponse.getAllHeaders().entrySet()) {
+      response.headers().add(entry.getKey(), entry.getValue());
+    }
+    final boolean hasContent = odResponse.getContent() != null || odResponse.getODataContent() != null;
+    boolean keepAlive = HttpUtil.isKeepAlive(request);
+    if (!response.headers().contains(HttpHeaderNames.CONTENT_LENGTH)) {
+      if (!hasContent) {
+        if (odResponse.getStatusCode() != HttpResponseStatus.NO_CONTENT.code()
+            && odResponse.getStatusCode() != HttpResponseStatus.NOT_MODIFIED.code()) {
+          HttpUtil.setContentLength(response, 0);
+        }
+      } else if (HttpVersion.HTTP_1_0.equals(request.protocolVersion())) {
+        // HTTP/1.0 has no chunked encoding; the end of the content is marked by closing the connection.
+        keepAlive = false;
+      } else {
+        HttpUtil.setTransferEncodingChunked(response, true);
+      }
+    }
+
+    context.write(response);
+    final NettyChunkedOutputStream output = new NettyChunkedOutputStream(context, COPY_BUFFER_SIZE);
+    try {
+      if (odResponse.getContent() != null) {
+        output.transferFrom(odResponse.getContent());
+      } else if (odResponse.getODataContent() != null) {
+        odResponse.getODataContent().write(output);
+      }
+      output.close();
+      if (!keepAlive) {
+        output.getLastWrite().addListener(ChannelFutureListener.CLOSE);
+      }
+    } catch (IOException e) {
+      abortResponse(output, context);
+    } catch (RuntimeException e) {
+      // Nothing may be thrown after processing; the response head has been sent already.
+      abortResponse(output, context);
+    } finally {
+      closeStream(odResponse.getContent());
     }
   }
 
-  private static void closeStream(final Channel closeable) {
+  /** The response cannot be completed, so the client must not take it as complete. */
+  private static void abortResponse(final NettyChunkedOutputStream output, final ChannelHandlerContext context) {
+    output.abort();
+    context.close();
+  }
+
+  private static void closeStream(final Closeable closeable) {
     if (closeable != null) {
       try {
         closeable.close();
@@ -166,12 +217,10 @@ public class ODataNettyHandlerImpl implements ODataNettyHandler {
    * @throws ODataLibraryException
    */
   private ODataRequest fillODataRequest(final ODataRequest odRequest, final HttpRequest httpRequest,
-	      final int split, final String contextPath) throws ODataLibraryException {
+	      final InputStream body, final int split, final String contextPath) throws ODataLibraryException {
 	    final int requestHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "fillODataRequest");
 	    try {
-	    	ByteBuf byteBuf = ((HttpContent)httpRequest).content();
-	    	ByteBufInputStream inputStream = new ByteBufInputStream(byteBuf);
-	      odRequest.setBody(inputStream);
+	      odRequest.setBody(body);
 	      
 	      odRequest.setProtocol(httpRequest.protocolVersion().text());
 	      odRequest.setMethod(extractMethod(httpRequest));
@@ -308,7 +357,8 @@ public void processNettyRequest(HttpRequest request, HttpResponse response,
     final int processMethodHandle = 
     		debugger.startRuntimeMeasurement("ODataNettyHandlerImpl", "process");
     try {
-      fillODataRequest(odRequest, request, 
+      ByteBuf byteBuf = ((HttpContent)request).content();
+      fillODataRequest(odRequest, request, new ByteBufInputStream(byteBuf),
           requestParameters.get(SPLIT) != null? Integer.parseInt(requestParameters.get(SPLIT)) : split, 
               requestParameters.get(CONTEXT_PATH));
 
@@ -323,6 +373,29 @@ public void processNettyRequest(HttpRequest request, HttpResponse response,
     convertToHttp(response, odResponse);
   }
 
+  @Override
+  public void processNettyRequest(final HttpRequest request, final InputStream body,
+      final ChannelHandlerContext context, final Map<String, String> requestParameters) {
+    ODataRequest odRequest = new ODataRequest();
+    ODataResponse odResponse;
+
+    final int processMethodHandle =
+        debugger.startRuntimeMeasurement("ODataNettyHandlerImpl", "process");
+    try {
+      fillODataRequest(odRequest, request, body == null ? new ByteBufInputStream(Unpooled.EMPTY_BUFFER) : body,
+          requestParameters.get(SPLIT) != null ? Integer.parseInt(requestParameters.get(SPLIT)) : split,
+          requestParameters.get(CONTEXT_PATH));
+
+      odResponse = process(odRequest);
+      // ALL future methods after process must not throw exceptions!
+    } catch (Exception e) {
+      odResponse = handleException(odRequest, e);
+    }
+    debugger.stopRuntimeMeasurement(processMethodHandle);
+
+    writeChunkedResponse(request, odResponse, context);
+  }
+
   public ODataResponse process(ODataRequest request) {
     return handler.process(request);
   }
@@ -39,11 +39,13 @@ import org.apache.olingo.server.api.deserializer.FixedFormatDeserializer;
 import org.apache.olingo.server.api.deserializer.ODataDeserializer;
 import org.apache.olingo.server.api.etag.ETagHelper;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.paging.KeysetPagingHelper;
 import org.apache.olingo.server.api.prefer.Preferences;
 import org.apache.olingo.server.api.serializer.EdmAssistedSerializer;
 import org.apache.olingo.server.api.serializer.EdmDeltaSerializer;
 import org.apache.olingo.server.api.serializer.FixedFormatSerializer;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.serializer.RowBatchSerializer;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriHelper;
 
@@ -145,6 +147,11 @@ public class ODataNettyImpl extends ODataNetty {
     return odata.createPreferences(preferHeaders);
   }
 
+  @Override
+  public KeysetPagingHelper createKeysetPagingHelper(byte[] signingKey) {
+    return odata.createKeysetPagingHelper(signingKey);
+  }
+
   @Override
   public DebugResponseHelper createDebugResponseHelper(String debugFormat) {
     return odata.createDebugResponseHelper(debugFormat);
@@ -155,6 +162,11 @@ public class ODataNettyImpl extends ODataNetty {
     return odata.createEdmAssistedSerializer(contentType);
   }
 
+  @Override
+  public RowBatchSerializer createRowBatchSerializer(ContentType contentType) throws SerializerException {
+    return odata.createRowBatchSerializer(contentType);
+  }
+
   @Override
   public EdmDeltaSerializer createEdmDeltaSerializer(ContentType contentType, List<String> versions)
       throws SerializerException {
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.CachedDocument;
+import org.apache.olingo.server.api.serializer.DocumentCache;
+import org.apache.olingo.server.api.serializer.SerializerException;
+
+/**
+ * Keeps the serialized metadata document and service document of a service in memory,
+ * one copy for each content type requested.
+ */
+public class DocumentCacheImpl implements DocumentCache {
+
+  /** Upper bound for the number of variants of each document, as a guard against unusual content types. */
+  private static final int MAX_VARIANTS = 32;
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final OData odata;
+  private final ServiceMetadata serviceMetadata;
+  private final boolean compress;
+  private final ConcurrentMap<String, CachedDocument> metadataDocuments =
+      new ConcurrentHashMap<String, CachedDocument>();
+  private final ConcurrentMap<String, CachedDocument> serviceDocuments =
+      new ConcurrentHashMap<String, CachedDocument>();
+
+  /**
+   * Creates a cache.
+   * @param odata OData instance used to create the serializers
+   * @param serviceMetadata metadata of the service
+   * @param compress whether gzip-compressed copies of the documents are kept as well
+   */
+  public DocumentCacheImpl(final OData odata, final ServiceMetadata serviceMetadata, final boolean compress) {
+    this.odata = odata;
+    this.serviceMetadata = serviceMetadata;
+    this.compress = compress;
+  }
+
+  @Override
+  public CachedDocument getMetadataDocument(final ContentType contentType) throws SerializerException {
+    final String key = contentType.toContentTypeString();
+    CachedDocument document = metadataDocuments.get(key);
+    if (document == null) {
+      document = createDocument(odata.createSerializer(contentType).metadataDocument(serviceMetadata).getContent());
+      document = putIfAbsent(metadataDocuments, key, document);
+    }
+    return document;
+  }
+
+  @Override
+  public CachedDocument getServiceDocument(final ContentType contentType) throws SerializerException {
+    final String key = contentType.toContentTypeString();
+    CachedDocument document = serviceDocuments.get(key);
+    if (document == null) {
+      document = createDocument(
+          odata.createSerializer(contentType).serviceDocument(serviceMetadata, null).getContent());
+      document = putIfAbsent(serviceDocuments, key, document);
+    }
+    return document;
+  }
+
+  private CachedDocument putIfAbsent(final ConcurrentMap<String, CachedDocument> documents, final String key,
+      final CachedDocument document) {
+    if (documents.size() >= MAX_VARIANTS) {
+      return document;
+    }
+    final CachedDocument existing = documents.putIfAbsent(key, document);
+    return existing == null ? document : existing;
+  }
+
+  private CachedDocument createDocument(final InputStream content) throws SerializerException {
+    try {
+      final byte[] bytes = toByteArray(content);
+      byte[] compressedBytes = null;
+      if (compress) {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        final GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        gzip.write(bytes);
+        gzip.close();
+        compressedBytes = compressed.toByteArray();
+      }
+      final String eTag = createETag(bytes);
+      return new CachedDocumentImpl(bytes, compressedBytes, eTag,
+          compressedBytes == null ? null : createCompressedETag(eTag));
+    } catch (final IOException e) {
+      throw new SerializerException("An I/O exception occurred.", e, SerializerException.MessageKeys.IO_EXCEPTION);
+    }
+  }
+
+  private static byte[] toByteArray(final InputStream content) throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[8192];
+    int count;
+    try {
+      while ((count = content.read(buffer)) >= 0) {
+        output.write(buffer, 0, count);
+      }
+    } finally {
+      content.close();
+    }
+    return output.toByteArray();
+  }
+
+  private static String createETag(final byte[] content) {
+    final byte[] digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256").digest(content);
+    } catch (final NoSuchAlgorithmException e) {
+      // Every Java platform supports SHA-256.
+      throw new IllegalStateException(e);
+    }
+    // The first 128 bits of the hash are unique enough for an ETag.
+    final StringBuilder eTag = new StringBuilder(34).append('"');
+    for (int i = 0; i < 16; i++) {
+      eTag.append(HEX_DIGITS[(digest[i] >> 4) & 0x0F]).append(HEX_DIGITS[digest[i] & 0x0F]);
+    }
+    return eTag.append('"').toString();
+  }
+
+  /** Derives the ETag of the gzip-compressed representation from the ETag of the uncompressed content. */
+  private static String createCompressedETag(final String eTag) {
+    return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+  }
+
+  private static class CachedDocumentImpl implements CachedDocument {
+
+    private final byte[] content;
+    private final byte[] compressedContent;
+    private final String eTag;
+    private final String compressedETag;
+
+    private CachedDocumentImpl(final byte[] content, final byte[] compressedContent, final String eTag,
+        final String compressedETag) {
+      this.content = content;
+      this.compressedContent = compressedContent;
+      this.eTag = eTag;
+      this.compressedETag = compressedETag;
+    }
+
+    @Override
+    public InputStream getContent() {
+      return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public InputStream getCompressedContent() {
+      return compressedContent == null ? null : new ByteArrayInputStream(compressedContent);
+    }
+
+    @Override
+    public String getETag() {
+      return eTag;
+    }
+
+    @Override
+    public String getCompressedETag() {
+      return compressedETag;
+    }
+  }
+}
@@ -56,6 +56,7 @@ import org.apache.olingo.server.api.processor.MetadataProcessor;
 import org.apache.olingo.server.api.processor.PrimitiveCollectionProcessor;
 import org.apache.olingo.server.api.processor.PrimitiveProcessor;
 import org.apache.olingo.server.api.processor.PrimitiveValueProcessor;
+import org.apache.olingo.server.api.processor.Processor;
 import org.apache.olingo.server.api.processor.ReferenceCollectionProcessor;
 import org.apache.olingo.server.api.processor.ReferenceProcessor;
 import org.apache.olingo.server.api.processor.ServiceDocumentProcessor;
@@ -78,10 +79,21 @@ public class ODataDispatcher {
   private static final String NOT_IMPLEMENTED_MESSAGE = "not implemented";
   private final UriInfo uriInfo;
   private final ODataHandlerImpl handler;
+  private final ODataRequestContext context;
 
   public ODataDispatcher(final UriInfo uriInfo, final ODataHandlerImpl handler) {
+    this(uriInfo, handler, null);
+  }
+
+  /**
+   * @param uriInfo the parsed URI
+   * @param handler the handler with the registered processors
+   * @param context the context of the request, or <code>null</code>
+   */
+  public ODataDispatcher(final UriInfo uriInfo, final ODataHandlerImpl handler, final ODataRequestContext context) {
     this.uriInfo = uriInfo;
     this.handler = handler;
+    this.context = context;
   }
 
   public void dispatch(final ODataRequest request, final ODataResponse response) throws ODataApplicationException,
@@ -91,19 +103,19 @@ public class ODataDispatcher {
       checkMethods(request.getMethod(), HttpMethod.GET, HttpMethod.HEAD);
       final ContentType requestedContentType = ContentNegotiator.doContentNegotiation(uriInfo.getFormatOption(),
           request, handler.getCustomContentTypeSupport(), RepresentationType.METADATA);
-      handler.selectProcessor(MetadataProcessor.class)
+      selectProcessor(MetadataProcessor.class)
           .readMetadata(request, response, uriInfo, requestedContentType);
       break;
 
     case service:
       checkMethods(request.getMethod(), HttpMethod.GET, HttpMethod.HEAD);
       if ("".equals(request.getRawODataPath())) {
-        handler.selectProcessor(RedirectProcessor.class)
+        selectProcessor(RedirectProcessor.class)
             .redirect(request, response);
       } else {
         final ContentType serviceContentType = ContentNegotiator.doContentNegotiation(uriInfo.getFormatOption(),
             request, handler.getCustomContentTypeSupport(), RepresentationType.SERVICE);
-        handler.selectProcessor(ServiceDocumentProcessor.class)
+        selectProcessor(ServiceDocumentProcessor.class)
             .readServiceDocument(request, response, uriInfo, serviceContentType);
       }
       break;
@@ -115,7 +127,7 @@ public class ODataDispatcher {
 
     case batch:
       checkMethod(request.getMethod(), HttpMethod.POST);
-      new BatchHandler(handler, handler.selectProcessor(BatchProcessor.class))
+      new BatchHandler(handler, selectProcessor(BatchProcessor.class), context)
           .process(request, response, true);
       break;
 
@@ -217,7 +229,7 @@ public class ODataDispatcher {
         RepresentationType.ACTION_PARAMETERS, false);
     final EdmReturnType returnType = action.getReturnType();
     if (returnType == null) {
-      handler.selectProcessor(ActionVoidProcessor.class)
+      selectProcessor(ActionVoidProcessor.class)
           .processActionVoid(request, response, uriInfo, requestFormat);
     } else {
       final boolean isCollection = returnType.isCollection();
@@ -228,10 +240,10 @@ public class ODataDispatcher {
             request, handler.getCustomContentTypeSupport(),
             isCollection ? RepresentationType.COLLECTION_ENTITY : RepresentationType.ENTITY);
         if (isCollection) {
-          handler.selectProcessor(ActionEntityCollectionProcessor.class)
+          selectProcessor(ActionEntityCollectionProcessor.class)
               .processActionEntityCollection(request, response, uriInfo, requestFormat, responseFormat);
         } else {
-          handler.selectProcessor(ActionEntityProcessor.class)
+          selectProcessor(ActionEntityProcessor.class)
               .processActionEntity(request, response, uriInfo, requestFormat, responseFormat);
         }
         break;
@@ -241,10 +253,10 @@ public class ODataDispatcher {
             request, handler.getCustomContentTypeSupport(),
             isCollection ? RepresentationType.COLLECTION_PRIMITIVE : RepresentationType.PRIMITIVE);
         if (isCollection) {
-          handler.selectProcessor(ActionPrimitiveCollectionProcessor.class)
+          selectProcessor(ActionPrimitiveCollectionProcessor.class)
               .processActionPrimitiveCollection(request, response, uriInfo, requestFormat, responseFormat);
         } else {
-          handler.selectProcessor(ActionPrimitiveProcessor.class)
+          selectProcessor(ActionPrimitiveProcessor.class)
               .processActionPrimitive(request, response, uriInfo, requestFormat, responseFormat);
         }
         break;
@@ -254,10 +266,10 @@ public class ODataDispatcher {
             request, handler.getCustomContentTypeSupport(),
             isCollection ? RepresentationType.COLLECTION_COMPLEX : RepresentationType.COMPLEX);
         if (isCollection) {
-          handler.selectProcessor(ActionComplexCollectionProcessor.class)
+          selectProcessor(ActionComplexCollectionProcessor.class)
               .processActionComplexCollection(request, response, uriInfo, requestFormat, responseFormat);
         } else {
-          handler.selectProcessor(ActionComplexProcessor.class)
+          selectProcessor(ActionComplexProcessor.class)
               .processActionComplex(request, response, uriInfo, requestFormat, responseFormat);
         }
         break;
@@ -279,28 +291,28 @@ public class ODataDispatcher {
     if (isCollection && httpMethod == HttpMethod.GET) {
       final ContentType responseFormat = ContentNegotiator.doContentNegotiation(uriInfo.getFormatOption(),
           request, handler.getCustomContentTypeSupport(), RepresentationType.COLLECTION_REFERENCE);
-      handler.selectProcessor(ReferenceCollectionProcessor.class)
+      selectProcessor(ReferenceCollectionProcessor.class)
           .readReferenceCollection(request, response, uriInfo, responseFormat);
 
     } else if (isCollection && httpMethod == HttpMethod.POST) {
       final ContentType requestFormat = getSupportedContentType(request.getHeader(HttpHeader.CONTENT_TYPE),
           RepresentationType.REFERENCE, true);
-      handler.selectProcessor(ReferenceProcessor.class)
+      selectProcessor(ReferenceProcessor.class)
           .createReference(request, response, uriInfo, requestFormat);
 
     } else if (!isCollection && httpMethod == HttpMethod.GET) {
       final ContentType responseFormat = ContentNegotiator.doContentNegotiation(uriInfo.getFormatOption(),
           request, handler.getCustomContentTypeSupport(), RepresentationType.REFERENCE);
-      handler.selectProcessor(ReferenceProcessor.class).readReference(request, response, uriInfo, responseFormat);
+      selectProcessor(ReferenceProcessor.class).readReference(request, response, uriInfo, responseFormat);
 
     } else if (!isCollection && (httpMethod == HttpMethod.PUT || httpMethod == HttpMethod.PATCH)) {
       final ContentType requestFormat = getSupportedContentType(request.getHeader(HttpHeader.CONTENT_TYPE),
           RepresentationType.REFERENCE, true);
-      handler.selectProcessor(ReferenceProcessor.class)
+      selectProcessor(ReferenceProcessor.class)
           .updateReference(request, response, uriInfo, requestFormat);
 
     } else if (httpMethod == HttpMethod.DELETE) {
-      handler.selectProcessor(ReferenceProcessor.class)
+      selectProcessor(ReferenceProcessor.class)
           .deleteReference(request, response, uriInfo);
 
     } else {
@@ -331,7 +343,7 @@ public class ODataDispatcher {
       final ContentType requestedContentType = ContentNegotiator.
           doContentNegotiation(uriInfo.getFormatOption(),
           request, handler.getCustomContentTypeSupport(), RepresentationType.MEDIA);
-      handler.selectProcessor(MediaEntityProcessor.class)
+      selectProcessor(MediaEntityProcessor.class)
           .readMediaEntity(request, response, uriInfo, requestedContentType);
       // PUT and DELETE can only be called on EntitySets or Navigation properties which are media resources
     } else if (method == HttpMethod.PUT && (isEntityOrNavigationMedia(resource) 
@@ -340,11 +352,11 @@ public class ODataDispatcher {
       final ContentType requestFormat = ContentType.parse(request.getHeader(HttpHeader.CONTENT_TYPE));
       final ContentType responseFormat = ContentNegotiator.doContentNegotiation(uriInfo.getFormatOption(),
           request, handler.getCustomContentTypeSupport(), RepresentationType.ENTITY);
-      handler.selectProcessor(MediaEntityProcessor.class)
+      selectProcessor(MediaEntityProcessor.class)
           .updateMediaEntity(request, response, uriInfo, requestFormat, responseFormat);
     } else if (method == HttpMethod.DELETE && isEntityOrNavigationMedia(resource)) {
       validatePreconditions(request, true);
-      handler.selectProcessor(MediaEntityProcessor.class)
+      selectProcessor(MediaEntityProcessor.class)
           .deleteMediaEntity(request, response, uriInfo);
     } else {
       throwMethodNotAllowed(method);
@@ -366,7 +378,7 @@ public class ODataDispatcher {
           doContentNegotiation(uriInfo.getFormatOption(),
           request, handler.getCustomContentTypeSupport(), valueRepresentationType);
 
-      handler.selectProcessor(PrimitiveValueProcessor.class)
+      selectProcessor(PrimitiveValueProcessor.class)
           .readPrimitiveValue(request, response, uriInfo, requestedContentType);
     } else if (method == HttpMethod.PUT && resource instanceof UriResourceProperty) {
       validatePreconditions(request, false);
@@ -374,11 +386,11 @@ public class ODataDispatcher {
           valueRepresentationType, true);
       final ContentType responseFormat = ContentNegotiator.doContentNegotiation(uriInfo.getFormatOption(),
           request, handler.getCustomContentTypeSupport(), valueRepresentationType);
-      handler.selectProcessor(PrimitiveValueProcessor.class)
+      selectProcessor(PrimitiveValueProcessor.class)
           .updatePrimitiveValue(request, response, uriInfo, requestFormat, responseFormat);
     } else if (method == HttpMethod.DELETE && resource instanceof UriResourceProperty) {
       validatePreconditions(request, false);
-      handler.selectProcessor(PrimitiveValueProcessor.class)
+      selectProcessor(PrimitiveValueProcessor.class)
           .deletePrimitiveValue(request, response, uriInfo);
     } else {
       throwMethodNotAllowed(method);
@@ -394,10 +406,10 @@ public class ODataDispatcher {
       final ContentType requestedContentType = ContentNegotiator.doContentNegotiation(uriInfo.getFormatOption(),
           request, handler.getCustomContentTypeSupport(), complexRepresentationType);
       if (isCollection) {
-        handler.selectProcessor(ComplexCollectionProcessor.class)
+        selectProcessor(ComplexCollectionProcessor.class)
             .readComplexCollection(request, response, uriInfo, requestedContentType);
       } else {
-        handler.selectProcessor(ComplexProcessor.class)
+        selectProcessor(ComplexProcessor.class)
             .readComplex(request, response, uriInfo, requestedContentType);
       }
     } else if (method == HttpMethod.PUT || method == HttpMethod.PATCH) {
@@ -407,19 +419,19 @@ public class ODataDispatcher {
       final ContentType responseFormat = ContentNegotiator.doContentNegotiation(uriInfo.getFormatOption(),
           request, handler.getCustomContentTypeSupport(), complexRepresentationType);
       if (isCollection) {
-        handler.selectProcessor(ComplexCollectionProcessor.class)
+        selectProcessor(ComplexCollectionProcessor.class)
             .updateComplexCollection(request, response, uriInfo, requestFormat, responseFormat);
       } else {
-        handler.selectProcessor(ComplexProcessor.class)
+        selectProcessor(ComplexProcessor.class)
             .updateComplex(request, response, uriInfo, requestFormat, responseFormat);
       }
     } else if (method == HttpMethod.DELETE) {
       validatePreconditions(request, false);
       if (isCollection) {
-        handler.selectProcessor(ComplexCollectionProcessor.class)
+        selectProcessor(ComplexCollectionProcessor.class)
             .deleteComplexCollection(request, response, uriInfo);
       } else {
-        handler.selectProcessor(ComplexProcessor.class)
+        selectProcessor(ComplexProcessor.class)
             .deleteComplex(request, response, uriInfo);
       }
     } else {
@@ -436,10 +448,10 @@ public class ODataDispatcher {
       final ContentType requestedContentType = ContentNegotiator.doContentNegotiation(uriInfo.getFormatOption(),
           request, handler.getCustomContentTypeSupport(), representationType);
       if (isCollection) {
-        handler.selectProcessor(PrimitiveCollectionProcessor.class)
+        selectProcessor(PrimitiveCollectionProcessor.class)
             .readPrimitiveCollection(request, response, uriInfo, requestedContentType);
       } else {
-        handler.selectProcessor(PrimitiveProcessor.class)
+        selectProcessor(PrimitiveProcessor.class)
             .readPrimitive(request, response, uriInfo, requestedContentType);
       }
     } else if (method == HttpMethod.PUT || method == HttpMethod.PATCH) {
@@ -449,19 +461,19 @@ public class ODataDispatcher {
       final ContentType responseFormat = ContentNegotiator.doContentNegotiation(uriInfo.getFormatOption(),
           request, handler.getCustomContentTypeSupport(), representationType);
       if (isCollection) {
-        handler.selectProcessor(PrimitiveCollectionProcessor.class)
+        selectProcessor(PrimitiveCollectionProcessor.class)
             .updatePrimitiveCollection(request, response, uriInfo, requestFormat, responseFormat);
       } else {
-        handler.selectProcessor(PrimitiveProcessor.class)
+        selectProcessor(PrimitiveProcessor.class)
             .updatePrimitive(request, response, uriInfo, requestFormat, responseFormat);
       }
     } else if (method == HttpMethod.DELETE) {
       validatePreconditions(request, false);
       if (isCollection) {
-        handler.selectProcessor(PrimitiveCollectionProcessor.class)
+        selectProcessor(PrimitiveCollectionProcessor.class)
             .deletePrimitiveCollection(request, response, uriInfo);
       } else {
-        handler.selectProcessor(PrimitiveProcessor.class)
+        selectProcessor(PrimitiveProcessor.class)
             .deletePrimitive(request, response, uriInfo);
       }
     } else {
@@ -476,15 +488,15 @@ public class ODataDispatcher {
         || resource instanceof UriResourceNavigation
         || resource instanceof UriResourceFunction
             && ((UriResourceFunction) resource).getType().getKind() == EdmTypeKind.ENTITY) {
-      handler.selectProcessor(CountEntityCollectionProcessor.class)
+      selectProcessor(CountEntityCollectionProcessor.class)
           .countEntityCollection(request, response, uriInfo);
     } else if (resource instanceof UriResourcePrimitiveProperty
         || resource instanceof UriResourceFunction
             && ((UriResourceFunction) resource).getType().getKind() == EdmTypeKind.PRIMITIVE) {
-      handler.selectProcessor(CountPrimitiveCollectionProcessor.class)
+      selectProcessor(CountPrimitiveCollectionProcessor.class)
           .countPrimitiveCollection(request, response, uriInfo);
     } else {
-      handler.selectProcessor(CountComplexCollectionProcessor.class)
+      selectProcessor(CountComplexCollectionProcessor.class)
           .countComplexCollection(request, response, uriInfo);
     }
   }
@@ -508,7 +520,7 @@ public class ODataDispatcher {
       final ContentType requestedContentType = ContentNegotiator.
           doContentNegotiation(uriInfo.getFormatOption(),
           request, handler.getCustomContentTypeSupport(), RepresentationType.COLLECTION_ENTITY);
-      handler.selectProcessor(EntityCollectionProcessor.class)
+      selectProcessor(EntityCollectionProcessor.class)
           .readEntityCollection(request, response, uriInfo, requestedContentType);
     } else if (method == HttpMethod.POST) {
       final ContentType responseFormat = ContentNegotiator.
@@ -517,13 +529,13 @@ public class ODataDispatcher {
       if (isMedia) {
         final ContentType requestFormat = ContentType.parse(
             request.getHeader(HttpHeader.CONTENT_TYPE));
-        handler.selectProcessor(MediaEntityProcessor.class)
+        selectProcessor(MediaEntityProcessor.class)
             .createMediaEntity(request, response, uriInfo, requestFormat, responseFormat);
       } else {
         final ContentType requestFormat = getSupportedContentType(
             request.getHeader(HttpHeader.CONTENT_TYPE),
             RepresentationType.ENTITY, true);
-        handler.selectProcessor(EntityProcessor.class)
+        selectProcessor(EntityProcessor.class)
             .createEntity(request, response, uriInfo, requestFormat, responseFormat);
       }
     } else {
@@ -547,7 +559,7 @@ public class ODataDispatcher {
         final ContentType requestedContentType = ContentNegotiator.
             doContentNegotiation(uriInfo.getFormatOption(),
             request, handler.getCustomContentTypeSupport(), RepresentationType.ENTITY);
-        handler.selectProcessor(EntityProcessor.class)
+        selectProcessor(EntityProcessor.class)
             .readEntity(request, response, uriInfo, requestedContentType);
       } else if (method == HttpMethod.PUT || method == HttpMethod.PATCH) {
         validatePreconditions(request, false);
@@ -557,12 +569,12 @@ public class ODataDispatcher {
         final ContentType responseFormat = ContentNegotiator.
             doContentNegotiation(uriInfo.getFormatOption(),
             request, handler.getCustomContentTypeSupport(), RepresentationType.ENTITY);
-        handler.selectProcessor(EntityProcessor.class)
+        selectProcessor(EntityProcessor.class)
             .updateEntity(request, response, uriInfo, requestFormat, responseFormat);
       } else if (method == HttpMethod.DELETE && !isSingleton) {
         validateIsSingleton(method);
         validatePreconditions(request, false);
-        handler.selectProcessor(isMedia ? MediaEntityProcessor.class : EntityProcessor.class)
+        selectProcessor(isMedia ? MediaEntityProcessor.class : EntityProcessor.class)
             .deleteEntity(request, response, uriInfo);
       } else {
         throwMethodNotAllowed(method);
@@ -649,4 +661,12 @@ public class ODataDispatcher {
             && ((EdmEntityType) ((UriResourceNavigation) pathSegment).getType()).hasStream();
   }
 
+
+  private <T extends Processor> T selectProcessor(final Class<T> cls) throws ODataHandlerException {
+    final T processor = handler.selectProcessor(cls);
+    if (context != null && context.getMetricsRecorder() != null) {
+      context.getMetricsRecorder().processorSelected();
+    }
+    return processor;
+  }
 }
@@ -27,6 +27,7 @@ import org.apache.olingo.server.api.ODataLibraryException.ODataErrorMessage;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.etag.PreconditionException;
+import org.apache.olingo.server.api.paging.SkipTokenException;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.core.uri.parser.UriParserException;
 import org.apache.olingo.server.core.uri.parser.UriParserSemanticException;
@@ -131,6 +132,17 @@ public class ODataExceptionHelper {
     return serverError;
   }
 
+  public static ODataServerError createServerErrorObject(final SkipTokenException e,
+      final Locale requestedLocale) {
+    ODataServerError serverError = basicTranslatedError(e, requestedLocale);
+    if (SkipTokenException.MessageKeys.INVALID_SKIPTOKEN == e.getMessageKey()) {
+      serverError.setStatusCode(HttpStatusCode.BAD_REQUEST.getStatusCode());
+    } else if (SkipTokenException.MessageKeys.UNSUPPORTED_ORDER_EXPRESSION == e.getMessageKey()) {
+      serverError.setStatusCode(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode());
+    }
+    return serverError;
+  }
+
   public static ODataServerError createServerErrorObject(final ODataLibraryException e, final Locale requestedLocale) {
     ODataServerError serverError = basicTranslatedError(e, requestedLocale);
     if(e instanceof SerializerException || e instanceof DeserializerException){
@@ -18,8 +18,12 @@
  */
 package org.apache.olingo.server.core;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
@@ -38,6 +42,9 @@ import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
 import org.apache.olingo.server.api.etag.PreconditionException;
+import org.apache.olingo.server.api.metrics.MetricsSupport;
+import org.apache.olingo.server.api.metrics.RequestPhase;
+import org.apache.olingo.server.api.paging.SkipTokenException;
 import org.apache.olingo.server.api.processor.DefaultProcessor;
 import org.apache.olingo.server.api.processor.ErrorProcessor;
 import org.apache.olingo.server.api.processor.Processor;
@@ -49,6 +56,7 @@ import org.apache.olingo.server.api.uri.queryoption.FormatOption;
 import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.core.uri.parser.UriInfoCache;
 import org.apache.olingo.server.core.uri.parser.UriParserException;
 import org.apache.olingo.server.core.uri.parser.UriParserSemanticException;
 import org.apache.olingo.server.core.uri.parser.UriParserSyntaxException;
@@ -60,15 +68,22 @@ public class ODataHandlerImpl implements ODataHandler {
 
   private final OData odata;
   private final ServiceMetadata serviceMetadata;
-  private final List<Processor> processors = new LinkedList<Processor>();
   private final ServerCoreDebugger debugger;
 
-  private CustomContentTypeSupport customContentTypeSupport;
-  private CustomETagSupport customETagSupport;
-
-  private UriInfo uriInfo;
-  private Exception lastThrownException;
+  // Requests read the configuration without locking; registration replaces the processor table as a whole.
+  private volatile ProcessorTable processors = new ProcessorTable();
+  private volatile CustomContentTypeSupport customContentTypeSupport;
+  private volatile CustomETagSupport customETagSupport;
+  private volatile ExecutorService batchExecutor;
+  private volatile MetricsSupport metricsSupport;
 
+  /**
+   * Creates a handler. Once configured, the handler can process requests concurrently.
+   * @param odata the OData factory
+   * @param serviceMetadata the metadata of the service
+   * @param debugger the debugger for requests processed with {@link #process(ODataRequest)};
+   * it is shared by these requests and therefore must not be in debug mode
+   */
   public ODataHandlerImpl(final OData odata, final ServiceMetadata serviceMetadata, final ServerCoreDebugger debugger) {
     this.odata = odata;
     this.serviceMetadata = serviceMetadata;
@@ -79,99 +94,164 @@ public class ODataHandlerImpl implements ODataHandler {
   }
 
   public ODataResponse process(final ODataRequest request) {
+    final ODataRequestContext context = createContext(request, debugger);
+    final ODataResponse response = process(request, context);
+    if (context.getMetricsRecorder() != null) {
+      context.getMetricsRecorder().report(response.getStatusCode(), -1);
+    }
+    return response;
+  }
+
+  /**
+   * Creates the context for processing a request.
+   * @param request the request
+   * @param requestDebugger the debugger for the request
+   * @return the context with a metrics recorder if metrics support is set
+   */
+  public ODataRequestContext createContext(final ODataRequest request, final ServerCoreDebugger requestDebugger) {
+    return new ODataRequestContext(requestDebugger, createMetricsRecorder(request));
+  }
+
+  /**
+   * Processes a request and records the durations of its phases.
+   * The caller reports the recorded metrics, e.g., after it has written the response content.
+   * @param request the request
+   * @param context the context created for this request with {@link #createContext(ODataRequest, ServerCoreDebugger)}
+   * @return the response
+   */
+  public ODataResponse process(final ODataRequest request, final ODataRequestContext context) {
+    final ServerCoreDebugger requestDebugger = context.getDebugger();
     ODataResponse response = new ODataResponse();
-    final int responseHandle = debugger.startRuntimeMeasurement("ODataHandler", "process");
+    final int responseHandle = requestDebugger.startRuntimeMeasurement("ODataHandler", "process");
     try {
-      processInternal(request, response);
+      processInternal(request, response, context);
     } catch (final UriValidationException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (final UriParserSemanticException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (final UriParserSyntaxException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (final UriParserException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (AcceptHeaderContentNegotiatorException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (ContentNegotiatorException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (SerializerException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (DeserializerException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (PreconditionException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
+    } catch (SkipTokenException e) {
+      ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
+      handleException(request, response, serverError, e, context);
     } catch (ODataHandlerException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (ODataApplicationException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (Exception e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     }
-    debugger.stopRuntimeMeasurement(responseHandle);
+    requestDebugger.stopRuntimeMeasurement(responseHandle);
     return response;
   }
 
-  private void processInternal(final ODataRequest request, final ODataResponse response)
-      throws ODataApplicationException, ODataLibraryException {
-    final int measurementHandle = debugger.startRuntimeMeasurement("ODataHandler", "processInternal");
+  private void processInternal(final ODataRequest request, final ODataResponse response,
+      final ODataRequestContext context) throws ODataApplicationException, ODataLibraryException {
+    final ServerCoreDebugger requestDebugger = context.getDebugger();
+    final RequestMetricsRecorder metricsRecorder = context.getMetricsRecorder();
+    final int measurementHandle = requestDebugger.startRuntimeMeasurement("ODataHandler", "processInternal");
 
     response.setHeader(HttpHeader.ODATA_VERSION, ODataServiceVersion.V40.toString());
     
     try {
       validateODataVersion(request);
     } catch (final ODataHandlerException e) {
-      debugger.stopRuntimeMeasurement(measurementHandle);
+      requestDebugger.stopRuntimeMeasurement(measurementHandle);
       throw e;
     }
 
-    final int measurementUriParser = debugger.startRuntimeMeasurement("Parser", "parseUri");
+    final int measurementUriParser = requestDebugger.startRuntimeMeasurement("Parser", "parseUri");
+    long phaseStart = metricsRecorder == null ? 0 : System.nanoTime();
     try {
-      uriInfo = new Parser(serviceMetadata.getEdm(), odata)
-          .parseUri(request.getRawODataPath(), request.getRawQueryPath(), null, request.getRawBaseUri());
+      context.setUriInfo(parseUri(request));
     } catch (final ODataLibraryException e) {
-      debugger.stopRuntimeMeasurement(measurementUriParser);
-      debugger.stopRuntimeMeasurement(measurementHandle);
+      requestDebugger.stopRuntimeMeasurement(measurementUriParser);
+      requestDebugger.stopRuntimeMeasurement(measurementHandle);
       throw e;
     }
-    debugger.stopRuntimeMeasurement(measurementUriParser);
+    requestDebugger.stopRuntimeMeasurement(measurementUriParser);
+    final UriInfo uriInfo = context.getUriInfo();
+    if (metricsRecorder != null) {
+      phaseStart = metricsRecorder.record(RequestPhase.URI_PARSING, phaseStart);
+      metricsRecorder.setUriInfo(uriInfo);
+    }
 
-    final int measurementUriValidator = debugger.startRuntimeMeasurement("UriValidator", "validate");
+    final int measurementUriValidator = requestDebugger.startRuntimeMeasurement("UriValidator", "validate");
     final HttpMethod method = request.getMethod();
     try {
       new UriValidator().validate(uriInfo, method);
     } catch (final UriValidationException e) {
-      debugger.stopRuntimeMeasurement(measurementUriValidator);
-      debugger.stopRuntimeMeasurement(measurementHandle);
+      requestDebugger.stopRuntimeMeasurement(measurementUriValidator);
+      requestDebugger.stopRuntimeMeasurement(measurementHandle);
       throw e;
     }
-    debugger.stopRuntimeMeasurement(measurementUriValidator);
+    requestDebugger.stopRuntimeMeasurement(measurementUriValidator);
+    if (metricsRecorder != null) {
+      metricsRecorder.record(RequestPhase.URI_VALIDATION, phaseStart);
+    }
 
-    final int measurementDispatcher = debugger.startRuntimeMeasurement("ODataDispatcher", "dispatch");
+    final int measurementDispatcher = requestDebugger.startRuntimeMeasurement("ODataDispatcher", "dispatch");
+    if (metricsRecorder != null) {
+      metricsRecorder.startDispatching();
+    }
     try {
-      new ODataDispatcher(uriInfo, this).dispatch(request, response);
+      new ODataDispatcher(uriInfo, this, context).dispatch(request, response);
     } finally {
-      debugger.stopRuntimeMeasurement(measurementDispatcher);
-      debugger.stopRuntimeMeasurement(measurementHandle);
+      if (metricsRecorder != null) {
+        metricsRecorder.endDispatching();
+      }
+      requestDebugger.stopRuntimeMeasurement(measurementDispatcher);
+      requestDebugger.stopRuntimeMeasurement(measurementHandle);
+    }
+  }
+
+  private UriInfo parseUri(final ODataRequest request) throws UriParserException, UriValidationException {
+    final UriInfoCache uriInfoCache = serviceMetadata instanceof ServiceMetadataImpl ?
+        ((ServiceMetadataImpl) serviceMetadata).getUriInfoCache() :
+        null;
+    if (uriInfoCache == null) {
+      return new Parser(serviceMetadata.getEdm(), odata)
+          .parseUri(request.getRawODataPath(), request.getRawQueryPath(), null, request.getRawBaseUri());
+    } else {
+      return uriInfoCache.parseUri(odata,
+          request.getRawODataPath(), request.getRawQueryPath(), request.getRawBaseUri());
     }
   }
 
   public void handleException(final ODataRequest request, final ODataResponse response,
       final ODataServerError serverError, final Exception exception) {
-    final int measurementHandle = debugger.startRuntimeMeasurement("ODataHandler", "handleException");
-    lastThrownException = exception;
+    handleException(request, response, serverError, exception, new ODataRequestContext(debugger, null));
+  }
+
+  public void handleException(final ODataRequest request, final ODataResponse response,
+      final ODataServerError serverError, final Exception exception, final ODataRequestContext context) {
+    final ServerCoreDebugger requestDebugger = context.getDebugger();
+    final int measurementHandle = requestDebugger.startRuntimeMeasurement("ODataHandler", "handleException");
+    context.setLastThrownException(exception);
     ErrorProcessor exceptionProcessor;
     try {
       exceptionProcessor = selectProcessor(ErrorProcessor.class);
@@ -181,7 +261,7 @@ public class ODataHandlerImpl implements ODataHandler {
     }
     ContentType requestedContentType;
     try {
-      final FormatOption formatOption = getFormatOption(request, uriInfo);
+      final FormatOption formatOption = getFormatOption(request, context.getUriInfo());
       requestedContentType = ContentNegotiator.doContentNegotiation(formatOption, request,
           getCustomContentTypeSupport(), RepresentationType.ERROR);
     } catch (final AcceptHeaderContentNegotiatorException e) {
@@ -189,10 +269,10 @@ public class ODataHandlerImpl implements ODataHandler {
     } catch (final ContentNegotiatorException e) {
       requestedContentType = ContentType.JSON;
     }
-    final int measurementError = debugger.startRuntimeMeasurement("ErrorProcessor", "processError");
+    final int measurementError = requestDebugger.startRuntimeMeasurement("ErrorProcessor", "processError");
     exceptionProcessor.processError(request, response, serverError, requestedContentType);
-    debugger.stopRuntimeMeasurement(measurementError);
-    debugger.stopRuntimeMeasurement(measurementHandle);
+    requestDebugger.stopRuntimeMeasurement(measurementError);
+    requestDebugger.stopRuntimeMeasurement(measurementHandle);
   }
 
   /**
@@ -241,22 +321,26 @@ public class ODataHandlerImpl implements ODataHandler {
   }
 
   <T extends Processor> T selectProcessor(final Class<T> cls) throws ODataHandlerException {
-    for (final Processor processor : processors) {
-      if (cls.isAssignableFrom(processor.getClass())) {
-        processor.init(odata, serviceMetadata);
-        return cls.cast(processor);
-      }
+    final Processor processor = processors.get(cls);
+    if (processor == null) {
+      throw new ODataHandlerException("Processor: " + cls.getSimpleName() + " not registered.",
+          ODataHandlerException.MessageKeys.PROCESSOR_NOT_IMPLEMENTED, cls.getSimpleName());
     }
-    throw new ODataHandlerException("Processor: " + cls.getSimpleName() + " not registered.",
-        ODataHandlerException.MessageKeys.PROCESSOR_NOT_IMPLEMENTED, cls.getSimpleName());
+    return cls.cast(processor);
   }
 
-  public void register(final Processor processor) {
-    processors.add(0, processor);
+  /**
+   * Registers a processor. It is initialized once here and is used for all requests processed afterwards,
+   * so it has to be able to handle requests concurrently.
+   * For every processor interface, the processor registered last which implements it is used.
+   */
+  public synchronized void register(final Processor processor) {
+    processor.init(odata, serviceMetadata);
+    processors = processors.add(processor);
   }
 
   @Override
-  public void register(OlingoExtension extension) {
+  public synchronized void register(OlingoExtension extension) {
     if(extension instanceof CustomContentTypeSupport) {
       this.customContentTypeSupport = (CustomContentTypeSupport) extension;
     } else if(extension instanceof CustomETagSupport) {
@@ -267,6 +351,89 @@ public class ODataHandlerImpl implements ODataHandler {
     }
   }
 
+  /**
+   * Sets the executor used to execute GET requests outside of change sets in batch requests concurrently.
+   * The registered processors must be able to handle requests concurrently.
+   * The executor is not shut down by the handler.
+   * @param batchExecutor the executor or <code>null</code> to execute all batch parts one after the other
+   */
+  public void setBatchExecutor(final ExecutorService batchExecutor) {
+    this.batchExecutor = batchExecutor;
+  }
+
+  /**
+   * Sets the metrics support which receives the metrics of every processed request.
+   * @param metricsSupport the metrics support or <code>null</code> to record no metrics
+   */
+  public void setMetricsSupport(final MetricsSupport metricsSupport) {
+    this.metricsSupport = metricsSupport;
+  }
+
+  /**
+   * Creates the recorder for the metrics of a request.
+   * @param request the request
+   * @return the recorder, or <code>null</code> if no metrics support is set or the request has no method
+   */
+  public RequestMetricsRecorder createMetricsRecorder(final ODataRequest request) {
+    final MetricsSupport support = metricsSupport;
+    return support == null || request.getMethod() == null ?
+        null :
+        new RequestMetricsRecorder(support, request.getMethod());
+  }
+
+  /**
+   * Gets the executor for batch parts.
+   * @return the executor or <code>null</code>
+   */
+  public ExecutorService getBatchExecutor() {
+    return batchExecutor;
+  }
+
+  /**
+   * Gets the executor for the parts of a batch request.
+   * In debug mode there is no executor because the runtime measurements are recorded sequentially.
+   * @param context the context of the batch request
+   * @return the executor or <code>null</code>
+   */
+  public ExecutorService getBatchExecutor(final ODataRequestContext context) {
+    return context.getDebugger().isDebugMode() ? null : getBatchExecutor();
+  }
+
+  /**
+   * Creates a handler for the parts of a batch request.
+   * It processes the parts with this handler but records their runtime measurements with the debugger
+   * of the batch request.
+   * @param context the context of the batch request
+   * @return the handler for the batch parts
+   */
+  public ODataHandler createBatchPartHandler(final ODataRequestContext context) {
+    final ServerCoreDebugger batchDebugger = context.getDebugger();
+    if (batchDebugger == debugger) {
+      return this;
+    }
+    return new ODataHandler() {
+      @Override
+      public ODataResponse process(final ODataRequest request) {
+        final ODataRequestContext partContext = createContext(request, batchDebugger);
+        final ODataResponse response = ODataHandlerImpl.this.process(request, partContext);
+        if (partContext.getMetricsRecorder() != null) {
+          partContext.getMetricsRecorder().report(response.getStatusCode(), -1);
+        }
+        return response;
+      }
+
+      @Override
+      public void register(final Processor processor) {
+        ODataHandlerImpl.this.register(processor);
+      }
+
+      @Override
+      public void register(final OlingoExtension extension) {
+        ODataHandlerImpl.this.register(extension);
+      }
+    };
+  }
+
   public CustomContentTypeSupport getCustomContentTypeSupport() {
     return customContentTypeSupport;
   }
@@ -275,11 +442,61 @@ public class ODataHandlerImpl implements ODataHandler {
     return customETagSupport;
   }
 
-  public Exception getLastThrownException() {
-    return lastThrownException;
-  }
+  /**
+   * Immutable list of the registered processors, together with the processor for each processor interface.
+   * The table is computed at registration, so selecting a processor is a single lookup.
+   */
+  private static final class ProcessorTable {
 
-  public UriInfo getUriInfo() {
-    return uriInfo;
+    /** The registered processors, the latest one first. */
+    private final List<Processor> processors;
+    private final Map<Class<?>, Processor> byInterface;
+
+    ProcessorTable() {
+      processors = Collections.emptyList();
+      byInterface = Collections.emptyMap();
+    }
+
+    private ProcessorTable(final List<Processor> processors) {
+      this.processors = processors;
+      final Map<Class<?>, Processor> table = new HashMap<Class<?>, Processor>();
+      for (final Processor processor : processors) {
+        for (Class<?> cls = processor.getClass(); cls != null; cls = cls.getSuperclass()) {
+          addInterfaces(table, cls, processor);
+        }
+      }
+      byInterface = table;
+    }
+
+    private static void addInterfaces(final Map<Class<?>, Processor> table, final Class<?> cls,
+        final Processor processor) {
+      for (final Class<?> processorInterface : cls.getInterfaces()) {
+        if (Processor.class.isAssignableFrom(processorInterface) && !table.containsKey(processorInterface)) {
+          table.put(processorInterface, processor);
+        }
+        addInterfaces(table, processorInterface, processor);
+      }
+    }
+
+    ProcessorTable add(final Processor processor) {
+      final List<Processor> newProcessors = new ArrayList<Processor>(processors.size() + 1);
+      newProcessors.add(processor);
+      newProcessors.addAll(processors);
+      return new ProcessorTable(Collections.unmodifiableList(newProcessors));
+    }
+
+    Processor get(final Class<?> cls) {
+      final Processor processor = byInterface.get(cls);
+      if (processor != null) {
+        return processor;
+      }
+      // Only processor interfaces are in the table; classes are looked up the slow way.
+      for (final Processor candidate : processors) {
+        if (cls.isAssignableFrom(candidate.getClass())) {
+          return candidate;
+        }
+      }
+      return null;
+    }
   }
 }
@@ -31,6 +31,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -47,31 +48,66 @@ import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.OlingoExtension;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.async.AsyncSupport;
 import org.apache.olingo.server.api.debug.DebugSupport;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
+import org.apache.olingo.server.api.metrics.MetricsSupport;
+import org.apache.olingo.server.api.metrics.RequestPhase;
 import org.apache.olingo.server.api.processor.Processor;
 import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 
+/**
+ * Handles HTTP requests as OData requests.
+ * Once configured, one instance can process the requests of all threads;
+ * the state of a request is kept in its {@link ODataRequestContext}.
+ */
 public class ODataHttpHandlerImpl implements ODataHttpHandler {
 
   public static final int COPY_BUFFER_SIZE = 8192;
   private static final String REQUESTMAPPING = "requestMapping";
 
+  private final OData odata;
   private final ODataHandlerImpl handler;
-  private final ServerCoreDebugger debugger;
+  /** Debugger for requests without debug support; it is never in debug mode and therefore keeps no state. */
+  private final ServerCoreDebugger inactiveDebugger;
+  private volatile DebugSupport debugSupport;
+  private volatile AsyncSupport asyncSupport;
 
-  private int split = 0;
+  private volatile int split = 0;
 
   public ODataHttpHandlerImpl(final OData odata, final ServiceMetadata serviceMetadata) {
-    debugger = new ServerCoreDebugger(odata);
-    handler = new ODataHandlerImpl(odata, serviceMetadata, debugger);
+    this.odata = odata;
+    inactiveDebugger = new ServerCoreDebugger(odata);
+    handler = new ODataHandlerImpl(odata, serviceMetadata, inactiveDebugger);
   }
 
   @Override
   public ODataResponse process(ODataRequest request) {
-    return handler.process(request);
+    final ODataRequestContext context = handler.createContext(request, inactiveDebugger);
+    final ODataResponse response = process(request, context);
+    if (context.getMetricsRecorder() != null) {
+      context.getMetricsRecorder().report(response.getStatusCode(), -1);
+    }
+    return response;
+  }
+
+  private ODataResponse process(final ODataRequest request, final ODataRequestContext context) {
+    final AsyncSupport async = asyncSupport;
+    // In debug mode the runtime measurements and the response are bound to this request.
+    if (async != null && !context.getDebugger().isDebugMode()) {
+      if (async.isStatusMonitorRequest(request)) {
+        return async.processStatusMonitorRequest(request);
+      }
+      if (odata.createPreferences(request.getHeaders(HttpHeader.PREFER)).hasRespondAsync()) {
+        final ODataResponse acceptedResponse = async.processAsync(request, handler);
+        if (acceptedResponse != null) {
+          return acceptedResponse;
+        }
+      }
+    }
+    return handler.process(request, context);
   }
 
   @Override
@@ -79,17 +115,22 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     ODataRequest odRequest = new ODataRequest();
     Exception exception = null;
     ODataResponse odResponse;
-    debugger.resolveDebugMode(request);
+    ODataRequestContext context = null;
+    final ServerCoreDebugger debugger = createDebugger(request);
 
     final int processMethodHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "process");
     try {
-      fillODataRequest(odRequest, request, split);
+      fillODataRequest(odRequest, request, split, debugger);
 
-      odResponse = process(odRequest);
+      context = handler.createContext(odRequest, debugger);
+      odResponse = process(odRequest, context);
       // ALL future methods after process must not throw exceptions!
     } catch (Exception e) {
       exception = e;
-      odResponse = handleException(odRequest, e);
+      if (context == null) {
+        context = new ODataRequestContext(debugger, null);
+      }
+      odResponse = handleException(odRequest, e, context);
     }
     debugger.stopRuntimeMeasurement(processMethodHandle);
 
@@ -97,14 +138,38 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
       Map<String, String> serverEnvironmentVariables = createEnvironmentVariablesMap(request);
       if (exception == null) {
         // This is to ensure that we have access to the thrown OData Exception
-        exception = handler.getLastThrownException();
+        exception = context.getLastThrownException();
       }
       odResponse =
-          debugger.createDebugResponse(odRequest, odResponse, exception, handler.getUriInfo(),
+          debugger.createDebugResponse(odRequest, odResponse, exception, context.getUriInfo(),
               serverEnvironmentVariables);
     }
 
-    convertToHttp(response, odResponse);
+    final RequestMetricsRecorder recorder = context.getMetricsRecorder();
+    if (recorder == null) {
+      convertToHttp(response, odResponse);
+    } else {
+      final long serializationStart = System.nanoTime();
+      long bytesWritten = -1;
+      try {
+        bytesWritten = convertToHttp(response, odResponse);
+      } finally {
+        recorder.record(RequestPhase.SERIALIZATION, serializationStart);
+        recorder.report(odResponse.getStatusCode(), bytesWritten);
+      }
+    }
+  }
+
+  /** Creates the debugger for a request; only requests with debug support get their own one. */
+  private ServerCoreDebugger createDebugger(final HttpServletRequest request) {
+    final DebugSupport support = debugSupport;
+    if (support == null) {
+      return inactiveDebugger;
+    }
+    final ServerCoreDebugger debugger = new ServerCoreDebugger(odata);
+    debugger.setDebugSupportProcessor(support);
+    debugger.resolveDebugMode(request);
+    return debugger;
   }
 
   private Map<String, String> createEnvironmentVariablesMap(final HttpServletRequest request) {
@@ -135,7 +200,17 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     this.split = split;
   }
 
-  private ODataResponse handleException(final ODataRequest odRequest, final Exception e) {
+  /**
+   * Sets the executor used to execute GET requests outside of change sets in batch requests concurrently.
+   * @param batchExecutor the executor or <code>null</code> to execute all batch parts one after the other
+   * @see ODataHandlerImpl#setBatchExecutor(ExecutorService)
+   */
+  public void setBatchExecutor(final ExecutorService batchExecutor) {
+    handler.setBatchExecutor(batchExecutor);
+  }
+
+  private ODataResponse handleException(final ODataRequest odRequest, final Exception e,
+      final ODataRequestContext context) {
     ODataResponse resp = new ODataResponse();
     ODataServerError serverError;
     if (e instanceof ODataHandlerException) {
@@ -145,11 +220,15 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     } else {
       serverError = ODataExceptionHelper.createServerErrorObject(e);
     }
-    handler.handleException(odRequest, resp, serverError, e);
+    handler.handleException(odRequest, resp, serverError, e, context);
     return resp;
   }
 
-  static void convertToHttp(final HttpServletResponse response, final ODataResponse odResponse) {
+  /**
+   * Copies the status, the headers, and the content of the OData response to the HTTP response.
+   * @return the number of bytes written as content
+   */
+  static long convertToHttp(final HttpServletResponse response, final ODataResponse odResponse) {
     response.setStatus(odResponse.getStatusCode());
 
     for (Entry<String, List<String>> entry : odResponse.getAllHeaders().entrySet()) {
@@ -159,35 +238,40 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     }
 
     if (odResponse.getContent() != null) {
-      copyContent(odResponse.getContent(), response);
+      return copyContent(odResponse.getContent(), response);
     } else if (odResponse.getODataContent() != null) {
-      writeContent(odResponse, response);
+      return writeContent(odResponse, response);
     }
+    return 0;
   }
   
-  static void writeContent(final ODataResponse odataResponse, final HttpServletResponse servletResponse) {
+  static long writeContent(final ODataResponse odataResponse, final HttpServletResponse servletResponse) {
     try {
       ODataContent res = odataResponse.getODataContent();
-      res.write(Channels.newChannel(servletResponse.getOutputStream()));
+      CountingChannel output = new CountingChannel(Channels.newChannel(servletResponse.getOutputStream()));
+      res.write(output);
+      return output.count;
     } catch (IOException e) {
       throw new ODataRuntimeException("Error on reading request content", e);
     }
   }
 
-  static void copyContent(final InputStream inputStream, final HttpServletResponse servletResponse) {
-    copyContent(Channels.newChannel(inputStream), servletResponse);
+  static long copyContent(final InputStream inputStream, final HttpServletResponse servletResponse) {
+    return copyContent(Channels.newChannel(inputStream), servletResponse);
   }
 
-  static void copyContent(final ReadableByteChannel input, final HttpServletResponse servletResponse) {
+  static long copyContent(final ReadableByteChannel input, final HttpServletResponse servletResponse) {
     WritableByteChannel output = null;
+    long count = 0;
     try {
       ByteBuffer inBuffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
       output = Channels.newChannel(servletResponse.getOutputStream());
       while (input.read(inBuffer) > 0) {
         inBuffer.flip();
-        output.write(inBuffer);
+        count += output.write(inBuffer);
         inBuffer.clear();
       }
+      return count;
     } catch (IOException e) {
       throw new ODataRuntimeException("Error on reading request content", e);
     } finally {
@@ -196,6 +280,34 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     }
   }
   
+  /** Channel which counts the bytes written to the wrapped channel. */
+  private static class CountingChannel implements WritableByteChannel {
+
+    private final WritableByteChannel channel;
+    private long count;
+
+    CountingChannel(final WritableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public int write(final ByteBuffer source) throws IOException {
+      final int written = channel.write(source);
+      count += written;
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
   private static void closeStream(final Channel closeable) {
     if (closeable != null) {
       try {
@@ -207,7 +319,7 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
   }
   
   private ODataRequest fillODataRequest(final ODataRequest odRequest, final HttpServletRequest httpRequest,
-      final int split) throws ODataLibraryException {
+      final int split, final ServerCoreDebugger debugger) throws ODataLibraryException {
     final int requestHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "fillODataRequest");
     try {
       odRequest.setBody(httpRequest.getInputStream());
@@ -329,7 +441,13 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
 
   @Override
   public void register(OlingoExtension extension) {
-    handler.register(extension);
+    if (extension instanceof AsyncSupport) {
+      register((AsyncSupport) extension);
+    } else if (extension instanceof MetricsSupport) {
+      register((MetricsSupport) extension);
+    } else {
+      handler.register(extension);
+    }
   }
 
   @Override
@@ -344,6 +462,25 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
 
   @Override
   public void register(final DebugSupport debugSupport) {
-    debugger.setDebugSupportProcessor(debugSupport);
+    this.debugSupport = debugSupport;
+  }
+
+  /**
+   * Registers the metrics support, which receives the metrics of every request processed by this handler.
+   * @param metricsSupport handler to register; it can be shared by all handlers of the service
+   */
+  public void register(final MetricsSupport metricsSupport) {
+    metricsSupport.init(odata);
+    handler.setMetricsSupport(metricsSupport);
+  }
+
+  /**
+   * Registers the support for asynchronous processing of requests with the preference
+   * <code>respond-async</code>. Requests to its status monitor resources are handled by this handler, too.
+   * @param asyncSupport handler to register; it has to be shared by all handlers of the service
+   */
+  public void register(final AsyncSupport asyncSupport) {
+    asyncSupport.init(odata);
+    this.asyncSupport = asyncSupport;
   }
 }
@@ -40,11 +40,13 @@ import org.apache.olingo.server.api.deserializer.FixedFormatDeserializer;
 import org.apache.olingo.server.api.deserializer.ODataDeserializer;
 import org.apache.olingo.server.api.etag.ETagHelper;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.paging.KeysetPagingHelper;
 import org.apache.olingo.server.api.prefer.Preferences;
 import org.apache.olingo.server.api.serializer.EdmAssistedSerializer;
 import org.apache.olingo.server.api.serializer.EdmDeltaSerializer;
 import org.apache.olingo.server.api.serializer.FixedFormatSerializer;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.serializer.RowBatchSerializer;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriHelper;
 import org.apache.olingo.server.core.debug.DebugResponseHelperImpl;
@@ -53,17 +55,56 @@ import org.apache.olingo.server.core.deserializer.FixedFormatDeserializerImpl;
 import org.apache.olingo.server.core.deserializer.json.ODataJsonDeserializer;
 import org.apache.olingo.server.core.deserializer.xml.ODataXmlDeserializer;
 import org.apache.olingo.server.core.etag.ETagHelperImpl;
+import org.apache.olingo.server.core.paging.KeysetPagingHelperImpl;
 import org.apache.olingo.server.core.prefer.PreferencesImpl;
 import org.apache.olingo.server.core.serializer.FixedFormatSerializerImpl;
 import org.apache.olingo.server.core.serializer.json.EdmAssistedJsonSerializer;
 import org.apache.olingo.server.core.serializer.json.ODataJsonSerializer;
 import org.apache.olingo.server.core.serializer.json.JsonDeltaSerializer;
 import org.apache.olingo.server.core.serializer.json.JsonDeltaSerializerWithNavigations;
+import org.apache.olingo.server.core.serializer.json.JsonFactoryProvider;
+import org.apache.olingo.server.core.serializer.json.JsonRowBatchSerializer;
 import org.apache.olingo.server.core.serializer.xml.ODataXmlSerializer;
+import org.apache.olingo.server.core.serializer.xml.XmlRowBatchSerializer;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 public class ODataImpl extends OData {
 
+  private ObjectMapper objectMapper;
+
+  /**
+   * Gets the Jackson object mapper used by the JSON serializers and deserializers created by this instance.
+   * If no object mapper has been set, the process-wide instance of {@link JsonFactoryProvider} is used.
+   * @return object mapper
+   */
+  public ObjectMapper getObjectMapper() {
+    return objectMapper == null ? JsonFactoryProvider.getObjectMapper() : objectMapper;
+  }
+
+  /**
+   * Sets the Jackson object mapper used by the JSON serializers and deserializers created by this instance.
+   * Object mappers are thread-safe and expensive to create, so the same instance should be re-used.
+   * The settings the OData JSON deserializers rely on, e.g., rejecting duplicate JSON properties,
+   * are applied to the given object mapper.
+   * @param objectMapper object mapper; <code>null</code> restores the process-wide instance
+   * @see JsonFactoryProvider#configure(ObjectMapper)
+   */
+  public void setObjectMapper(final ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper == null ? null : JsonFactoryProvider.configure(objectMapper);
+  }
+
+  /**
+   * Sets a custom JSON factory, e.g., with specific generator features,
+   * for the JSON serializers and deserializers created by this instance.
+   * @param jsonFactory JSON factory
+   */
+  public void setJsonFactory(final JsonFactory jsonFactory) {
+    objectMapper = JsonFactoryProvider.createObjectMapper(jsonFactory);
+  }
+
   @Override
   public ODataSerializer createSerializer(final ContentType contentType) throws SerializerException {
     ODataSerializer serializer = null;
@@ -74,7 +115,7 @@ public class ODataImpl extends OData {
           || ContentType.VALUE_ODATA_METADATA_MINIMAL.equalsIgnoreCase(metadata)
           || ContentType.VALUE_ODATA_METADATA_NONE.equalsIgnoreCase(metadata)
           || ContentType.VALUE_ODATA_METADATA_FULL.equalsIgnoreCase(metadata)) {
-        serializer = new ODataJsonSerializer(contentType, new Constantsv00());
+        serializer = new ODataJsonSerializer(contentType, new Constantsv00(), getObjectMapper().getFactory());
       }
     } else if (contentType.isCompatible(ContentType.APPLICATION_XML)
         || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML)) {
@@ -103,7 +144,7 @@ public class ODataImpl extends OData {
           || ContentType.VALUE_ODATA_METADATA_MINIMAL.equalsIgnoreCase(metadata)
           || ContentType.VALUE_ODATA_METADATA_NONE.equalsIgnoreCase(metadata)
           || ContentType.VALUE_ODATA_METADATA_FULL.equalsIgnoreCase(metadata)) {
-        serializer = new ODataJsonSerializer(contentType, constants);
+        serializer = new ODataJsonSerializer(contentType, constants, getObjectMapper().getFactory());
       }
     } else if (contentType.isCompatible(ContentType.APPLICATION_XML)
         || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML)) {
@@ -126,22 +167,32 @@ public class ODataImpl extends OData {
   @Override
   public EdmAssistedSerializer createEdmAssistedSerializer(final ContentType contentType) throws SerializerException {
     if (contentType.isCompatible(ContentType.APPLICATION_JSON)) {
-      return new EdmAssistedJsonSerializer(contentType);
+      return new EdmAssistedJsonSerializer(contentType, getObjectMapper().getFactory());
     }
     throw new SerializerException("Unsupported format: " + contentType.toContentTypeString(),
         SerializerException.MessageKeys.UNSUPPORTED_FORMAT, contentType.toContentTypeString());
   }
   
   
+  @Override
+  public RowBatchSerializer createRowBatchSerializer(final ContentType contentType) throws SerializerException {
+    final ODataSerializer serializer = createSerializer(contentType);
+    if (serializer instanceof ODataJsonSerializer) {
+      return new JsonRowBatchSerializer(contentType, new Constantsv00(), getObjectMapper().getFactory());
+    }
+    return new XmlRowBatchSerializer();
+  }
+
   @Override
   public EdmDeltaSerializer createEdmDeltaSerializer(final ContentType contentType, final List<String> versions)
       throws SerializerException {
     if (contentType.isCompatible(ContentType.APPLICATION_JSON)) {
+      final JsonFactory jsonFactory = getObjectMapper().getFactory();
       if(versions!=null && !versions.isEmpty()){
-       return getMaxVersion(versions)>4 ?  new JsonDeltaSerializerWithNavigations(contentType):
-         new JsonDeltaSerializer(contentType);
+       return getMaxVersion(versions)>4 ?  new JsonDeltaSerializerWithNavigations(contentType, jsonFactory):
+         new JsonDeltaSerializer(contentType, jsonFactory);
       }
-      return new JsonDeltaSerializerWithNavigations(contentType);
+      return new JsonDeltaSerializerWithNavigations(contentType, jsonFactory);
     }
     throw new SerializerException("Unsupported format: " + contentType.toContentTypeString(),
         SerializerException.MessageKeys.UNSUPPORTED_FORMAT, contentType.toContentTypeString());
@@ -194,7 +245,7 @@ public class ODataImpl extends OData {
   @Override
   public ODataDeserializer createDeserializer(final ContentType contentType) throws DeserializerException {
     if (contentType.isCompatible(ContentType.JSON)) {
-      return new ODataJsonDeserializer(contentType);
+      return new ODataJsonDeserializer(contentType, null, getObjectMapper());
     } else if (contentType.isCompatible(ContentType.APPLICATION_XML)
         || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML)) {
       return new ODataXmlDeserializer();
@@ -207,7 +258,7 @@ public class ODataImpl extends OData {
   public ODataDeserializer createDeserializer(final ContentType contentType,
       ServiceMetadata metadata) throws DeserializerException {
     if (contentType.isCompatible(ContentType.JSON)) {
-      return new ODataJsonDeserializer(contentType, metadata);
+      return new ODataJsonDeserializer(contentType, metadata, getObjectMapper());
     } else if (contentType.isCompatible(ContentType.APPLICATION_XML)
         || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML)) {
       return new ODataXmlDeserializer(metadata);
@@ -232,6 +283,11 @@ public class ODataImpl extends OData {
     return new PreferencesImpl(preferHeaders);
   }
 
+  @Override
+  public KeysetPagingHelper createKeysetPagingHelper(final byte[] signingKey) {
+    return new KeysetPagingHelperImpl(signingKey);
+  }
+
   @Override
   public DebugResponseHelper createDebugResponseHelper(final String debugFormat) {
     // TODO: What should we do with invalid formats?
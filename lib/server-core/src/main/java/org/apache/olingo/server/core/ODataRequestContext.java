@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+
+/**
+ * State of a single request while it is processed by an {@link ODataHandlerImpl}.
+ * The handler itself keeps no request-specific state, so one handler can process requests concurrently.
+ */
+public class ODataRequestContext {
+
+  private final ServerCoreDebugger debugger;
+  private final RequestMetricsRecorder metricsRecorder;
+  private UriInfo uriInfo;
+  private Exception lastThrownException;
+
+  /**
+   * @param debugger the debugger which records the runtime measurements of the request
+   * @param metricsRecorder the recorder for the metrics of the request, or <code>null</code>
+   */
+  public ODataRequestContext(final ServerCoreDebugger debugger, final RequestMetricsRecorder metricsRecorder) {
+    this.debugger = debugger;
+    this.metricsRecorder = metricsRecorder;
+  }
+
+  public ServerCoreDebugger getDebugger() {
+    return debugger;
+  }
+
+  public RequestMetricsRecorder getMetricsRecorder() {
+    return metricsRecorder;
+  }
+
+  /** Gets the parsed URI, or <code>null</code> if the URI has not been parsed (successfully). */
+  public UriInfo getUriInfo() {
+    return uriInfo;
+  }
+
+  void setUriInfo(final UriInfo uriInfo) {
+    this.uriInfo = uriInfo;
+  }
+
+  /** Gets the exception which has been handled last while processing the request. */
+  public Exception getLastThrownException() {
+    return lastThrownException;
+  }
+
+  void setLastThrownException(final Exception exception) {
+    lastThrownException = exception;
+  }
+}
@@ -33,8 +33,10 @@ import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.serializer.RowBatchSource;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.serializer.SerializerStreamResult;
+import org.apache.olingo.server.core.serializer.RowBatchStreamSerializer;
 import org.apache.olingo.server.core.serializer.SerializerStreamResultImpl;
 import org.apache.olingo.server.core.serializer.json.ODataJsonSerializer;
 import org.apache.olingo.server.core.serializer.xml.ODataXmlSerializer;
@@ -51,24 +53,22 @@ public class ODataWritableContent implements ODataContent {
   private StreamContent streamContent;
 
   private static abstract class StreamContent {
-    protected EntityIterator iterator;
     protected ServiceMetadata metadata;
     protected EdmEntityType entityType;
     protected EntityCollectionSerializerOptions options;
 
-    public StreamContent(EntityIterator iterator, EdmEntityType entityType, ServiceMetadata metadata,
+    public StreamContent(EdmEntityType entityType, ServiceMetadata metadata,
         EntityCollectionSerializerOptions options) {
-      this.iterator = iterator;
       this.entityType = entityType;
       this.metadata = metadata;
       this.options = options;
     }
 
-    protected abstract void writeEntity(EntityIterator entity, OutputStream outputStream) throws SerializerException;
+    protected abstract void writeContent(OutputStream outputStream) throws SerializerException;
 
     public void write(OutputStream out) {
       try {
-        writeEntity(iterator, out);
+        writeContent(out);
       } catch (SerializerException e) {
         final ODataContentWriteErrorCallback errorCallback = options.getODataContentWriteErrorCallback();
         if (errorCallback != null) {
@@ -80,19 +80,21 @@ public class ODataWritableContent implements ODataContent {
   }
 
   private static class StreamContentForJson extends StreamContent {
+    private EntityIterator iterator;
     private ODataJsonSerializer jsonSerializer;
 
     public StreamContentForJson(EntityIterator iterator, EdmEntityType entityType,
         ODataJsonSerializer jsonSerializer, ServiceMetadata metadata,
         EntityCollectionSerializerOptions options) {
-      super(iterator, entityType, metadata, options);
+      super(entityType, metadata, options);
 
+      this.iterator = iterator;
       this.jsonSerializer = jsonSerializer;
     }
 
-    protected void writeEntity(EntityIterator entity, OutputStream outputStream) throws SerializerException {
+    protected void writeContent(OutputStream outputStream) throws SerializerException {
       try {
-        jsonSerializer.entityCollectionIntoStream(metadata, entityType, entity, options, outputStream);
+        jsonSerializer.entityCollectionIntoStream(metadata, entityType, iterator, options, outputStream);
         outputStream.flush();
       } catch (final IOException e) {
         throw new ODataRuntimeException("Failed entity serialization", e);
@@ -101,19 +103,44 @@ public class ODataWritableContent implements ODataContent {
   }
 
   private static class StreamContentForXml extends StreamContent {
+    private EntityIterator iterator;
     private ODataXmlSerializer xmlSerializer;
 
     public StreamContentForXml(EntityIterator iterator, EdmEntityType entityType,
         ODataXmlSerializer xmlSerializer, ServiceMetadata metadata,
         EntityCollectionSerializerOptions options) {
-      super(iterator, entityType, metadata, options);
+      super(entityType, metadata, options);
 
+      this.iterator = iterator;
       this.xmlSerializer = xmlSerializer;
     }
 
-    protected void writeEntity(EntityIterator entity, OutputStream outputStream) throws SerializerException {
+    protected void writeContent(OutputStream outputStream) throws SerializerException {
       try {
-        xmlSerializer.entityCollectionIntoStream(metadata, entityType, entity, options, outputStream);
+        xmlSerializer.entityCollectionIntoStream(metadata, entityType, iterator, options, outputStream);
+        outputStream.flush();
+      } catch (final IOException e) {
+        throw new ODataRuntimeException("Failed entity serialization", e);
+      }
+    }
+  }
+
+  private static class StreamContentForRowBatches extends StreamContent {
+    private RowBatchSource source;
+    private RowBatchStreamSerializer rowBatchSerializer;
+
+    public StreamContentForRowBatches(RowBatchSource source, EdmEntityType entityType,
+        RowBatchStreamSerializer rowBatchSerializer, ServiceMetadata metadata,
+        EntityCollectionSerializerOptions options) {
+      super(entityType, metadata, options);
+
+      this.source = source;
+      this.rowBatchSerializer = rowBatchSerializer;
+    }
+
+    protected void writeContent(OutputStream outputStream) throws SerializerException {
+      try {
+        rowBatchSerializer.entityCollectionIntoStream(metadata, entityType, source, options, outputStream);
         outputStream.flush();
       } catch (final IOException e) {
         throw new ODataRuntimeException("Failed entity serialization", e);
@@ -141,6 +168,16 @@ public class ODataWritableContent implements ODataContent {
     return new ODataWritableContentBuilder(iterator, entityType, serializer, metadata, options);
   }
 
+  /**
+   * Creates the streamed result for an entity collection supplied as row batches.
+   */
+  public static SerializerStreamResult withRowBatches(RowBatchSource source, EdmEntityType entityType,
+      RowBatchStreamSerializer serializer, ServiceMetadata metadata,
+      EntityCollectionSerializerOptions options) {
+    return SerializerStreamResultImpl.with().content(new ODataWritableContent(
+        new StreamContentForRowBatches(source, entityType, serializer, metadata, options))).build();
+  }
+
   public static class WriteErrorContext implements ODataContentWriteErrorContext {
     private ODataLibraryException exception;
 
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.metrics.MetricsSupport;
+import org.apache.olingo.server.api.metrics.RequestPhase;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+
+/**
+ * Collects the phase durations of one request and passes them to the {@link MetricsSupport}
+ * as soon as the status code of the response is known.
+ */
+public class RequestMetricsRecorder {
+
+  private static final RequestPhase[] PHASES = RequestPhase.values();
+
+  private final MetricsSupport metricsSupport;
+  private final HttpMethod method;
+  private final long start = System.nanoTime();
+  /** Durations per phase in nanoseconds; -1 for phases which have not been reached. */
+  private final long[] durations = new long[PHASES.length];
+  private String entitySetName;
+  private long dispatchStart;
+  private long processorStart;
+  private boolean dispatching;
+
+  public RequestMetricsRecorder(final MetricsSupport metricsSupport, final HttpMethod method) {
+    this.metricsSupport = metricsSupport;
+    this.method = method;
+    for (int i = 0; i < durations.length; i++) {
+      durations[i] = -1;
+    }
+  }
+
+  /**
+   * Records the duration of a phase.
+   * @param phase the phase
+   * @param phaseStart the value of {@link System#nanoTime()} when the phase started
+   * @return the value of {@link System#nanoTime()} when the phase ended
+   */
+  public long record(final RequestPhase phase, final long phaseStart) {
+    final long end = System.nanoTime();
+    durations[phase.ordinal()] = end - phaseStart;
+    return end;
+  }
+
+  /** Takes the entity set from the first segment of the resource path. */
+  public void setUriInfo(final UriInfo uriInfo) {
+    final List<UriResource> parts = uriInfo.getUriResourceParts();
+    if (parts != null && !parts.isEmpty() && parts.get(0) instanceof UriResourceEntitySet) {
+      entitySetName = ((UriResourceEntitySet) parts.get(0)).getEntitySet().getName();
+    }
+  }
+
+  public void startDispatching() {
+    dispatchStart = System.nanoTime();
+    processorStart = 0;
+    dispatching = true;
+  }
+
+  /**
+   * Ends the phase {@link RequestPhase#DISPATCHING} and starts the phase {@link RequestPhase#PROCESSING}.
+   * Only the first processor selected while dispatching is taken into account.
+   */
+  public void processorSelected() {
+    if (dispatching && processorStart == 0) {
+      processorStart = record(RequestPhase.DISPATCHING, dispatchStart);
+    }
+  }
+
+  public void endDispatching() {
+    if (processorStart == 0) {
+      record(RequestPhase.DISPATCHING, dispatchStart);
+    } else {
+      record(RequestPhase.PROCESSING, processorStart);
+    }
+    dispatching = false;
+  }
+
+  /**
+   * Passes the recorded durations, the total duration of the request, and the response size
+   * to the metrics support.
+   * @param statusCode the status code of the response
+   * @param bytesWritten the number of bytes written as response content, or -1 if not known
+   */
+  public void report(final int statusCode, final long bytesWritten) {
+    durations[RequestPhase.REQUEST.ordinal()] = System.nanoTime() - start;
+    for (int i = 0; i < durations.length; i++) {
+      if (durations[i] >= 0) {
+        metricsSupport.recordPhase(PHASES[i], entitySetName, method, statusCode, durations[i]);
+      }
+    }
+    if (bytesWritten >= 0) {
+      metricsSupport.recordBytesWritten(entitySetName, method, statusCode, bytesWritten);
+    }
+  }
+}
@@ -26,17 +26,25 @@ import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
 import org.apache.olingo.commons.api.edm.provider.CsdlEdmProvider;
 import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.core.edm.EdmProviderImpl;
+import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.serializer.CachedDocument;
+import org.apache.olingo.server.api.serializer.DocumentCache;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.core.uri.parser.UriInfoCache;
 
 /**
  */
-public class ServiceMetadataImpl implements ServiceMetadata {
+public class ServiceMetadataImpl implements ServiceMetadata, DocumentCache {
 
   private final Edm edm;
   private final List<EdmxReference> references;
   private final ServiceMetadataETagSupport serviceMetadataETagSupport;
+  private volatile UriInfoCache uriInfoCache;
+  private volatile DocumentCache documentCache;
 
   public ServiceMetadataImpl(final CsdlEdmProvider edmProvider, final List<EdmxReference> references,
       final ServiceMetadataETagSupport serviceMetadataETagSupport) {
@@ -65,4 +73,47 @@ public class ServiceMetadataImpl implements ServiceMetadata {
   public ServiceMetadataETagSupport getServiceMetadataETagSupport() {
     return serviceMetadataETagSupport;
   }
+
+  /**
+   * Enables caching of parsed request URIs for this service.
+   * The cache is bound to the EDM of this service metadata; the cache is dropped and a new one is
+   * created with every call, so this method can also be used to invalidate all cached URIs.
+   * @param maxSize maximum number of cached URIs; a value less than or equal to zero disables the cache
+   */
+  public void setUriInfoCacheSize(final int maxSize) {
+    uriInfoCache = maxSize > 0 ? new UriInfoCache(edm, maxSize) : null;
+  }
+
+  /**
+   * Gets the cache of parsed request URIs.
+   * @return the cache or <code>null</code> if caching is not enabled
+   */
+  public UriInfoCache getUriInfoCache() {
+    return uriInfoCache;
+  }
+
+  /**
+   * Enables caching of the serialized metadata document and service document of this service.
+   * Each variant (format, metadata level, character set) is serialized only once and then sent from memory,
+   * with an ETag derived from its content unless a {@link ServiceMetadataETagSupport} provides one.
+   * The cache is dropped with every call, so this method can also be used to invalidate the cached documents.
+   * @param odata OData instance that owns this service metadata, used to create the serializers
+   * @param enabled whether the documents are cached
+   * @param compress whether gzip-compressed copies of the documents are kept as well
+   */
+  public void setDocumentCache(final OData odata, final boolean enabled, final boolean compress) {
+    documentCache = enabled ? new DocumentCacheImpl(odata, this, compress) : null;
+  }
+
+  @Override
+  public CachedDocument getMetadataDocument(final ContentType contentType) throws SerializerException {
+    final DocumentCache cache = documentCache;
+    return cache == null ? null : cache.getMetadataDocument(contentType);
+  }
+
+  @Override
+  public CachedDocument getServiceDocument(final ContentType contentType) throws SerializerException {
+    final DocumentCache cache = documentCache;
+    return cache == null ? null : cache.getServiceDocument(contentType);
+  }
 }
@@ -18,19 +18,22 @@
  */
 package org.apache.olingo.server.core.batchhandler;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataHandler;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
-import org.apache.olingo.server.api.batch.BatchFacade;
+import org.apache.olingo.server.api.batch.ConcurrentBatchFacade;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
 import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
 import org.apache.olingo.server.api.processor.BatchProcessor;
 import org.apache.olingo.server.core.deserializer.batch.BatchParserCommon;
 
-public class BatchFacadeImpl implements BatchFacade {
+public class BatchFacadeImpl implements ConcurrentBatchFacade {
   private final BatchPartHandler partHandler;
 
   /**
@@ -41,7 +44,19 @@ public class BatchFacadeImpl implements BatchFacade {
    */
   public BatchFacadeImpl(final ODataHandler oDataHandler, final BatchProcessor batchProcessor,
                          final boolean isStrict) {
-    partHandler = new BatchPartHandler(oDataHandler, batchProcessor, this);
+    this(oDataHandler, batchProcessor, isStrict, null);
+  }
+
+  /**
+   * Creates a new BatchFacade which executes GET requests outside of change sets concurrently.
+   * @param oDataHandler   handler
+   * @param batchProcessor batch processor
+   * @param isStrict       mode switch (currently not used)
+   * @param executor       executor for concurrent requests or <code>null</code>
+   */
+  public BatchFacadeImpl(final ODataHandler oDataHandler, final BatchProcessor batchProcessor,
+                         final boolean isStrict, final ExecutorService executor) {
+    partHandler = new BatchPartHandler(oDataHandler, batchProcessor, this, executor);
   }
 
   @Override
@@ -56,6 +71,12 @@ public class BatchFacadeImpl implements BatchFacade {
     return partHandler.handleBatchRequest(request);
   }
 
+  @Override
+  public List<ODataResponsePart> handleBatchRequests(final List<BatchRequestPart> requests)
+      throws ODataApplicationException, ODataLibraryException {
+    return partHandler.handleBatchRequests(requests);
+  }
+
   @Override
   public String extractBoundaryFromContentType(final String contentType) throws BatchDeserializerException {
     return BatchParserCommon.getBoundary(contentType, 0);
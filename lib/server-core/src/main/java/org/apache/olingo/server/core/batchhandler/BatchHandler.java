@@ -18,10 +18,13 @@
  */
 package org.apache.olingo.server.core.batchhandler;
 
+import java.util.concurrent.ExecutorService;
+
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
 import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataHandler;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
@@ -30,23 +33,40 @@ import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerExceptio
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException.MessageKeys;
 import org.apache.olingo.server.api.processor.BatchProcessor;
 import org.apache.olingo.server.core.ODataHandlerImpl;
+import org.apache.olingo.server.core.ODataRequestContext;
 import org.apache.olingo.server.core.deserializer.batch.BatchParserCommon;
 
 public class BatchHandler {
   private final BatchProcessor batchProcessor;
-  private final ODataHandlerImpl oDataHandler;
+  private final ODataHandler oDataHandler;
+  private final ExecutorService executor;
 
   public BatchHandler(final ODataHandlerImpl oDataHandler, final BatchProcessor batchProcessor) {
+    this(oDataHandler, batchProcessor, null);
+  }
 
+  /**
+   * @param oDataHandler the handler which processes the batch parts
+   * @param batchProcessor the processor for the batch request
+   * @param context the context of the batch request, or <code>null</code>
+   */
+  public BatchHandler(final ODataHandlerImpl oDataHandler, final BatchProcessor batchProcessor,
+      final ODataRequestContext context) {
     this.batchProcessor = batchProcessor;
-    this.oDataHandler = oDataHandler;
+    if (context == null) {
+      this.oDataHandler = oDataHandler;
+      executor = oDataHandler.getBatchExecutor();
+    } else {
+      this.oDataHandler = oDataHandler.createBatchPartHandler(context);
+      executor = oDataHandler.getBatchExecutor(context);
+    }
   }
 
   public void process(final ODataRequest request, final ODataResponse response, final boolean isStrict)
       throws ODataApplicationException, ODataLibraryException {
     validateRequest(request);
 
-    final BatchFacade operation = new BatchFacadeImpl(oDataHandler, batchProcessor, isStrict);
+    final BatchFacade operation = new BatchFacadeImpl(oDataHandler, batchProcessor, isStrict, executor);
     batchProcessor.processBatch(operation, request, response);
   }
 
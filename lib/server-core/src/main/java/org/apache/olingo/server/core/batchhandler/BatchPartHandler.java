@@ -18,7 +18,16 @@
  */
 package org.apache.olingo.server.core.batchhandler;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataHandler;
 import org.apache.olingo.server.api.ODataLibraryException;
@@ -36,12 +45,19 @@ public class BatchPartHandler {
   private final BatchProcessor batchProcessor;
   private final BatchFacade batchFacade;
   private final BatchReferenceRewriter rewriter;
+  private final ExecutorService executor;
 
   public BatchPartHandler(final ODataHandler oDataHandler, final BatchProcessor processor,
                           final BatchFacade batchFacade) {
+    this(oDataHandler, processor, batchFacade, null);
+  }
+
+  public BatchPartHandler(final ODataHandler oDataHandler, final BatchProcessor processor,
+                          final BatchFacade batchFacade, final ExecutorService executor) {
     this.oDataHandler = oDataHandler;
     batchProcessor = processor;
     this.batchFacade = batchFacade;
+    this.executor = executor;
     rewriter = new BatchReferenceRewriter();
   }
 
@@ -60,6 +76,31 @@ public class BatchPartHandler {
     }
   }
 
+  public List<ODataResponsePart> handleBatchRequests(final List<BatchRequestPart> requests)
+      throws ODataApplicationException, ODataLibraryException {
+    final List<ODataResponsePart> responses = new ArrayList<ODataResponsePart>(requests.size());
+    // Futures for the last responses, which are still missing in the response list
+    final List<Future<ODataResponse>> pending = new ArrayList<Future<ODataResponse>>();
+    try {
+      for (final BatchRequestPart request : requests) {
+        if (executor != null && isConcurrent(request)) {
+          pending.add(executor.submit(createTask(request.getRequests().get(0))));
+          responses.add(null);
+        } else {
+          // All other parts must see the results of the previous parts.
+          awaitPending(pending, responses);
+          responses.add(handleBatchRequest(request));
+        }
+      }
+      awaitPending(pending, responses);
+    } finally {
+      for (final Future<ODataResponse> future : pending) {
+        future.cancel(true);
+      }
+    }
+    return responses;
+  }
+
   public ODataResponse handle(final ODataRequest request, final boolean isChangeSet)
       throws BatchDeserializerException {
     ODataResponse response;
@@ -88,4 +129,46 @@ public class BatchPartHandler {
     return batchProcessor.processChangeSet(batchFacade, request.getRequests());
   }
 
+  private boolean isConcurrent(final BatchRequestPart request) {
+    return !request.isChangeSet() && request.getRequests().get(0).getMethod() == HttpMethod.GET;
+  }
+
+  private Callable<ODataResponse> createTask(final ODataRequest request) {
+    // The handler keeps no state of the requests it processes, so all tasks share it.
+    return new Callable<ODataResponse>() {
+      @Override
+      public ODataResponse call() throws BatchDeserializerException {
+        return handle(request, false);
+      }
+    };
+  }
+
+  private void awaitPending(final List<Future<ODataResponse>> pending, final List<ODataResponsePart> responses)
+      throws BatchDeserializerException {
+    final int start = responses.size() - pending.size();
+    for (int index = 0; index < pending.size(); index++) {
+      responses.set(start + index, new ODataResponsePart(await(pending.get(index)), false));
+    }
+    pending.clear();
+  }
+
+  private ODataResponse await(final Future<ODataResponse> future) throws BatchDeserializerException {
+    try {
+      return future.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ODataRuntimeException("Interrupted while waiting for a batch part.", e);
+    } catch (final ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof BatchDeserializerException) {
+        throw (BatchDeserializerException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw new ODataRuntimeException((Exception) cause);
+      }
+    }
+  }
 }
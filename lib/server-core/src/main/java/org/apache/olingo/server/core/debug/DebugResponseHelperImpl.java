@@ -39,10 +39,10 @@ import org.apache.olingo.server.api.debug.DebugInformation;
 import org.apache.olingo.server.api.debug.DebugResponseHelper;
 import org.apache.olingo.server.api.debug.DebugSupport;
 import org.apache.olingo.server.api.debug.RuntimeMeasurement;
+import org.apache.olingo.server.core.serializer.json.JsonFactoryProvider;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 
 import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class DebugResponseHelperImpl implements DebugResponseHelper {
 
@@ -137,7 +137,7 @@ public class DebugResponseHelperImpl implements DebugResponseHelper {
       CircleStreamBuffer csb = new CircleStreamBuffer();
       outputStream = csb.getOutputStream();
       // Create JSON generator (the object mapper is necessary to write expression trees).
-      JsonGenerator gen = new ObjectMapper().getFactory().createGenerator(outputStream);
+      JsonGenerator gen = JsonFactoryProvider.getJsonFactory().createGenerator(outputStream);
 
       gen.writeStartObject();
       DebugTab requestInfo = parts.get(0);
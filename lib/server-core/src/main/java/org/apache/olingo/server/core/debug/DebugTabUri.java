@@ -65,11 +65,11 @@ import org.apache.olingo.server.api.uri.queryoption.apply.GroupByItem;
 import org.apache.olingo.server.api.uri.queryoption.apply.Search;
 import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
 import org.apache.olingo.server.api.uri.queryoption.search.SearchExpression;
+import org.apache.olingo.server.core.serializer.json.JsonFactoryProvider;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * URI parser debug information.
@@ -498,7 +498,7 @@ public class DebugTabUri implements DebugTab {
   @Override
   public void appendHtml(final Writer writer) throws IOException {
     // factory for JSON generators (the object mapper is necessary to write expression trees)
-    final JsonFactory jsonFactory = new ObjectMapper().getFactory();
+    final JsonFactory jsonFactory = JsonFactoryProvider.getJsonFactory();
     JsonGenerator json;
 
     if (uriInfo.getKind() == UriInfoKind.resource) {
@@ -19,6 +19,7 @@
 package org.apache.olingo.server.core.deserializer.batch;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.Iterator;
@@ -178,15 +179,9 @@ public class BatchParserCommon {
 
     while (iter.hasNext() && isHeader) {
       currentLine = iter.next();
-      final Matcher headerMatcher = PATTERN_HEADER_LINE.matcher(currentLine.toString());
 
-      if (headerMatcher.matches() && headerMatcher.groupCount() == 2) {
+      if (addHeader(headers, currentLine)) {
         iter.remove();
-
-        String headerName = headerMatcher.group(1).trim();
-        String headerValue = headerMatcher.group(2).trim();
-
-        headers.addHeader(headerName, Header.splitValuesByComma(headerValue), currentLine.getLineNumber());
       } else {
         isHeader = false;
       }
@@ -195,9 +190,37 @@ public class BatchParserCommon {
     return headers;
   }
 
+  /**
+   * Consumes the header lines at the current position of the current body part of a multipart stream.
+   * @param in the multipart stream
+   * @return the headers (maybe empty)
+   */
+  public static Header consumeHeaders(final MultipartInputStream in) throws IOException {
+    final Header headers = new Header(in.getLineNumber());
+    Line currentLine;
+    while ((currentLine = in.peekLine()) != null && addHeader(headers, currentLine)) {
+      in.readLine();
+    }
+    return headers;
+  }
+
+  private static boolean addHeader(final Header headers, final Line line) {
+    final Matcher headerMatcher = PATTERN_HEADER_LINE.matcher(line.toString());
+
+    if (headerMatcher.matches() && headerMatcher.groupCount() == 2) {
+      String headerName = headerMatcher.group(1).trim();
+      String headerValue = headerMatcher.group(2).trim();
+
+      headers.addHeader(headerName, Header.splitValuesByComma(headerValue), line.getLineNumber());
+      return true;
+    } else {
+      return false;
+    }
+  }
+
   public static void consumeBlankLine(final List<Line> remainingMessage, final boolean isStrict)
       throws BatchDeserializerException {
-    if (!remainingMessage.isEmpty() && remainingMessage.get(0).toString().matches("\\s*\r?\n\\s*")) {
+    if (!remainingMessage.isEmpty() && isBlankLine(remainingMessage.get(0))) {
       remainingMessage.remove(0);
     } else {
       if (isStrict) {
@@ -208,6 +231,28 @@ public class BatchParserCommon {
     }
   }
 
+  /**
+   * Consumes the blank line at the current position of the current body part of a multipart stream.
+   * If there is no blank line, the stream is left unchanged; in strict mode an exception is thrown.
+   * @param in the multipart stream
+   * @param isStrict whether the blank line is mandatory
+   */
+  public static void consumeBlankLine(final MultipartInputStream in, final boolean isStrict)
+      throws IOException, BatchDeserializerException {
+    final Line currentLine = in.peekLine();
+    if (currentLine != null && isBlankLine(currentLine)) {
+      in.readLine();
+    } else if (isStrict) {
+      throw new BatchDeserializerException("Missing blank line",
+          BatchDeserializerException.MessageKeys.MISSING_BLANK_LINE, "[None]",
+          Integer.toString(currentLine == null ? in.getLineNumber() : currentLine.getLineNumber()));
+    }
+  }
+
+  private static boolean isBlankLine(final Line line) {
+    return line.toString().matches("\\s*\r?\n\\s*");
+  }
+
   public static InputStream convertLineListToInputStream(final List<Line> messageList, final Charset charset) {
     final String message = lineListToString(messageList);
 
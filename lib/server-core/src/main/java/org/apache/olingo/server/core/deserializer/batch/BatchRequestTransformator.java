@@ -71,19 +71,29 @@ public class BatchRequestTransformator {
 
   private void handleContentId(final BatchQueryOperation changeRequestPart, final BatchQueryOperation request)
       throws BatchDeserializerException {
-    final HeaderField contentIdChangeRequestPart = getContentId(changeRequestPart);
-    final HeaderField contentIdRequest = getContentId(request);
+    handleContentId(changeRequestPart.getHeaders(), request.getHeaders());
+  }
+
+  /**
+   * Takes over the Content-ID from the MIME headers of a change-set part to the headers of its request.
+   * @param changeRequestPartHeaders the MIME headers of the change-set part
+   * @param requestHeaders the headers of the request in the change-set part
+   */
+  public void handleContentId(final Header changeRequestPartHeaders, final Header requestHeaders)
+      throws BatchDeserializerException {
+    final HeaderField contentIdChangeRequestPart = getContentId(changeRequestPartHeaders);
+    final HeaderField contentIdRequest = getContentId(requestHeaders);
 
     if (contentIdChangeRequestPart == null && contentIdRequest == null) {
       throw new BatchDeserializerException("Missing content id", MessageKeys.MISSING_CONTENT_ID,
-          Integer.toString(changeRequestPart.getHeaders().getLineNumber()));
+          Integer.toString(changeRequestPartHeaders.getLineNumber()));
     } else if (contentIdChangeRequestPart != null) {
-      request.getHeaders().replaceHeaderField(contentIdChangeRequestPart);
+      requestHeaders.replaceHeaderField(contentIdChangeRequestPart);
     }
   }
 
-  private HeaderField getContentId(final BatchQueryOperation queryOperation) throws BatchDeserializerException {
-    final HeaderField contentIdHeader = queryOperation.getHeaders().getHeaderField(HttpHeader.CONTENT_ID);
+  private HeaderField getContentId(final Header headers) throws BatchDeserializerException {
+    final HeaderField contentIdHeader = headers.getHeaderField(HttpHeader.CONTENT_ID);
 
     if (contentIdHeader != null) {
       if (contentIdHeader.getValues().size() == 1) {
@@ -100,15 +110,42 @@ public class BatchRequestTransformator {
   private ODataRequest createRequest(final BatchQueryOperation operation, final String baseUri,
       final boolean isChangeSet) throws BatchDeserializerException {
     final HttpRequestStatusLine statusLine =
-        new HttpRequestStatusLine(operation.getHttpStatusLine(), baseUri, rawServiceResolutionUri);
-    statusLine.validateHttpMethod(isChangeSet);
-    BatchTransformatorCommon.validateHost(operation.getHeaders(), baseUri);
+        parseStatusLine(operation.getHttpStatusLine(), operation.getHeaders(), isChangeSet);
 
     validateBody(statusLine, operation);
     Charset charset = getCharset(operation);
     InputStream bodyStream = getBodyStream(operation, statusLine, charset);
 
-    validateForbiddenHeader(operation);
+    return createRequest(statusLine, operation.getHeaders(), bodyStream);
+  }
+
+  /**
+   * Parses and validates the status line of a request.
+   * @param httpStatusLine the status line
+   * @param headers the headers of the request
+   * @param isChangeSet whether the request is part of a change set
+   * @return the parsed status line
+   */
+  public HttpRequestStatusLine parseStatusLine(final Line httpStatusLine, final Header headers,
+      final boolean isChangeSet) throws BatchDeserializerException {
+    final HttpRequestStatusLine statusLine =
+        new HttpRequestStatusLine(httpStatusLine, baseUri, rawServiceResolutionUri);
+    statusLine.validateHttpMethod(isChangeSet);
+    BatchTransformatorCommon.validateHost(headers, baseUri);
+
+    return statusLine;
+  }
+
+  /**
+   * Creates a request from its parsed status line, its headers, and its body.
+   * @param statusLine the parsed status line
+   * @param headers the headers of the request
+   * @param bodyStream the body of the request
+   * @return the request
+   */
+  public ODataRequest createRequest(final HttpRequestStatusLine statusLine, final Header headers,
+      final InputStream bodyStream) throws BatchDeserializerException {
+    validateForbiddenHeader(headers);
 
     final ODataRequest request = new ODataRequest();
     request.setBody(bodyStream);
@@ -119,7 +156,7 @@ public class BatchRequestTransformator {
     request.setRawRequestUri(statusLine.getRawRequestUri());
     request.setRawServiceResolutionUri(statusLine.getRawServiceResolutionUri());
 
-    for (final HeaderField field : operation.getHeaders()) {
+    for (final HeaderField field : headers) {
       request.addHeader(field.getFieldName(), field.getValues());
     }
 
@@ -141,9 +178,7 @@ public class BatchRequestTransformator {
     return Charset.forName("ISO-8859-1");
   }
 
-  private void validateForbiddenHeader(final BatchQueryOperation operation) throws BatchDeserializerException {
-    final Header header = operation.getHeaders();
-
+  private void validateForbiddenHeader(final Header header) throws BatchDeserializerException {
     if (header.exists(HttpHeader.WWW_AUTHENTICATE) || header.exists(HttpHeader.AUTHORIZATION)
         || header.exists(HttpHeader.EXPECT) || header.exists(HttpHeader.FROM) || header.exists(HttpHeader.MAX_FORWARDS)
         || header.exists(HttpHeader.RANGE) || header.exists(HttpHeader.TE)) {
@@ -180,7 +215,7 @@ public class BatchRequestTransformator {
         || operation.getBody().size() == 1 && !operation.getBody().get(0).toString().trim().isEmpty();
   }
 
-  private void validateHeaders(final Header headers, final boolean isChangeSet) throws BatchDeserializerException {
+  void validateHeaders(final Header headers, final boolean isChangeSet) throws BatchDeserializerException {
     if (isChangeSet) {
       BatchTransformatorCommon.validateContentType(headers, ContentType.MULTIPART_MIXED);
     } else {
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.batch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException.MessageKeys;
+import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartReader;
+
+/**
+ * Parses a batch request part by part directly from the byte stream of the batch request body.
+ * <p>In contrast to the {@link BatchParser}, the batch request body is not converted into a list of lines
+ * in advance; only the header lines of a part are read as lines. The body of a request outside of a
+ * change set is handed over as stream bounded by the next delimiter, so it must be consumed before
+ * the next part is read. The bodies of the requests inside a change set are read into byte arrays,
+ * because all requests of a change set are needed at once.</p>
+ */
+public class BatchStreamingParser implements BatchRequestPartReader {
+  private static final int BUFFER_SIZE = 8192;
+
+  private final MultipartInputStream content;
+  private final String boundary;
+  private final boolean isStrict;
+  private final BatchRequestTransformator transformator;
+
+  public BatchStreamingParser(final InputStream content, final String boundary, final BatchOptions options) {
+    this.content = new MultipartInputStream(content, boundary, 1);
+    this.boundary = boundary;
+    isStrict = options.isStrict();
+    transformator = new BatchRequestTransformator(options.getRawBaseUri(), options.getRawServiceResolutionUri());
+  }
+
+  @Override
+  public BatchRequestPart next() throws BatchDeserializerException {
+    try {
+      if (content.nextPart()) {
+        return parsePart();
+      } else if (content.isCloseDelimiterFound()) {
+        content.close();
+        return null;
+      } else {
+        throw new BatchDeserializerException("Missing close boundary delimiter",
+            MessageKeys.MISSING_CLOSE_DELIMITER, Integer.toString(content.getLineNumber()));
+      }
+    } catch (final IOException e) {
+      throw new ODataRuntimeException(e);
+    }
+  }
+
+  private BatchRequestPart parsePart() throws IOException, BatchDeserializerException {
+    final Header headers = BatchParserCommon.consumeHeaders(content);
+    BatchParserCommon.consumeBlankLine(content, isStrict);
+    final boolean isChangeSet = BatchBodyPart.isChangeSet(headers);
+    transformator.validateHeaders(headers, isChangeSet);
+
+    if (isChangeSet) {
+      return new BatchRequestPart(true, parseChangeSet(headers));
+    } else {
+      return new BatchRequestPart(false, parseRequest(content, headers, false));
+    }
+  }
+
+  private List<ODataRequest> parseChangeSet(final Header headers) throws IOException, BatchDeserializerException {
+    final HeaderField contentTypeField = headers.getHeaderField(HttpHeader.CONTENT_TYPE);
+    final String changeSetBoundary = BatchParserCommon.getBoundary(contentTypeField.getValue(),
+        contentTypeField.getLineNumber());
+    if (changeSetBoundary.equals(boundary)) {
+      throw new BatchDeserializerException("Change set boundary is equals to batch request boundary",
+          MessageKeys.INVALID_BOUNDARY, Integer.toString(contentTypeField.getLineNumber()));
+    }
+
+    final MultipartInputStream changeSet =
+        new MultipartInputStream(content, changeSetBoundary, content.getLineNumber());
+    final List<ODataRequest> requests = new ArrayList<ODataRequest>();
+    while (changeSet.nextPart()) {
+      final Header partHeaders = BatchParserCommon.consumeHeaders(changeSet);
+      BatchParserCommon.consumeBlankLine(changeSet, isStrict);
+      transformator.validateHeaders(partHeaders, false);
+      requests.add(parseRequest(changeSet, partHeaders, true));
+    }
+    if (!changeSet.isCloseDelimiterFound()) {
+      throw new BatchDeserializerException("Missing close boundary delimiter",
+          MessageKeys.MISSING_CLOSE_DELIMITER, Integer.toString(changeSet.getLineNumber()));
+    }
+
+    return requests;
+  }
+
+  private ODataRequest parseRequest(final MultipartInputStream part, final Header partHeaders,
+      final boolean isChangeSet) throws IOException, BatchDeserializerException {
+    final Line httpStatusLine = consumeHttpStatusLine(part);
+    final Header headers = BatchParserCommon.consumeHeaders(part);
+    BatchParserCommon.consumeBlankLine(part, isStrict);
+    if (isChangeSet) {
+      transformator.handleContentId(partHeaders, headers);
+    }
+
+    final HttpRequestStatusLine statusLine = transformator.parseStatusLine(httpStatusLine, headers, isChangeSet);
+    final InputStream body;
+    if (statusLine.getMethod() == HttpMethod.GET) {
+      validateEmptyBody(part, statusLine);
+      body = new ByteArrayInputStream(new byte[0]);
+    } else {
+      final int contentLength = BatchTransformatorCommon.getContentLength(headers);
+      body = isChangeSet ?
+          new ByteArrayInputStream(readBody(part, contentLength)) :
+          new PartBodyInputStream(part, contentLength == -1 ? Long.MAX_VALUE : contentLength);
+    }
+
+    return transformator.createRequest(statusLine, headers, body);
+  }
+
+  private Line consumeHttpStatusLine(final MultipartInputStream part)
+      throws IOException, BatchDeserializerException {
+    final Line line = part.readLine();
+    if (line == null || line.toString().trim().isEmpty()) {
+      throw new BatchDeserializerException("Missing http request line", MessageKeys.INVALID_STATUS_LINE,
+          Integer.toString(line == null ? part.getLineNumber() : line.getLineNumber()));
+    }
+    return line;
+  }
+
+  private void validateEmptyBody(final MultipartInputStream part, final HttpRequestStatusLine statusLine)
+      throws IOException, BatchDeserializerException {
+    int current;
+    while ((current = part.read()) != -1) {
+      if (!Character.isWhitespace(current)) {
+        throw new BatchDeserializerException("Invalid request line", MessageKeys.INVALID_CONTENT,
+            Integer.toString(statusLine.getLineNumber()));
+      }
+    }
+  }
+
+  private byte[] readBody(final MultipartInputStream part, final int contentLength) throws IOException {
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    long remaining = contentLength == -1 ? Long.MAX_VALUE : contentLength;
+    int count;
+    while (remaining > 0 && (count = part.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+      body.write(buffer, 0, count);
+      remaining -= count;
+    }
+    return body.toByteArray();
+  }
+
+  /**
+   * The body of a request outside of a change set, read directly from the batch request body,
+   * optionally limited to the length given in the Content-Length header.
+   * Closing it does not close the batch request body.
+   */
+  private static class PartBodyInputStream extends InputStream {
+    private final MultipartInputStream part;
+    private long remaining;
+
+    public PartBodyInputStream(final MultipartInputStream part, final long length) {
+      this.part = part;
+      remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      final int current = part.read();
+      if (current != -1) {
+        remaining--;
+      }
+      return current;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      final int count = part.read(b, off, (int) Math.min(len, remaining));
+      if (count > 0) {
+        remaining -= count;
+      }
+      return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return (int) Math.min(part.available(), remaining);
+    }
+  }
+}
@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.batch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Reads a multipart message (RFC 2046) from a byte stream, one body part after the other.
+ * <p>The boundary delimiters are searched for on the raw bytes, so the content of a body part is
+ * neither decoded nor held in memory. It is read with the usual {@link InputStream} methods, which
+ * signal the end of the stream at the end of the current body part. The preamble in front of the first
+ * body part and the epilogue after the close delimiter are skipped.</p>
+ * <p>The line break in front of a delimiter belongs to the delimiter, unless it has already been read,
+ * e.g., as part of a line with {@link #readLine()}. Line breaks can be CRLF or LF.</p>
+ */
+public class MultipartInputStream extends InputStream {
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+  private static final byte DASH = '-';
+  private static final int BUFFER_SIZE = 8192;
+  private static final Charset HEADER_CHARSET = Charset.forName("ISO-8859-1");
+
+  private enum State {
+    /** Inside a body part (or the preamble). */
+    PART,
+    /** A delimiter has been read; the next body part has not been started yet. */
+    DELIMITER,
+    /** The close delimiter has been read. */
+    CLOSED,
+    /** The end of the stream has been reached without a close delimiter. */
+    EOF
+  }
+
+  private final InputStream in;
+  private final byte[] dashBoundary;
+  private final int lookahead;
+  private final byte[] buffer;
+  private final byte[] singleByte = new byte[1];
+  private int offset = 0;
+  private int limit = 0;
+  private boolean isEndOfStream = false;
+  private State state = State.PART;
+  private boolean isLineStart = true;
+  private int lineNumber;
+
+  private Line pendingLine;
+  private byte[] pendingBytes;
+  private int pendingOffset;
+
+  /**
+   * Creates a multipart stream.
+   * @param in the stream with the multipart message
+   * @param boundary the boundary (without leading dashes)
+   * @param firstLineNumber the line number of the first line of the message, used in error messages
+   */
+  public MultipartInputStream(final InputStream in, final String boundary, final int firstLineNumber) {
+    this.in = in;
+    dashBoundary = (BatchLineReader.DOUBLE_DASH + boundary).getBytes(HEADER_CHARSET);
+    // line break + dash boundary + the two characters deciding about the kind of delimiter
+    lookahead = 2 + dashBoundary.length + 2;
+    buffer = new byte[Math.max(BUFFER_SIZE, 2 * lookahead)];
+    lineNumber = firstLineNumber;
+  }
+
+  /**
+   * Skips the rest of the current body part (or the preamble) and starts reading the next body part.
+   * @return <code>true</code> if there is a next body part,
+   * <code>false</code> at the end of the multipart message
+   */
+  public boolean nextPart() throws IOException {
+    pendingLine = null;
+    pendingBytes = null;
+    while (state == State.PART) {
+      final int count = scan();
+      if (count > 0) {
+        advance(count);
+      }
+    }
+    if (state == State.DELIMITER) {
+      state = State.PART;
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Returns whether the close delimiter has been found.
+   * If the end of the multipart message is reached without it, the message is incomplete.
+   */
+  public boolean isCloseDelimiterFound() {
+    return state == State.CLOSED;
+  }
+
+  /** Gets the number of the line the next byte to be read belongs to. */
+  public int getLineNumber() {
+    return pendingLine == null ? lineNumber : pendingLine.getLineNumber();
+  }
+
+  /**
+   * Reads the next line of the current body part, including its line break.
+   * The line is decoded as ISO-8859-1, which is the right choice for headers.
+   * @return the line or <code>null</code> at the end of the body part
+   */
+  public Line readLine() throws IOException {
+    final Line line = peekLine();
+    pendingLine = null;
+    pendingBytes = null;
+    return line;
+  }
+
+  /**
+   * Reads the next line of the current body part like {@link #readLine()}
+   * but keeps it for the next read operation.
+   * @return the line or <code>null</code> at the end of the body part
+   */
+  public Line peekLine() throws IOException {
+    if (pendingLine == null) {
+      final int number = lineNumber;
+      final ByteArrayOutputStream line = new ByteArrayOutputStream();
+      int current;
+      while ((current = read()) != -1) {
+        line.write(current);
+        if (current == LF) {
+          break;
+        }
+      }
+      if (line.size() > 0) {
+        pendingBytes = line.toByteArray();
+        pendingOffset = 0;
+        pendingLine = new Line(new String(pendingBytes, HEADER_CHARSET), number);
+      }
+    }
+    return pendingLine;
+  }
+
+  @Override
+  public int read() throws IOException {
+    return read(singleByte, 0, 1) == -1 ? -1 : singleByte[0] & 0xFF;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (pendingBytes != null) {
+      final int count = Math.min(len, pendingBytes.length - pendingOffset);
+      System.arraycopy(pendingBytes, pendingOffset, b, off, count);
+      pendingOffset += count;
+      pendingLine = null;
+      if (pendingOffset == pendingBytes.length) {
+        pendingBytes = null;
+      }
+      return count;
+    }
+    if (state != State.PART) {
+      return -1;
+    }
+    final int available = scan();
+    if (available <= 0) {
+      return -1;
+    }
+    final int count = Math.min(len, available);
+    System.arraycopy(buffer, offset, b, off, count);
+    advance(count);
+    return count;
+  }
+
+  @Override
+  public int available() throws IOException {
+    if (pendingBytes != null) {
+      return pendingBytes.length - pendingOffset;
+    }
+    // Bytes in front of the next line break surely belong to the current body part.
+    int count = 0;
+    if (state == State.PART && !isLineStart) {
+      while (offset + count < limit && buffer[offset + count] != CR && buffer[offset + count] != LF) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  /**
+   * Determines how many bytes from the current position belong to the current body part.
+   * If a delimiter starts at the current position, it is consumed and the state is changed accordingly.
+   * Line breaks are always returned as single bytes so that the search for a delimiter can start there.
+   * @return the number of bytes in front of the next line break, or 1 for a line break,
+   * or 0 if the body part has ended
+   */
+  private int scan() throws IOException {
+    fill();
+    if (offset == limit) {
+      state = State.EOF;
+      return 0;
+    }
+    final int boundaryStart = findDelimiter();
+    if (boundaryStart >= 0) {
+      consumeDelimiter(boundaryStart);
+      return 0;
+    }
+    if (buffer[offset] == CR || buffer[offset] == LF) {
+      return 1;
+    }
+    int index = offset + 1;
+    while (index < limit && buffer[index] != CR && buffer[index] != LF) {
+      index++;
+    }
+    return index - offset;
+  }
+
+  private void advance(final int count) {
+    // Only single bytes can be line breaks, see scan().
+    isLineStart = buffer[offset] == LF;
+    if (isLineStart) {
+      lineNumber++;
+    }
+    offset += count;
+  }
+
+  /**
+   * Checks whether a delimiter starts at the current position, either directly at the start of a line
+   * or with a preceding line break.
+   * @return the position of the dash boundary or -1 if there is no delimiter
+   */
+  private int findDelimiter() {
+    if (isLineStart && isDashBoundary(offset)) {
+      return offset;
+    }
+    int index = offset;
+    if (buffer[index] == CR) {
+      index++;
+      if (index == limit || buffer[index] != LF) {
+        return -1;
+      }
+    }
+    if (buffer[index] == LF && isDashBoundary(index + 1)) {
+      return index + 1;
+    }
+    return -1;
+  }
+
+  private boolean isDashBoundary(final int start) {
+    if (limit - start < dashBoundary.length) {
+      return false;
+    }
+    for (int i = 0; i < dashBoundary.length; i++) {
+      if (buffer[start + i] != dashBoundary[i]) {
+        return false;
+      }
+    }
+    final int index = start + dashBoundary.length;
+
+    // The boundary must not be just the beginning of a longer line.
+    if (index == limit) {
+      return true;
+    }
+    final byte next = buffer[index];
+    return next == CR || next == LF || next == ' ' || next == '\t'
+        || next == DASH && index + 1 < limit && buffer[index + 1] == DASH;
+  }
+
+  private void consumeDelimiter(final int boundaryStart) throws IOException {
+    if (boundaryStart > offset) {
+      lineNumber++;
+    }
+    offset = boundaryStart + dashBoundary.length;
+    isLineStart = false;
+
+    if (limit - offset >= 2 && buffer[offset] == DASH && buffer[offset + 1] == DASH) {
+      offset += 2;
+      state = State.CLOSED;
+    } else {
+      // Skip transport padding up to and including the line break.
+      while (true) {
+        fill();
+        if (offset == limit) {
+          break;
+        }
+        if (buffer[offset++] == LF) {
+          lineNumber++;
+          isLineStart = true;
+          break;
+        }
+      }
+      state = State.DELIMITER;
+    }
+  }
+
+  /** Makes sure that enough bytes are buffered to recognize a delimiter, unless the stream has ended. */
+  private void fill() throws IOException {
+    if (isEndOfStream || limit - offset >= lookahead) {
+      return;
+    }
+    if (offset > 0) {
+      System.arraycopy(buffer, offset, buffer, 0, limit - offset);
+      limit -= offset;
+      offset = 0;
+    }
+    while (!isEndOfStream && limit < lookahead) {
+      final int count = in.read(buffer, limit, buffer.length - limit);
+      if (count == -1) {
+        isEndOfStream = true;
+      } else {
+        limit += count;
+      }
+    }
+  }
+}
@@ -31,6 +31,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 
 import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.data.ComplexValue;
@@ -69,23 +70,24 @@ import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.deserializer.DeserializerException.MessageKeys;
 import org.apache.olingo.server.api.deserializer.DeserializerResult;
-import org.apache.olingo.server.api.deserializer.ODataDeserializer;
+import org.apache.olingo.server.api.deserializer.EntityCollectionIterator;
+import org.apache.olingo.server.api.deserializer.EntityCollectionStreamDeserializer;
 import org.apache.olingo.server.core.deserializer.DeserializerResultImpl;
 import org.apache.olingo.server.core.deserializer.helper.ExpandTreeBuilder;
 import org.apache.olingo.server.core.deserializer.helper.ExpandTreeBuilderImpl;
+import org.apache.olingo.server.core.serializer.json.JsonFactoryProvider;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
-public class ODataJsonDeserializer implements ODataDeserializer {
+public class ODataJsonDeserializer implements EntityCollectionStreamDeserializer {
 
   private static final Map<String, Class<? extends Geospatial>> jsonNameToGeoDataType;
   static {
@@ -104,6 +106,7 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   private static final String ODATA_CONTROL_INFORMATION_PREFIX = "@odata.";
 
   private final boolean isIEEE754Compatible;
+  private final ObjectMapper objectMapper;
   private ServiceMetadata serviceMetadata;
 
   public ODataJsonDeserializer(final ContentType contentType) {
@@ -111,42 +114,162 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   }
 
   public ODataJsonDeserializer(final ContentType contentType, final ServiceMetadata serviceMetadata) {
+    this(contentType, serviceMetadata, JsonFactoryProvider.getObjectMapper());
+  }
+
+  public ODataJsonDeserializer(final ContentType contentType, final ServiceMetadata serviceMetadata,
+      final ObjectMapper objectMapper) {
     isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
     this.serviceMetadata = serviceMetadata;
+    this.objectMapper = objectMapper;
   }
 
   @Override
   public DeserializerResult entityCollection(final InputStream stream, final EdmEntityType edmEntityType)
       throws DeserializerException {
+    final EntityCollectionIterator iterator = entityCollectionIterator(stream, edmEntityType);
+    EntityCollection entitySet = new EntityCollection();
+    while (iterator.hasNext()) {
+      entitySet.getEntities().add(iterator.next());
+    }
+    return DeserializerResultImpl.with().entityCollection(entitySet).build();
+  }
+
+  @Override
+  public EntityCollectionIterator entityCollectionIterator(final InputStream stream,
+      final EdmEntityType edmEntityType) throws DeserializerException {
     try {
-      return DeserializerResultImpl.with().entityCollection(
-          consumeEntityCollectionNode(edmEntityType, parseJsonTree(stream), null))
-          .build();
+      return new JsonEntityCollectionIterator(createObjectParser(stream), edmEntityType);
     } catch (final IOException e) {
       throw wrapParseException(e);
     }
   }
 
-  private EntityCollection consumeEntityCollectionNode(final EdmEntityType edmEntityType, final ObjectNode tree,
-      final ExpandTreeBuilder expandBuilder) throws DeserializerException {
-    EntityCollection entitySet = new EntityCollection();
+  /**
+   * Reads the entities of the <code>value</code> array with the streaming parser;
+   * only the current entity is read into a JSON tree.
+   * All other members of the collection object are expected to be control information.
+   */
+  private class JsonEntityCollectionIterator implements EntityCollectionIterator {
+
+    private final JsonParser parser;
+    private final EdmEntityType edmEntityType;
+    private final ObjectNode otherFields;
+    private boolean valueFound = false;
+    private boolean inValue = false;
+    private boolean finished = false;
+    private Entity nextEntity;
+
+    private JsonEntityCollectionIterator(final JsonParser parser, final EdmEntityType edmEntityType) {
+      this.parser = parser;
+      this.edmEntityType = edmEntityType;
+      otherFields = objectMapper.createObjectNode();
+    }
 
-    // Consume entities
-    JsonNode jsonNode = tree.get(Constants.VALUE);
-    if (jsonNode != null) {
-      entitySet.getEntities().addAll(consumeEntitySetArray(edmEntityType, jsonNode, expandBuilder));
-      tree.remove(Constants.VALUE);
-    } else {
-      throw new DeserializerException("Could not find value array.",
-          DeserializerException.MessageKeys.VALUE_ARRAY_NOT_PRESENT);
+    @Override
+    public boolean hasNext() throws DeserializerException {
+      if (nextEntity == null && !finished) {
+        try {
+          nextEntity = readNextEntity();
+        } catch (final IOException e) {
+          throw wrapParseException(e);
+        }
+      }
+      return nextEntity != null;
     }
 
-    if (tree.isObject()) {
-      removeAnnotations(tree);
+    @Override
+    public Entity next() throws DeserializerException {
+      if (!hasNext()) {
+        throw new NoSuchElementException("No further entity found.");
+      }
+      final Entity entity = nextEntity;
+      nextEntity = null;
+      return entity;
+    }
+
+    private Entity readNextEntity() throws IOException, DeserializerException {
+      if (!inValue) {
+        readFields();
+      }
+      if (inValue) {
+        if (parser.nextToken() != JsonToken.END_ARRAY) {
+          return consumeEntitySetArrayElement(edmEntityType, parser, null);
+        }
+        inValue = false;
+        readFields();
+      }
+
+      if (!valueFound) {
+        throw new DeserializerException("Could not find value array.",
+            DeserializerException.MessageKeys.VALUE_ARRAY_NOT_PRESENT);
+      }
+      removeAnnotations(otherFields);
+      assertJsonNodeIsEmpty(otherFields);
+      finished = true;
+      return null;
     }
-    assertJsonNodeIsEmpty(tree);
 
-    return entitySet;
+    /** Reads the members of the collection object up to the value array or to the end of the object. */
+    private void readFields() throws IOException, DeserializerException {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String name = parser.getCurrentName();
+        final JsonToken token = parser.nextToken();
+        if (Constants.VALUE.equals(name)) {
+          if (valueFound) {
+            throw new DeserializerException("Duplicate json property detected: " + name,
+                DeserializerException.MessageKeys.DUPLICATE_PROPERTY);
+          }
+          valueFound = true;
+          if (token != JsonToken.START_ARRAY) {
+            throw new DeserializerException("The content of the value tag must be an Array but is not.",
+                DeserializerException.MessageKeys.VALUE_TAG_MUST_BE_AN_ARRAY);
+          }
+          inValue = true;
+          return;
+        }
+        readField(parser, name, otherFields);
+      }
+    }
+  }
+
+  /**
+   * Creates a parser for the stream and moves it to the start of the top-level JSON object.
+   */
+  private JsonParser createObjectParser(final InputStream stream) throws IOException, DeserializerException {
+    final JsonParser parser = objectMapper.getFactory().createParser(stream);
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new DeserializerException("Invalid JSON syntax.",
+          DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
+    }
+    return parser;
+  }
+
+  /**
+   * Reads the value of the current field into a JSON tree and adds it to the given node.
+   */
+  private void readField(final JsonParser parser, final String name, final ObjectNode node)
+      throws IOException, DeserializerException {
+    if (node.has(name)) {
+      throw new DeserializerException("Duplicate json property detected: " + name,
+          DeserializerException.MessageKeys.DUPLICATE_PROPERTY);
+    }
+    final JsonNode value = objectMapper.readTree(parser);
+    node.set(name, value);
+  }
+
+  /**
+   * Reads the entity at the current position of the parser.
+   */
+  private Entity consumeEntitySetArrayElement(final EdmEntityType edmEntityType, final JsonParser parser,
+      final ExpandTreeBuilder expandBuilder) throws IOException, DeserializerException {
+    if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+      throw new DeserializerException("Nested Arrays and primitive values are not allowed for an entity value.",
+          DeserializerException.MessageKeys.INVALID_ENTITY);
+    }
+    final ObjectNode tree = objectMapper.readTree(parser);
+    EdmEntityType derivedEdmEntityType = (EdmEntityType) getDerivedType(edmEntityType, tree);
+    return consumeEntityNode(derivedEdmEntityType, tree, expandBuilder);
   }
 
   private List<Entity> consumeEntitySetArray(final EdmEntityType edmEntityType, final JsonNode jsonNode,
@@ -208,13 +331,11 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   public DeserializerResult actionParameters(final InputStream stream, final EdmAction edmAction)
       throws DeserializerException {
     try {
-      ObjectNode tree = parseJsonTree(stream);
-      Map<String, Parameter> parameters = consumeParameters(edmAction, tree);
+      final ObjectNode otherFields = objectMapper.createObjectNode();
+      Map<String, Parameter> parameters = consumeParameters(edmAction, createObjectParser(stream), otherFields);
 
-      if (tree.isObject()) {
-        removeAnnotations(tree);
-      }
-      assertJsonNodeIsEmpty(tree);
+      removeAnnotations(otherFields);
+      assertJsonNodeIsEmpty(otherFields);
       return DeserializerResultImpl.with().actionParameters(parameters).build();
 
     } catch (final IOException e) {
@@ -223,10 +344,8 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   }
 
   private ObjectNode parseJsonTree(final InputStream stream) throws IOException, DeserializerException {
-    ObjectMapper objectMapper = new ObjectMapper();
-    objectMapper.configure(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY, true);
-    JsonParser parser = new JsonFactory(objectMapper).createParser(stream);
-    final JsonNode tree = parser.getCodec().readTree(parser);
+    JsonParser parser = objectMapper.getFactory().createParser(stream);
+    final JsonNode tree = objectMapper.readTree(parser);
     if (tree == null || !tree.isObject()) {
       throw new DeserializerException("Invalid JSON syntax.",
           DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
@@ -234,36 +353,81 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     return (ObjectNode) tree;
   }
 
-  private Map<String, Parameter> consumeParameters(final EdmAction edmAction, final ObjectNode node)
-      throws DeserializerException {
+  /**
+   * Reads the action parameters with the streaming parser.
+   * Collections of entities are read entity by entity, without reading the collection into a JSON tree;
+   * all members that are not parameters are added to <code>otherFields</code>.
+   */
+  private Map<String, Parameter> consumeParameters(final EdmAction edmAction, final JsonParser parser,
+      final ObjectNode otherFields) throws IOException, DeserializerException {
     List<String> parameterNames = edmAction.getParameterNames();
     if (edmAction.isBound()) {
       // The binding parameter must not occur in the payload.
       parameterNames = parameterNames.subList(1, parameterNames.size());
     }
+    Map<String, Parameter> readParameters = new HashMap<String, Parameter>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String name = parser.getCurrentName();
+      parser.nextToken();
+      if (parameterNames.contains(name)) {
+        if (readParameters.containsKey(name)) {
+          throw new DeserializerException("Duplicate json property detected: " + name,
+              DeserializerException.MessageKeys.DUPLICATE_PROPERTY);
+        }
+        readParameters.put(name, consumeParameter(parser, name, edmAction.getParameter(name)));
+      } else {
+        readField(parser, name, otherFields);
+      }
+    }
+
     Map<String, Parameter> parameters = new LinkedHashMap<String, Parameter>();
     for (final String paramName : parameterNames) {
-      final EdmParameter edmParameter = edmAction.getParameter(paramName);
-
-      switch (edmParameter.getType().getKind()) {
-      case PRIMITIVE:
-      case DEFINITION:
-      case ENUM:
-      case COMPLEX:
-      case ENTITY:
-        Parameter parameter = createParameter(node.get(paramName), paramName, edmParameter);
-        parameters.put(paramName, parameter);
-        node.remove(paramName);
-        break;
-      default:
-        throw new DeserializerException(
-            "Invalid type kind " + edmParameter.getType().getKind() + " for action parameter: " + paramName,
-            DeserializerException.MessageKeys.INVALID_ACTION_PARAMETER_TYPE, paramName);
-      }
+      final Parameter parameter = readParameters.get(paramName);
+      parameters.put(paramName, parameter == null ?
+          consumeParameter(null, paramName, edmAction.getParameter(paramName)) :
+          parameter);
     }
     return parameters;
   }
 
+  /**
+   * Reads the value of an action parameter at the current position of the parser;
+   * the parameter is treated as not present if the parser is <code>null</code>.
+   */
+  private Parameter consumeParameter(final JsonParser parser, final String paramName,
+      final EdmParameter edmParameter) throws IOException, DeserializerException {
+    switch (edmParameter.getType().getKind()) {
+    case PRIMITIVE:
+    case DEFINITION:
+    case ENUM:
+    case COMPLEX:
+    case ENTITY:
+      break;
+    default:
+      throw new DeserializerException(
+          "Invalid type kind " + edmParameter.getType().getKind() + " for action parameter: " + paramName,
+          DeserializerException.MessageKeys.INVALID_ACTION_PARAMETER_TYPE, paramName);
+    }
+
+    if (parser == null) {
+      return createParameter(null, paramName, edmParameter);
+    } else if (edmParameter.getType().getKind() == EdmTypeKind.ENTITY && edmParameter.isCollection()
+        && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+      EntityCollection entityCollection = new EntityCollection();
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        entityCollection.getEntities().add(
+            consumeEntitySetArrayElement((EdmEntityType) edmParameter.getType(), parser, null));
+      }
+      Parameter parameter = new Parameter();
+      parameter.setName(paramName);
+      parameter.setValue(ValueType.COLLECTION_ENTITY, entityCollection);
+      return parameter;
+    } else {
+      final JsonNode node = objectMapper.readTree(parser);
+      return createParameter(node, paramName, edmParameter);
+    }
+  }
+
   private Parameter createParameter(final JsonNode node, final String paramName, final EdmParameter edmParameter)
       throws DeserializerException {
     Parameter parameter = new Parameter();
@@ -302,10 +466,8 @@ public class ODataJsonDeserializer implements ODataDeserializer {
   /** Reads a parameter value from a String. */
   public Parameter parameter(final String content, final EdmParameter parameter) throws DeserializerException {
     try {
-      JsonParser parser = new JsonFactory(new ObjectMapper()
-          .configure(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY, true))
-              .createParser(content);
-      JsonNode node = parser.getCodec().readTree(parser);
+      JsonParser parser = objectMapper.getFactory().createParser(content);
+      JsonNode node = objectMapper.readTree(parser);
       if (node == null) {
         throw new DeserializerException("Invalid JSON syntax.",
             DeserializerException.MessageKeys.JSON_SYNTAX_EXCEPTION);
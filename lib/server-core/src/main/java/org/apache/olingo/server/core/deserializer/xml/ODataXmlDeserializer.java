@@ -21,6 +21,8 @@ package org.apache.olingo.server.core.deserializer.xml;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -62,10 +64,11 @@ import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.deserializer.DeserializerException.MessageKeys;
 import org.apache.olingo.server.api.deserializer.DeserializerResult;
-import org.apache.olingo.server.api.deserializer.ODataDeserializer;
+import org.apache.olingo.server.api.deserializer.EntityCollectionIterator;
+import org.apache.olingo.server.api.deserializer.EntityCollectionStreamDeserializer;
 import org.apache.olingo.server.core.deserializer.DeserializerResultImpl;
 
-public class ODataXmlDeserializer implements ODataDeserializer {
+public class ODataXmlDeserializer implements EntityCollectionStreamDeserializer {
 
   private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
 
@@ -696,6 +699,30 @@ public class ODataXmlDeserializer implements ODataDeserializer {
     }
   }
 
+  /**
+   * Reads the complete entity collection before returning its entities;
+   * there is no entity-by-entity reading for XML payloads.
+   */
+  @Override
+  public EntityCollectionIterator entityCollectionIterator(final InputStream input,
+      final EdmEntityType edmEntityType) throws DeserializerException {
+    final EntityCollection entityCollection = entityCollection(input, edmEntityType).getEntityCollection();
+    final Iterator<Entity> iterator = entityCollection == null ?
+        Collections.<Entity> emptyList().iterator() :
+        entityCollection.getEntities().iterator();
+    return new EntityCollectionIterator() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        return iterator.next();
+      }
+    };
+  }
+
   @Override
   public DeserializerResult entityReferences(final InputStream stream) throws DeserializerException {
     try {
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.olingo.server.api.uri.queryoption.apply.AggregateExpression.StandardMethod;
+
+/**
+ * <p>State of an aggregation method for one group.</p>
+ * <p>Accumulators receive the canonical values of the aggregated expression; <code>null</code> values
+ * are ignored. Accumulators of the same aggregate can be merged, so partial aggregates computed in parallel
+ * or written to disk can be combined.</p>
+ */
+abstract class Accumulator implements Serializable {
+
+  private static final long serialVersionUID = 6286307950301700768L;
+
+  /**
+   * Adds a value.
+   * @param value canonical value or <code>null</code>
+   */
+  abstract void add(Object value);
+
+  /**
+   * Adds the state of an accumulator created for the same aggregate.
+   * @param other the other accumulator
+   */
+  abstract void merge(Accumulator other);
+
+  /** Gets the aggregated value. */
+  abstract Object getResult();
+
+  /**
+   * Creates an accumulator.
+   * @param method the standard aggregation method, or <code>null</code> to count the entities
+   * @param category the category of the aggregated values
+   */
+  static Accumulator create(final StandardMethod method, final ValueCategory category) {
+    if (method == null) {
+      return new Count();
+    }
+    switch (method) {
+    case SUM:
+      return new Sum(category);
+    case AVERAGE:
+      return new Average(category);
+    case MIN:
+      return new MinMax(category, -1);
+    case MAX:
+      return new MinMax(category, 1);
+    default:
+      return new CountDistinct();
+    }
+  }
+
+  /** Counts all entities; used for the virtual property <code>$count</code>. */
+  static final class Count extends Accumulator {
+    private static final long serialVersionUID = -2318873325389718472L;
+    private long count;
+
+    @Override
+    void add(final Object value) {
+      count++;
+    }
+
+    @Override
+    void merge(final Accumulator other) {
+      count += ((Count) other).count;
+    }
+
+    @Override
+    Object getResult() {
+      return count;
+    }
+  }
+
+  /**
+   * Sum in primitive arithmetic where possible; integer sums continue as decimal sums after an overflow.
+   * The sum of no values is <code>null</code>.
+   */
+  static class Sum extends Accumulator {
+    private static final long serialVersionUID = 2771402958434740035L;
+    private final ValueCategory category;
+    private long longSum;
+    private double doubleSum;
+    private BigDecimal decimalSum;
+    protected long count;
+
+    Sum(final ValueCategory category) {
+      this.category = category;
+    }
+
+    @Override
+    void add(final Object value) {
+      if (value == null) {
+        return;
+      }
+      count++;
+      if (category == ValueCategory.DOUBLE) {
+        doubleSum += Values.toDouble(value);
+      } else if (category == ValueCategory.INTEGER && decimalSum == null) {
+        addLong(Values.toLong(value));
+      } else {
+        decimalSum = decimalSum == null ? Values.toBigDecimal(value) : decimalSum.add(Values.toBigDecimal(value));
+      }
+    }
+
+    private void addLong(final long value) {
+      final long result = longSum + value;
+      if (((longSum ^ result) & (value ^ result)) < 0) {
+        decimalSum = BigDecimal.valueOf(longSum).add(BigDecimal.valueOf(value));
+        longSum = 0;
+      } else {
+        longSum = result;
+      }
+    }
+
+    @Override
+    void merge(final Accumulator other) {
+      final Sum sum = (Sum) other;
+      count += sum.count;
+      doubleSum += sum.doubleSum;
+      if (sum.decimalSum != null) {
+        decimalSum = decimalSum == null ? sum.decimalSum : decimalSum.add(sum.decimalSum);
+      }
+      if (decimalSum == null) {
+        addLong(sum.longSum);
+      } else {
+        // The remaining long sum of this accumulator is added in getSum().
+        decimalSum = decimalSum.add(BigDecimal.valueOf(sum.longSum));
+      }
+    }
+
+    /** Gets the sum as Decimal value, or as Double value if it is not finite. */
+    Object getSum() {
+      if (category == ValueCategory.DOUBLE) {
+        return Double.isInfinite(doubleSum) || Double.isNaN(doubleSum) ?
+            (Object) doubleSum : BigDecimal.valueOf(doubleSum);
+      }
+      return decimalSum == null ? BigDecimal.valueOf(longSum) : decimalSum.add(BigDecimal.valueOf(longSum));
+    }
+
+    @Override
+    Object getResult() {
+      return count == 0 ? null : getSum();
+    }
+  }
+
+  /** Average as Decimal value; the average of no values is <code>null</code>. */
+  static final class Average extends Sum {
+    private static final long serialVersionUID = -7008398123425542193L;
+
+    Average(final ValueCategory category) {
+      super(category);
+    }
+
+    @Override
+    Object getResult() {
+      if (count == 0) {
+        return null;
+      }
+      final Object sum = getSum();
+      return sum instanceof Double ? sum :
+          ((BigDecimal) sum).divide(BigDecimal.valueOf(count), MathContext.DECIMAL128);
+    }
+  }
+
+  /** Minimum or maximum; values without a natural order are ignored. */
+  static final class MinMax extends Accumulator {
+    private static final long serialVersionUID = 1954436183519620547L;
+    private final ValueCategory category;
+    private final int sign;
+    private Object best;
+
+    /** @param sign -1 for the minimum, 1 for the maximum */
+    MinMax(final ValueCategory category, final int sign) {
+      this.category = category;
+      this.sign = sign;
+    }
+
+    @Override
+    void add(final Object value) {
+      if (value != null) {
+        if (best == null) {
+          best = value;
+        } else {
+          final Integer result = Values.compare(value, best, category);
+          if (result != null && result * sign > 0) {
+            best = value;
+          }
+        }
+      }
+    }
+
+    @Override
+    void merge(final Accumulator other) {
+      add(((MinMax) other).best);
+    }
+
+    @Override
+    Object getResult() {
+      return best;
+    }
+  }
+
+  /** Number of distinct non-null values. */
+  static final class CountDistinct extends Accumulator {
+    private static final long serialVersionUID = -1262436468373569585L;
+    private final Set<GroupKey> values = new HashSet<GroupKey>();
+
+    @Override
+    void add(final Object value) {
+      if (value != null) {
+        values.add(new GroupKey(new Object[] { value }));
+      }
+    }
+
+    @Override
+    void merge(final Accumulator other) {
+      values.addAll(((CountDistinct) other).values);
+    }
+
+    @Override
+    Object getResult() {
+      return Long.valueOf(values.size());
+    }
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.server.api.uri.queryoption.apply.AggregateExpression.StandardMethod;
+
+/**
+ * <p>Compiled grouping and aggregation: entities are grouped by the values of key expressions
+ * and every group is aggregated by accumulators.</p>
+ * <p>Entity filters are applied before grouping, so rejected entities do not create groups;
+ * group filters are applied after grouping, so rejected entities only do not contribute to the aggregates
+ * (this is the semantics of filters nested in groupby).</p>
+ * <p>Once set up, instances are not changed any more and can be used concurrently.</p>
+ */
+class Aggregation {
+
+  private final String entityTypeName;
+  private final List<EntityFilter> entityFilters = new ArrayList<EntityFilter>();
+  private final List<CompiledExpression> keys = new ArrayList<CompiledExpression>();
+  private final List<String[]> keyPaths = new ArrayList<String[]>();
+  private final List<String[]> keyTypeNames = new ArrayList<String[]>();
+  private final List<EntityFilter> groupFilters = new ArrayList<EntityFilter>();
+  private final List<CompiledExpression> values = new ArrayList<CompiledExpression>();
+  private final List<StandardMethod> methods = new ArrayList<StandardMethod>();
+  private final List<String> aliases = new ArrayList<String>();
+  private final List<String> typeNames = new ArrayList<String>();
+
+  /** @param entityTypeName type name of the result entities */
+  Aggregation(final String entityTypeName) {
+    this.entityTypeName = entityTypeName;
+  }
+
+  /** Adds a filter which is applied before grouping. */
+  Aggregation addEntityFilter(final EntityFilter filter) {
+    entityFilters.add(filter);
+    return this;
+  }
+
+  /**
+   * Adds a key.
+   * @param key the key expression
+   * @param path the names of the (possibly nested) result property
+   * @param pathTypeNames the type names of the properties along the path
+   */
+  Aggregation addKey(final CompiledExpression key, final String[] path, final String[] pathTypeNames) {
+    keys.add(key);
+    keyPaths.add(path);
+    keyTypeNames.add(pathTypeNames);
+    return this;
+  }
+
+  /** Adds a filter which is applied after grouping. */
+  Aggregation addGroupFilter(final EntityFilter filter) {
+    groupFilters.add(filter);
+    return this;
+  }
+
+  /**
+   * Adds an aggregate.
+   * @param value the aggregated expression, or <code>null</code> to count the entities
+   * @param method the aggregation method, or <code>null</code> to count the entities
+   * @param alias the name of the result property
+   * @param typeName the type name of the result property
+   */
+  Aggregation addAggregate(final CompiledExpression value, final StandardMethod method,
+      final String alias, final String typeName) {
+    values.add(value);
+    methods.add(method);
+    aliases.add(alias);
+    typeNames.add(typeName);
+    return this;
+  }
+
+  /** Whether all entities form one group; the group exists even if there are no entities. */
+  boolean isSingleGroup() {
+    return keys.isEmpty();
+  }
+
+  /**
+   * Determines the group of an entity.
+   * @return the key of the group, or <code>null</code> if the entity is rejected by an entity filter
+   */
+  GroupKey getKey(final Entity entity) {
+    for (final EntityFilter filter : entityFilters) {
+      if (!filter.test(entity)) {
+        return null;
+      }
+    }
+    if (keys.isEmpty()) {
+      return GroupKey.EMPTY;
+    }
+    final Object[] keyValues = new Object[keys.size()];
+    for (int i = 0; i < keyValues.length; i++) {
+      keyValues[i] = keys.get(i).evaluate(entity);
+    }
+    return new GroupKey(keyValues);
+  }
+
+  Accumulator[] createAccumulators() {
+    final Accumulator[] accumulators = new Accumulator[values.size()];
+    for (int i = 0; i < accumulators.length; i++) {
+      accumulators[i] = Accumulator.create(methods.get(i),
+          values.get(i) == null ? ValueCategory.NULL : values.get(i).getCategory());
+    }
+    return accumulators;
+  }
+
+  /** Adds an entity to the accumulators of its group. */
+  void accumulate(final Accumulator[] accumulators, final Entity entity) {
+    for (final EntityFilter filter : groupFilters) {
+      if (!filter.test(entity)) {
+        return;
+      }
+    }
+    for (int i = 0; i < accumulators.length; i++) {
+      final CompiledExpression value = values.get(i);
+      accumulators[i].add(value == null ? null : value.evaluate(entity));
+    }
+  }
+
+  /** Creates the result entity of a group. */
+  Entity createEntity(final GroupKey key, final Accumulator[] accumulators) {
+    Entity entity = new Entity();
+    entity.setType(entityTypeName);
+    final Object[] keyValues = key.getValues();
+    for (int i = 0; i < keyValues.length; i++) {
+      addProperty(entity.getProperties(), keyPaths.get(i), keyTypeNames.get(i), 0, keyValues[i]);
+    }
+    for (int i = 0; i < accumulators.length; i++) {
+      entity.addProperty(new Property(typeNames.get(i), aliases.get(i), ValueType.PRIMITIVE,
+          accumulators[i].getResult()));
+    }
+    return entity;
+  }
+
+  private void addProperty(final List<Property> properties, final String[] path, final String[] pathTypeNames,
+      final int index, final Object value) {
+    if (index == path.length - 1) {
+      properties.add(new Property(pathTypeNames[index], path[index], ValueType.PRIMITIVE, value));
+      return;
+    }
+    Property complexProperty = null;
+    for (final Property property : properties) {
+      if (path[index].equals(property.getName())) {
+        complexProperty = property;
+        break;
+      }
+    }
+    if (complexProperty == null) {
+      ComplexValue complexValue = new ComplexValue();
+      complexValue.setTypeName(pathTypeNames[index]);
+      complexProperty = new Property(pathTypeNames[index], path[index], ValueType.COMPLEX, complexValue);
+      properties.add(complexProperty);
+    }
+    addProperty(complexProperty.asComplex().getValue(), path, pathTypeNames, index + 1, value);
+  }
+
+  /** Gets the type name of a primitive result property. */
+  static String getTypeName(final EdmType type) {
+    return type == null ? null : type.getFullQualifiedName().getFullQualifiedNameAsString();
+  }
+}
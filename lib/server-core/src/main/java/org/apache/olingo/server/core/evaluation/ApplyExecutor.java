@@ -0,0 +1,592 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceKind;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.ApplyItem;
+import org.apache.olingo.server.api.uri.queryoption.ApplyOption;
+import org.apache.olingo.server.api.uri.queryoption.apply.Aggregate;
+import org.apache.olingo.server.api.uri.queryoption.apply.AggregateExpression;
+import org.apache.olingo.server.api.uri.queryoption.apply.AggregateExpression.StandardMethod;
+import org.apache.olingo.server.api.uri.queryoption.apply.BottomTop;
+import org.apache.olingo.server.api.uri.queryoption.apply.Compute;
+import org.apache.olingo.server.api.uri.queryoption.apply.ComputeExpression;
+import org.apache.olingo.server.api.uri.queryoption.apply.Concat;
+import org.apache.olingo.server.api.uri.queryoption.apply.Filter;
+import org.apache.olingo.server.api.uri.queryoption.apply.GroupBy;
+import org.apache.olingo.server.api.uri.queryoption.apply.GroupByItem;
+import org.apache.olingo.server.core.uri.queryoption.apply.DynamicProperty;
+import org.apache.olingo.server.core.uri.queryoption.apply.DynamicStructuredType;
+
+/**
+ * <p>Executes the transformations of the system query option <code>$apply</code> in memory.</p>
+ * <p>The transformations identity, filter, compute, groupby, aggregate, concat, and the bottom and top
+ * transformations are supported. Filter and compute transformations are applied while the result is iterated.
+ * Filters and computations in front of an aggregation or inside a groupby are evaluated by the aggregation
+ * itself, so no intermediate entities are created. Aggregations use a hash table of accumulators per group;
+ * if there are more groups than configured, partial results are written to temporary files.
+ * With a parallelism greater than one, partial aggregation is distributed to the tasks of an executor.</p>
+ * <p>Rollup, search, expand, custom functions, custom aggregates and custom aggregation methods,
+ * and the keywords <code>from</code> and inline aggregation are not supported;
+ * they are reported with the status code 501 - Not Implemented.</p>
+ * <p>Executors can be configured once and then be used concurrently.</p>
+ */
+public class ApplyExecutor {
+
+  /** Default maximum number of groups held in memory before partial results are written to temporary files. */
+  public static final int DEFAULT_MAX_GROUPS_IN_MEMORY = 100000;
+
+  private static final EdmType DECIMAL = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Decimal);
+  private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+  private final ExpressionCompiler compiler;
+  private int maxGroupsInMemory = DEFAULT_MAX_GROUPS_IN_MEMORY;
+  private File spillDirectory = new File(System.getProperty("java.io.tmpdir"));
+  private int parallelism = 1;
+  private ExecutorService executorService;
+
+  /**
+   * Creates an executor.
+   * @param uriInfo the resource whose parameter aliases are used in the expressions; may be <code>null</code>
+   */
+  public ApplyExecutor(final UriInfoResource uriInfo) {
+    compiler = new ExpressionCompiler(uriInfo);
+  }
+
+  /**
+   * Sets the maximum number of groups of an aggregation held in memory.
+   * @param maxGroupsInMemory the maximum number of groups; it must be positive
+   */
+  public ApplyExecutor setMaxGroupsInMemory(final int maxGroupsInMemory) {
+    if (maxGroupsInMemory < 1) {
+      throw new IllegalArgumentException("The maximum number of groups must be positive.");
+    }
+    this.maxGroupsInMemory = maxGroupsInMemory;
+    return this;
+  }
+
+  /**
+   * Sets the directory for temporary files; the default is the directory of the system property
+   * <code>java.io.tmpdir</code>.
+   */
+  public ApplyExecutor setSpillDirectory(final File spillDirectory) {
+    this.spillDirectory = spillDirectory;
+    return this;
+  }
+
+  /**
+   * Lets aggregations run in parallel.
+   * @param parallelism the number of tasks per aggregation
+   * @param executorService the executor service which runs the tasks; the calling thread reads the input
+   */
+  public ApplyExecutor setParallelism(final int parallelism, final ExecutorService executorService) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("The parallelism must be positive.");
+    }
+    this.parallelism = parallelism;
+    this.executorService = executorService;
+    return this;
+  }
+
+  /**
+   * Applies the transformations to entities. Aggregations are computed before this method returns;
+   * all other transformations are applied while the result is iterated, which then can throw an
+   * {@link EvaluationException}.
+   * @param applyOption the apply option
+   * @param type the type of the input entities
+   * @param entities the input entities
+   * @return the transformed entities
+   * @throws ODataApplicationException if a transformation is invalid (400) or not supported (501)
+   */
+  public ApplyResult execute(final ApplyOption applyOption, final EdmStructuredType type,
+      final Iterator<Entity> entities) throws ODataApplicationException {
+    final DynamicStructuredType resultType = new DynamicStructuredType(type);
+    try {
+      return new ApplyResult(apply(applyOption.getApplyItems(), entities, resultType), resultType);
+    } catch (final EvaluationException e) {
+      throw new ODataApplicationException(e.getMessage(), HttpStatusCode.BAD_REQUEST.getStatusCode(),
+          Locale.ROOT, e);
+    }
+  }
+
+  private Iterator<Entity> apply(final List<ApplyItem> items, final Iterator<Entity> entities,
+      final DynamicStructuredType type) throws ODataApplicationException {
+    Iterator<Entity> result = entities;
+    int index = 0;
+    while (index < items.size()) {
+      int end = index;
+      while (end < items.size() && isFilterOrCompute(items.get(end))) {
+        end++;
+      }
+      if (end < items.size() && isAggregation(items.get(end))) {
+        final Aggregation aggregation = createAggregation(items.subList(index, end), items.get(end), type);
+        if (aggregation != null) {
+          result = new HashAggregator(maxGroupsInMemory, spillDirectory, parallelism, executorService)
+              .aggregate(aggregation, result);
+          index = end + 1;
+          continue;
+        }
+      }
+      result = apply(items.get(index), result, type);
+      index++;
+    }
+    return result;
+  }
+
+  private Iterator<Entity> apply(final ApplyItem item, final Iterator<Entity> entities,
+      final DynamicStructuredType type) throws ODataApplicationException {
+    switch (item.getKind()) {
+    case IDENTITY:
+      return entities;
+    case FILTER:
+      return new FilteringIterator(entities, compiler.compileFilter(((Filter) item).getFilterOption()));
+    case COMPUTE:
+      return compute((Compute) item, entities, type);
+    case GROUP_BY:
+      return groupInMemory((GroupBy) item, entities, type);
+    case BOTTOM_TOP:
+      return bottomTop((BottomTop) item, entities);
+    case CONCAT:
+      return concat((Concat) item, entities, type);
+    default:
+      throw notSupported("The transformation " + item.getKind() + " is not supported.");
+    }
+  }
+
+  private static boolean isFilterOrCompute(final ApplyItem item) {
+    return item.getKind() == ApplyItem.Kind.FILTER || item.getKind() == ApplyItem.Kind.COMPUTE;
+  }
+
+  private static boolean isAggregation(final ApplyItem item) {
+    return item.getKind() == ApplyItem.Kind.GROUP_BY || item.getKind() == ApplyItem.Kind.AGGREGATE;
+  }
+
+  /**
+   * Creates the aggregation of a groupby or aggregate transformation together with
+   * the filter and compute transformations in front of it.
+   * @return the aggregation, or <code>null</code> if the transformations inside the groupby
+   * cannot be evaluated by an aggregation
+   */
+  private Aggregation createAggregation(final List<ApplyItem> prefix, final ApplyItem item,
+      final DynamicStructuredType type) throws ODataApplicationException {
+    Aggregation aggregation = new Aggregation(getTypeName(type));
+    final ExpressionCompiler prefixCompiler = addFiltersAndComputes(aggregation, prefix, compiler, false);
+    if (item.getKind() == ApplyItem.Kind.AGGREGATE) {
+      addAggregates(aggregation, (Aggregate) item, prefixCompiler, type);
+      return aggregation;
+    }
+
+    final GroupBy groupBy = (GroupBy) item;
+    final List<ApplyItem> nestedItems = groupBy.getApplyOption() == null ?
+        Collections.<ApplyItem> emptyList() :
+        groupBy.getApplyOption().getApplyItems();
+    int end = 0;
+    while (end < nestedItems.size() && isFilterOrCompute(nestedItems.get(end))) {
+      end++;
+    }
+    final boolean aggregated = end == nestedItems.size() - 1
+        && nestedItems.get(end).getKind() == ApplyItem.Kind.AGGREGATE;
+    if (!nestedItems.isEmpty() && !aggregated) {
+      return null;
+    }
+    for (final GroupByItem groupByItem : groupBy.getGroupByItems()) {
+      addKey(aggregation, groupByItem, prefixCompiler);
+    }
+    if (aggregated) {
+      final ExpressionCompiler nestedCompiler =
+          addFiltersAndComputes(aggregation, nestedItems.subList(0, end), prefixCompiler, true);
+      addAggregates(aggregation, (Aggregate) nestedItems.get(end), nestedCompiler, type);
+    }
+    return aggregation;
+  }
+
+  /**
+   * Adds filters to an aggregation and defines computed properties.
+   * @return the compiler which knows the computed properties
+   */
+  private ExpressionCompiler addFiltersAndComputes(Aggregation aggregation, final List<ApplyItem> items,
+      final ExpressionCompiler compiler, final boolean inGroup) throws ODataApplicationException {
+    ExpressionCompiler result = compiler;
+    for (final ApplyItem item : items) {
+      if (item.getKind() == ApplyItem.Kind.FILTER) {
+        final EntityFilter filter = result.compileFilter(((Filter) item).getFilterOption());
+        if (inGroup) {
+          aggregation.addGroupFilter(filter);
+        } else {
+          aggregation.addEntityFilter(filter);
+        }
+      } else {
+        for (final ComputeExpression computeExpression : ((Compute) item).getExpressions()) {
+          result = result.withDefinition(computeExpression.getAlias(),
+              result.compile(computeExpression.getExpression()));
+        }
+      }
+    }
+    return result;
+  }
+
+  private void addKey(Aggregation aggregation, final GroupByItem item, final ExpressionCompiler compiler)
+      throws ODataApplicationException {
+    if (item.isRollupAll() || !item.getRollup().isEmpty()) {
+      throw notSupported("Rollup is not supported.");
+    }
+    final List<UriResource> parts = item.getPath();
+    final CompiledExpression key = compiler.compilePath(parts);
+    final String[] path = new String[parts.size()];
+    final String[] pathTypeNames = new String[parts.size()];
+    for (int i = 0; i < path.length; i++) {
+      final UriResourceProperty part = (UriResourceProperty) parts.get(i);
+      path[i] = part.getProperty().getName();
+      pathTypeNames[i] = Aggregation.getTypeName(i == path.length - 1 ? key.getType() : part.getType());
+    }
+    aggregation.addKey(key, path, pathTypeNames);
+  }
+
+  private void addAggregates(Aggregation aggregation, final Aggregate aggregate, final ExpressionCompiler compiler,
+      DynamicStructuredType type) throws ODataApplicationException {
+    for (final AggregateExpression expression : aggregate.getExpressions()) {
+      if (expression.getCustomMethod() != null || expression.getInlineAggregateExpression() != null
+          || !expression.getFrom().isEmpty()) {
+        throw notSupported("Only aggregation with standard methods and $count are supported.");
+      }
+      final List<UriResource> path = expression.getPath();
+      final String alias = expression.getAlias();
+      if (expression.getExpression() != null && expression.getStandardMethod() != null) {
+        final StandardMethod method = expression.getStandardMethod();
+        final CompiledExpression value = compiler.compile(expression.getExpression());
+        if ((method == StandardMethod.SUM || method == StandardMethod.AVERAGE)
+            && !value.getCategory().isNumeric() && value.getCategory() != ValueCategory.NULL) {
+          throw invalid("The aggregation method " + method + " needs a numeric expression.");
+        }
+        final EdmType resultType = method == StandardMethod.MIN || method == StandardMethod.MAX ?
+            value.getType() :
+            DECIMAL;
+        aggregation.addAggregate(value, method, alias, Aggregation.getTypeName(resultType));
+        type.addProperty(new DynamicProperty(alias, resultType));
+      } else if (path.size() == 1 && path.get(0).getKind() == UriResourceKind.count) {
+        aggregation.addAggregate(null, null, alias, Aggregation.getTypeName(DECIMAL));
+        type.addProperty(new DynamicProperty(alias, DECIMAL));
+      } else {
+        throw notSupported("Custom aggregates are not supported.");
+      }
+    }
+  }
+
+  /**
+   * Groups entities in memory and applies the nested transformations of the groupby to every group.
+   * This is used only for nested transformations which cannot be evaluated by an aggregation.
+   */
+  private Iterator<Entity> groupInMemory(final GroupBy groupBy, final Iterator<Entity> entities,
+      final DynamicStructuredType type) throws ODataApplicationException {
+    Aggregation grouping = new Aggregation(getTypeName(type));
+    for (final GroupByItem groupByItem : groupBy.getGroupByItems()) {
+      addKey(grouping, groupByItem, compiler);
+    }
+    Map<GroupKey, List<Entity>> groups = new LinkedHashMap<GroupKey, List<Entity>>();
+    while (entities.hasNext()) {
+      final Entity entity = entities.next();
+      final GroupKey key = grouping.getKey(entity);
+      List<Entity> group = groups.get(key);
+      if (group == null) {
+        group = new ArrayList<Entity>();
+        groups.put(key, group);
+      }
+      group.add(entity);
+    }
+
+    List<Entity> result = new ArrayList<Entity>();
+    for (final Map.Entry<GroupKey, List<Entity>> group : groups.entrySet()) {
+      final List<Property> keyProperties = grouping.createEntity(group.getKey(), new Accumulator[0]).getProperties();
+      final Iterator<Entity> groupResult =
+          apply(groupBy.getApplyOption().getApplyItems(), group.getValue().iterator(), type);
+      while (groupResult.hasNext()) {
+        Entity entity = copy(groupResult.next());
+        for (final Property keyProperty : keyProperties) {
+          if (entity.getProperty(keyProperty.getName()) == null) {
+            entity.addProperty(keyProperty);
+          }
+        }
+        result.add(entity);
+      }
+    }
+    return result.iterator();
+  }
+
+  private Iterator<Entity> compute(final Compute compute, final Iterator<Entity> entities,
+      DynamicStructuredType type) throws ODataApplicationException {
+    final List<ComputeExpression> computeExpressions = compute.getExpressions();
+    final String[] aliases = new String[computeExpressions.size()];
+    final CompiledExpression[] expressions = new CompiledExpression[aliases.length];
+    final String[] typeNames = new String[aliases.length];
+    ExpressionCompiler computeCompiler = compiler;
+    for (int i = 0; i < aliases.length; i++) {
+      aliases[i] = computeExpressions.get(i).getAlias();
+      expressions[i] = computeCompiler.compile(computeExpressions.get(i).getExpression());
+      typeNames[i] = Aggregation.getTypeName(expressions[i].getType());
+      // Later expressions of the same transformation can use the alias.
+      computeCompiler = computeCompiler.withDefinition(aliases[i], expressions[i]);
+      type.addProperty(new DynamicProperty(aliases[i], expressions[i].getType()));
+    }
+    return new Iterator<Entity>() {
+      @Override
+      public boolean hasNext() {
+        return entities.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        final Entity entity = entities.next();
+        Entity result = copy(entity);
+        for (int i = 0; i < aliases.length; i++) {
+          result.addProperty(new Property(typeNames[i], aliases[i], ValueType.PRIMITIVE,
+              expressions[i].evaluate(entity)));
+        }
+        return result;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private Iterator<Entity> bottomTop(final BottomTop bottomTop, final Iterator<Entity> entities)
+      throws ODataApplicationException {
+    final CompiledExpression number = compiler.compile(bottomTop.getNumber());
+    final Object numberValue = number.isConstant() && number.getCategory().isNumeric() ? number.evaluate(null) : null;
+    if (numberValue == null) {
+      throw invalid("The number of a bottom or top transformation must be a numeric constant.");
+    }
+    final CompiledExpression value = compiler.compile(bottomTop.getValue());
+    if (!value.getCategory().isNumeric()) {
+      throw invalid("The value of a bottom or top transformation must be numeric.");
+    }
+    final BottomTop.Method method = bottomTop.getMethod();
+    final boolean top = method == BottomTop.Method.TOP_COUNT || method == BottomTop.Method.TOP_PERCENT
+        || method == BottomTop.Method.TOP_SUM;
+    final Comparator<RankedEntity> ranking = new Ranking(value.getCategory(), top);
+
+    if (method == BottomTop.Method.BOTTOM_COUNT || method == BottomTop.Method.TOP_COUNT) {
+      final long count = Values.toLong(numberValue);
+      if (count <= 0) {
+        return Collections.<Entity> emptyList().iterator();
+      }
+      final int limit = (int) Math.min(count, Integer.MAX_VALUE - 1);
+      // The head of the queue is the entity with the worst rank of the best entities found so far.
+      PriorityQueue<RankedEntity> queue = new PriorityQueue<RankedEntity>(Math.min(limit, 1024) + 1,
+          Collections.reverseOrder(ranking));
+      while (entities.hasNext()) {
+        final Entity entity = entities.next();
+        final RankedEntity ranked = new RankedEntity(value.evaluate(entity), entity);
+        if (queue.size() < limit) {
+          queue.add(ranked);
+        } else if (ranking.compare(ranked, queue.peek()) < 0) {
+          queue.poll();
+          queue.add(ranked);
+        }
+      }
+      List<RankedEntity> best = new ArrayList<RankedEntity>(queue);
+      Collections.sort(best, ranking);
+      return toEntities(best).iterator();
+    }
+
+    List<RankedEntity> candidates = new ArrayList<RankedEntity>();
+    BigDecimal total = BigDecimal.ZERO;
+    while (entities.hasNext()) {
+      final Entity entity = entities.next();
+      final Object entityValue = value.evaluate(entity);
+      if (entityValue != null) {
+        candidates.add(new RankedEntity(entityValue, entity));
+        total = total.add(Values.toBigDecimal(entityValue));
+      }
+    }
+    final BigDecimal limit = method == BottomTop.Method.BOTTOM_PERCENT || method == BottomTop.Method.TOP_PERCENT ?
+        total.multiply(Values.toBigDecimal(numberValue)).divide(HUNDRED) :
+        Values.toBigDecimal(numberValue);
+    Collections.sort(candidates, ranking);
+    List<Entity> result = new ArrayList<Entity>();
+    BigDecimal sum = BigDecimal.ZERO;
+    for (int i = 0; i < candidates.size() && sum.compareTo(limit) < 0; i++) {
+      result.add(candidates.get(i).entity);
+      sum = sum.add(Values.toBigDecimal(candidates.get(i).value));
+    }
+    return result.iterator();
+  }
+
+  private static List<Entity> toEntities(final List<RankedEntity> rankedEntities) {
+    List<Entity> entities = new ArrayList<Entity>(rankedEntities.size());
+    for (final RankedEntity rankedEntity : rankedEntities) {
+      entities.add(rankedEntity.entity);
+    }
+    return entities;
+  }
+
+  private Iterator<Entity> concat(final Concat concat, final Iterator<Entity> entities,
+      final DynamicStructuredType type) throws ODataApplicationException {
+    List<Entity> input = new ArrayList<Entity>();
+    while (entities.hasNext()) {
+      input.add(entities.next());
+    }
+    final List<Iterator<Entity>> results = new ArrayList<Iterator<Entity>>();
+    for (final ApplyOption option : concat.getApplyOptions()) {
+      results.add(apply(option.getApplyItems(), input.iterator(), type));
+    }
+    return new Iterator<Entity>() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        while (index < results.size() && !results.get(index).hasNext()) {
+          index++;
+        }
+        return index < results.size();
+      }
+
+      @Override
+      public Entity next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return results.get(index).next();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /** Creates a shallow copy so that the input entities are not changed. */
+  private static Entity copy(final Entity entity) {
+    Entity copy = new Entity();
+    copy.setType(entity.getType());
+    copy.setId(entity.getId());
+    copy.getProperties().addAll(entity.getProperties());
+    return copy;
+  }
+
+  private static String getTypeName(final EdmStructuredType type) {
+    return type.getFullQualifiedName().getFullQualifiedNameAsString();
+  }
+
+  private static ODataApplicationException invalid(final String message) {
+    return new ODataApplicationException(message, HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+  }
+
+  private static ODataApplicationException notSupported(final String message) {
+    return new ODataApplicationException(message, HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+
+  private static class RankedEntity {
+    private final Object value;
+    private final Entity entity;
+
+    RankedEntity(final Object value, final Entity entity) {
+      this.value = value;
+      this.entity = entity;
+    }
+  }
+
+  /** Orders the best entities first; <code>null</code> values are ranked last. */
+  private static class Ranking implements Comparator<RankedEntity> {
+    private final ValueCategory category;
+    private final boolean descending;
+
+    Ranking(final ValueCategory category, final boolean descending) {
+      this.category = category;
+      this.descending = descending;
+    }
+
+    @Override
+    public int compare(final RankedEntity ranked1, final RankedEntity ranked2) {
+      if (ranked1.value == null) {
+        return ranked2.value == null ? 0 : 1;
+      } else if (ranked2.value == null) {
+        return -1;
+      }
+      final Integer result = Values.compare(ranked1.value, ranked2.value, category);
+      return result == null ? 0 : descending ? -result : result;
+    }
+  }
+
+  private static class FilteringIterator implements Iterator<Entity> {
+    private final Iterator<Entity> entities;
+    private final EntityFilter filter;
+    private Entity next;
+
+    FilteringIterator(final Iterator<Entity> entities, final EntityFilter filter) {
+      this.entities = entities;
+      this.filter = filter;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && entities.hasNext()) {
+        final Entity entity = entities.next();
+        if (filter.test(entity)) {
+          next = entity;
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public Entity next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final Entity result = next;
+      next = null;
+      return result;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
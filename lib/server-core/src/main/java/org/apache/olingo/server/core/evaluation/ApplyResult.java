@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.util.Iterator;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.server.core.uri.queryoption.apply.DynamicStructuredType;
+
+/**
+ * Result of the {@link ApplyExecutor}: the transformed entities, which are produced while iterating,
+ * together with their type.
+ */
+public class ApplyResult extends EntityIterator {
+
+  private final Iterator<Entity> entities;
+  private final DynamicStructuredType type;
+
+  ApplyResult(final Iterator<Entity> entities, final DynamicStructuredType type) {
+    this.entities = entities;
+    this.type = type;
+  }
+
+  /**
+   * Gets the type of the result entities; it contains the properties of the input type
+   * and all aliases introduced by the transformations.
+   */
+  public DynamicStructuredType getType() {
+    return type;
+  }
+
+  /**
+   * {@inheritDoc}
+   * @throws EvaluationException if an expression cannot be evaluated for an entity
+   */
+  @Override
+  public boolean hasNext() {
+    return entities.hasNext();
+  }
+
+  /**
+   * {@inheritDoc}
+   * @throws EvaluationException if an expression cannot be evaluated for an entity
+   */
+  @Override
+  public Entity next() {
+    return entities.next();
+  }
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+
+/**
+ * Binary operation on two compiled operands.
+ * The operand types have been checked at compile time; the operands are evaluated in the category
+ * determined for both of them.
+ */
+class BinaryExpression extends CompiledExpression {
+
+  private final BinaryOperatorKind operator;
+  private final CompiledExpression left;
+  private final CompiledExpression right;
+  private final ValueCategory operandCategory;
+
+  BinaryExpression(final BinaryOperatorKind operator, final CompiledExpression left,
+      final CompiledExpression right, final ValueCategory operandCategory, final EdmType type) {
+    super(type);
+    this.operator = operator;
+    this.left = left;
+    this.right = right;
+    this.operandCategory = operandCategory;
+  }
+
+  @Override
+  public Object evaluate(final Entity entity) {
+    switch (operator) {
+    case AND:
+      return and(entity);
+    case OR:
+      return or(entity);
+    case EQ:
+      return equal(entity);
+    case NE:
+      final Boolean equal = equal(entity);
+      return equal ? Boolean.FALSE : Boolean.TRUE;
+    case GT:
+    case GE:
+    case LT:
+    case LE:
+      return compare(entity);
+    case HAS:
+      return has(entity);
+    default:
+      return arithmetic(entity);
+    }
+  }
+
+  private Boolean and(final Entity entity) {
+    final Object leftValue = left.evaluate(entity);
+    if (Boolean.FALSE.equals(leftValue)) {
+      return Boolean.FALSE;
+    }
+    final Object rightValue = right.evaluate(entity);
+    if (Boolean.FALSE.equals(rightValue)) {
+      return Boolean.FALSE;
+    }
+    return leftValue == null || rightValue == null ? null : Boolean.TRUE;
+  }
+
+  private Boolean or(final Entity entity) {
+    final Object leftValue = left.evaluate(entity);
+    if (Boolean.TRUE.equals(leftValue)) {
+      return Boolean.TRUE;
+    }
+    final Object rightValue = right.evaluate(entity);
+    if (Boolean.TRUE.equals(rightValue)) {
+      return Boolean.TRUE;
+    }
+    return leftValue == null || rightValue == null ? null : Boolean.FALSE;
+  }
+
+  /** Equality never results in <code>null</code>; <code>null</code> equals only <code>null</code>. */
+  private Boolean equal(final Entity entity) {
+    final Object leftValue = left.evaluate(entity);
+    final Object rightValue = right.evaluate(entity);
+    if (leftValue == null || rightValue == null) {
+      return leftValue == rightValue;
+    }
+    final Integer result = Values.compare(leftValue, rightValue, operandCategory);
+    return result != null && result == 0;
+  }
+
+  /** Order comparisons with exactly one <code>null</code> operand are false. */
+  private Boolean compare(final Entity entity) {
+    final Object leftValue = left.evaluate(entity);
+    final Object rightValue = right.evaluate(entity);
+    int result;
+    if (leftValue == null || rightValue == null) {
+      if (leftValue != rightValue) {
+        return Boolean.FALSE;
+      }
+      result = 0;
+    } else {
+      final Integer comparison = Values.compare(leftValue, rightValue, operandCategory);
+      if (comparison == null) {
+        throw new EvaluationException("The values '" + leftValue + "' and '" + rightValue
+            + "' cannot be compared.");
+      }
+      result = comparison;
+    }
+    switch (operator) {
+    case GT:
+      return result > 0;
+    case GE:
+      return result >= 0;
+    case LT:
+      return result < 0;
+    default:
+      return result <= 0;
+    }
+  }
+
+  private Boolean has(final Entity entity) {
+    final Object leftValue = left.evaluate(entity);
+    final Object rightValue = right.evaluate(entity);
+    if (leftValue == null || rightValue == null) {
+      return null;
+    }
+    final long flags = Values.toLong(leftValue);
+    final long mask = Values.toLong(rightValue);
+    return flags != 0 && (flags & mask) == mask;
+  }
+
+  private Object arithmetic(final Entity entity) {
+    final Object leftValue = left.evaluate(entity);
+    if (leftValue == null) {
+      return null;
+    }
+    final Object rightValue = right.evaluate(entity);
+    if (rightValue == null) {
+      return null;
+    }
+    switch (operandCategory) {
+    case INTEGER:
+      return arithmetic(Values.toLong(leftValue), Values.toLong(rightValue));
+    case DECIMAL:
+      return arithmetic(Values.toBigDecimal(leftValue), Values.toBigDecimal(rightValue));
+    default:
+      return arithmetic(Values.toDouble(leftValue), Values.toDouble(rightValue));
+    }
+  }
+
+  private Long arithmetic(final long leftValue, final long rightValue) {
+    long result;
+    switch (operator) {
+    case ADD:
+      result = leftValue + rightValue;
+      if (((leftValue ^ result) & (rightValue ^ result)) < 0) {
+        throw overflow();
+      }
+      return result;
+    case SUB:
+      result = leftValue - rightValue;
+      if (((leftValue ^ rightValue) & (leftValue ^ result)) < 0) {
+        throw overflow();
+      }
+      return result;
+    case MUL:
+      result = leftValue * rightValue;
+      if (leftValue != 0 && (result / leftValue != rightValue || leftValue == -1 && rightValue == Long.MIN_VALUE)) {
+        throw overflow();
+      }
+      return result;
+    case DIV:
+      checkDivisor(rightValue == 0);
+      return leftValue / rightValue;
+    default:
+      checkDivisor(rightValue == 0);
+      return leftValue % rightValue;
+    }
+  }
+
+  private BigDecimal arithmetic(final BigDecimal leftValue, final BigDecimal rightValue) {
+    switch (operator) {
+    case ADD:
+      return leftValue.add(rightValue);
+    case SUB:
+      return leftValue.subtract(rightValue);
+    case MUL:
+      return leftValue.multiply(rightValue);
+    case DIV:
+      checkDivisor(rightValue.signum() == 0);
+      return leftValue.divide(rightValue, MathContext.DECIMAL128);
+    default:
+      checkDivisor(rightValue.signum() == 0);
+      return leftValue.remainder(rightValue);
+    }
+  }
+
+  private Double arithmetic(final double leftValue, final double rightValue) {
+    switch (operator) {
+    case ADD:
+      return leftValue + rightValue;
+    case SUB:
+      return leftValue - rightValue;
+    case MUL:
+      return leftValue * rightValue;
+    case DIV:
+      return leftValue / rightValue;
+    default:
+      return leftValue % rightValue;
+    }
+  }
+
+  private void checkDivisor(final boolean isZero) {
+    if (isZero) {
+      throw new EvaluationException("Division by zero");
+    }
+  }
+
+  private EvaluationException overflow() {
+    return new EvaluationException("Arithmetic overflow in operation '" + operator + "'");
+  }
+}
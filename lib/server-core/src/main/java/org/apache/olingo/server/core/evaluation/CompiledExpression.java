@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmType;
+
+/**
+ * <p>Expression which has been compiled by the {@link ExpressionCompiler} and can be evaluated for many entities.</p>
+ * <p>Compiled expressions are immutable and can be evaluated concurrently.
+ * Their values are canonical: integer types are represented as {@link Long}, Single and Double as {@link Double},
+ * Decimal as {@link java.math.BigDecimal}, enumeration members as {@link Long} bit masks,
+ * and all other types in the default representation of their primitive type.</p>
+ */
+public abstract class CompiledExpression {
+
+  private final EdmType type;
+  private final ValueCategory category;
+
+  CompiledExpression(final EdmType type) {
+    this.type = type;
+    category = Values.categoryOf(type);
+  }
+
+  /**
+   * Gets the type of the values of this expression.
+   * @return the primitive or enumeration type, or <code>null</code> for the <code>null</code> literal
+   */
+  public EdmType getType() {
+    return type;
+  }
+
+  ValueCategory getCategory() {
+    return category;
+  }
+
+  /** Determines whether the value of this expression does not depend on the entity. */
+  boolean isConstant() {
+    return false;
+  }
+
+  /**
+   * Evaluates the expression for an entity.
+   * @param entity the entity; constant expressions accept <code>null</code>
+   * @return the canonical value or <code>null</code>
+   * @throws EvaluationException if the expression cannot be evaluated for this entity
+   */
+  public abstract Object evaluate(Entity entity);
+}
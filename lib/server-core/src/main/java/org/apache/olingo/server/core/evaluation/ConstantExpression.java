@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmType;
+
+/** Literal or other value which has been computed at compile time. */
+class ConstantExpression extends CompiledExpression {
+
+  private final Object value;
+  private final String literal;
+
+  /**
+   * @param value canonical value
+   * @param type type of the value
+   * @param literal URI literal the value has been parsed from, if it can be re-interpreted
+   * with the type of another operand
+   */
+  ConstantExpression(final Object value, final EdmType type, final String literal) {
+    super(type);
+    this.value = value;
+    this.literal = literal;
+  }
+
+  String getLiteral() {
+    return literal;
+  }
+
+  @Override
+  boolean isConstant() {
+    return true;
+  }
+
+  @Override
+  public Object evaluate(final Entity entity) {
+    return value;
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.util.Comparator;
+
+import org.apache.olingo.commons.api.data.Entity;
+
+/**
+ * <p>Compiled orderby expressions; compares entities by the values of the expressions in turn.</p>
+ * <p><code>null</code> values are sorted before all other values. Values which have no natural order
+ * are considered equal. Instances are immutable and can be used concurrently.</p>
+ */
+public class EntityComparator implements Comparator<Entity> {
+
+  private final CompiledExpression[] expressions;
+  private final boolean[] descending;
+
+  EntityComparator(final CompiledExpression[] expressions, final boolean[] descending) {
+    this.expressions = expressions;
+    this.descending = descending;
+  }
+
+  /**
+   * Compares two entities; the expressions are only evaluated until the order has been determined.
+   * The {@link EntitySorter} uses precomputed {@link #getSortKey(Entity) sort keys} instead,
+   * so that the expressions are not evaluated again for every comparison.
+   */
+  @Override
+  public int compare(final Entity entity1, final Entity entity2) {
+    for (int i = 0; i < expressions.length; i++) {
+      final int result = compareValues(i, expressions[i].evaluate(entity1), expressions[i].evaluate(entity2));
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Evaluates all expressions for an entity.
+   * @param entity the entity
+   * @return the values of the expressions
+   */
+  public Object[] getSortKey(final Entity entity) {
+    final Object[] key = new Object[expressions.length];
+    for (int i = 0; i < expressions.length; i++) {
+      key[i] = expressions[i].evaluate(entity);
+    }
+    return key;
+  }
+
+  /**
+   * Compares two sort keys created by {@link #getSortKey(Entity)} in the same way entities are compared.
+   * @param key1 the first sort key
+   * @param key2 the second sort key
+   * @return a negative number, zero, or a positive number if the first key is ordered before, together with,
+   * or after the second key
+   */
+  public int compareSortKeys(final Object[] key1, final Object[] key2) {
+    for (int i = 0; i < expressions.length; i++) {
+      final int result = compareValues(i, key1[i], key2[i]);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  private int compareValues(final int index, final Object value1, final Object value2) {
+    int result;
+    if (value1 == null || value2 == null) {
+      result = value1 == null ? value2 == null ? 0 : -1 : 1;
+    } else {
+      final Integer comparison = Values.compare(value1, value2, expressions[index].getCategory());
+      result = comparison == null ? 0 : comparison;
+    }
+    return descending[index] ? -result : result;
+  }
+}
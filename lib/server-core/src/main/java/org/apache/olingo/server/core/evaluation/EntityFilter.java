@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+
+/**
+ * Compiled filter expression; an entity is selected if the expression evaluates to <code>true</code>.
+ * Instances are immutable and can be used concurrently.
+ */
+public class EntityFilter implements Predicate<Entity> {
+
+  private final CompiledExpression expression;
+
+  EntityFilter(final CompiledExpression expression) {
+    this.expression = expression;
+  }
+
+  @Override
+  public boolean test(final Entity entity) {
+    return Boolean.TRUE.equals(expression.evaluate(entity));
+  }
+
+  /**
+   * Removes all entities which are not selected by this filter.
+   * The list is compacted in place, so for random-access lists this needs linear time.
+   * @param entities a modifiable list of entities
+   * @throws EvaluationException if the filter cannot be evaluated for an entity; the list is unchanged then
+   */
+  public void filter(final List<Entity> entities) {
+    final boolean[] selected = new boolean[entities.size()];
+    int count = 0;
+    for (int index = 0; index < selected.length; index++) {
+      selected[index] = test(entities.get(index));
+      if (selected[index]) {
+        count++;
+      }
+    }
+    if (count == selected.length) {
+      return;
+    }
+    int target = 0;
+    for (int index = 0; index < selected.length; index++) {
+      if (selected[index]) {
+        entities.set(target++, entities.get(index));
+      }
+    }
+    entities.subList(count, selected.length).clear();
+  }
+
+  /** Gets the compiled filter expression. */
+  public CompiledExpression getExpression() {
+    return expression;
+  }
+}
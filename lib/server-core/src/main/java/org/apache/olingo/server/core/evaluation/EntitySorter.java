@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+
+/**
+ * <p>Sorts entities with the compiled expressions of an {@link EntityComparator}.</p>
+ * <p>The sort key of every entity is evaluated exactly once. If only the first entities of the order are needed,
+ * as for <code>$top</code> or server-side paging, they are selected with a bounded heap instead of sorting
+ * all entities. With a parallelism greater than one, large inputs are sorted in parts by the tasks of an executor,
+ * and the sorted parts are merged.</p>
+ * <p>The sort is stable. Sorters can be configured once and then be used concurrently.</p>
+ */
+public class EntitySorter {
+
+  /** Default number of entities from which on a sort is done in parallel. */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 50000;
+
+  private final EntityComparator comparator;
+  private final Comparator<SortEntry> entryComparator;
+  private int parallelism = 1;
+  private ExecutorService executorService;
+  private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+  public EntitySorter(final EntityComparator comparator) {
+    this.comparator = comparator;
+    entryComparator = new Comparator<SortEntry>() {
+      @Override
+      public int compare(final SortEntry entry1, final SortEntry entry2) {
+        final int result = comparator.compareSortKeys(entry1.key, entry2.key);
+        return result == 0 ? entry1.index - entry2.index : result;
+      }
+    };
+  }
+
+  /**
+   * Lets large inputs be sorted in parallel.
+   * @param parallelism the number of parts sorted in parallel
+   * @param executorService the executor service which sorts the parts
+   */
+  public EntitySorter setParallelism(final int parallelism, final ExecutorService executorService) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("The parallelism must be positive.");
+    }
+    this.parallelism = parallelism;
+    this.executorService = executorService;
+    return this;
+  }
+
+  /** Sets the number of entities from which on a sort is done in parallel. */
+  public EntitySorter setParallelThreshold(final int parallelThreshold) {
+    this.parallelThreshold = parallelThreshold;
+    return this;
+  }
+
+  /**
+   * Sorts a list of entities.
+   * @param entities the entities; the list is changed
+   * @throws EvaluationException if an expression cannot be evaluated for an entity
+   */
+  public void sort(final List<Entity> entities) {
+    sortTop(entities, entities.size());
+  }
+
+  /**
+   * Sorts a list of entities and keeps only the first ones.
+   * @param entities the entities; the list is changed
+   * @param limit the maximum number of entities to keep
+   * @throws EvaluationException if an expression cannot be evaluated for an entity
+   */
+  public void sortTop(List<Entity> entities, final int limit) {
+    final int size = entities.size();
+    if (limit <= 0) {
+      entities.clear();
+      return;
+    }
+    // A heap pays off as long as it is considerably smaller than the input.
+    final SortEntry[] sorted = limit < size / 4 ? selectTop(entities, limit) : sortAll(entities);
+    entities.clear();
+    for (int i = 0; i < sorted.length && i < limit; i++) {
+      entities.add(sorted[i].entity);
+    }
+  }
+
+  private SortEntry[] selectTop(final List<Entity> entities, final int limit) {
+    // The head of the queue is the entry with the last position of the best entries found so far.
+    PriorityQueue<SortEntry> queue = new PriorityQueue<SortEntry>(limit + 1,
+        Collections.reverseOrder(entryComparator));
+    int index = 0;
+    for (final Entity entity : entities) {
+      final Object[] key = comparator.getSortKey(entity);
+      if (queue.size() < limit) {
+        queue.add(new SortEntry(key, index, entity));
+      } else if (comparator.compareSortKeys(key, queue.peek().key) < 0) {
+        // Equal keys keep the earlier entity, so the order stays stable.
+        queue.poll();
+        queue.add(new SortEntry(key, index, entity));
+      }
+      index++;
+    }
+    final SortEntry[] result = queue.toArray(new SortEntry[queue.size()]);
+    Arrays.sort(result, entryComparator);
+    return result;
+  }
+
+  private SortEntry[] sortAll(final List<Entity> entities) {
+    final SortEntry[] entries = new SortEntry[entities.size()];
+    int index = 0;
+    for (final Entity entity : entities) {
+      entries[index] = new SortEntry(null, index, entity);
+      index++;
+    }
+    if (parallelism > 1 && executorService != null && entries.length >= parallelThreshold) {
+      return sortInParallel(entries);
+    }
+    computeKeysAndSort(entries, 0, entries.length);
+    return entries;
+  }
+
+  private void computeKeysAndSort(SortEntry[] entries, final int from, final int to) {
+    for (int i = from; i < to; i++) {
+      entries[i].key = comparator.getSortKey(entries[i].entity);
+    }
+    Arrays.sort(entries, from, to, entryComparator);
+  }
+
+  private SortEntry[] sortInParallel(final SortEntry[] entries) {
+    final int partSize = (entries.length + parallelism - 1) / parallelism;
+    final List<int[]> parts = new ArrayList<int[]>(parallelism);
+    final List<Future<Void>> futures = new ArrayList<Future<Void>>(parallelism);
+    try {
+      for (int from = 0; from < entries.length; from += partSize) {
+        final int[] part = { from, Math.min(from + partSize, entries.length) };
+        parts.add(part);
+        futures.add(executorService.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            computeKeysAndSort(entries, part[0], part[1]);
+            return null;
+          }
+        }));
+      }
+      for (final Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (final InterruptedException e) {
+      cancel(futures);
+      Thread.currentThread().interrupt();
+      throw new ODataRuntimeException("Interrupted while sorting", e);
+    } catch (final ExecutionException e) {
+      cancel(futures);
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new ODataRuntimeException("Sorting failed", e);
+    }
+    return merge(entries, parts);
+  }
+
+  private static void cancel(final List<Future<Void>> futures) {
+    for (final Future<Void> future : futures) {
+      future.cancel(true);
+    }
+  }
+
+  /** Merges sorted parts of the entries. */
+  private SortEntry[] merge(final SortEntry[] entries, final List<int[]> parts) {
+    final SortEntry[] result = new SortEntry[entries.length];
+    // The queue holds the current entry of every part with its position in the form {position, end}.
+    PriorityQueue<int[]> queue = new PriorityQueue<int[]>(parts.size(), new Comparator<int[]>() {
+      @Override
+      public int compare(final int[] cursor1, final int[] cursor2) {
+        return entryComparator.compare(entries[cursor1[0]], entries[cursor2[0]]);
+      }
+    });
+    for (final int[] part : parts) {
+      queue.add(new int[] { part[0], part[1] });
+    }
+    int index = 0;
+    while (!queue.isEmpty()) {
+      final int[] cursor = queue.poll();
+      result[index++] = entries[cursor[0]];
+      cursor[0]++;
+      if (cursor[0] < cursor[1]) {
+        queue.add(cursor);
+      }
+    }
+    return result;
+  }
+
+  private static final class SortEntry {
+    private Object[] key;
+    private final int index;
+    private final Entity entity;
+
+    SortEntry(final Object[] key, final int index, final Entity entity) {
+      this.key = key;
+      this.index = index;
+      this.entity = entity;
+    }
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+
+/**
+ * Thrown if a compiled expression cannot be evaluated for a specific entity,
+ * e.g., because of a division by zero or an arithmetic overflow.
+ * Errors which do not depend on the data are already reported at compile time.
+ */
+public class EvaluationException extends ODataRuntimeException {
+
+  private static final long serialVersionUID = 2437856221739428374L;
+
+  public EvaluationException(final String msg) {
+    super(msg);
+  }
+
+  public EvaluationException(final String msg, final Exception cause) {
+    super(msg, cause);
+  }
+}
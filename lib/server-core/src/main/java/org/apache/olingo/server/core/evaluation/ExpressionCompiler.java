@@ -0,0 +1,514 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceComplexProperty;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+
+/**
+ * <p>Compiles expressions of system query options into objects which evaluate them for entities in memory.</p>
+ * <p>The expression tree is visited once; property paths are resolved, literals are converted into the types
+ * of the properties they are compared with, operand types are checked, and sub-expressions without properties
+ * are computed in advance. The compiled expressions can then be evaluated for any number of entities,
+ * also concurrently.</p>
+ * <p>Lambda operators, navigation, function calls, type casts, and date and duration arithmetic are not supported;
+ * they are reported with the status code 501 - Not Implemented so that callers can fall back to
+ * another evaluation.</p>
+ */
+public class ExpressionCompiler {
+
+  private static final EdmPrimitiveType BOOLEAN = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean);
+  private static final EdmPrimitiveType STRING = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.String);
+  private static final EdmPrimitiveType INT32 = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int32);
+  private static final EdmPrimitiveType DECIMAL = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Decimal);
+
+  /** Candidate types of untyped alias values, in the order in which they are tried. */
+  private static final EdmPrimitiveTypeKind[] UNTYPED_LITERAL_KINDS = {
+      EdmPrimitiveTypeKind.String, EdmPrimitiveTypeKind.Boolean,
+      EdmPrimitiveTypeKind.DateTimeOffset, EdmPrimitiveTypeKind.Date, EdmPrimitiveTypeKind.TimeOfDay,
+      EdmPrimitiveTypeKind.Duration,
+      EdmPrimitiveTypeKind.SByte, EdmPrimitiveTypeKind.Byte, EdmPrimitiveTypeKind.Int16,
+      EdmPrimitiveTypeKind.Int32, EdmPrimitiveTypeKind.Int64,
+      EdmPrimitiveTypeKind.Decimal, EdmPrimitiveTypeKind.Single, EdmPrimitiveTypeKind.Double };
+
+  /** Numeric types ordered by their range; the result of arithmetic has the wider type of both operands. */
+  private static final EdmPrimitiveTypeKind[] NUMERIC_KINDS = {
+      EdmPrimitiveTypeKind.SByte, EdmPrimitiveTypeKind.Byte, EdmPrimitiveTypeKind.Int16,
+      EdmPrimitiveTypeKind.Int32, EdmPrimitiveTypeKind.Int64,
+      EdmPrimitiveTypeKind.Decimal, EdmPrimitiveTypeKind.Single, EdmPrimitiveTypeKind.Double };
+
+  private final UriInfoResource uriInfo;
+  private final Map<String, CompiledExpression> definitions;
+
+  /**
+   * Creates a compiler.
+   * @param uriInfo the resource whose parameter aliases are used in the expressions; may be <code>null</code>
+   */
+  public ExpressionCompiler(final UriInfoResource uriInfo) {
+    this(uriInfo, Collections.<String, CompiledExpression> emptyMap());
+  }
+
+  private ExpressionCompiler(final UriInfoResource uriInfo, final Map<String, CompiledExpression> definitions) {
+    this.uriInfo = uriInfo;
+    this.definitions = definitions;
+  }
+
+  /**
+   * Creates a compiler which replaces references to a computed property by its compiled expression,
+   * so that the property does not have to be added to the entities.
+   * @param alias the name of the computed property
+   * @param expression the compiled expression of the computed property
+   */
+  ExpressionCompiler withDefinition(final String alias, final CompiledExpression expression) {
+    Map<String, CompiledExpression> newDefinitions = new HashMap<String, CompiledExpression>(definitions);
+    newDefinitions.put(alias, expression);
+    return new ExpressionCompiler(uriInfo, newDefinitions);
+  }
+
+  /**
+   * Compiles an expression.
+   * @param expression the expression
+   * @return the compiled expression
+   * @throws ODataApplicationException if the expression is invalid (400) or not supported (501)
+   */
+  public CompiledExpression compile(final Expression expression) throws ODataApplicationException {
+    try {
+      return expression.accept(new CompilingVisitor());
+    } catch (final ExpressionVisitException e) {
+      throw new ODataApplicationException("Exception in expression compilation",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  /**
+   * Compiles the expression of a filter system query option.
+   * @param filterOption the filter option
+   * @return the filter
+   * @throws ODataApplicationException if the expression is invalid (400) or not supported (501)
+   */
+  public EntityFilter compileFilter(final FilterOption filterOption) throws ODataApplicationException {
+    final CompiledExpression expression = compile(filterOption.getExpression());
+    if (expression.getCategory() != ValueCategory.BOOLEAN && expression.getCategory() != ValueCategory.NULL) {
+      throw new ODataApplicationException(
+          "Invalid filter expression. Filter expressions must return a value of type Edm.Boolean",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+    }
+    return new EntityFilter(expression);
+  }
+
+  /**
+   * Compiles the expressions of an orderby system query option.
+   * @param orderByOption the orderby option
+   * @return the comparator
+   * @throws ODataApplicationException if an expression is invalid (400) or not supported (501)
+   */
+  public EntityComparator compileOrderBy(final OrderByOption orderByOption) throws ODataApplicationException {
+    final List<OrderByItem> orders = orderByOption.getOrders();
+    final CompiledExpression[] expressions = new CompiledExpression[orders.size()];
+    final boolean[] descending = new boolean[orders.size()];
+    for (int i = 0; i < expressions.length; i++) {
+      expressions[i] = compile(orders.get(i).getExpression());
+      descending[i] = orders.get(i).isDescending();
+    }
+    return new EntityComparator(expressions, descending);
+  }
+
+  /**
+   * Compiles a path to a single-valued primitive property, possibly nested in complex properties.
+   * @param parts the resource parts of the path
+   */
+  CompiledExpression compilePath(final List<UriResource> parts) throws ODataApplicationException {
+    if (parts.size() == 1 && parts.get(0) instanceof UriResourceProperty) {
+      final CompiledExpression definition =
+          definitions.get(((UriResourceProperty) parts.get(0)).getProperty().getName());
+      if (definition != null) {
+        return definition;
+      }
+    }
+    final String[] names = new String[parts.size()];
+    for (int i = 0; i < names.length; i++) {
+      final UriResource part = parts.get(i);
+      final boolean supported = i == names.length - 1 ?
+          part instanceof UriResourcePrimitiveProperty :
+          part instanceof UriResourceComplexProperty
+              && ((UriResourceComplexProperty) part).getComplexTypeFilter() == null;
+      if (!supported || ((UriResourceProperty) part).isCollection()) {
+        throw notSupported("Only paths to single-valued primitive properties are supported");
+      }
+      names[i] = ((UriResourceProperty) part).getProperty().getName();
+    }
+    return new PropertyPathExpression(names,
+        Values.primitiveType(((UriResourceProperty) parts.get(names.length - 1)).getType()));
+  }
+
+  private static ODataApplicationException invalid(final String message) {
+    return new ODataApplicationException(message, HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+  }
+
+  private static ODataApplicationException notSupported(final String message) {
+    return new ODataApplicationException(message, HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+
+  private static boolean isNullOr(final CompiledExpression expression, final ValueCategory category) {
+    return expression.getCategory() == ValueCategory.NULL || expression.getCategory() == category;
+  }
+
+  private static boolean isNullOrNumeric(final CompiledExpression expression) {
+    return expression.getCategory() == ValueCategory.NULL || expression.getCategory().isNumeric();
+  }
+
+  private static boolean isSameType(final EdmType type1, final EdmType type2) {
+    return type1 == type2
+        || type1 != null && type2 != null && type1.getFullQualifiedName().equals(type2.getFullQualifiedName());
+  }
+
+  private static EdmPrimitiveTypeKind kindOf(final CompiledExpression expression) {
+    final EdmType type = expression.getType();
+    return type == null || expression.getCategory() == ValueCategory.ENUM ? null :
+        EdmPrimitiveTypeKind.valueOfFQN(type.getFullQualifiedName());
+  }
+
+  /** Replaces an operation without properties by its value. */
+  private static CompiledExpression fold(final CompiledExpression expression, final CompiledExpression... operands)
+      throws ODataApplicationException {
+    for (final CompiledExpression operand : operands) {
+      if (!operand.isConstant()) {
+        return expression;
+      }
+    }
+    try {
+      return new ConstantExpression(expression.evaluate(null), expression.getType(), null);
+    } catch (final EvaluationException e) {
+      throw new ODataApplicationException(e.getMessage(), HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  /**
+   * Interprets a literal with the type of the other operand, e.g., the literal <code>1</code>
+   * compared with an Edm.Double property is converted into a Double value only once.
+   */
+  private static CompiledExpression convertLiteral(final CompiledExpression expression,
+      final CompiledExpression other) {
+    if (expression instanceof ConstantExpression && ((ConstantExpression) expression).getLiteral() != null
+        && other.getCategory() != ValueCategory.NULL && !isSameType(expression.getType(), other.getType())) {
+      try {
+        return new ConstantExpression(
+            Values.parseLiteral(((ConstantExpression) expression).getLiteral(),
+                (EdmPrimitiveType) other.getType(), other.getCategory()),
+            other.getType(), ((ConstantExpression) expression).getLiteral());
+      } catch (final EdmPrimitiveTypeException e) {
+        // The literal is not a valid value of the other type; the operand types are checked later.
+      } catch (final EvaluationException e) {
+        // see above
+      }
+    }
+    return expression;
+  }
+
+  private static EdmType widerNumericType(final CompiledExpression left, final CompiledExpression right) {
+    if (left.getCategory() == ValueCategory.NULL) {
+      return right.getType();
+    } else if (right.getCategory() == ValueCategory.NULL) {
+      return left.getType();
+    }
+    final EdmPrimitiveTypeKind leftKind = kindOf(left);
+    final EdmPrimitiveTypeKind rightKind = kindOf(right);
+    for (int i = NUMERIC_KINDS.length - 1; i >= 0; i--) {
+      if (NUMERIC_KINDS[i] == leftKind) {
+        return left.getType();
+      } else if (NUMERIC_KINDS[i] == rightKind) {
+        return right.getType();
+      }
+    }
+    return left.getType();
+  }
+
+  private class CompilingVisitor implements ExpressionVisitor<CompiledExpression> {
+
+    @Override
+    public CompiledExpression visitBinaryOperator(final BinaryOperatorKind operator,
+        final CompiledExpression leftOperand, final CompiledExpression rightOperand)
+        throws ODataApplicationException {
+      final CompiledExpression left = convertLiteral(leftOperand, rightOperand);
+      final CompiledExpression right = convertLiteral(rightOperand, left);
+
+      switch (operator) {
+      case AND:
+      case OR:
+        if (!isNullOr(left, ValueCategory.BOOLEAN) || !isNullOr(right, ValueCategory.BOOLEAN)) {
+          throw invalid("Operator '" + operator + "' expects operands of type Edm.Boolean");
+        }
+        return fold(new BinaryExpression(operator, left, right, ValueCategory.BOOLEAN, BOOLEAN), left, right);
+
+      case EQ:
+      case NE:
+      case GT:
+      case GE:
+      case LT:
+      case LE:
+        return fold(new BinaryExpression(operator, left, right, comparisonCategory(left, right), BOOLEAN),
+            left, right);
+
+      case HAS:
+        if (!isNullOr(left, ValueCategory.ENUM) || !isNullOr(right, ValueCategory.ENUM)) {
+          throw invalid("Operator 'has' expects operands of enumeration types");
+        }
+        return fold(new BinaryExpression(operator, left, right, ValueCategory.ENUM, BOOLEAN), left, right);
+
+      case ADD:
+      case SUB:
+      case MUL:
+      case DIV:
+      case MOD:
+        if (isNullOrNumeric(left) && isNullOrNumeric(right)) {
+          final ValueCategory category = left.getCategory().compareTo(right.getCategory()) > 0 ?
+              left.getCategory() : right.getCategory();
+          return fold(new BinaryExpression(operator, left, right, category, widerNumericType(left, right)),
+              left, right);
+        } else if (left.getCategory() == ValueCategory.OTHER || right.getCategory() == ValueCategory.OTHER) {
+          throw notSupported("Date and duration arithmetic is not supported");
+        } else {
+          throw invalid("Operator '" + operator + "' expects numeric operands");
+        }
+
+      default:
+        throw notSupported("Operator '" + operator + "' is not supported");
+      }
+    }
+
+    private ValueCategory comparisonCategory(final CompiledExpression left, final CompiledExpression right)
+        throws ODataApplicationException {
+      final ValueCategory leftCategory = left.getCategory();
+      final ValueCategory rightCategory = right.getCategory();
+      if (leftCategory == ValueCategory.NULL) {
+        return rightCategory;
+      } else if (rightCategory == ValueCategory.NULL) {
+        return leftCategory;
+      } else if (leftCategory.isNumeric() && rightCategory.isNumeric()) {
+        return leftCategory.compareTo(rightCategory) > 0 ? leftCategory : rightCategory;
+      } else if (leftCategory == rightCategory
+          && (leftCategory != ValueCategory.OTHER || isSameType(left.getType(), right.getType()))) {
+        return leftCategory;
+      } else {
+        throw invalid("Comparison of incompatible types "
+            + left.getType().getFullQualifiedName() + " and " + right.getType().getFullQualifiedName());
+      }
+    }
+
+    @Override
+    public CompiledExpression visitUnaryOperator(final UnaryOperatorKind operator,
+        final CompiledExpression operand) throws ODataApplicationException {
+      if (operator == UnaryOperatorKind.NOT && !isNullOr(operand, ValueCategory.BOOLEAN)) {
+        throw invalid("Operator 'not' expects an operand of type Edm.Boolean");
+      } else if (operator == UnaryOperatorKind.MINUS && !isNullOrNumeric(operand)) {
+        if (operand.getCategory() == ValueCategory.OTHER) {
+          throw notSupported("Negation of durations is not supported");
+        }
+        throw invalid("Operator '-' expects a numeric operand");
+      }
+      return fold(new UnaryExpression(operator, operand), operand);
+    }
+
+    @Override
+    public CompiledExpression visitMethodCall(final MethodKind methodCall, final List<CompiledExpression> parameters)
+        throws ODataApplicationException {
+      final CompiledExpression[] operands = parameters.toArray(new CompiledExpression[parameters.size()]);
+      EdmType type;
+      switch (methodCall) {
+      case CONTAINS:
+      case STARTSWITH:
+      case ENDSWITH:
+        checkStrings(methodCall, operands);
+        type = BOOLEAN;
+        break;
+      case INDEXOF:
+      case LENGTH:
+        checkStrings(methodCall, operands);
+        type = INT32;
+        break;
+      case TOLOWER:
+      case TOUPPER:
+      case TRIM:
+      case CONCAT:
+        checkStrings(methodCall, operands);
+        type = STRING;
+        break;
+      case SUBSTRING:
+        if (!isNullOr(operands[0], ValueCategory.STRING)
+            || !isNullOr(operands[1], ValueCategory.INTEGER)
+            || operands.length > 2 && !isNullOr(operands[2], ValueCategory.INTEGER)) {
+          throw invalid("Substring has invalid parameters. First parameter should be Edm.String,"
+              + " further parameters should be Edm.Int32");
+        }
+        type = STRING;
+        break;
+      case YEAR:
+      case MONTH:
+      case DAY:
+        checkTemporal(methodCall, operands[0], EdmPrimitiveTypeKind.Date);
+        type = INT32;
+        break;
+      case HOUR:
+      case MINUTE:
+      case SECOND:
+        checkTemporal(methodCall, operands[0], EdmPrimitiveTypeKind.TimeOfDay);
+        type = INT32;
+        break;
+      case FRACTIONALSECONDS:
+        checkTemporal(methodCall, operands[0], EdmPrimitiveTypeKind.TimeOfDay);
+        type = DECIMAL;
+        break;
+      case ROUND:
+      case FLOOR:
+      case CEILING:
+        if (!isNullOrNumeric(operands[0])) {
+          throw invalid("Method '" + methodCall + "' expects a numeric parameter");
+        }
+        type = operands[0].getType();
+        break;
+      default:
+        throw notSupported("Method '" + methodCall + "' is not supported");
+      }
+      return fold(new MethodExpression(methodCall, operands, type), operands);
+    }
+
+    private void checkStrings(final MethodKind methodCall, final CompiledExpression[] operands)
+        throws ODataApplicationException {
+      for (final CompiledExpression operand : operands) {
+        if (!isNullOr(operand, ValueCategory.STRING)) {
+          throw invalid("Invalid parameter of method '" + methodCall + "'. Expected Edm.String");
+        }
+      }
+    }
+
+    /** Accepts the <code>null</code> literal, Edm.DateTimeOffset, and the given type. */
+    private void checkTemporal(final MethodKind methodCall, final CompiledExpression operand,
+        final EdmPrimitiveTypeKind kind) throws ODataApplicationException {
+      final EdmPrimitiveTypeKind operandKind = kindOf(operand);
+      if (operand.getCategory() != ValueCategory.NULL
+          && operandKind != EdmPrimitiveTypeKind.DateTimeOffset && operandKind != kind) {
+        throw invalid("Invalid parameter of method '" + methodCall + "'. Expected Edm.DateTimeOffset or "
+            + kind.getFullQualifiedName());
+      }
+    }
+
+    @Override
+    public CompiledExpression visitLiteral(final Literal literal) throws ODataApplicationException {
+      final EdmType type = Values.primitiveType(literal.getType());
+      if (type == null) {
+        if ("null".equals(literal.getText())) {
+          return new ConstantExpression(null, null, null);
+        }
+        throw notSupported("Literal '" + literal.getText() + "' is not supported");
+      }
+      try {
+        return new ConstantExpression(
+            Values.parseLiteral(literal.getText(), (EdmPrimitiveType) type, Values.categoryOf(type)),
+            type, literal.getText());
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new ODataApplicationException("Invalid literal '" + literal.getText() + "'",
+            HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+      }
+    }
+
+    @Override
+    public CompiledExpression visitMember(final Member member) throws ODataApplicationException {
+      if (member.getStartTypeFilter() != null) {
+        throw notSupported("Type casts are not supported");
+      }
+      return compilePath(member.getResourcePath().getUriResourceParts());
+    }
+
+    @Override
+    public CompiledExpression visitAlias(final String aliasName) throws ODataApplicationException {
+      final String value = uriInfo == null ? null : uriInfo.getValueForAlias(aliasName);
+      if (value == null || "null".equals(value)) {
+        return new ConstantExpression(null, null, null);
+      }
+      for (final EdmPrimitiveTypeKind kind : UNTYPED_LITERAL_KINDS) {
+        final EdmPrimitiveType type = EdmPrimitiveTypeFactory.getInstance(kind);
+        try {
+          return new ConstantExpression(Values.parseLiteral(value, type, Values.categoryOf(type)), type, value);
+        } catch (final EdmPrimitiveTypeException e) {
+          // Try the next type.
+        }
+      }
+      throw invalid("Invalid value of alias '" + aliasName + "'");
+    }
+
+    @Override
+    public CompiledExpression visitEnum(final EdmEnumType type, final List<String> enumValues)
+        throws ODataApplicationException {
+      long value = 0;
+      for (final String enumValue : enumValues) {
+        try {
+          value |= type.valueOfString(enumValue, null, null, null, null, null, Long.class);
+        } catch (final EdmPrimitiveTypeException e) {
+          throw new ODataApplicationException("Illegal enum value '" + enumValue + "'",
+              HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+        }
+      }
+      return new ConstantExpression(value, type, null);
+    }
+
+    @Override
+    public CompiledExpression visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+        final Expression expression) throws ODataApplicationException {
+      throw notSupported("Lambda expressions are not supported");
+    }
+
+    @Override
+    public CompiledExpression visitLambdaReference(final String variableName) throws ODataApplicationException {
+      throw notSupported("Lambda references are not supported");
+    }
+
+    @Override
+    public CompiledExpression visitTypeLiteral(final EdmType type) throws ODataApplicationException {
+      throw notSupported("Type literals are not supported");
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Combination of canonical values which identifies a group; also used for distinct values.
+ * Decimal values are equal if they differ only in their scale, binary values are compared by content.
+ */
+final class GroupKey implements Serializable {
+
+  private static final long serialVersionUID = -4052236315487219561L;
+
+  static final GroupKey EMPTY = new GroupKey(new Object[0]);
+
+  private final Object[] values;
+  private final int hash;
+
+  GroupKey(final Object[] values) {
+    this.values = values;
+    int result = 1;
+    for (final Object value : values) {
+      result = 31 * result + hashCode(value);
+    }
+    hash = result;
+  }
+
+  Object[] getValues() {
+    return values;
+  }
+
+  private static int hashCode(final Object value) {
+    if (value == null) {
+      return 0;
+    } else if (value instanceof BigDecimal) {
+      // A zero with a scale is not stripped by all Java versions.
+      return ((BigDecimal) value).signum() == 0 ? 0 : ((BigDecimal) value).stripTrailingZeros().hashCode();
+    } else if (value instanceof byte[]) {
+      return Arrays.hashCode((byte[]) value);
+    } else {
+      return value.hashCode();
+    }
+  }
+
+  private static boolean equal(final Object value1, final Object value2) {
+    if (value1 == value2) {
+      return true;
+    } else if (value1 == null || value2 == null) {
+      return false;
+    } else if (value1 instanceof BigDecimal && value2 instanceof BigDecimal) {
+      return ((BigDecimal) value1).compareTo((BigDecimal) value2) == 0;
+    } else if (value1 instanceof byte[] && value2 instanceof byte[]) {
+      return Arrays.equals((byte[]) value1, (byte[]) value2);
+    } else {
+      return value1.equals(value2);
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    } else if (!(obj instanceof GroupKey) || hash != ((GroupKey) obj).hash
+        || values.length != ((GroupKey) obj).values.length) {
+      return false;
+    }
+    final Object[] otherValues = ((GroupKey) obj).values;
+    for (int i = 0; i < values.length; i++) {
+      if (!equal(values[i], otherValues[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
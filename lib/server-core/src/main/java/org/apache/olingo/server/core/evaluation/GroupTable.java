@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+
+/**
+ * <p>Hash table of the groups of an {@link Aggregation}.</p>
+ * <p>If the table holds more than the configured number of groups, all groups are written to temporary files,
+ * one file per hash partition, and the table starts over. The result is then produced partition by partition:
+ * the partial aggregates of a partition are read and merged, so only the groups of one partition
+ * have to fit into memory.</p>
+ * <p>A table is used by one thread at a time.</p>
+ */
+class GroupTable {
+
+  private static final int PARTITIONS = 16;
+
+  private final Aggregation aggregation;
+  private final int maxGroups;
+  private final File spillDirectory;
+  private Map<GroupKey, Accumulator[]> groups = new HashMap<GroupKey, Accumulator[]>();
+  private final List<File> spillFiles = new ArrayList<File>();
+  private final List<Integer> spillPartitions = new ArrayList<Integer>();
+
+  GroupTable(final Aggregation aggregation, final int maxGroups, final File spillDirectory) {
+    this.aggregation = aggregation;
+    this.maxGroups = maxGroups;
+    this.spillDirectory = spillDirectory;
+    if (aggregation.isSingleGroup()) {
+      groups.put(GroupKey.EMPTY, aggregation.createAccumulators());
+    }
+  }
+
+  /** Adds an entity to its group. */
+  void add(final Entity entity) {
+    final GroupKey key = aggregation.getKey(entity);
+    if (key == null) {
+      return;
+    }
+    Accumulator[] accumulators = groups.get(key);
+    if (accumulators == null) {
+      accumulators = aggregation.createAccumulators();
+      groups.put(key, accumulators);
+    }
+    aggregation.accumulate(accumulators, entity);
+    if (groups.size() > maxGroups) {
+      spill();
+    }
+  }
+
+  /** Adds all groups of another table of the same aggregation; the other table must not be used any more. */
+  void merge(final GroupTable other) {
+    for (final Map.Entry<GroupKey, Accumulator[]> entry : other.groups.entrySet()) {
+      merge(groups, entry.getKey(), entry.getValue());
+      if (groups.size() > maxGroups) {
+        spill();
+      }
+    }
+    other.groups = null;
+    spillFiles.addAll(other.spillFiles);
+    spillPartitions.addAll(other.spillPartitions);
+  }
+
+  private static void merge(final Map<GroupKey, Accumulator[]> target, final GroupKey key,
+      final Accumulator[] accumulators) {
+    final Accumulator[] existing = target.get(key);
+    if (existing == null) {
+      target.put(key, accumulators);
+    } else {
+      for (int i = 0; i < existing.length; i++) {
+        existing[i].merge(accumulators[i]);
+      }
+    }
+  }
+
+  /**
+   * Returns the result entities; afterwards the table must not be used any more.
+   * The temporary files are deleted when the iteration is complete.
+   */
+  Iterator<Entity> iterator() {
+    if (spillFiles.isEmpty()) {
+      return new GroupIterator(groups.entrySet().iterator());
+    }
+    spill();
+    groups = null;
+    return new PartitionIterator();
+  }
+
+  /** Deletes all temporary files. */
+  void discard() {
+    for (final File file : spillFiles) {
+      file.delete();
+    }
+    spillFiles.clear();
+    spillPartitions.clear();
+  }
+
+  private void spill() {
+    final ObjectOutputStream[] outputs = new ObjectOutputStream[PARTITIONS];
+    try {
+      for (final Map.Entry<GroupKey, Accumulator[]> entry : groups.entrySet()) {
+        final int partition = partition(entry.getKey());
+        if (outputs[partition] == null) {
+          final File file = File.createTempFile("olingo-apply-", ".tmp", spillDirectory);
+          spillFiles.add(file);
+          spillPartitions.add(partition);
+          outputs[partition] = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        }
+        outputs[partition].writeObject(entry.getKey());
+        outputs[partition].writeObject(entry.getValue());
+      }
+    } catch (final IOException e) {
+      throw new ODataRuntimeException("Writing groups to a temporary file failed", e);
+    } finally {
+      for (final ObjectOutputStream output : outputs) {
+        close(output);
+      }
+    }
+    groups = new HashMap<GroupKey, Accumulator[]>();
+  }
+
+  /** Spreads the hash code so that the partitions do not depend on the low bits used by the hash map. */
+  private static int partition(final GroupKey key) {
+    final int hash = key.hashCode() * 0x9E3779B9;
+    return hash >>> (Integer.SIZE - 4);
+  }
+
+  private Map<GroupKey, Accumulator[]> readPartition(final int partition) {
+    Map<GroupKey, Accumulator[]> result = new HashMap<GroupKey, Accumulator[]>();
+    for (int index = 0; index < spillFiles.size(); index++) {
+      if (spillPartitions.get(index) != partition) {
+        continue;
+      }
+      final File file = spillFiles.get(index);
+      ObjectInputStream input = null;
+      try {
+        input = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+        while (true) {
+          final GroupKey key;
+          try {
+            key = (GroupKey) input.readObject();
+          } catch (final EOFException e) {
+            break;
+          }
+          merge(result, key, (Accumulator[]) input.readObject());
+        }
+      } catch (final IOException e) {
+        throw new ODataRuntimeException("Reading groups from a temporary file failed", e);
+      } catch (final ClassNotFoundException e) {
+        throw new ODataRuntimeException("Reading groups from a temporary file failed", e);
+      } finally {
+        close(input);
+        file.delete();
+      }
+    }
+    return result;
+  }
+
+  private static void close(final java.io.Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (final IOException e) {
+        // ignore
+      }
+    }
+  }
+
+  private class GroupIterator implements Iterator<Entity> {
+
+    private final Iterator<Map.Entry<GroupKey, Accumulator[]>> entries;
+
+    GroupIterator(final Iterator<Map.Entry<GroupKey, Accumulator[]>> entries) {
+      this.entries = entries;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return entries.hasNext();
+    }
+
+    @Override
+    public Entity next() {
+      final Map.Entry<GroupKey, Accumulator[]> entry = entries.next();
+      return aggregation.createEntity(entry.getKey(), entry.getValue());
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private class PartitionIterator implements Iterator<Entity> {
+
+    private int partition = -1;
+    private Iterator<Entity> current;
+
+    @Override
+    public boolean hasNext() {
+      while ((current == null || !current.hasNext()) && partition < PARTITIONS - 1) {
+        partition++;
+        current = new GroupIterator(readPartition(partition).entrySet().iterator());
+      }
+      if (current != null && current.hasNext()) {
+        return true;
+      }
+      discard();
+      return false;
+    }
+
+    @Override
+    public Entity next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return current.next();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+
+/**
+ * <p>Hash aggregation of entities.</p>
+ * <p>With a parallelism greater than one, the entities are read by the calling thread and handed over in batches
+ * to worker tasks; every worker aggregates its share into a table of its own, and the partial aggregates
+ * are merged at the end.</p>
+ */
+class HashAggregator {
+
+  private static final int BATCH_SIZE = 1024;
+  private static final List<Entity> END = Collections.emptyList();
+
+  private final int maxGroupsInMemory;
+  private final File spillDirectory;
+  private final int parallelism;
+  private final ExecutorService executor;
+
+  HashAggregator(final int maxGroupsInMemory, final File spillDirectory,
+      final int parallelism, final ExecutorService executor) {
+    this.maxGroupsInMemory = maxGroupsInMemory;
+    this.spillDirectory = spillDirectory;
+    this.parallelism = executor == null ? 1 : parallelism;
+    this.executor = executor;
+  }
+
+  /**
+   * Aggregates all entities.
+   * @return the result entities, one per group
+   * @throws EvaluationException if an expression cannot be evaluated for an entity
+   */
+  Iterator<Entity> aggregate(final Aggregation aggregation, final Iterator<Entity> entities) {
+    if (parallelism <= 1) {
+      GroupTable table = new GroupTable(aggregation, maxGroupsInMemory, spillDirectory);
+      try {
+        while (entities.hasNext()) {
+          table.add(entities.next());
+        }
+      } catch (final RuntimeException e) {
+        table.discard();
+        throw e;
+      }
+      return table.iterator();
+    }
+    return aggregateInParallel(aggregation, entities);
+  }
+
+  private Iterator<Entity> aggregateInParallel(final Aggregation aggregation, final Iterator<Entity> entities) {
+    final BlockingQueue<List<Entity>> queue = new ArrayBlockingQueue<List<Entity>>(2 * parallelism);
+    final List<GroupTable> tables = new ArrayList<GroupTable>(parallelism);
+    final List<Future<Void>> futures = new ArrayList<Future<Void>>(parallelism);
+    boolean success = false;
+    try {
+      for (int i = 0; i < parallelism; i++) {
+        final GroupTable table = new GroupTable(aggregation, maxGroupsInMemory, spillDirectory);
+        tables.add(table);
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws InterruptedException {
+            List<Entity> batch;
+            while ((batch = queue.take()) != END) {
+              for (final Entity entity : batch) {
+                table.add(entity);
+              }
+            }
+            return null;
+          }
+        }));
+      }
+
+      List<Entity> batch = new ArrayList<Entity>(BATCH_SIZE);
+      while (entities.hasNext()) {
+        batch.add(entities.next());
+        if (batch.size() == BATCH_SIZE) {
+          put(queue, batch, futures);
+          batch = new ArrayList<Entity>(BATCH_SIZE);
+        }
+      }
+      if (!batch.isEmpty()) {
+        put(queue, batch, futures);
+      }
+      for (int i = 0; i < parallelism; i++) {
+        put(queue, END, futures);
+      }
+      for (final Future<Void> future : futures) {
+        future.get();
+      }
+
+      final GroupTable result = tables.get(0);
+      for (int i = 1; i < tables.size(); i++) {
+        result.merge(tables.get(i));
+      }
+      success = true;
+      return result.iterator();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ODataRuntimeException("Interrupted while aggregating", e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new ODataRuntimeException("Aggregation failed", e);
+    } finally {
+      if (!success) {
+        for (final Future<Void> future : futures) {
+          future.cancel(true);
+        }
+        for (final GroupTable table : tables) {
+          table.discard();
+        }
+      }
+    }
+  }
+
+  /** Hands a batch over to the workers; waits only as long as no worker has failed. */
+  private static void put(final BlockingQueue<List<Entity>> queue, final List<Entity> batch,
+      final List<Future<Void>> futures) throws InterruptedException, ExecutionException {
+    while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+      for (final Future<Void> future : futures) {
+        if (future.isDone()) {
+          future.get();
+        }
+      }
+    }
+  }
+}
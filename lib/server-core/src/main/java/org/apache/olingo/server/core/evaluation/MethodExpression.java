@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+
+/**
+ * Call of a built-in function with compiled parameters.
+ * Like all functions, the methods return <code>null</code> if any parameter value is <code>null</code>.
+ */
+class MethodExpression extends CompiledExpression {
+
+  /** Calendars to extract date and time parts from time stamps, which are always in UTC. */
+  private static final ThreadLocal<Calendar> UTC_CALENDAR = new ThreadLocal<Calendar>() {
+    @Override
+    protected Calendar initialValue() {
+      return Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+    }
+  };
+
+  private static final BigDecimal NANOS_PER_SECOND = BigDecimal.valueOf(1000L * 1000L * 1000L);
+  private static final BigDecimal MILLIS_PER_SECOND = BigDecimal.valueOf(1000L);
+
+  private final MethodKind method;
+  private final CompiledExpression[] parameters;
+
+  MethodExpression(final MethodKind method, final CompiledExpression[] parameters, final EdmType type) {
+    super(type);
+    this.method = method;
+    this.parameters = parameters;
+  }
+
+  @Override
+  public Object evaluate(final Entity entity) {
+    final Object first = parameters[0].evaluate(entity);
+    if (first == null) {
+      return null;
+    }
+    Object second = null;
+    if (parameters.length > 1) {
+      second = parameters[1].evaluate(entity);
+      if (second == null) {
+        return null;
+      }
+    }
+
+    switch (method) {
+    case CONTAINS:
+      return ((String) first).contains((String) second);
+    case STARTSWITH:
+      return ((String) first).startsWith((String) second);
+    case ENDSWITH:
+      return ((String) first).endsWith((String) second);
+    case INDEXOF:
+      return Long.valueOf(((String) first).indexOf((String) second));
+    case LENGTH:
+      return Long.valueOf(((String) first).length());
+    case TOLOWER:
+      return ((String) first).toLowerCase();
+    case TOUPPER:
+      return ((String) first).toUpperCase();
+    case TRIM:
+      return ((String) first).trim();
+    case CONCAT:
+      return ((String) first).concat((String) second);
+    case SUBSTRING:
+      return substring((String) first, Values.toLong(second), entity);
+    case YEAR:
+      return datePart(first, Calendar.YEAR);
+    case MONTH:
+      // Calendar months are zero-based.
+      return datePart(first, Calendar.MONTH) + 1;
+    case DAY:
+      return datePart(first, Calendar.DAY_OF_MONTH);
+    case HOUR:
+      return datePart(first, Calendar.HOUR_OF_DAY);
+    case MINUTE:
+      return datePart(first, Calendar.MINUTE);
+    case SECOND:
+      return datePart(first, Calendar.SECOND);
+    case FRACTIONALSECONDS:
+      return first instanceof Timestamp ?
+          new BigDecimal(((Timestamp) first).getNanos()).divide(NANOS_PER_SECOND) :
+          new BigDecimal(((Calendar) first).get(Calendar.MILLISECOND)).divide(MILLIS_PER_SECOND);
+    case ROUND:
+      return round(first, RoundingMode.HALF_UP);
+    case FLOOR:
+      return round(first, RoundingMode.FLOOR);
+    default:
+      return round(first, RoundingMode.CEILING);
+    }
+  }
+
+  /** Substring with start and length limited to the string boundaries, see OASIS JIRA ODATA-781. */
+  private String substring(final String value, final long startValue, final Entity entity) {
+    final int start = (int) Math.max(0, Math.min(startValue, value.length()));
+    int end = value.length();
+    if (parameters.length > 2) {
+      final Object length = parameters[2].evaluate(entity);
+      if (length == null) {
+        return null;
+      }
+      end = (int) Math.max(0, Math.min(start + Values.toLong(length), value.length()));
+    }
+    return value.substring(start, end);
+  }
+
+  private static Long datePart(final Object value, final int field) {
+    Calendar calendar;
+    if (value instanceof Timestamp) {
+      calendar = UTC_CALENDAR.get();
+      calendar.setTimeInMillis(((Timestamp) value).getTime());
+    } else {
+      calendar = (Calendar) value;
+    }
+    return Long.valueOf(calendar.get(field));
+  }
+
+  private Object round(final Object value, final RoundingMode mode) {
+    switch (getCategory()) {
+    case INTEGER:
+      return value;
+    case DECIMAL:
+      return ((BigDecimal) value).setScale(0, mode);
+    default:
+      final double doubleValue = Values.toDouble(value);
+      return mode == RoundingMode.FLOOR ? Math.floor(doubleValue) :
+          mode == RoundingMode.CEILING ? Math.ceil(doubleValue) :
+              // Math.round rounds halves towards positive infinity, but OData rounds them away from zero.
+              Math.signum(doubleValue) * Math.floor(Math.abs(doubleValue) + 0.5);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.IndexedEntity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmType;
+
+/**
+ * Value of a primitive property, possibly nested in single-valued complex properties.
+ * The position of each property in its list is remembered and tried first for the next entity,
+ * so for entities with the same property order no property has to be searched by name.
+ * Properties of indexed entities are looked up by their slot.
+ */
+class PropertyPathExpression extends CompiledExpression {
+
+  private final String[] names;
+  /** Position hints; they are shared between threads but every value is a valid hint. */
+  private final int[] positions;
+
+  PropertyPathExpression(final String[] names, final EdmType type) {
+    super(type);
+    this.names = names;
+    positions = new int[names.length];
+  }
+
+  @Override
+  public Object evaluate(final Entity entity) {
+    List<Property> properties = entity.getProperties();
+    for (int i = 0; i < names.length; i++) {
+      final Property property = i == 0 && entity instanceof IndexedEntity ?
+          ((IndexedEntity) entity).readProperty(names[0]) :
+          find(properties, i);
+      if (property == null || property.isNull()) {
+        return null;
+      } else if (i == names.length - 1) {
+        return Values.normalize(property.getValue(), getType(), getCategory());
+      }
+      properties = property.asComplex().getValue();
+    }
+    return null;
+  }
+
+  private Property find(final List<Property> properties, final int step) {
+    final String name = names[step];
+    final int position = positions[step];
+    if (position < properties.size()) {
+      final Property property = properties.get(position);
+      if (name.equals(property.getName())) {
+        return property;
+      }
+    }
+    for (int index = 0; index < properties.size(); index++) {
+      final Property property = properties.get(index);
+      if (name.equals(property.getName())) {
+        positions[step] = index;
+        return property;
+      }
+    }
+    return null;
+  }
+}
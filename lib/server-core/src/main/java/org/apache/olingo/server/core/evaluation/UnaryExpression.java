@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.math.BigDecimal;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+
+/** Logical negation or arithmetic negation of a compiled operand. */
+class UnaryExpression extends CompiledExpression {
+
+  private final UnaryOperatorKind operator;
+  private final CompiledExpression operand;
+
+  UnaryExpression(final UnaryOperatorKind operator, final CompiledExpression operand) {
+    super(operand.getType());
+    this.operator = operator;
+    this.operand = operand;
+  }
+
+  @Override
+  public Object evaluate(final Entity entity) {
+    final Object value = operand.evaluate(entity);
+    if (value == null) {
+      return null;
+    } else if (operator == UnaryOperatorKind.NOT) {
+      return ((Boolean) value) ? Boolean.FALSE : Boolean.TRUE;
+    }
+    switch (getCategory()) {
+    case INTEGER:
+      final long longValue = Values.toLong(value);
+      if (longValue == Long.MIN_VALUE) {
+        throw new EvaluationException("Arithmetic overflow in operation '" + operator + "'");
+      }
+      return -longValue;
+    case DECIMAL:
+      return ((BigDecimal) value).negate();
+    default:
+      return -Values.toDouble(value);
+    }
+  }
+}
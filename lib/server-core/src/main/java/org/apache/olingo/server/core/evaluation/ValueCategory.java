@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+/**
+ * Kinds of canonical values produced by compiled expressions.
+ * The numeric categories are ordered by their precedence in arithmetic operations and comparisons.
+ */
+enum ValueCategory {
+  /** The <code>null</code> literal. */
+  NULL,
+  /** {@link Boolean} */
+  BOOLEAN,
+  /** {@link String} */
+  STRING,
+  /** Enumeration members as {@link Long} bit masks. */
+  ENUM,
+  /** SByte, Byte, Int16, Int32, and Int64 as {@link Long}. */
+  INTEGER,
+  /** Decimal as {@link java.math.BigDecimal}. */
+  DECIMAL,
+  /** Single and Double as {@link Double}. */
+  DOUBLE,
+  /** All other primitive types in the default representation of their type. */
+  OTHER;
+
+  boolean isNumeric() {
+    return this == INTEGER || this == DECIMAL || this == DOUBLE;
+  }
+}
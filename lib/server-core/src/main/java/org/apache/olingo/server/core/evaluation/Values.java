@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.EdmTypeDefinition;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+
+/**
+ * Conversion of property and literal values into the canonical representation of their {@link ValueCategory}
+ * and comparison of canonical values.
+ */
+final class Values {
+
+  /** Facets for conversions of values which are not restricted by a property definition. */
+  private static final Integer MAX_PRECISION = Integer.MAX_VALUE;
+  private static final Integer MAX_SCALE = Integer.MAX_VALUE;
+
+  private Values() {
+    // static utility class
+  }
+
+  /** Returns the primitive type behind a type definition, or the type itself. */
+  static EdmType primitiveType(final EdmType type) {
+    return type instanceof EdmTypeDefinition ? ((EdmTypeDefinition) type).getUnderlyingType() : type;
+  }
+
+  static ValueCategory categoryOf(final EdmType type) {
+    if (type == null) {
+      return ValueCategory.NULL;
+    } else if (type.getKind() == EdmTypeKind.ENUM) {
+      return ValueCategory.ENUM;
+    } else if (type.getKind() != EdmTypeKind.PRIMITIVE) {
+      return ValueCategory.OTHER;
+    }
+    switch (EdmPrimitiveTypeKind.valueOfFQN(type.getFullQualifiedName())) {
+    case Boolean:
+      return ValueCategory.BOOLEAN;
+    case String:
+      return ValueCategory.STRING;
+    case SByte:
+    case Byte:
+    case Int16:
+    case Int32:
+    case Int64:
+      return ValueCategory.INTEGER;
+    case Decimal:
+      return ValueCategory.DECIMAL;
+    case Single:
+    case Double:
+      return ValueCategory.DOUBLE;
+    default:
+      return ValueCategory.OTHER;
+    }
+  }
+
+  /**
+   * Converts a value of the given type into its canonical representation.
+   * @throws EvaluationException if the value cannot be converted
+   */
+  static Object normalize(final Object value, final EdmType type, final ValueCategory category) {
+    if (value == null) {
+      return null;
+    }
+    switch (category) {
+    case INTEGER:
+      return value instanceof Long ? value : Long.valueOf(((Number) value).longValue());
+    case DOUBLE:
+      return value instanceof Double ? value :
+          // The string representation keeps the decimal digits of a Float.
+          value instanceof Float ? Double.valueOf(value.toString()) : Double.valueOf(((Number) value).doubleValue());
+    case DECIMAL:
+      return value instanceof BigDecimal ? value :
+          value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte ?
+              BigDecimal.valueOf(((Number) value).longValue()) :
+              new BigDecimal(value.toString());
+    case ENUM:
+      return value instanceof Number ? Long.valueOf(((Number) value).longValue()) :
+          convert(value.toString(), (EdmPrimitiveType) type, Long.class);
+    case BOOLEAN:
+    case STRING:
+      return value;
+    default:
+      return normalizeOther(value, (EdmPrimitiveType) type);
+    }
+  }
+
+  private static Object normalizeOther(final Object value, final EdmPrimitiveType type) {
+    final Class<?> defaultType = type.getDefaultType();
+    if (defaultType.isInstance(value)) {
+      return value;
+    } else if (defaultType == Timestamp.class && (value instanceof Calendar || value instanceof Date)) {
+      return new Timestamp(value instanceof Calendar ? ((Calendar) value).getTimeInMillis() : ((Date) value).getTime());
+    }
+    try {
+      return convert(type.valueToString(value, null, null, MAX_PRECISION, MAX_SCALE, null),
+          type, defaultType);
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new EvaluationException("Value '" + value + "' is not a valid " + type.getFullQualifiedName(), e);
+    }
+  }
+
+  private static Object convert(final String value, final EdmPrimitiveType type, final Class<?> returnType) {
+    try {
+      return type.valueOfString(value, null, null, MAX_PRECISION, MAX_SCALE, null, returnType);
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new EvaluationException("Value '" + value + "' is not a valid " + type.getFullQualifiedName(), e);
+    }
+  }
+
+  /**
+   * Parses a literal in URI syntax into the canonical representation of the given type.
+   * @throws EdmPrimitiveTypeException if the literal is not valid for the type
+   */
+  static Object parseLiteral(final String literal, final EdmPrimitiveType type, final ValueCategory category)
+      throws EdmPrimitiveTypeException {
+    if (category == ValueCategory.ENUM) {
+      return ((EdmEnumType) type).valueOfString(type.fromUriLiteral(literal),
+          null, null, null, null, null, Long.class);
+    }
+    final Object value = type.valueOfString(type.fromUriLiteral(literal),
+        null, null, MAX_PRECISION, MAX_SCALE, null, type.getDefaultType());
+    return normalize(value, type, category);
+  }
+
+  static long toLong(final Object value) {
+    return ((Number) value).longValue();
+  }
+
+  static double toDouble(final Object value) {
+    return ((Number) value).doubleValue();
+  }
+
+  static BigDecimal toBigDecimal(final Object value) {
+    return value instanceof BigDecimal ? (BigDecimal) value : BigDecimal.valueOf(((Number) value).longValue());
+  }
+
+  /**
+   * Compares two non-null canonical values of the given category.
+   * Values without a natural order which are not equal are reported as not comparable.
+   * @return the comparison result, or <code>null</code> if the values are not comparable
+   */
+  @SuppressWarnings("unchecked")
+  static Integer compare(final Object left, final Object right, final ValueCategory category) {
+    switch (category) {
+    case INTEGER:
+    case ENUM:
+      final long leftLong = toLong(left);
+      final long rightLong = toLong(right);
+      return leftLong < rightLong ? -1 : leftLong == rightLong ? 0 : 1;
+    case DOUBLE:
+      final double leftDouble = toDouble(left);
+      final double rightDouble = toDouble(right);
+      return leftDouble < rightDouble ? -1 : leftDouble == rightDouble ? 0 : 1;
+    case DECIMAL:
+      return toBigDecimal(left).compareTo(toBigDecimal(right));
+    default:
+      if (left.getClass() == right.getClass() && left instanceof Comparable) {
+        return ((Comparable<Object>) left).compareTo(right);
+      } else if (left instanceof byte[] && right instanceof byte[]) {
+        return Arrays.equals((byte[]) left, (byte[]) right) ? 0 : null;
+      } else {
+        return left.equals(right) ? 0 : null;
+      }
+    }
+  }
+}
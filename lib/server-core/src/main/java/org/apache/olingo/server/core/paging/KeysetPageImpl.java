@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.paging;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.server.api.paging.KeysetPage;
+import org.apache.olingo.server.api.paging.SeekKeyPart;
+import org.apache.olingo.server.api.paging.SkipTokenException;
+
+public class KeysetPageImpl implements KeysetPage {
+
+  private final SkipTokenCodec codec;
+  private final int fingerprint;
+  private final List<SeekKeyPart> parts;
+  private final List<Object> startAfter;
+  private final int pageSize;
+
+  KeysetPageImpl(final SkipTokenCodec codec, final int fingerprint, final List<SeekKeyPart> parts,
+      final List<Object> startAfter, final int pageSize) {
+    this.codec = codec;
+    this.fingerprint = fingerprint;
+    this.parts = parts;
+    this.startAfter = startAfter == null ? null : Collections.unmodifiableList(startAfter);
+    this.pageSize = pageSize;
+  }
+
+  @Override
+  public List<SeekKeyPart> getKeyParts() {
+    return parts;
+  }
+
+  @Override
+  public List<Object> getStartAfter() {
+    return startAfter;
+  }
+
+  @Override
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  @Override
+  public List<Object> getKeyValues(final Entity entity) {
+    List<Object> values = new ArrayList<Object>(parts.size());
+    for (final SeekKeyPart part : parts) {
+      values.add(getValue(entity, part.getPath()));
+    }
+    return values;
+  }
+
+  @Override
+  public boolean isAfterStart(final Entity entity) {
+    if (startAfter == null) {
+      return true;
+    }
+    for (int i = 0; i < parts.size(); i++) {
+      final int result = compare(getValue(entity, parts.get(i).getPath()), startAfter.get(i));
+      if (result != 0) {
+        return parts.get(i).isDescending() ? result < 0 : result > 0;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String createSkipToken(final Entity lastEntity) throws SkipTokenException {
+    return codec.encode(fingerprint, pageSize, parts, getKeyValues(lastEntity));
+  }
+
+  @Override
+  public URI createNextLink(final String rawRequestUri, final Entity lastEntity) throws SkipTokenException {
+    return NextLinkBuilder.create(rawRequestUri, createSkipToken(lastEntity));
+  }
+
+  private static Object getValue(final Entity entity, final List<String> path) {
+    Property property = entity.getProperty(path.get(0));
+    for (int i = 1; i < path.size() && property != null; i++) {
+      property = property.getValue() instanceof ComplexValue ?
+          getProperty(((ComplexValue) property.getValue()).getValue(), path.get(i)) :
+          null;
+    }
+    return property == null ? null : property.getValue();
+  }
+
+  private static Property getProperty(final List<Property> properties, final String name) {
+    for (final Property property : properties) {
+      if (name.equals(property.getName())) {
+        return property;
+      }
+    }
+    return null;
+  }
+
+  /** Compares values in ascending order; <code>null</code> comes first. */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static int compare(final Object value1, final Object value2) {
+    if (value1 == null || value2 == null) {
+      return value1 == null ? value2 == null ? 0 : -1 : 1;
+    } else if (value1.getClass() == value2.getClass() && value1 instanceof Comparable) {
+      return ((Comparable) value1).compareTo(value2);
+    } else if (value1 instanceof Number && value2 instanceof Number) {
+      return new BigDecimal(value1.toString()).compareTo(new BigDecimal(value2.toString()));
+    } else if ((value1 instanceof Calendar || value1 instanceof Date)
+        && (value2 instanceof Calendar || value2 instanceof Date)) {
+      final long millis1 = getMillis(value1);
+      final long millis2 = getMillis(value2);
+      return millis1 < millis2 ? -1 : millis1 == millis2 ? 0 : 1;
+    } else if (value1 instanceof byte[] && value2 instanceof byte[]) {
+      return compareBytes((byte[]) value1, (byte[]) value2);
+    } else {
+      return value1.toString().compareTo(value2.toString());
+    }
+  }
+
+  private static long getMillis(final Object value) {
+    return value instanceof Calendar ? ((Calendar) value).getTimeInMillis() : ((Date) value).getTime();
+  }
+
+  private static int compareBytes(final byte[] bytes1, final byte[] bytes2) {
+    for (int i = 0; i < bytes1.length && i < bytes2.length; i++) {
+      final int result = (bytes1[i] & 0xFF) - (bytes2[i] & 0xFF);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return bytes1.length - bytes2.length;
+  }
+}
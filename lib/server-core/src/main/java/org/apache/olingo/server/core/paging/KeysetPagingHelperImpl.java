@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.paging;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.server.api.paging.KeysetPage;
+import org.apache.olingo.server.api.paging.KeysetPagingHelper;
+import org.apache.olingo.server.api.paging.SeekKeyPart;
+import org.apache.olingo.server.api.paging.SkipTokenException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceComplexProperty;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.SkipTokenOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+
+public class KeysetPagingHelperImpl implements KeysetPagingHelper {
+
+  private final SkipTokenCodec codec;
+
+  public KeysetPagingHelperImpl(final byte[] signingKey) {
+    codec = new SkipTokenCodec(signingKey == null ? null : signingKey.clone());
+  }
+
+  @Override
+  public KeysetPage createPage(final EdmEntityType entityType, final OrderByOption orderByOption,
+      final SkipTokenOption skipTokenOption, final int pageSize) throws SkipTokenException {
+    final List<SeekKeyPart> parts = getKeyParts(entityType, orderByOption);
+    final int fingerprint = getFingerprint(entityType, parts);
+    if (skipTokenOption == null || skipTokenOption.getValue() == null) {
+      return new KeysetPageImpl(codec, fingerprint, parts, null, pageSize);
+    }
+    final SkipTokenCodec.Position position = codec.decode(skipTokenOption.getValue(), fingerprint, parts);
+    // The page size from the token is only trusted to be smaller; unsigned tokens can be forged.
+    return new KeysetPageImpl(codec, fingerprint, parts, position.getValues(),
+        Math.min(position.getPageSize(), pageSize));
+  }
+
+  @Override
+  public URI createNextLink(final String rawRequestUri, final String skipToken) {
+    return NextLinkBuilder.create(rawRequestUri, skipToken);
+  }
+
+  /** Determines the properties of the orderby option followed by the key properties not ordered by already. */
+  private static List<SeekKeyPart> getKeyParts(final EdmEntityType entityType, final OrderByOption orderByOption)
+      throws SkipTokenException {
+    List<SeekKeyPart> parts = new ArrayList<SeekKeyPart>();
+    List<List<String>> paths = new ArrayList<List<String>>();
+    if (orderByOption != null) {
+      for (final OrderByItem item : orderByOption.getOrders()) {
+        final List<String> path = new ArrayList<String>();
+        final EdmProperty property = getProperty(item.getExpression(), path);
+        if (!paths.contains(path)) {
+          paths.add(path);
+          parts.add(new SeekKeyPart(Collections.unmodifiableList(path), property, item.isDescending()));
+        }
+      }
+    }
+    for (final EdmKeyPropertyRef keyRef : entityType.getKeyPropertyRefs()) {
+      final List<String> path = Arrays.asList(keyRef.getName().split("/"));
+      if (!paths.contains(path)) {
+        paths.add(path);
+        parts.add(new SeekKeyPart(Collections.unmodifiableList(path), keyRef.getProperty(), false));
+      }
+    }
+    return Collections.unmodifiableList(parts);
+  }
+
+  private static EdmProperty getProperty(final Expression expression, List<String> path) throws SkipTokenException {
+    if (expression instanceof Member
+        && ((Member) expression).getStartTypeFilter() == null
+        && ((Member) expression).getResourcePath() != null) {
+      final List<UriResource> resources = ((Member) expression).getResourcePath().getUriResourceParts();
+      for (int i = 0; i < resources.size(); i++) {
+        final UriResource resource = resources.get(i);
+        if (i < resources.size() - 1 && resource instanceof UriResourceComplexProperty
+            && ((UriResourceComplexProperty) resource).getComplexTypeFilter() == null
+            && !((UriResourceComplexProperty) resource).isCollection()) {
+          path.add(((UriResourceComplexProperty) resource).getProperty().getName());
+        } else if (i == resources.size() - 1 && resource instanceof UriResourcePrimitiveProperty
+            && !((UriResourcePrimitiveProperty) resource).isCollection()) {
+          final EdmProperty property = ((UriResourcePrimitiveProperty) resource).getProperty();
+          path.add(property.getName());
+          return property;
+        } else {
+          break;
+        }
+      }
+    }
+    throw new SkipTokenException("Only paths to primitive properties are supported in keyset paging.",
+        SkipTokenException.MessageKeys.UNSUPPORTED_ORDER_EXPRESSION);
+  }
+
+  /** Identifies the order, so that skiptokens created for another order or entity type are rejected. */
+  private static int getFingerprint(final EdmEntityType entityType, final List<SeekKeyPart> parts) {
+    StringBuilder description = new StringBuilder(entityType.getFullQualifiedName().getFullQualifiedNameAsString());
+    for (final SeekKeyPart part : parts) {
+      description.append(',').append(part);
+    }
+    return description.toString().hashCode();
+  }
+}
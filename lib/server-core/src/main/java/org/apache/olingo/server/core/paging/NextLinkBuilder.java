@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.paging;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+
+import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
+
+/**
+ * Creates next links by replacing the skiptoken in the query of the request URI.
+ * The query is scanned once; other query options are copied unchanged.
+ */
+public final class NextLinkBuilder {
+
+  private static final String SKIPTOKEN = SystemQueryOptionKind.SKIPTOKEN.toString();
+  private static final String ENCODED_SKIPTOKEN = "%24" + SKIPTOKEN.substring(1);
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  private NextLinkBuilder() {
+    // static helper
+  }
+
+  /**
+   * Creates a next link.
+   * @param rawRequestUri the raw URI of the current request
+   * @param skipToken the new skiptoken, not yet percent-encoded
+   * @return the request URI with the new skiptoken as last query option
+   * @throws IllegalArgumentException if the request URI is not a valid URI
+   */
+  public static URI create(final String rawRequestUri, final String skipToken) {
+    final int queryStart = rawRequestUri.indexOf('?');
+    StringBuilder result = new StringBuilder(rawRequestUri.length() + skipToken.length() + 16);
+    if (queryStart < 0) {
+      result.append(rawRequestUri).append('?');
+    } else {
+      result.append(rawRequestUri, 0, queryStart + 1);
+      int start = queryStart + 1;
+      while (start < rawRequestUri.length()) {
+        int end = rawRequestUri.indexOf('&', start);
+        if (end < 0) {
+          end = rawRequestUri.length();
+        }
+        if (end > start && !isSkipToken(rawRequestUri, start, end)) {
+          result.append(rawRequestUri, start, end).append('&');
+        }
+        start = end + 1;
+      }
+    }
+    result.append(ENCODED_SKIPTOKEN).append('=');
+    appendEncoded(result, skipToken);
+    return URI.create(result.toString());
+  }
+
+  private static boolean isSkipToken(final String uri, final int start, final int end) {
+    return isName(uri, start, end, SKIPTOKEN) || isName(uri, start, end, ENCODED_SKIPTOKEN);
+  }
+
+  private static boolean isName(final String uri, final int start, final int end, final String name) {
+    final int nameEnd = start + name.length();
+    return nameEnd <= end && uri.regionMatches(true, start, name, 0, name.length())
+        && (nameEnd == end || uri.charAt(nameEnd) == '=');
+  }
+
+  /** Percent-encodes all characters except the unreserved ones of RFC 3986. */
+  private static void appendEncoded(StringBuilder result, final String value) {
+    int i = 0;
+    while (i < value.length()) {
+      final int codePoint = value.codePointAt(i);
+      if (codePoint >= 'A' && codePoint <= 'Z' || codePoint >= 'a' && codePoint <= 'z'
+          || codePoint >= '0' && codePoint <= '9'
+          || codePoint == '-' || codePoint == '.' || codePoint == '_' || codePoint == '~') {
+        result.append((char) codePoint);
+      } else {
+        for (final byte b : new String(Character.toChars(codePoint)).getBytes(UTF_8)) {
+          result.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+        }
+      }
+      i += Character.charCount(codePoint);
+    }
+  }
+}
@@ -0,0 +1,325 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.paging;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.server.api.paging.SeekKeyPart;
+import org.apache.olingo.server.api.paging.SkipTokenException;
+
+/**
+ * <p>Encodes and decodes the skiptokens of keyset paging.</p>
+ * <p>The binary layout is: format version, fingerprint of the key parts (4 bytes), page size (varint),
+ * one tagged value per key part, and, if a signing key is given, the first 16 bytes of the HMAC-SHA256
+ * of everything before. Integers are stored as zigzag varints, strings in UTF-8, and values of other types
+ * as their OData literals. The result is encoded in base64url without padding.</p>
+ */
+final class SkipTokenCodec {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String MAC_ALGORITHM = "HmacSHA256";
+  private static final int MAC_LENGTH = 16;
+  private static final byte VERSION = 1;
+
+  private static final byte TAG_NULL = 0;
+  private static final byte TAG_FALSE = 1;
+  private static final byte TAG_TRUE = 2;
+  private static final byte TAG_INTEGER = 3;
+  private static final byte TAG_DOUBLE = 4;
+  private static final byte TAG_STRING = 5;
+  private static final byte TAG_LITERAL = 6;
+
+  private final SecretKeySpec signingKey;
+  private final ThreadLocal<Mac> macs;
+
+  SkipTokenCodec(final byte[] signingKey) {
+    if (signingKey == null) {
+      this.signingKey = null;
+      macs = null;
+    } else {
+      this.signingKey = new SecretKeySpec(signingKey, MAC_ALGORITHM);
+      macs = new ThreadLocal<Mac>();
+      // Fails early if the platform does not support the algorithm.
+      getMac();
+    }
+  }
+
+  /** Decoded content of a skiptoken. */
+  static final class Position {
+    private final int pageSize;
+    private final List<Object> values;
+
+    private Position(final int pageSize, final List<Object> values) {
+      this.pageSize = pageSize;
+      this.values = values;
+    }
+
+    int getPageSize() {
+      return pageSize;
+    }
+
+    List<Object> getValues() {
+      return values;
+    }
+  }
+
+  String encode(final int fingerprint, final int pageSize, final List<SeekKeyPart> parts, final List<Object> values)
+      throws SkipTokenException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream(32);
+    output.write(VERSION);
+    output.write(fingerprint >>> 24);
+    output.write(fingerprint >>> 16);
+    output.write(fingerprint >>> 8);
+    output.write(fingerprint);
+    writeVarint(output, pageSize);
+    for (int i = 0; i < parts.size(); i++) {
+      writeValue(output, parts.get(i).getProperty(), values.get(i));
+    }
+    if (signingKey != null) {
+      final byte[] content = output.toByteArray();
+      output.write(sign(content, content.length), 0, MAC_LENGTH);
+    }
+    return Base64.encodeBase64URLSafeString(output.toByteArray());
+  }
+
+  Position decode(final String skipToken, final int fingerprint, final List<SeekKeyPart> parts)
+      throws SkipTokenException {
+    final byte[] bytes = Base64.decodeBase64(skipToken);
+    int length = bytes.length;
+    if (signingKey != null) {
+      length -= MAC_LENGTH;
+      if (length <= 0 || !MessageDigest.isEqual(Arrays.copyOfRange(bytes, length, bytes.length),
+          Arrays.copyOf(sign(bytes, length), MAC_LENGTH))) {
+        throw invalid(skipToken, null);
+      }
+    }
+    final Reader reader = new Reader(bytes, length, skipToken);
+    if (reader.read() != VERSION
+        || (reader.read() << 24 | reader.read() << 16 | reader.read() << 8 | reader.read()) != fingerprint) {
+      throw invalid(skipToken, null);
+    }
+    final long pageSize = reader.readVarint();
+    if (pageSize <= 0 || pageSize > Integer.MAX_VALUE) {
+      throw invalid(skipToken, null);
+    }
+    List<Object> values = new ArrayList<Object>(parts.size());
+    for (final SeekKeyPart part : parts) {
+      values.add(reader.readValue(part.getProperty()));
+    }
+    if (reader.position != length) {
+      throw invalid(skipToken, null);
+    }
+    return new Position((int) pageSize, values);
+  }
+
+  private byte[] sign(final byte[] content, final int length) {
+    final Mac mac = getMac();
+    mac.update(content, 0, length);
+    return mac.doFinal();
+  }
+
+  private Mac getMac() {
+    Mac mac = macs.get();
+    if (mac == null) {
+      try {
+        mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(signingKey);
+      } catch (final GeneralSecurityException e) {
+        throw new ODataRuntimeException("Cannot sign skiptokens with " + MAC_ALGORITHM, e);
+      }
+      macs.set(mac);
+    }
+    return mac;
+  }
+
+  private static void writeValue(ByteArrayOutputStream output, final EdmProperty property, final Object value)
+      throws SkipTokenException {
+    if (value == null) {
+      output.write(TAG_NULL);
+    } else if (value instanceof Boolean) {
+      output.write((Boolean) value ? TAG_TRUE : TAG_FALSE);
+    } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      output.write(TAG_INTEGER);
+      final long number = ((Number) value).longValue();
+      writeVarint(output, (number << 1) ^ (number >> 63));
+    } else if (value instanceof Double || value instanceof Float) {
+      output.write(TAG_DOUBLE);
+      final long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        output.write((int) (bits >>> shift));
+      }
+    } else if (value instanceof String) {
+      output.write(TAG_STRING);
+      writeBytes(output, ((String) value).getBytes(UTF_8));
+    } else {
+      output.write(TAG_LITERAL);
+      try {
+        writeBytes(output, ((EdmPrimitiveType) property.getType()).valueToString(value,
+            true, property.getMaxLength(), property.getPrecision(), property.getScale(), property.isUnicode())
+            .getBytes(UTF_8));
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new SkipTokenException("Cannot store value of property " + property.getName(), e,
+            SkipTokenException.MessageKeys.UNSUPPORTED_VALUE, property.getName());
+      } catch (final ClassCastException e) {
+        throw new SkipTokenException("Property " + property.getName() + " is not primitive", e,
+            SkipTokenException.MessageKeys.UNSUPPORTED_VALUE, property.getName());
+      }
+    }
+  }
+
+  private static void writeBytes(ByteArrayOutputStream output, final byte[] bytes) {
+    writeVarint(output, bytes.length);
+    output.write(bytes, 0, bytes.length);
+  }
+
+  private static void writeVarint(ByteArrayOutputStream output, final long value) {
+    long remaining = value;
+    while ((remaining & ~0x7FL) != 0) {
+      output.write((int) (remaining & 0x7F) | 0x80);
+      remaining >>>= 7;
+    }
+    output.write((int) remaining);
+  }
+
+  private static SkipTokenException invalid(final String skipToken, final Exception cause) {
+    return new SkipTokenException("Invalid skiptoken " + skipToken, cause,
+        SkipTokenException.MessageKeys.INVALID_SKIPTOKEN, skipToken);
+  }
+
+  /** Reads the binary content of a skiptoken; every malformed content results in an exception. */
+  private static final class Reader {
+    private final byte[] bytes;
+    private final int length;
+    private final String skipToken;
+    private int position;
+
+    Reader(final byte[] bytes, final int length, final String skipToken) {
+      this.bytes = bytes;
+      this.length = length;
+      this.skipToken = skipToken;
+    }
+
+    int read() throws SkipTokenException {
+      if (position >= length) {
+        throw invalid(skipToken, null);
+      }
+      return bytes[position++] & 0xFF;
+    }
+
+    long readVarint() throws SkipTokenException {
+      long result = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        final int b = read();
+        result |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return result;
+        }
+      }
+      throw invalid(skipToken, null);
+    }
+
+    String readString() throws SkipTokenException {
+      final long size = readVarint();
+      if (size < 0 || size > length - position) {
+        throw invalid(skipToken, null);
+      }
+      final String result = new String(bytes, position, (int) size, UTF_8);
+      position += (int) size;
+      return result;
+    }
+
+    Object readValue(final EdmProperty property) throws SkipTokenException {
+      final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
+      final Class<?> javaType = type.getDefaultType();
+      final int tag = read();
+      switch (tag) {
+      case TAG_NULL:
+        return null;
+      case TAG_FALSE:
+      case TAG_TRUE:
+        return tag == TAG_TRUE;
+      case TAG_INTEGER:
+        final long encoded = readVarint();
+        return toInteger(property, (encoded >>> 1) ^ -(encoded & 1), javaType);
+      case TAG_DOUBLE:
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+          bits = bits << 8 | read();
+        }
+        final double number = Double.longBitsToDouble(bits);
+        return javaType == Float.class ? (Object) (float) number :
+            javaType == Double.class ? (Object) number :
+            fromLiteral(property, Double.toString(number), javaType);
+      case TAG_STRING:
+        final String value = readString();
+        return javaType == String.class ? value : fromLiteral(property, value, javaType);
+      case TAG_LITERAL:
+        return fromLiteral(property, readString(), javaType);
+      default:
+        throw invalid(skipToken, null);
+      }
+    }
+
+    private Object toInteger(final EdmProperty property, final long value, final Class<?> javaType)
+        throws SkipTokenException {
+      if (javaType == Long.class) {
+        return value;
+      } else if (javaType == Integer.class && value == (int) value) {
+        return (int) value;
+      } else if (javaType == Short.class && value == (short) value) {
+        return (short) value;
+      } else if (javaType == Byte.class && value == (byte) value) {
+        return (byte) value;
+      } else if (javaType == BigDecimal.class) {
+        return BigDecimal.valueOf(value);
+      } else if (javaType == BigInteger.class) {
+        return BigInteger.valueOf(value);
+      } else {
+        return fromLiteral(property, Long.toString(value), javaType);
+      }
+    }
+
+    private Object fromLiteral(final EdmProperty property, final String literal, final Class<?> javaType)
+        throws SkipTokenException {
+      try {
+        return ((EdmPrimitiveType) property.getType()).valueOfString(literal,
+            true, property.getMaxLength(), property.getPrecision(), property.getScale(), property.isUnicode(),
+            javaType);
+      } catch (final EdmPrimitiveTypeException e) {
+        throw invalid(skipToken, e);
+      }
+    }
+  }
+}
@@ -22,11 +22,13 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -56,6 +58,21 @@ public class BatchResponseSerializer {
     return new ByteArrayInputStream(builder.getContent());
   }
 
+  /**
+   * Creates a batch response content that is serialized only when it is written.
+   * <p>The response parts are requested from the iterator one after the other, and each part is written
+   * to the channel before the next part is requested. The content of a response given as
+   * {@link ODataContent} is streamed through without buffering and without a Content-Length header;
+   * other response bodies are read completely to determine their length.</p>
+   * <p>Errors during writing are thrown as {@link ODataRuntimeException}.</p>
+   * @param responses the response parts
+   * @param boundary the boundary between the parts
+   * @return the batch response content
+   */
+  public ODataContent serializeContent(final Iterator<ODataResponsePart> responses, final String boundary) {
+    return new BatchResponseContent(responses, boundary);
+  }
+
   private BodyBuilder createBody(final List<ODataResponsePart> batchResponses, final String boundary)
       throws BatchSerializerException {
     final BodyBuilder builder = new BodyBuilder();
@@ -104,6 +121,48 @@ public class BatchResponseSerializer {
     builder.append(CRLF);
   }
 
+  private void writeChangeSet(final ODataResponsePart part, final BodyBuilder builder,
+      final WritableByteChannel channel) throws BatchSerializerException, IOException {
+    final String changeSetBoundary = generateBoundary("changeset");
+
+    appendChangeSetHeader(builder, changeSetBoundary);
+    builder.append(CRLF);
+
+    for (final ODataResponse response : part.getResponses()) {
+      builder.append(getDashBoundary(changeSetBoundary));
+      writeBodyPart(response, builder, true, channel);
+    }
+
+    builder.append(getCloseDelimiter(changeSetBoundary));
+  }
+
+  private void writeBodyPart(final ODataResponse response, final BodyBuilder builder, final boolean isChangeSet,
+      final WritableByteChannel channel) throws BatchSerializerException, IOException {
+    appendBodyPartHeader(response, builder, isChangeSet);
+    builder.append(CRLF);
+
+    appendStatusLine(response, builder);
+    if (response.getContent() == null && response.getODataContent() != null) {
+      appendResponseHeader(response, -1, builder);
+      builder.append(CRLF);
+      builder.writeTo(channel);
+      response.getODataContent().write(new NonClosingChannel(channel));
+    } else {
+      final Body body = new Body(response);
+      appendResponseHeader(response, body.getLength(), builder);
+      builder.append(CRLF);
+      builder.writeTo(channel);
+      write(ByteBuffer.wrap(body.getContent()), channel);
+    }
+    builder.append(CRLF);
+  }
+
+  private static void write(final ByteBuffer buffer, final WritableByteChannel channel) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
   private void appendChangeSetHeader(final BodyBuilder builder, final String changeSetBoundary) {
     appendHeader(HttpHeader.CONTENT_TYPE, ContentType.MULTIPART_MIXED
         + "; boundary=" + changeSetBoundary, builder);
@@ -145,7 +204,9 @@ public class BatchResponseSerializer {
       }
     }
 
-    appendHeader(HttpHeader.CONTENT_LENGTH, Integer.toString(contentLength), builder);
+    if (contentLength >= 0) {
+      appendHeader(HttpHeader.CONTENT_LENGTH, Integer.toString(contentLength), builder);
+    }
   }
 
   private void appendBodyPartHeader(final ODataResponse response, final BodyBuilder builder,
@@ -210,6 +271,16 @@ public class BatchResponseSerializer {
       buffer.put(b);
     }
 
+    /** Writes the content built so far to the channel and starts over with an empty content. */
+    public void writeTo(final WritableByteChannel channel) throws IOException {
+      if (isClosed) {
+        throw new RuntimeException("BodyBuilder is closed.");
+      }
+      buffer.flip();
+      write(buffer, channel);
+      buffer.clear();
+    }
+
     public BodyBuilder append(final int statusCode) {
       return append(String.valueOf(statusCode));
     }
@@ -272,4 +343,72 @@ public class BatchResponseSerializer {
       }
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Batch response content which writes the response parts one after the other.
+   */
+  private class BatchResponseContent implements ODataContent {
+    private final Iterator<ODataResponsePart> responses;
+    private final String boundary;
+
+    BatchResponseContent(final Iterator<ODataResponsePart> responses, final String boundary) {
+      this.responses = responses;
+      this.boundary = boundary;
+    }
+
+    @Override
+    public void write(final WritableByteChannel channel) {
+      try {
+        final BodyBuilder builder = new BodyBuilder();
+        while (responses.hasNext()) {
+          final ODataResponsePart part = responses.next();
+          builder.append(getDashBoundary(boundary));
+
+          if (part.isChangeSet()) {
+            writeChangeSet(part, builder, channel);
+          } else {
+            writeBodyPart(part.getResponses().get(0), builder, false, channel);
+          }
+        }
+        builder.append(getCloseDelimiter(boundary));
+        builder.writeTo(channel);
+      } catch (final IOException e) {
+        throw new ODataRuntimeException("Error on writing batch response content", e);
+      } catch (final BatchSerializerException e) {
+        throw new ODataRuntimeException("Error on writing batch response content", e);
+      }
+    }
+
+    @Override
+    public void write(final OutputStream stream) {
+      write(Channels.newChannel(stream));
+    }
+  }
+
+  /**
+   * Channel for the content of a single response;
+   * it keeps the channel of the batch response open when the content is closed.
+   */
+  private static class NonClosingChannel implements WritableByteChannel {
+    private final WritableByteChannel channel;
+
+    NonClosingChannel(final WritableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+      return channel.write(src);
+    }
+
+    @Override
+    public boolean isOpen() {
+      return channel.isOpen();
+    }
+
+    @Override
+    public void close() {
+      // The batch response continues after this response.
+    }
+  }
+}
@@ -21,18 +21,20 @@ package org.apache.olingo.server.core.serializer;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
 import org.apache.olingo.server.api.serializer.BatchSerializerException;
-import org.apache.olingo.server.api.serializer.FixedFormatSerializer;
+import org.apache.olingo.server.api.serializer.FixedFormatStreamSerializer;
 import org.apache.olingo.server.api.serializer.PrimitiveValueSerializerOptions;
 import org.apache.olingo.server.api.serializer.SerializerException;
 
-public class FixedFormatSerializerImpl implements FixedFormatSerializer {
+public class FixedFormatSerializerImpl implements FixedFormatStreamSerializer {
 
   @Override
   public InputStream binary(final byte[] binary) throws SerializerException {
@@ -80,4 +82,10 @@ public class FixedFormatSerializerImpl implements FixedFormatSerializer {
 
     return serializer.serialize(batchResponses, boundary);
   }
+
+  @Override
+  public ODataContent batchResponseContent(final Iterator<ODataResponsePart> batchResponses, final String boundary)
+      throws BatchSerializerException {
+    return new BatchResponseSerializer().serializeContent(batchResponses, boundary);
+  }
 }
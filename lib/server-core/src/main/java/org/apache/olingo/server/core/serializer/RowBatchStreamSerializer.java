@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer;
+
+import java.io.OutputStream;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.RowBatchSerializer;
+import org.apache.olingo.server.api.serializer.RowBatchSource;
+import org.apache.olingo.server.api.serializer.SerializerException;
+
+/** Row-batch serializer which writes the collection into a stream when the response content is written. */
+public interface RowBatchStreamSerializer extends RowBatchSerializer {
+
+  /**
+   * Writes the entity collection of all batches of the source into the output stream.
+   * The output stream is not closed.
+   */
+  void entityCollectionIntoStream(ServiceMetadata metadata, EdmEntityType entityType, RowBatchSource source,
+      EntityCollectionSerializerOptions options, OutputStream outputStream) throws SerializerException;
+}
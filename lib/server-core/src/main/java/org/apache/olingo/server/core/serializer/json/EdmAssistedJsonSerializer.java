@@ -67,11 +67,17 @@ public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
   protected final boolean isIEEE754Compatible;
   protected final boolean isODataMetadataNone;
   protected final boolean isODataMetadataFull;
+  protected final JsonFactory jsonFactory;
 
   public EdmAssistedJsonSerializer(final ContentType contentType) {
+    this(contentType, JsonFactoryProvider.getJsonFactory());
+  }
+
+  public EdmAssistedJsonSerializer(final ContentType contentType, final JsonFactory jsonFactory) {
     this.isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
     this.isODataMetadataNone = ContentTypeHelper.isODataMetadataNone(contentType);
     this.isODataMetadataFull = ContentTypeHelper.isODataMetadataFull(contentType);
+    this.jsonFactory = jsonFactory;
   }
 
   @Override
@@ -98,7 +104,7 @@ public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = jsonFactory.createGenerator(outputStream);
       if (obj instanceof AbstractEntityCollection) {
         doSerialize(entityType, (AbstractEntityCollection) obj, contextURLString, metadataETag, json);
       } else if (obj instanceof Entity) {
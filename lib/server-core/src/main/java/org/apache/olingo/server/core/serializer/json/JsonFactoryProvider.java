@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Holds the Jackson object mapper (and its JSON factory) shared by all JSON serializers and deserializers.
+ * <p>Jackson factories are thread-safe once configured; they keep the symbol tables for field names
+ * and recycle their read and write buffers per thread, so they should be created only once per process.
+ * The shared instance cannot be replaced; a custom object mapper is set at an individual
+ * {@link org.apache.olingo.server.core.ODataImpl} instead.</p>
+ */
+public final class JsonFactoryProvider {
+
+  private static final ObjectMapper objectMapper = createObjectMapper(new JsonFactory());
+
+  private JsonFactoryProvider() {}
+
+  /**
+   * Gets the process-wide object mapper.
+   * @return object mapper
+   */
+  public static ObjectMapper getObjectMapper() {
+    return objectMapper;
+  }
+
+  /**
+   * Gets the JSON factory of the process-wide object mapper.
+   * @return JSON factory
+   */
+  public static JsonFactory getJsonFactory() {
+    return objectMapper.getFactory();
+  }
+
+  /**
+   * Creates an object mapper with the settings needed by the OData JSON (de)serializers
+   * on top of the given JSON factory.
+   * @param jsonFactory JSON factory, e.g., with custom generator or parser features
+   * @return object mapper using the given factory
+   */
+  public static ObjectMapper createObjectMapper(final JsonFactory jsonFactory) {
+    return configure(new ObjectMapper(jsonFactory));
+  }
+
+  /**
+   * Applies the settings needed by the OData JSON (de)serializers to the given object mapper.
+   * @param mapper object mapper
+   * @return the given object mapper
+   */
+  public static ObjectMapper configure(final ObjectMapper mapper) {
+    mapper.getFactory().enable(JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING);
+    mapper.configure(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY, true);
+    return mapper;
+  }
+}
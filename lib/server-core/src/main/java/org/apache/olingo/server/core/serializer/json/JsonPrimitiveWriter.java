@@ -0,0 +1,366 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.json;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmBoolean;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmByte;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmDate;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmDateTimeOffset;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmDecimal;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmDouble;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmGuid;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmInt16;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmInt32;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmInt64;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmSByte;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmSingle;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes the most common combinations of primitive types and value classes directly to a JSON generator.
+ * <p>The result is the same as writing the string representation created by
+ * {@link EdmPrimitiveType#valueToString(Object, Boolean, Integer, Integer, Integer, Boolean)},
+ * including the checks against the facets, but no intermediate strings or calendar objects are created.
+ * All other combinations are left to the caller.</p>
+ */
+final class JsonPrimitiveWriter {
+
+  private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+  /** Start of the Gregorian calendar in {@link java.util.GregorianCalendar} plus a safety margin. */
+  private static final long GREGORIAN_START = -12219292800000L + 2 * MILLIS_PER_DAY;
+  /** 10000-01-01T00:00:00Z minus a safety margin */
+  private static final long YEAR_10000 = 253402300800000L - 2 * MILLIS_PER_DAY;
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+    @Override
+    protected char[] initialValue() {
+      return new char[40];
+    }
+  };
+
+  private JsonPrimitiveWriter() {}
+
+  /**
+   * Writes the value if type and value class are supported.
+   * @param type the primitive type
+   * @param value the value (not <code>null</code>)
+   * @param precision the precision facet
+   * @param scale the scale facet
+   * @param isIEEE754Compatible whether Edm.Int64 and Edm.Decimal values have to be written as strings
+   * @param json the JSON generator
+   * @return <code>true</code> if the value has been written, <code>false</code> if the caller has to write it
+   * @throws EdmPrimitiveTypeException if the value does not match the facets
+   */
+  static boolean write(final EdmPrimitiveType type, final Object value,
+      final Integer precision, final Integer scale, final boolean isIEEE754Compatible, final JsonGenerator json)
+      throws EdmPrimitiveTypeException, IOException {
+    if (type == EdmBoolean.getInstance()) {
+      if (value instanceof Boolean) {
+        json.writeBoolean((Boolean) value);
+        return true;
+      }
+    } else if (type == EdmInt32.getInstance()) {
+      if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+        json.writeNumber(((Number) value).intValue());
+        return true;
+      }
+    } else if (type == EdmInt64.getInstance()) {
+      if (!isIEEE754Compatible
+          && (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)) {
+        json.writeNumber(((Number) value).longValue());
+        return true;
+      }
+    } else if (type == EdmInt16.getInstance()) {
+      if (value instanceof Short || value instanceof Byte) {
+        json.writeNumber(((Number) value).shortValue());
+        return true;
+      }
+    } else if (type == EdmByte.getInstance()) {
+      if (value instanceof Short || value instanceof Integer) {
+        final int number = ((Number) value).intValue();
+        if (number >= 0 && number < 1 << Byte.SIZE) {
+          json.writeNumber(number);
+          return true;
+        }
+      }
+    } else if (type == EdmSByte.getInstance()) {
+      if (value instanceof Byte) {
+        json.writeNumber(((Byte) value).intValue());
+        return true;
+      }
+    } else if (type == EdmDouble.getInstance()) {
+      // Infinity and NaN are written by the caller to keep their special representation.
+      if (value instanceof Double && !((Double) value).isInfinite() && !((Double) value).isNaN()) {
+        json.writeNumber(((Double) value).doubleValue());
+        return true;
+      }
+    } else if (type == EdmSingle.getInstance()) {
+      if (value instanceof Float && !((Float) value).isInfinite() && !((Float) value).isNaN()) {
+        json.writeNumber(((Float) value).floatValue());
+        return true;
+      }
+    } else if (type == EdmDecimal.getInstance()) {
+      if (!isIEEE754Compatible) {
+        return writeDecimal(value, precision, scale, json);
+      }
+    } else if (type == EdmDate.getInstance()) {
+      if (value instanceof Date || value instanceof Long) {
+        return writeDate(value instanceof Date ? ((Date) value).getTime() : (Long) value, json);
+      }
+    } else if (type == EdmDateTimeOffset.getInstance()) {
+      if (value instanceof Date || value instanceof Long) {
+        return writeDateTimeOffset(value instanceof Date ? ((Date) value).getTime() : (Long) value,
+            value, precision, json);
+      }
+    } else if (type == EdmGuid.getInstance()) {
+      if (value instanceof UUID) {
+        writeGuid((UUID) value, json);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Writes an integral number if the type is supported and the value is in its range.
+   * Edm.Date and Edm.DateTimeOffset values are given as milliseconds since the epoch.
+   * @return <code>true</code> if the value has been written, <code>false</code> if the caller has to write it
+   * @throws EdmPrimitiveTypeException if the value does not match the facets
+   * @see #write(EdmPrimitiveType, Object, Integer, Integer, boolean, JsonGenerator)
+   */
+  static boolean writeLong(final EdmPrimitiveType type, final long value,
+      final Integer precision, final Integer scale, final boolean isIEEE754Compatible, final JsonGenerator json)
+      throws EdmPrimitiveTypeException, IOException {
+    if (type == EdmInt32.getInstance() && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE
+        || type == EdmInt64.getInstance() && !isIEEE754Compatible
+        || type == EdmInt16.getInstance() && value >= Short.MIN_VALUE && value <= Short.MAX_VALUE
+        || type == EdmByte.getInstance() && value >= 0 && value < 1 << Byte.SIZE
+        || type == EdmSByte.getInstance() && value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+      json.writeNumber(value);
+      return true;
+    } else if (type == EdmDecimal.getInstance()) {
+      if (!isIEEE754Compatible) {
+        if (precision != null && precision < countDigits(value)) {
+          throw new EdmPrimitiveTypeException("The value '" + value + "' does not match the facets' constraints.");
+        }
+        json.writeNumber(value);
+        return true;
+      }
+    } else if (type == EdmDate.getInstance()) {
+      return writeDate(value, json);
+    } else if (type == EdmDateTimeOffset.getInstance()) {
+      return writeDateTimeOffset(value, null, precision, json);
+    }
+    return false;
+  }
+
+  /**
+   * Writes a finite floating-point number of type Edm.Double or Edm.Single;
+   * Edm.Single values are written like the corresponding <code>float</code> values.
+   * @return <code>true</code> if the value has been written, <code>false</code> if the caller has to write it
+   */
+  static boolean writeDouble(final EdmPrimitiveType type, final double value, final JsonGenerator json)
+      throws IOException {
+    if (Double.isInfinite(value) || Double.isNaN(value)) {
+      return false;
+    } else if (type == EdmDouble.getInstance()) {
+      json.writeNumber(value);
+      return true;
+    } else if (type == EdmSingle.getInstance() && !Float.isInfinite((float) value)) {
+      json.writeNumber((float) value);
+      return true;
+    }
+    return false;
+  }
+
+  private static boolean writeDecimal(final Object value, final Integer precision, final Integer scale,
+      final JsonGenerator json) throws EdmPrimitiveTypeException, IOException {
+    if (value instanceof BigDecimal) {
+      final BigDecimal bigDecimalValue = (BigDecimal) value;
+      final int digits = bigDecimalValue.scale() >= 0
+          ? Math.max(bigDecimalValue.precision(), bigDecimalValue.scale())
+          : bigDecimalValue.precision() - bigDecimalValue.scale();
+      if ((precision == null || precision >= digits) && bigDecimalValue.scale() <= (scale == null ? 0 : scale)) {
+        json.writeNumber(bigDecimalValue.toPlainString());
+        return true;
+      } else {
+        throw new EdmPrimitiveTypeException("The value '" + value + "' does not match the facets' constraints.");
+      }
+    } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      final long number = ((Number) value).longValue();
+      if (precision != null && precision < countDigits(number)) {
+        throw new EdmPrimitiveTypeException("The value '" + value + "' does not match the facets' constraints.");
+      }
+      json.writeNumber(number);
+      return true;
+    }
+    return false;
+  }
+
+  /** Counts the decimal digits of the given number without the sign. */
+  private static int countDigits(final long number) {
+    // Negative numbers are used so that Long.MIN_VALUE does not overflow.
+    long remaining = number > 0 ? -number : number;
+    int digits = 1;
+    while (remaining <= -10) {
+      remaining /= 10;
+      digits++;
+    }
+    return digits;
+  }
+
+  /** Writes the date in the default time zone like {@link EdmDate}. */
+  private static boolean writeDate(final long millis, final JsonGenerator json) throws IOException {
+    final long localMillis = millis + TimeZone.getDefault().getOffset(millis);
+    if (localMillis < GREGORIAN_START || localMillis >= YEAR_10000) {
+      return false;
+    }
+    char[] buffer = BUFFER.get();
+    final int length = appendDate(buffer, 0, floorDiv(localMillis, MILLIS_PER_DAY));
+    json.writeString(buffer, 0, length);
+    return true;
+  }
+
+  /** Writes the date and time in UTC like {@link EdmDateTimeOffset}; the original value is optional. */
+  private static boolean writeDateTimeOffset(final long millis, final Object value, final Integer precision,
+      final JsonGenerator json) throws EdmPrimitiveTypeException, IOException {
+    if (millis < GREGORIAN_START || millis >= YEAR_10000) {
+      return false;
+    }
+    final boolean isNano = value instanceof Timestamp;
+    final int fractionalSeconds = isNano ? ((Timestamp) value).getNanos() : (int) floorMod(millis, 1000);
+    final int fractionalDigits = countFractionalDigits(fractionalSeconds, isNano);
+    if (fractionalDigits > 0 && (precision == null || precision < fractionalDigits)) {
+      throw new EdmPrimitiveTypeException("The value '" + (value == null ? String.valueOf(millis) : value)
+          + "' does not match the facets' constraints.");
+    }
+
+    char[] buffer = BUFFER.get();
+    int position = appendDate(buffer, 0, floorDiv(millis, MILLIS_PER_DAY));
+    final int secondOfDay = (int) (floorMod(millis, MILLIS_PER_DAY) / 1000);
+    buffer[position++] = 'T';
+    position = appendTwoDigits(buffer, position, secondOfDay / 3600);
+    buffer[position++] = ':';
+    position = appendTwoDigits(buffer, position, secondOfDay / 60 % 60);
+    buffer[position++] = ':';
+    position = appendTwoDigits(buffer, position, secondOfDay % 60);
+    if (fractionalDigits > 0) {
+      buffer[position++] = '.';
+      int divisor = isNano ? 100000000 : 100;
+      for (int digit = 0; digit < fractionalDigits; digit++) {
+        buffer[position++] = (char) ('0' + fractionalSeconds / divisor % 10);
+        divisor /= 10;
+      }
+    }
+    buffer[position++] = 'Z';
+    json.writeString(buffer, 0, position);
+    return true;
+  }
+
+  /** Returns the number of significant digits of the fractional seconds (without trailing zeroes). */
+  private static int countFractionalDigits(final int fractionalSeconds, final boolean isNano) {
+    if (fractionalSeconds <= 0) {
+      return 0;
+    }
+    int digits = isNano ? 9 : 3;
+    int remaining = fractionalSeconds;
+    while (remaining % 10 == 0) {
+      remaining /= 10;
+      digits--;
+    }
+    return digits;
+  }
+
+  /**
+   * Appends the date of the given day (counted from 1970-01-01) in the proleptic Gregorian calendar
+   * in the format YYYY-MM-DD; the year must be between 0 and 9999.
+   */
+  private static int appendDate(final char[] buffer, final int start, final long epochDay) {
+    // Algorithm from Howard Hinnant, "chrono-Compatible Low-Level Date Algorithms" (days_from_civil inverse).
+    final long shifted = epochDay + 719468;
+    final long era = floorDiv(shifted, 146097);
+    final int dayOfEra = (int) (shifted - era * 146097);
+    final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    final int shiftedMonth = (5 * dayOfYear + 2) / 153;
+    final int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+    final int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+    final int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+    int position = appendTwoDigits(buffer, start, year / 100);
+    position = appendTwoDigits(buffer, position, year % 100);
+    buffer[position++] = '-';
+    position = appendTwoDigits(buffer, position, month);
+    buffer[position++] = '-';
+    return appendTwoDigits(buffer, position, day);
+  }
+
+  private static int appendTwoDigits(final char[] buffer, final int position, final int number) {
+    buffer[position] = (char) ('0' + number / 10);
+    buffer[position + 1] = (char) ('0' + number % 10);
+    return position + 2;
+  }
+
+  /** Writes the UUID in the same format as {@link UUID#toString()}. */
+  private static void writeGuid(final UUID value, final JsonGenerator json) throws IOException {
+    char[] buffer = BUFFER.get();
+    final long mostSignificantBits = value.getMostSignificantBits();
+    final long leastSignificantBits = value.getLeastSignificantBits();
+    appendHex(buffer, 0, mostSignificantBits >>> 32, 8);
+    buffer[8] = '-';
+    appendHex(buffer, 9, mostSignificantBits >>> 16, 4);
+    buffer[13] = '-';
+    appendHex(buffer, 14, mostSignificantBits, 4);
+    buffer[18] = '-';
+    appendHex(buffer, 19, leastSignificantBits >>> 48, 4);
+    buffer[23] = '-';
+    appendHex(buffer, 24, leastSignificantBits, 12);
+    json.writeString(buffer, 0, 36);
+  }
+
+  /** Appends the lowest <code>digits</code> hexadecimal digits of the value. */
+  private static void appendHex(final char[] buffer, final int start, final long value, final int digits) {
+    long remaining = value;
+    for (int position = start + digits - 1; position >= start; position--) {
+      buffer[position] = HEX_DIGITS[(int) (remaining & 0xF)];
+      remaining >>>= 4;
+    }
+  }
+
+  private static long floorDiv(final long dividend, final long divisor) {
+    final long quotient = dividend / divisor;
+    return (dividend % divisor != 0 && (dividend < 0) != (divisor < 0)) ? quotient - 1 : quotient;
+  }
+
+  private static long floorMod(final long dividend, final long divisor) {
+    return dividend - floorDiv(dividend, divisor) * divisor;
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.IConstants;
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.geo.Geospatial;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmSingle;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.RowBatch;
+import org.apache.olingo.server.api.serializer.RowBatchSource;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.serializer.SerializerStreamResult;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.ODataWritableContent;
+import org.apache.olingo.server.core.serializer.RowBatchStreamSerializer;
+import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
+import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
+import org.apache.olingo.server.core.serializer.utils.RowBatchLayout;
+import org.apache.olingo.server.core.serializer.utils.SerializationPlan;
+import org.apache.olingo.server.core.uri.KeyPredicateEncoder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * JSON serializer for entity collections supplied as row batches.
+ * <p>Integral and floating-point numbers and booleans are written directly from the column arrays;
+ * all other values take the same way as property values of entities.
+ * The output is the same as for entities with the same property values.</p>
+ */
+public class JsonRowBatchSerializer extends ODataJsonSerializer implements RowBatchStreamSerializer {
+
+  private final boolean isIEEE754Compatible;
+  private final boolean isODataMetadataNone;
+  private final boolean isODataMetadataFull;
+  private final JsonFactory jsonFactory;
+  private final IConstants constants;
+  private final KeyPredicateEncoder.Cache keyPredicateEncoders = new KeyPredicateEncoder.Cache();
+
+  public JsonRowBatchSerializer(final ContentType contentType, final IConstants constants,
+      final JsonFactory jsonFactory) {
+    super(contentType, constants, jsonFactory);
+    isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
+    isODataMetadataNone = ContentTypeHelper.isODataMetadataNone(contentType);
+    isODataMetadataFull = ContentTypeHelper.isODataMetadataFull(contentType);
+    this.constants = constants;
+    this.jsonFactory = jsonFactory;
+  }
+
+  @Override
+  public SerializerStreamResult entityCollectionStreamed(final ServiceMetadata metadata,
+      final EdmEntityType entityType, final RowBatchSource source, final EntityCollectionSerializerOptions options)
+      throws SerializerException {
+    return ODataWritableContent.withRowBatches(source, entityType, this, metadata, options);
+  }
+
+  @Override
+  public void entityCollectionIntoStream(final ServiceMetadata metadata, final EdmEntityType entityType,
+      final RowBatchSource source, final EntityCollectionSerializerOptions options, final OutputStream outputStream)
+      throws SerializerException {
+    if (options != null && ExpandSelectHelper.hasExpand(options.getExpand())) {
+      throw new SerializerException("Expand is not supported for row batches.",
+          SerializerException.MessageKeys.NOT_IMPLEMENTED);
+    }
+    try {
+      JsonGenerator json = jsonFactory.createGenerator(outputStream);
+      json.writeStartObject();
+
+      final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
+      writeContextURL(contextURL, json);
+      writeMetadataETag(metadata, json);
+      if (options != null && options.getCount() != null && options.getCount().getValue()) {
+        writeInlineCount("", source.getCount(), json);
+      }
+
+      json.writeFieldName(Constants.VALUE);
+      json.writeStartArray();
+      writeRowBatches(metadata, entityType, source,
+          options == null ? null : options.getSelect(),
+          options != null && options.getWriteOnlyReferences(),
+          contextURL == null ? null : contextURL.getEntitySetOrSingletonOrType(),
+          json);
+      json.writeEndArray();
+
+      if (source.getNext() != null) {
+        json.writeStringField(constants.getNextLink(), source.getNext().toASCIIString());
+      }
+      json.close();
+    } catch (final IOException e) {
+      throw new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
+    }
+  }
+
+  private void writeRowBatches(final ServiceMetadata metadata, final EdmEntityType entityType,
+      final RowBatchSource source, final SelectOption select, final boolean onlyReference, final String name,
+      final JsonGenerator json) throws IOException, SerializerException {
+    final SerializationPlan plan = getSerializationPlan(entityType, select, null);
+    List<EdmProperty> properties = new ArrayList<EdmProperty>(plan.getPropertyCount());
+    for (int index = 0; index < plan.getPropertyCount(); index++) {
+      properties.add(plan.getProperty(index).getEdmProperty());
+    }
+    final boolean writeId = onlyReference
+        || !isODataMetadataNone && !plan.areKeyPredicateNamesSelected()
+        || isODataMetadataFull;
+    final String typeName = isODataMetadataFull ?
+        "#" + entityType.getFullQualifiedName().getFullQualifiedNameAsString() : null;
+    final KeyPredicateEncoder encoder = writeId ? keyPredicateEncoders.get(entityType) : null;
+    Object[] keyValues = new Object[entityType.getKeyPredicateNames().size()];
+
+    RowBatch batch;
+    while ((batch = source.nextBatch()) != null) {
+      final RowBatchLayout layout = RowBatchLayout.create(entityType, properties, batch);
+      if (writeId && (name == null || !layout.hasKeyColumns())) {
+        throw new SerializerException("Entity id is null.", SerializerException.MessageKeys.MISSING_ID);
+      }
+      for (int row = 0; row < batch.getRowCount(); row++) {
+        json.writeStartObject();
+        if (typeName != null && !onlyReference) {
+          json.writeStringField(constants.getType(), typeName);
+        }
+        if (writeId) {
+          json.writeStringField(constants.getId(),
+              encoder.buildEntityId(name, layout.getKeyValues(batch, row, keyValues)));
+        }
+        if (!onlyReference) {
+          for (int index = 0; index < properties.size(); index++) {
+            writeCell(metadata, properties.get(index), batch, layout.getColumn(index), row, json);
+          }
+        }
+        json.writeEndObject();
+      }
+    }
+  }
+
+  private void writeCell(final ServiceMetadata metadata, final EdmProperty edmProperty, final RowBatch batch,
+      final int column, final int row, final JsonGenerator json) throws IOException, SerializerException {
+    if (column < 0 || batch.isNull(column, row)) {
+      writeProperty(metadata, edmProperty, null, null, json, Collections.<List<String>> emptySet(), null, null);
+      return;
+    }
+    writePropertyType(edmProperty, json);
+    json.writeFieldName(edmProperty.getName());
+    final EdmPrimitiveType type = (EdmPrimitiveType) edmProperty.getType();
+    Object value = null;
+    try {
+      switch (batch.getKind(column)) {
+      case LONG:
+        final long longValue = batch.getLongs(column)[row];
+        if (!JsonPrimitiveWriter.writeLong(type, longValue, edmProperty.getPrecision(), edmProperty.getScale(),
+            isIEEE754Compatible, json)) {
+          value = longValue;
+        }
+        break;
+      case DOUBLE:
+        final double doubleValue = batch.getDoubles(column)[row];
+        if (!JsonPrimitiveWriter.writeDouble(type, doubleValue, json)) {
+          if (type == EdmSingle.getInstance()) {
+            value = Float.valueOf((float) doubleValue);
+          } else {
+            value = Double.valueOf(doubleValue);
+          }
+        }
+        break;
+      case BOOLEAN:
+        json.writeBoolean(batch.getBooleans(column)[row]);
+        break;
+      default:
+        value = batch.getObjects(column)[row];
+        if (value instanceof Geospatial) {
+          writeGeoValue(edmProperty.getName(), type, (Geospatial) value, edmProperty.isNullable(), json);
+          value = null;
+        }
+      }
+      if (value != null) {
+        writePrimitiveValue(edmProperty.getName(), type, value, edmProperty.isNullable(),
+            edmProperty.getMaxLength(), edmProperty.getPrecision(), edmProperty.getScale(), edmProperty.isUnicode(),
+            json);
+      }
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new SerializerException("Wrong value for property!", e,
+          SerializerException.MessageKeys.WRONG_PROPERTY_VALUE,
+          edmProperty.getName(), String.valueOf(batch.getValue(column, row)));
+    }
+  }
+}
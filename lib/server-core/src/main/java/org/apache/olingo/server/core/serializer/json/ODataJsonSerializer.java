@@ -38,6 +38,7 @@ import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.IndexedEntity;
 import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Linked;
 import org.apache.olingo.commons.api.data.Operation;
@@ -89,6 +90,8 @@ import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
+import org.apache.olingo.server.core.serializer.utils.SerializationPlan;
+import org.apache.olingo.server.core.uri.KeyPredicateEncoder;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 import org.apache.olingo.server.core.uri.queryoption.ExpandOptionImpl;
 
@@ -113,20 +116,27 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   private final boolean isIEEE754Compatible;
   private final boolean isODataMetadataNone;
   private final boolean isODataMetadataFull;
+  private final JsonFactory jsonFactory;
   private IConstants constants;
+  private final ThreadLocal<SerializationPlan.Cache> serializationPlans =
+      new ThreadLocal<SerializationPlan.Cache>();
+  private final KeyPredicateEncoder.Cache keyPredicateEncoders = new KeyPredicateEncoder.Cache();
 
-  public ODataJsonSerializer(final ContentType contentType, final IConstants constants) {
+  public ODataJsonSerializer(final ContentType contentType, final IConstants constants,
+      final JsonFactory jsonFactory) {
     isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
     isODataMetadataNone = ContentTypeHelper.isODataMetadataNone(contentType);
     isODataMetadataFull = ContentTypeHelper.isODataMetadataFull(contentType);
     this.constants = constants;
+    this.jsonFactory = jsonFactory;
+  }
+
+  public ODataJsonSerializer(final ContentType contentType, final IConstants constants) {
+    this(contentType, constants, JsonFactoryProvider.getJsonFactory());
   }
 
   public ODataJsonSerializer(final ContentType contentType) {
-    isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
-    isODataMetadataNone = ContentTypeHelper.isODataMetadataNone(contentType);
-    isODataMetadataFull = ContentTypeHelper.isODataMetadataFull(contentType);
-    this.constants = new Constantsv00();
+    this(contentType, new Constantsv00());
   }
 
   @Override
@@ -138,7 +148,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = jsonFactory.createGenerator(outputStream);
       new ServiceDocumentJsonSerializer(metadata, serviceRoot, isODataMetadataNone).writeServiceDocument(json);
 
       json.close();
@@ -161,7 +171,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = jsonFactory.createGenerator(outputStream);
       new MetadataDocumentJsonSerializer(serviceMetadata).writeMetadataDocument(json);
 
       json.close();
@@ -183,7 +193,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = jsonFactory.createGenerator(outputStream);
       new ODataErrorSerializer().writeErrorDocument(json, error);
 
       json.close();
@@ -205,10 +215,11 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     boolean pagination = false;
+    final boolean plansBegun = beginSerializationPlans();
     try {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = jsonFactory.createGenerator(outputStream);
       json.writeStartObject();
 
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
@@ -243,6 +254,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
           new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
       throw cachedException;
     } finally {
+      endSerializationPlans(plansBegun);
       closeCircleStreamBufferOutput(outputStream, cachedException);
     }
   }
@@ -261,8 +273,9 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
     SerializerException cachedException;
     boolean pagination = false;
+    final boolean plansBegun = beginSerializationPlans();
     try {
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = jsonFactory.createGenerator(outputStream);
       json.writeStartObject();
 
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
@@ -293,6 +306,8 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       cachedException =
           new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
       throw cachedException;
+    } finally {
+      endSerializationPlans(plansBegun);
     }
   }
 
@@ -301,11 +316,12 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final Entity entity, final EntitySerializerOptions options) throws SerializerException {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
+    final boolean plansBegun = beginSerializationPlans();
     try {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = jsonFactory.createGenerator(outputStream);
       String name =  contextURL == null ? null:contextURL.getEntitySetOrSingletonOrType();
       writeEntity(metadata, entityType, entity, contextURL,
           options == null ? null : options.getExpand(),
@@ -327,6 +343,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
         new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
       throw cachedException;
     } finally {
+      endSerializationPlans(plansBegun);
       closeCircleStreamBufferOutput(outputStream, cachedException);
     }
   }
@@ -372,37 +389,62 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
           || name == null) {
         throw new SerializerException("Entity id is null.", SerializerException.MessageKeys.MISSING_ID);
       }else{
-        final UriHelper uriHelper = new UriHelperImpl(); 
-        entity.setId(URI.create(name + '(' + uriHelper.buildKeyPredicate(entityType, entity) + ')'));
+        final String id = keyPredicateEncoders.get(entityType).buildEntityId(name, entity);
+        entity.setId(URI.create(id));
+        return id;
       }
     }
     return entity.getId().toASCIIString();
   }
 
-  private boolean areKeyPredicateNamesSelected(SelectOption select, EdmEntityType type) {
-    if (select == null || ExpandSelectHelper.isAll(select)) {
-      return true;
-    }
-    final Set<String> selected = ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
-    for (String key : type.getKeyPredicateNames()) {
-      if (!selected.contains(key)) {
-        return false;
-      }
+  /**
+   * Starts caching serialization plans for the current serializer call.
+   * The plans are kept per thread, so concurrent calls on this serializer do not share them.
+   * @return whether caching has been started by this call and has to be ended
+   * with {@link #endSerializationPlans(boolean)}
+   */
+  protected boolean beginSerializationPlans() {
+    if (serializationPlans.get() != null) {
+      return false;
     }
+    serializationPlans.set(new SerializationPlan.Cache());
     return true;
   }
 
+  /**
+   * Ends caching serialization plans if caching has been started by the current serializer call.
+   * @param begun the result of {@link #beginSerializationPlans()}
+   */
+  protected void endSerializationPlans(final boolean begun) {
+    if (begun) {
+      serializationPlans.remove();
+    }
+  }
+
+  /**
+   * Gets the serialization plan for the given type and options.
+   * Within a serializer call, the plans are created only once for all entities of a collection.
+   */
+  protected SerializationPlan getSerializationPlan(final EdmStructuredType type, final SelectOption select,
+      final ExpandOption expand) {
+    final SerializationPlan.Cache cache = serializationPlans.get();
+    return cache == null ? SerializationPlan.create(type, select, expand) : cache.get(type, select, expand);
+  }
+
   protected void writeEntity(final ServiceMetadata metadata, final EdmEntityType entityType, final Entity entity,
       final ContextURL contextURL, final ExpandOption expand, Integer toDepth, 
       final SelectOption select, final boolean onlyReference, Set<String> ancestors, 
       String name, final JsonGenerator json)
       throws IOException, SerializerException, DecoderException {
     boolean cycle = false;
+    // The id is needed up to three times; it is computed only once.
+    String id = null;
     if (expand != null) {
       if (ancestors == null) {
         ancestors = new HashSet<String>();
       }
-      cycle = !ancestors.add(getEntityId(entity, entityType, name));
+      id = getEntityId(entity, entityType, name);
+      cycle = !ancestors.add(id);
     }
     try {
       json.writeStartObject();
@@ -431,14 +473,16 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
         }
       }
       if (cycle || onlyReference) {
-        json.writeStringField(constants.getId(), getEntityId(entity, entityType, name));
+        json.writeStringField(constants.getId(), id == null ? getEntityId(entity, entityType, name) : id);
       } else {
         final EdmEntityType resolvedType = resolveEntityType(metadata, entityType, entity.getType());
         if ((!isODataMetadataNone && !resolvedType.equals(entityType)) || isODataMetadataFull) {
           json.writeStringField(constants.getType(), "#" + entity.getType());
         }
-        if ((!isODataMetadataNone && !areKeyPredicateNamesSelected(select, resolvedType)) || isODataMetadataFull) {
-          json.writeStringField(constants.getId(), getEntityId(entity, resolvedType, name));
+        if ((!isODataMetadataNone
+            && !getSerializationPlan(resolvedType, select, expand).areKeyPredicateNamesSelected())
+            || isODataMetadataFull) {
+          json.writeStringField(constants.getId(), id == null ? getEntityId(entity, resolvedType, name) : id);
         }
         
         if (isODataMetadataFull) {
@@ -458,7 +502,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       json.writeEndObject();
     } finally {
       if (expand != null && !cycle && ancestors != null) {
-        ancestors.remove(getEntityId(entity, entityType, name));
+        ancestors.remove(id);
       }
     }
   }
@@ -527,30 +571,25 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final List<Property> properties,
       final SelectOption select, final JsonGenerator json, Linked linked, ExpandOption expand)
       throws IOException, SerializerException {
-    final boolean all = ExpandSelectHelper.isAll(select);
-    final Set<String> selected = all ? new HashSet<String>() :
-        ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
-    addKeyPropertiesToSelected(selected, type);
-    Set<List<String>> expandedPaths = ExpandSelectHelper.getExpandedItemsPath(expand);
-    for (final String propertyName : type.getPropertyNames()) {
-      if (all || selected.contains(propertyName)) {
-        final EdmProperty edmProperty = type.getStructuralProperty(propertyName);
-        final Property property = findProperty(propertyName, properties);
-        final Set<List<String>> selectedPaths = all || edmProperty.isPrimitive() ? null :
-            ExpandSelectHelper.getSelectedPaths(select.getSelectItems(), propertyName);
-        writeProperty(metadata, edmProperty, property, selectedPaths, json, expandedPaths, linked, expand);
-      }
-    }
-  }
-  
-  private void addKeyPropertiesToSelected(Set<String> selected, EdmStructuredType type) {
-    if (!selected.isEmpty() && type instanceof EdmEntityType) {
-      List<String> keyNames = ((EdmEntityType) type).getKeyPredicateNames();
-      for (String key : keyNames) {
-        if (!selected.contains(key)) {
-          selected.add(key);
+    final SerializationPlan plan = getSerializationPlan(type, select, expand);
+    final Set<List<String>> expandedPaths = plan.getExpandedPaths();
+    // Indexed entities are read by slot, without searching and without binding property objects to them.
+    final IndexedEntity indexedEntity = linked instanceof IndexedEntity ? (IndexedEntity) linked : null;
+    int position = 0;
+    for (int index = 0; index < plan.getPropertyCount(); index++) {
+      final SerializationPlan.PropertyPlan propertyPlan = plan.getProperty(index);
+      Property property = null;
+      if (indexedEntity == null) {
+        final int found = plan.findProperty(index, properties, position);
+        if (found >= 0) {
+          property = properties.get(found);
+          position = found + 1;
         }
+      } else {
+        property = indexedEntity.readProperty(propertyPlan.getName());
       }
+      writeProperty(metadata, propertyPlan.getEdmProperty(), property, propertyPlan.getSelectedPaths(),
+          json, expandedPaths, linked, expand);
     }
   }
 
@@ -728,7 +767,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     }
   }
   
-  private void writePropertyType(final EdmProperty edmProperty, JsonGenerator json)
+  void writePropertyType(final EdmProperty edmProperty, JsonGenerator json)
       throws SerializerException, IOException {
     if (!isODataMetadataFull) {
       return;
@@ -929,6 +968,11 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   protected void writePrimitiveValue(final String name, final EdmPrimitiveType type, final Object primitiveValue,
       final Boolean isNullable, final Integer maxLength, final Integer precision, final Integer scale,
       final Boolean isUnicode, final JsonGenerator json) throws EdmPrimitiveTypeException, IOException {
+    // Fast path for the most common types that avoids the conversion to String.
+    if (primitiveValue != null
+        && JsonPrimitiveWriter.write(type, primitiveValue, precision, scale, isIEEE754Compatible, json)) {
+      return;
+    }
     final String value = type.valueToString(primitiveValue,
         isNullable, maxLength, precision, scale, isUnicode);
     if (value == null) {
@@ -1110,7 +1154,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = jsonFactory.createGenerator(outputStream);
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);
@@ -1150,13 +1194,14 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final Property property, final ComplexSerializerOptions options) throws SerializerException {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
+    final boolean plansBegun = beginSerializationPlans();
     try {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
       final String name =  contextURL == null ? null:
         contextURL.getEntitySetOrSingletonOrType();
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = jsonFactory.createGenerator(outputStream);
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);      
@@ -1202,6 +1247,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
           new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
       throw cachedException;
     } finally {
+      endSerializationPlans(plansBegun);
       closeCircleStreamBufferOutput(outputStream, cachedException);
     }
   }
@@ -1215,7 +1261,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = jsonFactory.createGenerator(outputStream);
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);
@@ -1249,11 +1295,12 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final Property property, final ComplexSerializerOptions options) throws SerializerException {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
+    final boolean plansBegun = beginSerializationPlans();
     try {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       outputStream = buffer.getOutputStream();
-      JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      JsonGenerator json = jsonFactory.createGenerator(outputStream);
       json.writeStartObject();
       writeContextURL(contextURL, json);
       writeMetadataETag(metadata, json);
@@ -1285,6 +1332,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
           new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
       throw cachedException;
     } finally {
+      endSerializationPlans(plansBegun);
       closeCircleStreamBufferOutput(outputStream, cachedException);
     }
   }
@@ -1300,7 +1348,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       final UriHelper uriHelper = new UriHelperImpl();
       outputStream = buffer.getOutputStream();
-      final JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      final JsonGenerator json = jsonFactory.createGenerator(outputStream);
 
       json.writeStartObject();
       writeContextURL(contextURL, json);
@@ -1332,7 +1380,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       CircleStreamBuffer buffer = new CircleStreamBuffer();
       final UriHelper uriHelper = new UriHelperImpl();
       outputStream = buffer.getOutputStream();
-      final JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+      final JsonGenerator json = jsonFactory.createGenerator(outputStream);
       json.writeStartObject();
 
       writeContextURL(contextURL, json);
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.serializer.RowBatch;
+import org.apache.olingo.server.api.serializer.SerializerException;
+
+/**
+ * Assignment of the columns of one {@link RowBatch} to the properties to be serialized.
+ * <p>The columns are checked once per batch against the properties of the type,
+ * so that the values can be written row by row without further checks.</p>
+ */
+public final class RowBatchLayout {
+
+  private final int[] columns;
+  private final int[] keyColumns;
+
+  private RowBatchLayout(final int[] columns, final int[] keyColumns) {
+    this.columns = columns;
+    this.keyColumns = keyColumns;
+  }
+
+  /**
+   * Creates the layout of a batch.
+   * @param type the type of the rows
+   * @param properties the properties to be serialized, in the order they are written
+   * @param batch the batch
+   * @return the layout
+   * @throws SerializerException if a column does not belong to a single-valued primitive property of the type
+   * or its values are not held in a way suitable for the type of the property
+   */
+  public static RowBatchLayout create(final EdmStructuredType type, final List<EdmProperty> properties,
+      final RowBatch batch) throws SerializerException {
+    int[] columns = new int[properties.size()];
+    for (int index = 0; index < columns.length; index++) {
+      columns[index] = -1;
+    }
+    for (int column = 0; column < batch.getColumnCount(); column++) {
+      final String name = batch.getPropertyName(column);
+      final EdmProperty edmProperty = type.getStructuralProperty(name);
+      if (edmProperty == null || !isSuitable(edmProperty, batch.getKind(column))) {
+        throw new SerializerException("Unsupported column!",
+            SerializerException.MessageKeys.UNSUPPORTED_COLUMN, name);
+      }
+      final int index = properties.indexOf(edmProperty);
+      if (index >= 0) {
+        columns[index] = column;
+      }
+    }
+    return new RowBatchLayout(columns,
+        type instanceof EdmEntityType ? findKeyColumns((EdmEntityType) type, batch) : null);
+  }
+
+  private static boolean isSuitable(final EdmProperty edmProperty, final RowBatch.ColumnKind kind) {
+    final EdmType type = edmProperty.getType();
+    if (edmProperty.isCollection()
+        || type.getKind() != EdmTypeKind.PRIMITIVE
+        && type.getKind() != EdmTypeKind.ENUM && type.getKind() != EdmTypeKind.DEFINITION
+        || type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Stream)) {
+      return false;
+    }
+    switch (kind) {
+    case LONG:
+      return isOneOf(type, EdmPrimitiveTypeKind.Byte, EdmPrimitiveTypeKind.SByte, EdmPrimitiveTypeKind.Int16,
+          EdmPrimitiveTypeKind.Int32, EdmPrimitiveTypeKind.Int64, EdmPrimitiveTypeKind.Decimal,
+          EdmPrimitiveTypeKind.Date, EdmPrimitiveTypeKind.DateTimeOffset);
+    case DOUBLE:
+      return isOneOf(type, EdmPrimitiveTypeKind.Double, EdmPrimitiveTypeKind.Single, EdmPrimitiveTypeKind.Decimal);
+    case BOOLEAN:
+      return isOneOf(type, EdmPrimitiveTypeKind.Boolean);
+    default:
+      return true;
+    }
+  }
+
+  private static boolean isOneOf(final EdmType type, final EdmPrimitiveTypeKind... kinds) {
+    for (final EdmPrimitiveTypeKind kind : kinds) {
+      if (type == EdmPrimitiveTypeFactory.getInstance(kind)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the columns of all key properties.
+   * @return the columns or <code>null</code> if a key property has no column or is inside a complex property
+   */
+  private static int[] findKeyColumns(final EdmEntityType type, final RowBatch batch) {
+    final List<String> keyNames = type.getKeyPredicateNames();
+    int[] keyColumns = new int[keyNames.size()];
+    for (int index = 0; index < keyColumns.length; index++) {
+      final EdmKeyPropertyRef keyRef = type.getKeyPropertyRef(keyNames.get(index));
+      keyColumns[index] = -1;
+      for (int column = 0; column < batch.getColumnCount(); column++) {
+        if (batch.getPropertyName(column).equals(keyRef.getName())) {
+          keyColumns[index] = column;
+        }
+      }
+      if (keyColumns[index] < 0) {
+        return null;
+      }
+    }
+    return keyColumns;
+  }
+
+  /** Gets the column of the property at the given index or -1 if the batch has no column for it. */
+  public int getColumn(final int propertyIndex) {
+    return columns[propertyIndex];
+  }
+
+  /** Returns whether the batch has columns for all key properties, so that entity ids can be built. */
+  public boolean hasKeyColumns() {
+    return keyColumns != null;
+  }
+
+  /**
+   * Gets the key values of a row in the order of {@link EdmEntityType#getKeyPredicateNames()}.
+   * @param batch the batch
+   * @param row the row
+   * @param keyValues the array to fill
+   * @return the filled array
+   */
+  public Object[] getKeyValues(final RowBatch batch, final int row, final Object[] keyValues) {
+    for (int index = 0; index < keyColumns.length; index++) {
+      keyValues[index] = batch.getValue(keyColumns[index], row);
+    }
+    return keyValues;
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+
+/**
+ * Pre-computed information to serialize the structural properties of instances of one structured type
+ * with given select and expand options.
+ * <p>The select and expand options are evaluated only once when the plan is created;
+ * the plan is then applied to every instance without recomputing the selected properties
+ * and paths.</p>
+ * <p>The plan keeps the {@link EdmProperty} of each selected property. Its type and facets are not copied:
+ * the EDM implementation resolves the type once and returns the facets from fields, and the serializers
+ * choose the writer for a primitive value with a few identity comparisons of the type.</p>
+ * <p>A plan is immutable and can be used concurrently.</p>
+ */
+public final class SerializationPlan {
+
+  private final EdmStructuredType type;
+  private final SelectOption select;
+  private final ExpandOption expand;
+  private final PropertyPlan[] properties;
+  private final Set<List<String>> expandedPaths;
+  private final boolean keyPredicateNamesSelected;
+
+  private SerializationPlan(final EdmStructuredType type, final SelectOption select, final ExpandOption expand,
+      final PropertyPlan[] properties, final Set<List<String>> expandedPaths,
+      final boolean keyPredicateNamesSelected) {
+    this.type = type;
+    this.select = select;
+    this.expand = expand;
+    this.properties = properties;
+    this.expandedPaths = expandedPaths;
+    this.keyPredicateNamesSelected = keyPredicateNamesSelected;
+  }
+
+  /**
+   * Creates a plan for the given type and options.
+   * @param type the structured type
+   * @param select the select option (can be <code>null</code>)
+   * @param expand the expand option (can be <code>null</code>)
+   * @return the plan
+   */
+  public static SerializationPlan create(final EdmStructuredType type, final SelectOption select,
+      final ExpandOption expand) {
+    final boolean all = ExpandSelectHelper.isAll(select);
+    final Set<String> selected = all ? null : ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
+    boolean keysSelected = true;
+    if (!all && type instanceof EdmEntityType) {
+      final List<String> keyNames = ((EdmEntityType) type).getKeyPredicateNames();
+      for (final String key : keyNames) {
+        if (!selected.contains(key)) {
+          keysSelected = false;
+        }
+      }
+      // Key properties are always serialized.
+      if (!selected.isEmpty()) {
+        selected.addAll(keyNames);
+      }
+    }
+    List<PropertyPlan> propertyPlans = new ArrayList<PropertyPlan>();
+    for (final String propertyName : type.getPropertyNames()) {
+      if (all || selected.contains(propertyName)) {
+        final EdmProperty edmProperty = type.getStructuralProperty(propertyName);
+        final Set<List<String>> selectedPaths = all || edmProperty.isPrimitive() ? null :
+            ExpandSelectHelper.getSelectedPaths(select.getSelectItems(), propertyName);
+        propertyPlans.add(new PropertyPlan(edmProperty, selectedPaths));
+      }
+    }
+    return new SerializationPlan(type, select, expand,
+        propertyPlans.toArray(new PropertyPlan[propertyPlans.size()]),
+        ExpandSelectHelper.getExpandedItemsPath(expand),
+        keysSelected);
+  }
+
+  /**
+   * Checks whether this plan has been created for exactly the given type and options.
+   * The check is done on object identity, so it does not need any computation.
+   */
+  public boolean isFor(final EdmStructuredType type, final SelectOption select, final ExpandOption expand) {
+    return this.type == type && this.select == select && this.expand == expand;
+  }
+
+  public EdmStructuredType getType() {
+    return type;
+  }
+
+  /** Gets the number of structural properties to be serialized, in the order of the type definition. */
+  public int getPropertyCount() {
+    return properties.length;
+  }
+
+  public PropertyPlan getProperty(final int index) {
+    return properties[index];
+  }
+
+  /** Gets the paths of expanded navigation properties in complex properties (never <code>null</code>). */
+  public Set<List<String>> getExpandedPaths() {
+    return expandedPaths;
+  }
+
+  /** Returns whether all key properties of an entity type are selected explicitly. */
+  public boolean areKeyPredicateNamesSelected() {
+    return keyPredicateNamesSelected;
+  }
+
+  /**
+   * Finds the property of the plan's property at the given index in the list of properties of an instance.
+   * <p>Instances usually contain their properties in the order of the type definition, so the search starts
+   * at the position given by the caller and the caller continues with the position following the found
+   * property. Only if the property is not found after that position, the beginning of the list is searched.</p>
+   * @param index the index of the property in this plan
+   * @param instanceProperties the properties of the instance
+   * @param start the expected position of the property in the list of instance properties
+   * @return the position of the property in the list of instance properties or -1 if not found
+   */
+  public int findProperty(final int index, final List<Property> instanceProperties, final int start) {
+    final String name = properties[index].getName();
+    final int size = instanceProperties.size();
+    for (int position = start; position < size; position++) {
+      if (name.equals(instanceProperties.get(position).getName())) {
+        return position;
+      }
+    }
+    for (int position = 0; position < start && position < size; position++) {
+      if (name.equals(instanceProperties.get(position).getName())) {
+        return position;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Plans created during one serializer call.
+   * <p>Plans are found by the identity of type and options, so the cache only helps while the same option objects
+   * are used, i.e., for all instances of a collection; it must not outlive the call to keep no option objects
+   * alive. The number of plans is bounded because expand options can be created on the fly, e.g., for $levels.
+   * A cache is not thread-safe.</p>
+   */
+  public static final class Cache {
+    private static final int MAX_PLANS = 32;
+
+    private final SerializationPlan[] plans = new SerializationPlan[MAX_PLANS];
+    private int size;
+    private int next;
+
+    /**
+     * Gets the plan for the given type and options, creating it if needed.
+     * @param type the structured type
+     * @param select the select option (can be <code>null</code>)
+     * @param expand the expand option (can be <code>null</code>)
+     * @return the plan
+     */
+    public SerializationPlan get(final EdmStructuredType type, final SelectOption select,
+        final ExpandOption expand) {
+      for (int index = 0; index < size; index++) {
+        if (plans[index].isFor(type, select, expand)) {
+          return plans[index];
+        }
+      }
+      final SerializationPlan plan = create(type, select, expand);
+      plans[next] = plan;
+      next = (next + 1) % MAX_PLANS;
+      if (size < MAX_PLANS) {
+        size++;
+      }
+      return plan;
+    }
+  }
+
+  /** Pre-computed information about a single structural property. */
+  public static final class PropertyPlan {
+    private final EdmProperty edmProperty;
+    private final String name;
+    private final Set<List<String>> selectedPaths;
+
+    private PropertyPlan(final EdmProperty edmProperty, final Set<List<String>> selectedPaths) {
+      this.edmProperty = edmProperty;
+      name = edmProperty.getName();
+      this.selectedPaths = selectedPaths;
+    }
+
+    public EdmProperty getEdmProperty() {
+      return edmProperty;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /** Gets the selected paths inside a complex property or <code>null</code> if all is selected. */
+    public Set<List<String>> getSelectedPaths() {
+      return selectedPaths;
+    }
+  }
+}
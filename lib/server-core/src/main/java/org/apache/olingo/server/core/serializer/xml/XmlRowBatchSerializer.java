@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.xml;
+
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+import org.apache.olingo.commons.api.edm.geo.Geospatial;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmByte;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmInt16;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmInt32;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmInt64;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmSByte;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmSingle;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.RowBatch;
+import org.apache.olingo.server.api.serializer.RowBatchSource;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.serializer.SerializerStreamResult;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.ODataWritableContent;
+import org.apache.olingo.server.core.serializer.RowBatchStreamSerializer;
+import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
+import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
+import org.apache.olingo.server.core.serializer.utils.RowBatchLayout;
+import org.apache.olingo.server.core.uri.KeyPredicateEncoder;
+
+/**
+ * Atom serializer for entity collections supplied as row batches.
+ * <p>The parts of an entry which are the same for all rows are computed once per response;
+ * integral numbers and booleans are written directly from the column arrays,
+ * all other values take the same way as property values of entities.
+ * The output is the same as for entities with the same property values and ids.</p>
+ */
+public class XmlRowBatchSerializer extends ODataXmlSerializer implements RowBatchStreamSerializer {
+
+  private final KeyPredicateEncoder.Cache keyPredicateEncoders = new KeyPredicateEncoder.Cache();
+
+  @Override
+  public SerializerStreamResult entityCollectionStreamed(final ServiceMetadata metadata,
+      final EdmEntityType entityType, final RowBatchSource source, final EntityCollectionSerializerOptions options)
+      throws SerializerException {
+    return ODataWritableContent.withRowBatches(source, entityType, this, metadata, options);
+  }
+
+  @Override
+  public void entityCollectionIntoStream(final ServiceMetadata metadata, final EdmEntityType entityType,
+      final RowBatchSource source, final EntityCollectionSerializerOptions options, final OutputStream outputStream)
+      throws SerializerException {
+    if (options != null && ExpandSelectHelper.hasExpand(options.getExpand())) {
+      throw new SerializerException("Expand is not supported for row batches.",
+          SerializerException.MessageKeys.NOT_IMPLEMENTED);
+    }
+    final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
+    try {
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
+      writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
+      writer.writeStartElement(ATOM, Constants.ATOM_ELEM_FEED, NS_ATOM);
+      writer.writeNamespace(ATOM, NS_ATOM);
+      writer.writeNamespace(METADATA, NS_METADATA);
+      writer.writeNamespace(DATA, NS_DATA);
+
+      writer.writeAttribute(METADATA, NS_METADATA, Constants.CONTEXT,
+          ContextURLBuilder.create(contextURL).toASCIIString());
+      writeMetadataETag(metadata, writer);
+
+      if (options != null && options.getId() != null) {
+        writer.writeStartElement(ATOM, Constants.ATOM_ELEM_ID, NS_ATOM);
+        writer.writeCharacters(options.getId());
+        writer.writeEndElement();
+      }
+      if (options != null && options.getCount() != null && options.getCount().getValue()
+          && source.getCount() != null) {
+        writer.writeStartElement(METADATA, Constants.ATOM_ELEM_COUNT, NS_METADATA);
+        writer.writeCharacters(String.valueOf(source.getCount()));
+        writer.writeEndElement();
+      }
+      if (source.getNext() != null) {
+        writer.writeStartElement(ATOM, Constants.ATOM_ELEM_LINK, NS_ATOM);
+        writer.writeAttribute(Constants.ATTR_REL, Constants.NEXT_LINK_REL);
+        writer.writeAttribute(Constants.ATTR_HREF, source.getNext().toASCIIString());
+        writer.writeEndElement();
+      }
+
+      writeRowBatches(metadata, entityType, source,
+          options == null ? null : options.getSelect(),
+          options == null ? null : options.xml10InvalidCharReplacement(),
+          options != null && options.getWriteOnlyReferences(),
+          contextURL.getEntitySetOrSingletonOrType(),
+          writer);
+
+      writer.writeEndElement();
+      writer.writeEndDocument();
+      writer.flush();
+    } catch (final XMLStreamException e) {
+      throw new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
+    }
+  }
+
+  private void writeRowBatches(final ServiceMetadata metadata, final EdmEntityType entityType,
+      final RowBatchSource source, final SelectOption select, final String xml10InvalidCharReplacement,
+      final boolean onlyReference, final String name, final XMLStreamWriter writer)
+      throws XMLStreamException, SerializerException {
+    final List<EdmProperty> properties = getSelectedProperties(entityType, select);
+    List<String> typeAttributes = new ArrayList<String>(properties.size());
+    for (final EdmProperty edmProperty : properties) {
+      typeAttributes.add(getTypeAttribute(edmProperty.getType()));
+    }
+    final String term = "#" + entityType.getFullQualifiedName().getFullQualifiedNameAsString();
+    final String updated = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'").format(new Date());
+    final KeyPredicateEncoder encoder = keyPredicateEncoders.get(entityType);
+    Object[] keyValues = new Object[entityType.getKeyPredicateNames().size()];
+    char[] digits = new char[20];
+
+    RowBatch batch;
+    while ((batch = source.nextBatch()) != null) {
+      final RowBatchLayout layout = RowBatchLayout.create(entityType, properties, batch);
+      if (onlyReference && (name == null || !layout.hasKeyColumns())) {
+        throw new SerializerException("Entity id is null.", SerializerException.MessageKeys.MISSING_ID);
+      }
+      for (int row = 0; row < batch.getRowCount(); row++) {
+        final String id = name == null || !layout.hasKeyColumns() ? null :
+            encoder.buildEntityId(name, layout.getKeyValues(batch, row, keyValues));
+        if (onlyReference) {
+          writer.writeStartElement(METADATA, Constants.ATOM_ELEM_ENTRY_REF, NS_METADATA);
+          writer.writeAttribute(Constants.ATOM_ATTR_ID, id);
+          writer.writeEndElement();
+          continue;
+        }
+        writeEntryStart(entityType, id, updated, term, writer);
+        writer.writeStartElement(METADATA, Constants.PROPERTIES, NS_METADATA);
+        for (int index = 0; index < properties.size(); index++) {
+          writeCell(metadata, properties.get(index), typeAttributes.get(index), batch, layout.getColumn(index), row,
+              xml10InvalidCharReplacement, digits, writer);
+        }
+        writer.writeEndElement(); // properties
+        if (!entityType.hasStream()) { // content
+          writer.writeEndElement();
+        }
+        writer.writeEndElement(); // entry
+      }
+    }
+  }
+
+  /** Gets the selected properties in the order of the type definition; key properties are always selected. */
+  private List<EdmProperty> getSelectedProperties(final EdmEntityType entityType, final SelectOption select) {
+    final boolean all = ExpandSelectHelper.isAll(select);
+    final Set<String> selected = all ? null : ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
+    List<EdmProperty> properties = new ArrayList<EdmProperty>();
+    for (final String propertyName : entityType.getPropertyNames()) {
+      if (all || selected.contains(propertyName) || entityType.getKeyPredicateNames().contains(propertyName)) {
+        properties.add(entityType.getStructuralProperty(propertyName));
+      }
+    }
+    return properties;
+  }
+
+  /** Gets the value of the type attribute of a primitive property or <code>null</code> if none is written. */
+  private String getTypeAttribute(final EdmType type) {
+    if (type.getKind() == EdmTypeKind.ENUM || type.getKind() == EdmTypeKind.DEFINITION) {
+      return "#" + type.getFullQualifiedName().getFullQualifiedNameAsString();
+    }
+    return type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.String) ? null : type.getName();
+  }
+
+  /** Writes everything of an entry up to the start of the properties, like for an entity without links. */
+  private void writeEntryStart(final EdmEntityType entityType, final String id, final String updated,
+      final String term, final XMLStreamWriter writer) throws XMLStreamException {
+    writer.writeStartElement(ATOM, Constants.ATOM_ELEM_ENTRY, NS_ATOM);
+    if (id != null) {
+      writer.writeStartElement(NS_ATOM, Constants.ATOM_ELEM_ID);
+      writer.writeCharacters(id);
+      writer.writeEndElement();
+    }
+
+    writer.writeStartElement(NS_ATOM, Constants.ATTR_TITLE);
+    writer.writeEndElement();
+    writer.writeStartElement(NS_ATOM, Constants.ATOM_ELEM_SUMMARY);
+    writer.writeEndElement();
+    writer.writeStartElement(NS_ATOM, Constants.ATOM_ELEM_UPDATED);
+    writer.writeCharacters(updated);
+    writer.writeEndElement();
+    writer.writeStartElement(NS_ATOM, "author");
+    writer.writeStartElement(NS_ATOM, "name");
+    writer.writeEndElement();
+    writer.writeEndElement();
+
+    if (id != null) {
+      writer.writeStartElement(NS_ATOM, Constants.ATOM_ELEM_LINK);
+      writer.writeAttribute(Constants.ATTR_REL, Constants.EDIT_LINK_REL);
+      writer.writeAttribute(Constants.ATTR_HREF, id);
+      writer.writeEndElement();
+    }
+
+    if (entityType.hasStream()) {
+      writer.writeStartElement(NS_ATOM, Constants.ATOM_ELEM_CONTENT);
+      if (id != null) {
+        writer.writeAttribute(Constants.ATOM_ATTR_SRC, id + (id.endsWith("/") ? "" : "/") + "$value");
+      }
+      writer.writeEndElement();
+    }
+
+    for (final String propertyName : entityType.getNavigationPropertyNames()) {
+      writer.writeStartElement(ATOM, Constants.ATOM_ELEM_LINK, NS_ATOM);
+      writer.writeAttribute(Constants.ATTR_REL, Constants.NS_NAVIGATION_LINK_REL + propertyName);
+      writer.writeAttribute(Constants.ATTR_TYPE, Constants.ENTITY_SET_NAVIGATION_LINK_TYPE);
+      writer.writeAttribute(Constants.ATTR_TITLE, propertyName);
+      if (id != null) {
+        writer.writeAttribute(Constants.ATTR_HREF, id + "/" + propertyName);
+      }
+      writer.writeEndElement();
+    }
+
+    writer.writeStartElement(ATOM, Constants.ATOM_ELEM_CATEGORY, NS_ATOM);
+    writer.writeAttribute(Constants.ATOM_ATTR_SCHEME, Constants.NS_SCHEME);
+    writer.writeAttribute(Constants.ATOM_ATTR_TERM, term);
+    writer.writeEndElement();
+
+    if (!entityType.hasStream()) {
+      writer.writeStartElement(NS_ATOM, Constants.ATOM_ELEM_CONTENT);
+      writer.writeAttribute(Constants.ATTR_TYPE, "application/xml");
+    }
+  }
+
+  private void writeCell(final ServiceMetadata metadata, final EdmProperty edmProperty, final String typeAttribute,
+      final RowBatch batch, final int column, final int row, final String xml10InvalidCharReplacement,
+      final char[] digits, final XMLStreamWriter writer) throws XMLStreamException, SerializerException {
+    if (column < 0 || batch.isNull(column, row)) {
+      writeProperty(metadata, edmProperty, null, null, xml10InvalidCharReplacement, writer,
+          Collections.<List<String>> emptySet(), null, null);
+      return;
+    }
+    writer.writeStartElement(DATA, edmProperty.getName(), NS_DATA);
+    if (typeAttribute != null) {
+      writer.writeAttribute(METADATA, NS_METADATA, Constants.ATTR_TYPE, typeAttribute);
+    }
+    final EdmPrimitiveType type = (EdmPrimitiveType) edmProperty.getType();
+    Object value;
+    switch (batch.getKind(column)) {
+    case LONG:
+      final long longValue = batch.getLongs(column)[row];
+      if (isInRange(type, longValue)) {
+        writeLong(longValue, digits, writer);
+        value = null;
+      } else {
+        value = longValue;
+      }
+      break;
+    case DOUBLE:
+      final double doubleValue = batch.getDoubles(column)[row];
+      // Edm.Single expects float values; the conditional operator would convert them back to double.
+      if (type == EdmSingle.getInstance()) {
+        value = Float.valueOf((float) doubleValue);
+      } else {
+        value = Double.valueOf(doubleValue);
+      }
+      break;
+    case BOOLEAN:
+      writer.writeCharacters(batch.getBooleans(column)[row] ? "true" : "false");
+      value = null;
+      break;
+    default:
+      value = batch.getObjects(column)[row];
+      if (value instanceof Geospatial) {
+        throw new SerializerException("Property type not yet supported!",
+            SerializerException.MessageKeys.UNSUPPORTED_PROPERTY_TYPE, edmProperty.getName());
+      }
+    }
+    if (value != null) {
+      try {
+        writePrimitiveValue(type, value, edmProperty.isNullable(), edmProperty.getMaxLength(),
+            edmProperty.getPrecision(), edmProperty.getScale(), edmProperty.isUnicode(), xml10InvalidCharReplacement,
+            writer);
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new SerializerException("Wrong value for property!", e,
+            SerializerException.MessageKeys.WRONG_PROPERTY_VALUE, edmProperty.getName(), value.toString());
+      }
+    }
+    writer.writeEndElement();
+  }
+
+  /** Returns whether the value is a valid value of an integer type, so that it can be written as it is. */
+  private static boolean isInRange(final EdmPrimitiveType type, final long value) {
+    return type == EdmInt64.getInstance()
+        || type == EdmInt32.getInstance() && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE
+        || type == EdmInt16.getInstance() && value >= Short.MIN_VALUE && value <= Short.MAX_VALUE
+        || type == EdmByte.getInstance() && value >= 0 && value < 1 << Byte.SIZE
+        || type == EdmSByte.getInstance() && value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE;
+  }
+
+  /** Writes the decimal digits of the value from the given buffer, without creating a string. */
+  private static void writeLong(final long value, final char[] digits, final XMLStreamWriter writer)
+      throws XMLStreamException {
+    // Negative numbers are used so that Long.MIN_VALUE does not overflow.
+    long remaining = value > 0 ? -value : value;
+    int position = digits.length;
+    do {
+      digits[--position] = (char) ('0' - remaining % 10);
+      remaining /= 10;
+    } while (remaining != 0);
+    if (value < 0) {
+      digits[--position] = '-';
+    }
+    writer.writeCharacters(digits, position, digits.length - position);
+  }
+}
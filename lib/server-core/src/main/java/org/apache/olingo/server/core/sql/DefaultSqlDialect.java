@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.sql;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+
+/**
+ * Dialect of standard SQL; databases which deviate from the standard can be supported by subclasses.
+ * Identifiers are quoted with double quotes, the result is restricted with
+ * <code>OFFSET ... ROWS FETCH FIRST ... ROWS ONLY</code>, and sort items have explicit
+ * <code>NULLS FIRST</code> or <code>NULLS LAST</code>.
+ */
+public class DefaultSqlDialect implements SqlDialect {
+
+  @Override
+  public String quoteIdentifier(final String identifier) {
+    return '"' + identifier.replace("\"", "\"\"") + '"';
+  }
+
+  @Override
+  public String binaryOperator(final BinaryOperatorKind operator, final String left, final String right) {
+    switch (operator) {
+    case MUL:
+      return '(' + left + " * " + right + ')';
+    case DIV:
+      return '(' + left + " / " + right + ')';
+    case MOD:
+      return "MOD(" + left + ", " + right + ')';
+    case ADD:
+      return '(' + left + " + " + right + ')';
+    case SUB:
+      return '(' + left + " - " + right + ')';
+    case GT:
+      return '(' + left + " > " + right + ')';
+    case GE:
+      return '(' + left + " >= " + right + ')';
+    case LT:
+      return '(' + left + " < " + right + ')';
+    case LE:
+      return '(' + left + " <= " + right + ')';
+    case EQ:
+      return '(' + left + " = " + right + ')';
+    case NE:
+      return '(' + left + " <> " + right + ')';
+    default:
+      return null;
+    }
+  }
+
+  @Override
+  public String methodCall(final MethodKind method, final List<String> parameters) {
+    final String first = parameters.isEmpty() ? null : parameters.get(0);
+    final String second = parameters.size() < 2 ? null : parameters.get(1);
+    switch (method) {
+    case CONTAINS:
+      return "(POSITION(" + second + " IN " + first + ") > 0)";
+    case STARTSWITH:
+      return "(POSITION(" + second + " IN " + first + ") = 1)";
+    case ENDSWITH:
+      return "(SUBSTRING(" + first + " FROM CHAR_LENGTH(" + first + ") - CHAR_LENGTH(" + second + ") + 1) = "
+          + second + ')';
+    case LENGTH:
+      return "CHAR_LENGTH(" + first + ')';
+    case INDEXOF:
+      return "(POSITION(" + second + " IN " + first + ") - 1)";
+    case SUBSTRING:
+      return "SUBSTRING(" + first + " FROM " + second + " + 1"
+          + (parameters.size() > 2 ? " FOR " + parameters.get(2) : "") + ')';
+    case TOLOWER:
+      return "LOWER(" + first + ')';
+    case TOUPPER:
+      return "UPPER(" + first + ')';
+    case TRIM:
+      return "TRIM(" + first + ')';
+    case CONCAT:
+      return '(' + first + " || " + second + ')';
+    case YEAR:
+    case MONTH:
+    case DAY:
+    case HOUR:
+    case MINUTE:
+    case SECOND:
+      return "EXTRACT(" + method.name() + " FROM " + first + ')';
+    case ROUND:
+      return "ROUND(" + first + ')';
+    case FLOOR:
+      return "FLOOR(" + first + ')';
+    case CEILING:
+      return "CEILING(" + first + ')';
+    case NOW:
+      return "CURRENT_TIMESTAMP";
+    default:
+      return null;
+    }
+  }
+
+  @Override
+  public String orderByItem(final String expression, final boolean descending) {
+    return expression + (descending ? " DESC NULLS LAST" : " ASC NULLS FIRST");
+  }
+
+  @Override
+  public SqlFragment limitClause(final Integer skip, final Integer top) {
+    if (skip == null && top == null) {
+      return null;
+    }
+    StringBuilder clause = new StringBuilder();
+    List<Object> parameters = new ArrayList<Object>(2);
+    if (skip != null) {
+      clause.append("OFFSET ? ROWS");
+      parameters.add(skip);
+    }
+    if (top != null) {
+      clause.append(clause.length() > 0 ? " " : "").append("FETCH FIRST ? ROWS ONLY");
+      parameters.add(top);
+    }
+    return new SqlFragment(clause.toString(), parameters);
+  }
+
+  @Override
+  public Object toParameter(final Object value, final EdmPrimitiveType type) {
+    if (value instanceof Calendar) {
+      final long millis = ((Calendar) value).getTimeInMillis();
+      final EdmPrimitiveTypeKind kind = EdmPrimitiveTypeKind.valueOfFQN(type.getFullQualifiedName());
+      if (kind == EdmPrimitiveTypeKind.Date) {
+        return new Date(millis);
+      } else if (kind == EdmPrimitiveTypeKind.TimeOfDay) {
+        return new Time(millis);
+      } else {
+        return new Timestamp(millis);
+      }
+    }
+    return value;
+  }
+}
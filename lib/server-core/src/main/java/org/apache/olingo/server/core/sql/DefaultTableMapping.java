@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.sql;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+
+/**
+ * Default mapping: the table has the name of the entity type, and a column has the name of its property;
+ * the names of properties nested in complex properties are joined with underscores.
+ */
+public class DefaultTableMapping implements TableMapping {
+
+  @Override
+  public String getTableName(final EdmEntityType entityType) {
+    return entityType.getName();
+  }
+
+  @Override
+  public String getColumnName(final EdmEntityType entityType, final List<String> path) {
+    StringBuilder result = new StringBuilder();
+    for (final String name : path) {
+      if (result.length() > 0) {
+        result.append('_');
+      }
+      result.append(name);
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dialect for databases which restrict the result with <code>LIMIT ... OFFSET ...</code>,
+ * like H2, HSQLDB, and PostgreSQL.
+ */
+public class LimitOffsetSqlDialect extends DefaultSqlDialect {
+
+  @Override
+  public SqlFragment limitClause(final Integer skip, final Integer top) {
+    if (skip == null && top == null) {
+      return null;
+    }
+    StringBuilder clause = new StringBuilder();
+    List<Object> parameters = new ArrayList<Object>(2);
+    if (top != null) {
+      clause.append("LIMIT ?");
+      parameters.add(top);
+    }
+    if (skip != null) {
+      clause.append(clause.length() > 0 ? " " : "").append("OFFSET ?");
+      parameters.add(skip);
+    }
+    return new SqlFragment(clause.toString(), parameters);
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.sql;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+
+/**
+ * Database-specific parts of the SQL created by the {@link SqlTranslator}.
+ * Operands passed to the methods are complete SQL expressions which do not need further parentheses.
+ */
+public interface SqlDialect {
+
+  /**
+   * Quotes the name of a table or column.
+   * @param identifier the unquoted name
+   * @return the quoted name
+   */
+  String quoteIdentifier(String identifier);
+
+  /**
+   * Creates the SQL for an arithmetic or comparison operator.
+   * The logical operators and comparisons with <code>null</code> are handled by the translator.
+   * @param operator the operator
+   * @param left the left operand
+   * @param right the right operand
+   * @return the SQL expression, or <code>null</code> if the operator is not supported
+   */
+  String binaryOperator(BinaryOperatorKind operator, String left, String right);
+
+  /**
+   * Creates the SQL for a method call.
+   * Calls of <code>contains</code>, <code>startswith</code>, and <code>endswith</code> with a literal
+   * as second parameter are translated into <code>LIKE</code> by the translator and do not reach the dialect.
+   * @param method the method
+   * @param parameters the parameters
+   * @return the SQL expression, or <code>null</code> if the method is not supported
+   */
+  String methodCall(MethodKind method, List<String> parameters);
+
+  /**
+   * Creates an item of the <code>ORDER BY</code> clause.
+   * In OData, <code>null</code> values come before all other values in ascending order.
+   * @param expression the sort expression
+   * @param descending whether the order is descending
+   */
+  String orderByItem(String expression, boolean descending);
+
+  /**
+   * Creates the clause which restricts the rows of the result, to be appended after the <code>ORDER BY</code> clause.
+   * @param skip the number of rows to skip, or <code>null</code>
+   * @param top the maximum number of rows, or <code>null</code>
+   * @return the clause, or <code>null</code> if both numbers are <code>null</code>
+   */
+  SqlFragment limitClause(Integer skip, Integer top);
+
+  /**
+   * Converts a literal value into the value bound to the statement parameter.
+   * @param value the value in the default representation of its type, not <code>null</code>
+   * @param type the type of the literal
+   */
+  Object toParameter(Object value, EdmPrimitiveType type);
+}
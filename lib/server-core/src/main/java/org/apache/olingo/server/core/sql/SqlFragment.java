@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Piece of SQL text with <code>?</code> placeholders together with the values of the placeholders, in order.
+ * Fragments are immutable.
+ */
+public final class SqlFragment {
+
+  private final String sql;
+  private final List<Object> parameters;
+
+  /**
+   * Creates a fragment.
+   * @param sql the SQL text
+   * @param parameters the values of the placeholders in the SQL text, in order
+   */
+  public SqlFragment(final String sql, final List<?> parameters) {
+    this.sql = sql;
+    this.parameters = parameters.isEmpty() ?
+        Collections.emptyList() :
+        Collections.unmodifiableList(new ArrayList<Object>(parameters));
+  }
+
+  /** Creates a fragment without parameters. */
+  public SqlFragment(final String sql) {
+    this(sql, Collections.emptyList());
+  }
+
+  /** Gets the SQL text. */
+  public String getSql() {
+    return sql;
+  }
+
+  /** Gets the values of the placeholders, in order; the list cannot be modified. */
+  public List<Object> getParameters() {
+    return parameters;
+  }
+
+  @Override
+  public String toString() {
+    return parameters.isEmpty() ? sql : sql + " " + parameters;
+  }
+}
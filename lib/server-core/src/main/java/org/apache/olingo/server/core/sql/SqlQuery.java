@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>SQL statements and clauses translated from the query options of a request.</p>
+ * <p>Clauses are returned without their keywords, so they can also be combined with other SQL;
+ * {@link #getSelect()} and {@link #getCount()} return complete statements.</p>
+ */
+public class SqlQuery {
+
+  private final String table;
+  private final List<String> selectedProperties;
+  private final List<String> columns;
+  private final SqlFragment where;
+  private final SqlFragment orderBy;
+  private final SqlFragment limit;
+  private final boolean countRequested;
+
+  SqlQuery(final String table, final List<String> selectedProperties, final List<String> columns,
+      final SqlFragment where, final SqlFragment orderBy, final SqlFragment limit, final boolean countRequested) {
+    this.table = table;
+    this.selectedProperties = Collections.unmodifiableList(selectedProperties);
+    this.columns = Collections.unmodifiableList(columns);
+    this.where = where;
+    this.orderBy = orderBy;
+    this.limit = limit;
+    this.countRequested = countRequested;
+  }
+
+  /** Gets the quoted name of the table. */
+  public String getTable() {
+    return table;
+  }
+
+  /**
+   * Gets the paths of the selected primitive properties, with complex properties and the property
+   * separated by slashes, in the order of the columns of the select list.
+   * Key properties are always selected.
+   */
+  public List<String> getSelectedProperties() {
+    return selectedProperties;
+  }
+
+  /** Gets the quoted names of the selected columns, in the order of the select list. */
+  public List<String> getColumns() {
+    return columns;
+  }
+
+  /** Gets the condition of the <code>WHERE</code> clause, or <code>null</code> if there is no filter. */
+  public SqlFragment getWhereClause() {
+    return where;
+  }
+
+  /** Gets the items of the <code>ORDER BY</code> clause, or <code>null</code> if there is no order. */
+  public SqlFragment getOrderByClause() {
+    return orderBy;
+  }
+
+  /** Gets the clause restricting the number of rows, or <code>null</code> if there is no restriction. */
+  public SqlFragment getLimitClause() {
+    return limit;
+  }
+
+  /** Whether the request asks for the count of all entities matching the filter. */
+  public boolean isCountRequested() {
+    return countRequested;
+  }
+
+  /** Gets the statement which selects the rows of the requested page. */
+  public SqlFragment getSelect() {
+    StringBuilder sql = new StringBuilder("SELECT ");
+    List<Object> parameters = new ArrayList<Object>();
+    boolean first = true;
+    for (final String column : columns) {
+      sql.append(first ? "" : ", ").append(column);
+      first = false;
+    }
+    sql.append(" FROM ").append(table);
+    append(sql, parameters, " WHERE ", where);
+    append(sql, parameters, " ORDER BY ", orderBy);
+    append(sql, parameters, " ", limit);
+    return new SqlFragment(sql.toString(), parameters);
+  }
+
+  /** Gets the statement which counts all rows matching the filter, regardless of paging. */
+  public SqlFragment getCount() {
+    StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM ").append(table);
+    List<Object> parameters = new ArrayList<Object>();
+    append(sql, parameters, " WHERE ", where);
+    return new SqlFragment(sql.toString(), parameters);
+  }
+
+  private static void append(StringBuilder sql, List<Object> parameters, final String keyword,
+      final SqlFragment fragment) {
+    if (fragment != null) {
+      sql.append(keyword).append(fragment.getSql());
+      parameters.addAll(fragment.getParameters());
+    }
+  }
+}
@@ -0,0 +1,611 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.EdmComplexType;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.paging.KeysetPage;
+import org.apache.olingo.server.api.paging.SeekKeyPart;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceComplexProperty;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectItem;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+
+/**
+ * <p>Translates the system query options $filter, $orderby, $top, $skip, $select, and $count
+ * into parameterized SQL, so that a database does the filtering, sorting, and paging.</p>
+ * <p>Literals become statement parameters; property paths become columns according to a {@link TableMapping};
+ * database-specific syntax is created by a {@link SqlDialect}.
+ * Comparisons have the two-valued semantics of OData, also in negations: two <code>null</code> values are equal,
+ * a <code>null</code> value is not equal to any other value, and other comparisons with <code>null</code> are false.
+ * Comparisons with the <code>null</code> literal become <code>IS NULL</code> tests, and comparisons of nullable
+ * properties are extended with <code>null</code> tests where SQL's result would be unknown instead.</p>
+ * <p>Lambda operators, navigation, function calls, type casts, enumerations, parameter aliases,
+ * and date and duration arithmetic are not translated; neither are requests with $search or $apply.
+ * They are reported with the status code 501 - Not Implemented, so that callers can fall back to
+ * another evaluation.</p>
+ * <p>Translators are immutable and can be used concurrently.</p>
+ */
+public class SqlTranslator {
+
+  private static final char LIKE_ESCAPE = '!';
+
+  private final TableMapping mapping;
+  private final SqlDialect dialect;
+
+  /**
+   * Creates a translator.
+   * @param mapping the mapping of entity types to tables
+   * @param dialect the SQL dialect of the database
+   */
+  public SqlTranslator(final TableMapping mapping, final SqlDialect dialect) {
+    this.mapping = mapping;
+    this.dialect = dialect;
+  }
+
+  /**
+   * Translates the query options of a request for a collection of entities.
+   * @param entityType the type of the entities
+   * @param uriInfo the parsed request
+   * @return the translated query
+   * @throws ODataApplicationException if an option is invalid (400) or cannot be translated (501)
+   */
+  public SqlQuery translate(final EdmEntityType entityType, final UriInfoResource uriInfo)
+      throws ODataApplicationException {
+    if (uriInfo.getSearchOption() != null || uriInfo.getApplyOption() != null) {
+      throw notSupported("$search and $apply cannot be translated into SQL");
+    }
+    final Map<String, String> columns = getColumns(entityType, uriInfo.getSelectOption());
+    return new SqlQuery(dialect.quoteIdentifier(mapping.getTableName(entityType)),
+        new ArrayList<String>(columns.keySet()), new ArrayList<String>(columns.values()),
+        uriInfo.getFilterOption() == null ? null : translateFilter(entityType, uriInfo.getFilterOption()),
+        uriInfo.getOrderByOption() == null ? null : translateOrderBy(entityType, uriInfo.getOrderByOption()),
+        dialect.limitClause(
+            uriInfo.getSkipOption() == null ? null : uriInfo.getSkipOption().getValue(),
+            uriInfo.getTopOption() == null ? null : uriInfo.getTopOption().getValue()),
+        uriInfo.getCountOption() != null && uriInfo.getCountOption().getValue());
+  }
+
+  /**
+   * Translates a filter into the condition of a <code>WHERE</code> clause.
+   * @param entityType the type of the entities
+   * @param filterOption the filter option
+   * @return the condition
+   * @throws ODataApplicationException if the expression is invalid (400) or cannot be translated (501)
+   */
+  public SqlFragment translateFilter(final EdmEntityType entityType, final FilterOption filterOption)
+      throws ODataApplicationException {
+    final Operand operand = translate(entityType, filterOption.getExpression());
+    // Unknown excludes a row just as false does, so the plain SQL suffices at the top level.
+    return new SqlFragment(operand.isNull ? "(1 = 0)" : operand.sql, operand.parameters);
+  }
+
+  /**
+   * Translates an orderby option into the items of an <code>ORDER BY</code> clause.
+   * @param entityType the type of the entities
+   * @param orderByOption the orderby option
+   * @return the items of the clause
+   * @throws ODataApplicationException if an expression is invalid (400) or cannot be translated (501)
+   */
+  public SqlFragment translateOrderBy(final EdmEntityType entityType, final OrderByOption orderByOption)
+      throws ODataApplicationException {
+    StringBuilder sql = new StringBuilder();
+    List<Object> parameters = new ArrayList<Object>();
+    for (final OrderByItem item : orderByOption.getOrders()) {
+      final Operand operand = translate(entityType, item.getExpression());
+      if (operand.isNull) {
+        continue;
+      }
+      sql.append(sql.length() > 0 ? ", " : "").append(dialect.orderByItem(operand.sql, item.isDescending()));
+      parameters.addAll(operand.parameters);
+    }
+    return sql.length() == 0 ? null : new SqlFragment(sql.toString(), parameters);
+  }
+
+  /**
+   * Translates the order of a keyset page into the items of an <code>ORDER BY</code> clause.
+   * It replaces the translated orderby option, since it ends with the key properties.
+   * @param entityType the type of the entities
+   * @param page the keyset page
+   * @return the items of the clause
+   * @throws ODataApplicationException if a property is not stored in a column (501)
+   */
+  public SqlFragment translateSeekOrderBy(final EdmEntityType entityType, final KeysetPage page)
+      throws ODataApplicationException {
+    StringBuilder sql = new StringBuilder();
+    for (final SeekKeyPart part : page.getKeyParts()) {
+      sql.append(sql.length() > 0 ? ", " : "")
+          .append(dialect.orderByItem(getSeekColumn(entityType, part), part.isDescending()));
+    }
+    return new SqlFragment(sql.toString());
+  }
+
+  /**
+   * Translates the start position of a keyset page into the condition of a <code>WHERE</code> clause,
+   * so that the database reads only the rows after the last row of the previous page.
+   * @param entityType the type of the entities
+   * @param page the keyset page
+   * @return the condition, or <code>null</code> for the first page
+   * @throws ODataApplicationException if a property is not stored in a column (501)
+   */
+  public SqlFragment translateSeekCondition(final EdmEntityType entityType, final KeysetPage page)
+      throws ODataApplicationException {
+    final List<Object> startAfter = page.getStartAfter();
+    if (startAfter == null) {
+      return null;
+    }
+    // (a > ?) OR (a = ? AND b > ?) OR ..., where null values come first in ascending order
+    StringBuilder sql = new StringBuilder();
+    List<Object> parameters = new ArrayList<Object>();
+    StringBuilder equalPrefix = new StringBuilder();
+    List<Object> equalParameters = new ArrayList<Object>();
+    for (int i = 0; i < page.getKeyParts().size(); i++) {
+      final SeekKeyPart part = page.getKeyParts().get(i);
+      final String column = getSeekColumn(entityType, part);
+      final Object value = startAfter.get(i);
+      final Object parameter = value == null ? null :
+          dialect.toParameter(value, (EdmPrimitiveType) part.getProperty().getType());
+      final String after = value == null ?
+          part.isDescending() ? null : column + " IS NOT NULL" :
+          part.isDescending() ? "(" + column + " < ? OR " + column + " IS NULL)" : column + " > ?";
+      if (after != null) {
+        sql.append(sql.length() > 0 ? " OR " : "").append('(').append(equalPrefix).append(after).append(')');
+        parameters.addAll(equalParameters);
+        if (parameter != null) {
+          parameters.add(parameter);
+        }
+      }
+      if (value == null) {
+        equalPrefix.append(column).append(" IS NULL AND ");
+      } else {
+        equalPrefix.append(column).append(" = ? AND ");
+        equalParameters.add(parameter);
+      }
+    }
+    return sql.length() == 0 ?
+        new SqlFragment("(1 = 0)") :
+        new SqlFragment("(" + sql.toString() + ")", parameters);
+  }
+
+  private String getSeekColumn(final EdmEntityType entityType, final SeekKeyPart part)
+      throws ODataApplicationException {
+    final String column = mapping.getColumnName(entityType, part.getPath());
+    if (column == null) {
+      throw notSupported("Property '" + join(part.getPath()) + "' is not stored in a column");
+    }
+    return dialect.quoteIdentifier(column);
+  }
+
+  private Operand translate(final EdmEntityType entityType, final Expression expression)
+      throws ODataApplicationException {
+    try {
+      return expression.accept(new TranslatingVisitor(entityType));
+    } catch (final ExpressionVisitException e) {
+      throw new ODataApplicationException("Exception in expression translation",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  /** Determines the selected properties and their columns; keys come first. */
+  private Map<String, String> getColumns(final EdmEntityType entityType, final SelectOption selectOption)
+      throws ODataApplicationException {
+    Map<String, String> columns = new LinkedHashMap<String, String>();
+    for (final EdmKeyPropertyRef keyRef : entityType.getKeyPropertyRefs()) {
+      addColumns(columns, entityType, Arrays.asList(keyRef.getName().split("/")), keyRef.getProperty(), true);
+    }
+    boolean all = selectOption == null;
+    if (!all) {
+      for (final SelectItem item : selectOption.getSelectItems()) {
+        if (item.isStar()) {
+          all = true;
+        } else if (item.getResourcePath() != null && !item.getResourcePath().getUriResourceParts().isEmpty()) {
+          List<String> path = new ArrayList<String>();
+          EdmProperty property = null;
+          for (final UriResource part : item.getResourcePath().getUriResourceParts()) {
+            if (!(part instanceof UriResourceProperty)) {
+              property = null;
+              break;
+            }
+            property = ((UriResourceProperty) part).getProperty();
+            path.add(property.getName());
+          }
+          if (property != null) {
+            addColumns(columns, entityType, path, property, true);
+          }
+        }
+      }
+    }
+    if (all) {
+      addColumns(columns, entityType, Collections.<String> emptyList(), entityType);
+    }
+    return columns;
+  }
+
+  private void addColumns(Map<String, String> columns, final EdmEntityType entityType, final List<String> path,
+      final EdmProperty property, final boolean required) throws ODataApplicationException {
+    if (property.isCollection()) {
+      if (required) {
+        throw notSupported("Collection property '" + property.getName() + "' cannot be selected from a table");
+      }
+    } else if (property.isPrimitive() || property.getType().getKind() == EdmTypeKind.ENUM
+        || property.getType().getKind() == EdmTypeKind.DEFINITION) {
+      final String column = mapping.getColumnName(entityType, path);
+      if (column == null) {
+        if (required) {
+          throw notSupported("Property '" + property.getName() + "' is not stored in a column");
+        }
+      } else {
+        columns.put(join(path), dialect.quoteIdentifier(column));
+      }
+    } else {
+      addColumns(columns, entityType, path, (EdmComplexType) property.getType());
+    }
+  }
+
+  private void addColumns(Map<String, String> columns, final EdmEntityType entityType, final List<String> path,
+      final EdmStructuredType type) throws ODataApplicationException {
+    for (final String name : type.getPropertyNames()) {
+      final EdmProperty property = type.getStructuralProperty(name);
+      if (property != null) {
+        List<String> propertyPath = new ArrayList<String>(path);
+        propertyPath.add(name);
+        addColumns(columns, entityType, propertyPath, property, false);
+      }
+    }
+  }
+
+  private static String join(final List<String> path) {
+    StringBuilder result = new StringBuilder();
+    for (final String name : path) {
+      result.append(result.length() > 0 ? "/" : "").append(name);
+    }
+    return result.toString();
+  }
+
+  private static String escapeLikePattern(final String value) {
+    StringBuilder result = new StringBuilder(value.length() + 2);
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+        result.append(LIKE_ESCAPE);
+      }
+      result.append(c);
+    }
+    return result.toString();
+  }
+
+  private static boolean isTemporal(final EdmType type) {
+    if (!(type instanceof EdmPrimitiveType)) {
+      return false;
+    }
+    final EdmPrimitiveTypeKind kind = EdmPrimitiveTypeKind.valueOfFQN(type.getFullQualifiedName());
+    return kind == EdmPrimitiveTypeKind.Date || kind == EdmPrimitiveTypeKind.DateTimeOffset
+        || kind == EdmPrimitiveTypeKind.TimeOfDay || kind == EdmPrimitiveTypeKind.Duration;
+  }
+
+  private static ODataApplicationException notSupported(final String message) {
+    return new ODataApplicationException(message, HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+
+  /** Translated expression. */
+  private static final class Operand {
+    private final String sql;
+    /**
+     * The SQL with the same parameters which is false instead of unknown wherever the OData expression is false;
+     * it differs from {@link #sql} only for conditions containing comparisons with nullable operands.
+     */
+    private final String twoValuedSql;
+    private final List<Object> parameters;
+    private final EdmType type;
+    private final boolean isNull;
+    /** Whether the value of the expression can be <code>null</code> for some rows. */
+    private final boolean nullable;
+    /** The value of a literal, or <code>null</code> for all other expressions. */
+    private final Object literalValue;
+
+    private Operand(final String sql, final String twoValuedSql, final List<Object> parameters,
+        final EdmType type, final boolean isNull, final boolean nullable, final Object literalValue) {
+      this.sql = sql;
+      this.twoValuedSql = twoValuedSql;
+      this.parameters = parameters;
+      this.type = type;
+      this.isNull = isNull;
+      this.nullable = nullable;
+      this.literalValue = literalValue;
+    }
+
+    Operand(final String sql, final List<Object> parameters, final EdmType type, final boolean nullable) {
+      this(sql, sql, parameters, type, false, nullable, null);
+    }
+
+    static final Operand NULL = new Operand("NULL", "NULL", Collections.emptyList(), null, true, true, null);
+
+    static Operand literal(final Object parameter, final EdmType type, final Object value) {
+      return new Operand("?", "?", Collections.singletonList(parameter), type, false, false, value);
+    }
+
+    static Operand condition(final String sql, final List<Object> parameters) {
+      return new Operand(sql, sql, parameters, null, false, false, null);
+    }
+
+    /** A condition which SQL evaluates to unknown for some rows where OData evaluates it to false. */
+    static Operand unknownAsFalse(final String sql, final List<Object> parameters) {
+      return new Operand(sql, "(CASE WHEN " + sql + " THEN 1 ELSE 0 END = 1)", parameters, null, false, false,
+          null);
+    }
+
+    static List<Object> parameters(final Operand... operands) {
+      List<Object> result = new ArrayList<Object>();
+      for (final Operand operand : operands) {
+        result.addAll(operand.parameters);
+      }
+      return result;
+    }
+  }
+
+  private class TranslatingVisitor implements ExpressionVisitor<Operand> {
+
+    private final EdmEntityType entityType;
+
+    TranslatingVisitor(final EdmEntityType entityType) {
+      this.entityType = entityType;
+    }
+
+    @Override
+    public Operand visitBinaryOperator(final BinaryOperatorKind operator, final Operand left, final Operand right)
+        throws ODataApplicationException {
+      switch (operator) {
+      case AND:
+      case OR:
+        return new Operand('(' + left.sql + ' ' + operator.name() + ' ' + right.sql + ')',
+            '(' + left.twoValuedSql + ' ' + operator.name() + ' ' + right.twoValuedSql + ')',
+            Operand.parameters(left, right), null, false, left.nullable || right.nullable, null);
+      case EQ:
+      case NE:
+      case GT:
+      case GE:
+      case LT:
+      case LE:
+        return comparison(operator, left, right);
+      case HAS:
+        throw notSupported("The operator 'has' cannot be translated into SQL");
+      default:
+        if (left.isNull || right.isNull) {
+          return Operand.NULL;
+        }
+        if (isTemporal(left.type) || isTemporal(right.type)) {
+          throw notSupported("Date and duration arithmetic cannot be translated into SQL");
+        }
+        return new Operand(operator(operator, left.sql, right.sql), Operand.parameters(left, right),
+            left.type == null ? right.type : left.type, left.nullable || right.nullable);
+      }
+    }
+
+    private Operand comparison(final BinaryOperatorKind operator, final Operand left, final Operand right)
+        throws ODataApplicationException {
+      if (left.isNull && right.isNull) {
+        final boolean result = operator == BinaryOperatorKind.EQ
+            || operator == BinaryOperatorKind.GE || operator == BinaryOperatorKind.LE;
+        return Operand.condition(result ? "(1 = 1)" : "(1 = 0)", Collections.emptyList());
+      } else if (left.isNull || right.isNull) {
+        final Operand other = left.isNull ? right : left;
+        final String sql = operator == BinaryOperatorKind.EQ ? '(' + other.sql + " IS NULL)" :
+            operator == BinaryOperatorKind.NE ? '(' + other.sql + " IS NOT NULL)" :
+                "(1 = 0)";
+        return Operand.condition(sql, operator == BinaryOperatorKind.EQ || operator == BinaryOperatorKind.NE ?
+            other.parameters : Collections.emptyList());
+      }
+      final String sql = operator(operator, left.sql, right.sql);
+      final List<Object> parameters = Operand.parameters(left, right);
+      if (!left.nullable && !right.nullable) {
+        return Operand.condition(sql, parameters);
+      } else if (left.nullable && right.nullable
+          && (operator == BinaryOperatorKind.EQ || operator == BinaryOperatorKind.NE)) {
+        // In OData, null is equal to null but not to any other value.
+        final String nullTests = operator == BinaryOperatorKind.EQ ?
+            " OR (" + left.sql + " IS NULL AND " + right.sql + " IS NULL))" :
+            " OR (" + left.sql + " IS NULL AND " + right.sql + " IS NOT NULL)"
+                + " OR (" + left.sql + " IS NOT NULL AND " + right.sql + " IS NULL))";
+        parameters.addAll(Operand.parameters(left, right));
+        if (operator == BinaryOperatorKind.NE) {
+          parameters.addAll(Operand.parameters(left, right));
+        }
+        return Operand.unknownAsFalse('(' + sql + nullTests, parameters);
+      } else if (operator == BinaryOperatorKind.NE) {
+        // In OData, null is not equal to any value.
+        final Operand other = left.nullable ? left : right;
+        parameters.addAll(other.parameters);
+        return Operand.condition('(' + sql + " OR " + other.sql + " IS NULL)", parameters);
+      }
+      // SQL's result is unknown where OData's is false.
+      return Operand.unknownAsFalse(sql, parameters);
+    }
+
+    private String operator(final BinaryOperatorKind operator, final String left, final String right)
+        throws ODataApplicationException {
+      final String sql = dialect.binaryOperator(operator, left, right);
+      if (sql == null) {
+        throw notSupported("The operator '" + operator + "' cannot be translated into SQL");
+      }
+      return sql;
+    }
+
+    @Override
+    public Operand visitUnaryOperator(final UnaryOperatorKind operator, final Operand operand) {
+      if (operand.isNull) {
+        return Operand.NULL;
+      }
+      if (operator == UnaryOperatorKind.NOT) {
+        // The negation of unknown is unknown, so the comparisons must be false instead.
+        return new Operand("(NOT " + operand.twoValuedSql + ')', operand.parameters, operand.type, operand.nullable);
+      }
+      return new Operand("(-" + operand.sql + ')', operand.parameters, operand.type, operand.nullable);
+    }
+
+    @Override
+    public Operand visitMethodCall(final MethodKind methodCall, final List<Operand> parameters)
+        throws ODataApplicationException {
+      if ((methodCall == MethodKind.CONTAINS || methodCall == MethodKind.STARTSWITH
+          || methodCall == MethodKind.ENDSWITH)
+          && (parameters.get(0).isNull || parameters.get(1).isNull)) {
+        return Operand.condition("(1 = 0)", Collections.emptyList());
+      }
+      if ((methodCall == MethodKind.CONTAINS || methodCall == MethodKind.STARTSWITH
+          || methodCall == MethodKind.ENDSWITH)
+          && parameters.get(1).literalValue instanceof String) {
+        final String pattern = (methodCall == MethodKind.STARTSWITH ? "" : "%")
+            + escapeLikePattern((String) parameters.get(1).literalValue)
+            + (methodCall == MethodKind.ENDSWITH ? "" : "%");
+        List<Object> sqlParameters = new ArrayList<Object>(parameters.get(0).parameters);
+        sqlParameters.add(pattern);
+        return new Operand('(' + parameters.get(0).sql + " LIKE ? ESCAPE '" + LIKE_ESCAPE + "')",
+            sqlParameters, null, parameters.get(0).nullable);
+      }
+      List<String> sqlTexts = new ArrayList<String>(parameters.size());
+      boolean nullable = false;
+      for (final Operand parameter : parameters) {
+        if (parameter.isNull) {
+          return Operand.NULL;
+        }
+        sqlTexts.add(parameter.sql);
+        nullable |= parameter.nullable;
+      }
+      final String sql = dialect.methodCall(methodCall, sqlTexts);
+      if (sql == null) {
+        throw notSupported("The method '" + methodCall.toString() + "' cannot be translated into SQL");
+      }
+      return new Operand(sql, Operand.parameters(parameters.toArray(new Operand[parameters.size()])),
+          methodCall == MethodKind.ROUND || methodCall == MethodKind.FLOOR || methodCall == MethodKind.CEILING ?
+              parameters.get(0).type :
+              null,
+          nullable);
+    }
+
+    @Override
+    public Operand visitLiteral(final Literal literal) throws ODataApplicationException {
+      final EdmType type = literal.getType();
+      if (type == null) {
+        if ("null".equals(literal.getText())) {
+          return Operand.NULL;
+        }
+        throw notSupported("Literal '" + literal.getText() + "' cannot be translated into SQL");
+      } else if (!(type instanceof EdmPrimitiveType) || type.getKind() != EdmTypeKind.PRIMITIVE) {
+        throw notSupported("Literal '" + literal.getText() + "' cannot be translated into SQL");
+      }
+      final EdmPrimitiveType primitiveType = (EdmPrimitiveType) type;
+      try {
+        final Object value = primitiveType.valueOfString(primitiveType.fromUriLiteral(literal.getText()),
+            null, null, Integer.MAX_VALUE, Integer.MAX_VALUE, null, primitiveType.getDefaultType());
+        return Operand.literal(dialect.toParameter(value, primitiveType), primitiveType, value);
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new ODataApplicationException("Invalid literal '" + literal.getText() + "'",
+            HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+      }
+    }
+
+    @Override
+    public Operand visitMember(final Member member) throws ODataApplicationException {
+      final List<UriResource> parts = member.getResourcePath().getUriResourceParts();
+      if (member.getStartTypeFilter() != null || parts.isEmpty()) {
+        throw notSupported("Type casts cannot be translated into SQL");
+      }
+      List<String> path = new ArrayList<String>(parts.size());
+      boolean nullable = false;
+      for (int i = 0; i < parts.size(); i++) {
+        final UriResource part = parts.get(i);
+        final boolean supported = i == parts.size() - 1 ?
+            part instanceof UriResourcePrimitiveProperty :
+            part instanceof UriResourceComplexProperty
+                && ((UriResourceComplexProperty) part).getComplexTypeFilter() == null;
+        if (!supported || ((UriResourceProperty) part).isCollection()) {
+          throw notSupported("Only paths to single-valued primitive properties can be translated into SQL");
+        }
+        final EdmProperty property = ((UriResourceProperty) part).getProperty();
+        path.add(property.getName());
+        nullable |= property.isNullable();
+      }
+      final String column = mapping.getColumnName(entityType, path);
+      if (column == null) {
+        throw notSupported("Property '" + join(path) + "' is not stored in a column");
+      }
+      return new Operand(dialect.quoteIdentifier(column), Collections.emptyList(),
+          ((UriResourceProperty) parts.get(parts.size() - 1)).getType(), nullable);
+    }
+
+    @Override
+    public Operand visitAlias(final String aliasName) throws ODataApplicationException {
+      throw notSupported("Parameter aliases cannot be translated into SQL");
+    }
+
+    @Override
+    public Operand visitTypeLiteral(final EdmType type) throws ODataApplicationException {
+      throw notSupported("Type literals cannot be translated into SQL");
+    }
+
+    @Override
+    public Operand visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+        final Expression expression) throws ODataApplicationException {
+      throw notSupported("Lambda expressions cannot be translated into SQL");
+    }
+
+    @Override
+    public Operand visitLambdaReference(final String variableName) throws ODataApplicationException {
+      throw notSupported("Lambda expressions cannot be translated into SQL");
+    }
+
+    @Override
+    public Operand visitEnum(final EdmEnumType type, final List<String> enumValues)
+        throws ODataApplicationException {
+      throw notSupported("Enumeration values cannot be translated into SQL");
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.sql;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+
+/**
+ * Maps entity types to database tables and their primitive properties to columns.
+ * The returned names are not quoted; the {@link SqlDialect} quotes them.
+ */
+public interface TableMapping {
+
+  /**
+   * Gets the table which stores the entities of a type.
+   * @param entityType the entity type
+   * @return the name of the table
+   */
+  String getTableName(EdmEntityType entityType);
+
+  /**
+   * Gets the column which stores a primitive property.
+   * @param entityType the entity type
+   * @param path the names of the complex properties which contain the property and the name of the property itself
+   * @return the name of the column, or <code>null</code> if the property is not stored in a column
+   */
+  String getColumnName(EdmEntityType entityType, List<String> path);
+}
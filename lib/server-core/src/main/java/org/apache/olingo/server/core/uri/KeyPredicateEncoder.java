@@ -0,0 +1,356 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.IndexedEntity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.core.Encoder;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.serializer.SerializerException;
+
+/**
+ * <p>Builds key predicates and entity ids of one entity type.</p>
+ * <p>The key property paths, the encoded key names and the way each key value is written
+ * are determined once when the encoder is created. Values of the common key types
+ * (strings without facets, integers and GUIDs) are written directly with a precomputed
+ * escaping table; all other values take the way through the primitive type and the {@link Encoder}.
+ * The result is the same in both cases.</p>
+ * <p>Instances are immutable and can be shared.</p>
+ */
+public final class KeyPredicateEncoder {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  /** ASCII characters written without percent-encoding, see {@link Encoder}. */
+  private static final boolean[] UNENCODED = new boolean[128];
+  static {
+    for (char c = 'A'; c <= 'Z'; c++) {
+      UNENCODED[c] = true;
+    }
+    for (char c = 'a'; c <= 'z'; c++) {
+      UNENCODED[c] = true;
+    }
+    for (char c = '0'; c <= '9'; c++) {
+      UNENCODED[c] = true;
+    }
+    for (final char c : "-._~'".toCharArray()) {
+      UNENCODED[c] = true;
+    }
+  }
+
+  private enum LiteralKind {
+    STRING, INT16, INT32, INT64, GUID, OTHER
+  }
+
+  private final EdmEntityType entityType;
+  private final KeyPart[] parts;
+
+  private KeyPredicateEncoder(final EdmEntityType entityType, final KeyPart[] parts) {
+    this.entityType = entityType;
+    this.parts = parts;
+  }
+
+  /**
+   * Creates the encoder for an entity type.
+   * @param entityType the entity type
+   * @return the encoder
+   */
+  public static KeyPredicateEncoder create(final EdmEntityType entityType) {
+    final List<String> keyNames = entityType.getKeyPredicateNames();
+    KeyPart[] parts = new KeyPart[keyNames.size()];
+    for (int index = 0; index < parts.length; index++) {
+      final String keyName = keyNames.get(index);
+      final EdmKeyPropertyRef keyRef = entityType.getKeyPropertyRef(keyName);
+      parts[index] = new KeyPart(keyName, keyRef.getName(),
+          parts.length > 1 ? Encoder.encode(keyName) + '=' : "", keyRef.getProperty());
+    }
+    return new KeyPredicateEncoder(entityType, parts);
+  }
+
+  /** Returns whether this encoder has been created for the given entity type. */
+  public boolean isFor(final EdmEntityType type) {
+    return entityType.equals(type);
+  }
+
+  /**
+   * Builds the key predicate of an entity, without the surrounding parentheses.
+   * @param entity the entity
+   * @return the percent-encoded key predicate
+   * @throws SerializerException if a key property is missing or has an invalid value
+   */
+  public String buildKeyPredicate(final Entity entity) throws SerializerException {
+    StringBuilder result = new StringBuilder(16 * parts.length);
+    appendKeyPredicate(result, entity);
+    return result.toString();
+  }
+
+  /**
+   * Builds the entity id of an entity as it is written to payloads,
+   * i.e., the ASCII form of <code>EntitySet(key)</code>.
+   * @param entitySetName the name of the entity set
+   * @param entity the entity
+   * @return the entity id
+   * @throws SerializerException if a key property is missing or has an invalid value
+   */
+  public String buildEntityId(final String entitySetName, final Entity entity) throws SerializerException {
+    StringBuilder result = new StringBuilder(entitySetName.length() + 2 + 16 * parts.length);
+    appendEncoded(result, entitySetName);
+    result.append('(');
+    appendKeyPredicate(result, entity);
+    return result.append(')').toString();
+  }
+
+  /**
+   * Builds the entity id from the values of the key properties, e.g., for rows which are not held in entities.
+   * @param entitySetName the name of the entity set
+   * @param keyValues the values of the key properties in the order of {@link EdmEntityType#getKeyPredicateNames()}
+   * @return the entity id
+   * @throws SerializerException if a key value is missing or invalid
+   */
+  public String buildEntityId(final String entitySetName, final Object[] keyValues) throws SerializerException {
+    StringBuilder result = new StringBuilder(entitySetName.length() + 2 + 16 * parts.length);
+    appendEncoded(result, entitySetName);
+    result.append('(');
+    for (int index = 0; index < parts.length; index++) {
+      if (index > 0) {
+        result.append(',');
+      }
+      if (keyValues[index] == null) {
+        throw new SerializerException("Key Value Cannot be null for property: " + parts[index].propertyPath,
+            SerializerException.MessageKeys.WRONG_PROPERTY_VALUE, parts[index].propertyPath);
+      }
+      parts[index].append(result, keyValues[index]);
+    }
+    return result.append(')').toString();
+  }
+
+  private void appendKeyPredicate(final StringBuilder result, final Entity entity) throws SerializerException {
+    for (int index = 0; index < parts.length; index++) {
+      if (index > 0) {
+        result.append(',');
+      }
+      parts[index].append(result, parts[index].getValue(entity));
+    }
+  }
+
+  /** Percent-encodes like {@link Encoder#encode(String)}, including the replacement of unpaired surrogates. */
+  private static void appendEncoded(final StringBuilder result, final String value) {
+    final int length = value.length();
+    for (int index = 0; index < length; index++) {
+      final char c = value.charAt(index);
+      if (c < 128) {
+        if (UNENCODED[c]) {
+          result.append(c);
+        } else {
+          appendHex(result, c);
+        }
+      } else if (Character.isHighSurrogate(c) && index + 1 < length
+          && Character.isLowSurrogate(value.charAt(index + 1))) {
+        appendUtf8(result, value.substring(index, index + 2));
+        index++;
+      } else if (Character.isSurrogate(c)) {
+        appendHex(result, '?');
+      } else {
+        appendUtf8(result, String.valueOf(c));
+      }
+    }
+  }
+
+  private static void appendUtf8(final StringBuilder result, final String character) {
+    for (final byte b : character.getBytes(UTF_8)) {
+      appendHex(result, b & 0xFF);
+    }
+  }
+
+  private static void appendHex(final StringBuilder result, final int b) {
+    result.append('%').append(HEX_DIGITS[b >> 4]).append(HEX_DIGITS[b & 0xF]);
+  }
+
+  private static LiteralKind getLiteralKind(final EdmProperty property) {
+    final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
+    if (type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.String)) {
+      // Facets are checked by the primitive type.
+      return property.getMaxLength() == null && property.isUnicode() ? LiteralKind.STRING : LiteralKind.OTHER;
+    } else if (type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int16)) {
+      return LiteralKind.INT16;
+    } else if (type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int32)) {
+      return LiteralKind.INT32;
+    } else if (type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int64)) {
+      return LiteralKind.INT64;
+    } else if (type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Guid)) {
+      return LiteralKind.GUID;
+    } else {
+      return LiteralKind.OTHER;
+    }
+  }
+
+  private static final class KeyPart {
+    private final String keyName;
+    private final String propertyPath;
+    private final String[] path;
+    private final String prefix;
+    private final EdmProperty property;
+    private final LiteralKind kind;
+
+    private KeyPart(final String keyName, final String propertyPath, final String prefix,
+        final EdmProperty property) {
+      this.keyName = keyName;
+      this.propertyPath = propertyPath;
+      path = propertyPath.split("/");
+      this.prefix = prefix;
+      this.property = property;
+      kind = property == null ? null : getLiteralKind(property);
+    }
+
+    private void checkProperty() throws SerializerException {
+      if (property == null) {
+        throw new SerializerException("Property not found (possibly an alias): " + keyName,
+            SerializerException.MessageKeys.MISSING_PROPERTY, keyName);
+      }
+    }
+
+    private void append(final StringBuilder result, final Object value) throws SerializerException {
+      checkProperty();
+      result.append(prefix);
+      if (!appendDirectly(result, value)) {
+        final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
+        try {
+          appendEncoded(result, type.toUriLiteral(
+              type.valueToString(value, property.isNullable(), property.getMaxLength(),
+                  property.getPrecision(), property.getScale(), property.isUnicode())));
+        } catch (final EdmPrimitiveTypeException e) {
+          throw new SerializerException("Wrong key value!", e,
+              SerializerException.MessageKeys.WRONG_PROPERTY_VALUE, property.getName(),
+              value == null ? null : value.toString());
+        }
+      }
+    }
+
+    /** Writes values of the common key types without intermediate strings; returns false for all others. */
+    private boolean appendDirectly(final StringBuilder result, final Object value) {
+      switch (kind) {
+      case STRING:
+        if (value instanceof String) {
+          result.append('\'');
+          appendEncoded(result, ((String) value).replace("'", "''"));
+          result.append('\'');
+          return true;
+        }
+        return false;
+      case INT16:
+        if (value instanceof Short || value instanceof Byte) {
+          result.append(((Number) value).intValue());
+          return true;
+        }
+        return false;
+      case INT32:
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+          result.append(((Number) value).intValue());
+          return true;
+        }
+        return false;
+      case INT64:
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+          result.append(((Number) value).longValue());
+          return true;
+        }
+        return false;
+      case GUID:
+        if (value instanceof UUID) {
+          result.append(value.toString());
+          return true;
+        }
+        return false;
+      default:
+        return false;
+      }
+    }
+
+    private Object getValue(final Entity entity) throws SerializerException {
+      checkProperty();
+      Property current = entity instanceof IndexedEntity ?
+          ((IndexedEntity) entity).readProperty(path[0]) :
+          entity.getProperty(path[0]);
+      for (int index = 1; index < path.length && current != null; index++) {
+        current = current.isComplex() ? findProperty(path[index], current.asComplex().getValue()) : null;
+      }
+      if (current == null) {
+        throw new SerializerException("Key Value Cannot be null for property: " + propertyPath,
+            SerializerException.MessageKeys.WRONG_PROPERTY_VALUE, propertyPath);
+      }
+      return current.getValue();
+    }
+
+    private static Property findProperty(final String name, final List<Property> properties) {
+      for (final Property property : properties) {
+        if (name.equals(property.getName())) {
+          return property;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Small cache of encoders for the entity types met by one serializer;
+   * it is bounded because serializers may see many types over their lifetime.
+   */
+  public static final class Cache {
+
+    private static final int MAX_ENCODERS = 16;
+
+    private volatile KeyPredicateEncoder[] encoders = new KeyPredicateEncoder[0];
+
+    /**
+     * Gets the encoder for an entity type, creating it if necessary.
+     * @param entityType the entity type
+     * @return the encoder
+     */
+    public KeyPredicateEncoder get(final EdmEntityType entityType) {
+      final KeyPredicateEncoder[] current = encoders;
+      for (final KeyPredicateEncoder encoder : current) {
+        if (encoder.isFor(entityType)) {
+          return encoder;
+        }
+      }
+      final KeyPredicateEncoder encoder = create(entityType);
+      if (current.length < MAX_ENCODERS) {
+        KeyPredicateEncoder[] newEncoders = new KeyPredicateEncoder[current.length + 1];
+        System.arraycopy(current, 0, newEncoders, 1, current.length);
+        newEncoders[0] = encoder;
+        encoders = newEncoders;
+      } else {
+        encoders = new KeyPredicateEncoder[] { encoder };
+      }
+      return encoder;
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.uri.validator.UriValidationException;
+
+/**
+ * Size-bounded cache of parsed {@link UriInfo} trees.
+ * <p>The cache is bound to one {@link Edm} instance; the parsed trees reference EDM objects
+ * and must not outlive the EDM they have been created for.
+ * Entries are evicted in least-recently-used order as soon as the maximum size is reached.
+ * Only successfully parsed URIs are cached; parser errors are thrown again on every call.</p>
+ * <p>Cached {@link UriInfo} instances are shared between requests and must be treated as read-only.</p>
+ */
+public class UriInfoCache {
+
+  private final Edm edm;
+  private final int maxSize;
+  private final Map<String, UriInfo> entries;
+
+  /**
+   * Creates a cache for URIs parsed against the given EDM.
+   * @param edm the entity data model
+   * @param maxSize maximum number of cached URIs (must be positive)
+   */
+  public UriInfoCache(final Edm edm, final int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Maximum size of the URI cache must be positive.");
+    }
+    this.edm = edm;
+    this.maxSize = maxSize;
+    entries = new LinkedHashMap<String, UriInfo>(16, 0.75F, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, UriInfo> eldest) {
+        return size() > UriInfoCache.this.maxSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the parsed URI from the cache or parses it with a new {@link Parser} and caches the result.
+   * @see Parser#parseUri(String, String, String, String)
+   */
+  public UriInfo parseUri(final OData odata, final String path, final String query, final String baseUri)
+      throws UriParserException, UriValidationException {
+    final String key = createKey(path, query, baseUri);
+    UriInfo uriInfo = get(key);
+    if (uriInfo == null) {
+      uriInfo = new Parser(edm, odata).parseUri(path, query, null, baseUri);
+      put(key, uriInfo);
+    }
+    return uriInfo;
+  }
+
+  /** Removes all entries from the cache. */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /** Returns the number of cached entries. */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public Edm getEdm() {
+    return edm;
+  }
+
+  private synchronized UriInfo get(final String key) {
+    return entries.get(key);
+  }
+
+  private synchronized void put(final String key, final UriInfo uriInfo) {
+    entries.put(key, uriInfo);
+  }
+
+  /**
+   * Creates the cache key. The base URI is part of the key because it is needed to resolve
+   * absolute entity-ids in the $id system query option.
+   */
+  private static String createKey(final String path, final String query, final String baseUri) {
+    final String normalizedPath = path == null || path.isEmpty() ? "/" : path;
+    final StringBuilder key = new StringBuilder(normalizedPath.length()
+        + (query == null ? 0 : query.length() + 1)
+        + (baseUri == null ? 0 : baseUri.length()) + 1);
+    if (baseUri != null) {
+      key.append(baseUri);
+    }
+    key.append(' ').append(normalizedPath);
+    if (query != null && !query.isEmpty()) {
+      key.append('?').append(query);
+    }
+    return key.toString();
+  }
+}
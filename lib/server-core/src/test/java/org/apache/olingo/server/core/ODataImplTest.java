@@ -18,14 +18,22 @@
  */
 package org.apache.olingo.server.core;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.core.serializer.json.JsonFactoryProvider;
 import org.junit.Test;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 public class ODataImplTest {
 
   private final OData odata = OData.newInstance();
@@ -47,6 +55,35 @@ public class ODataImplTest {
     assertNotNull(odata.createDeserializer(ContentType.APPLICATION_JSON));
   }
 
+  @Test
+  public void sharedObjectMapper() throws Exception {
+    assertSame(JsonFactoryProvider.getObjectMapper(), ((ODataImpl) odata).getObjectMapper());
+    assertSame(JsonFactoryProvider.getObjectMapper(), ((ODataImpl) OData.newInstance()).getObjectMapper());
+
+    ODataImpl customOData = new ODataImpl();
+    JsonFactory jsonFactory = new JsonFactory();
+    jsonFactory.enable(JsonGenerator.Feature.ESCAPE_NON_ASCII);
+    customOData.setJsonFactory(jsonFactory);
+    assertSame(jsonFactory, customOData.getObjectMapper().getFactory());
+    assertNotNull(customOData.createSerializer(ContentType.JSON));
+
+    customOData.setObjectMapper(null);
+    assertSame(JsonFactoryProvider.getObjectMapper(), customOData.getObjectMapper());
+    assertEquals(true, JsonFactoryProvider.getJsonFactory()
+        .isEnabled(JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING));
+  }
+
+  @Test
+  public void customObjectMapper() throws Exception {
+    ODataImpl customOData = new ODataImpl();
+    ObjectMapper mapper = new ObjectMapper();
+    customOData.setObjectMapper(mapper);
+    assertSame(mapper, customOData.getObjectMapper());
+    assertEquals(true, mapper.isEnabled(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY));
+    // The process-wide instance is not affected.
+    assertSame(JsonFactoryProvider.getObjectMapper(), ((ODataImpl) OData.newInstance()).getObjectMapper());
+  }
+
   public void xmlDeserializer() throws DeserializerException {
     assertNotNull(odata.createDeserializer(ContentType.APPLICATION_XML));
   }
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.batchhandler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataHandler;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.OlingoExtension;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.batch.BatchFacade;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
+import org.apache.olingo.server.api.processor.BatchProcessor;
+import org.apache.olingo.server.api.processor.Processor;
+import org.junit.Test;
+
+public class BatchPartHandlerTest {
+
+  private static final String BASE_URI = "http://localhost:8080/odata";
+
+  @Test
+  public void sequential() throws Exception {
+    final TestHandler handler = new TestHandler(null);
+    final List<ODataResponsePart> responses = new BatchFacadeImpl(handler, new TestBatchProcessor(), true)
+        .handleBatchRequests(Arrays.asList(get("ESAllPrim"), get("ESTwoPrim")));
+
+    assertEquals(2, responses.size());
+    assertEquals("/ESAllPrim", responses.get(0).getResponses().get(0).getHeader(HttpHeader.LOCATION));
+    assertEquals("/ESTwoPrim", responses.get(1).getResponses().get(0).getHeader(HttpHeader.LOCATION));
+    assertEquals(1, handler.getMaxConcurrent());
+  }
+
+  @Test
+  public void concurrentQueries() throws Exception {
+    // Each of the first two GET requests can only finish if the other one runs at the same time.
+    final TestHandler handler = new TestHandler(new CountDownLatch(2));
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final ODataRequest post = request(HttpMethod.POST, "ESAllPrim");
+      post.setHeader(HttpHeader.CONTENT_ID, "1");
+      final ODataRequest put = request(HttpMethod.PUT, "$1");
+      put.setHeader(HttpHeader.CONTENT_ID, "2");
+      final List<ODataResponsePart> responses =
+          new BatchFacadeImpl(handler, new TestBatchProcessor(), true, executor).handleBatchRequests(Arrays.asList(
+              get("ESAllPrim"),
+              get("ESTwoPrim"),
+              new BatchRequestPart(true, Arrays.asList(post, put)),
+              get("ESMixPrim"),
+              new BatchRequestPart(false, request(HttpMethod.DELETE, "ESMixPrim(1)")),
+              get("ESAllKey")));
+
+      assertEquals(6, responses.size());
+      assertEquals("/ESAllPrim", responses.get(0).getResponses().get(0).getHeader(HttpHeader.LOCATION));
+      assertEquals("/ESTwoPrim", responses.get(1).getResponses().get(0).getHeader(HttpHeader.LOCATION));
+      assertTrue(responses.get(2).isChangeSet());
+      assertEquals(BASE_URI + "/ESAllPrim(1)", responses.get(2).getResponses().get(0).getHeader(HttpHeader.LOCATION));
+      assertEquals("/ESAllPrim(1)", responses.get(2).getResponses().get(1).getHeader(HttpHeader.LOCATION));
+      assertEquals("2", responses.get(2).getResponses().get(1).getHeader(HttpHeader.CONTENT_ID));
+      assertEquals("/ESMixPrim", responses.get(3).getResponses().get(0).getHeader(HttpHeader.LOCATION));
+      assertFalse(responses.get(4).isChangeSet());
+      assertEquals("/ESMixPrim(1)", responses.get(4).getResponses().get(0).getHeader(HttpHeader.LOCATION));
+      assertEquals("/ESAllKey", responses.get(5).getResponses().get(0).getHeader(HttpHeader.LOCATION));
+      assertEquals(2, handler.getMaxConcurrent());
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(Arrays.asList("GET /ESAllPrim", "GET /ESTwoPrim", "POST /ESAllPrim", "PUT /ESAllPrim(1)",
+        "GET /ESMixPrim", "DELETE /ESMixPrim(1)", "GET /ESAllKey"),
+        handler.sortedLog());
+  }
+
+  @Test(expected = ODataRuntimeException.class)
+  public void failingQuery() throws Exception {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      new BatchFacadeImpl(new TestHandler(null), new TestBatchProcessor(), true, executor)
+          .handleBatchRequests(Collections.singletonList(get("fail")));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private BatchRequestPart get(final String path) {
+    return new BatchRequestPart(false, request(HttpMethod.GET, path));
+  }
+
+  private ODataRequest request(final HttpMethod method, final String path) {
+    ODataRequest request = new ODataRequest();
+    request.setMethod(method);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath("/" + path);
+    request.setRawRequestUri(BASE_URI + "/" + path);
+    return request;
+  }
+
+  /** Handler which echos the request path in the location header and records the order of the requests. */
+  private static class TestHandler implements ODataHandler {
+    private final CountDownLatch latch;
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private int maxConcurrent = 0;
+    private final List<String> log = new ArrayList<String>();
+
+    TestHandler(final CountDownLatch latch) {
+      this.latch = latch;
+    }
+
+    @Override
+    public ODataResponse process(final ODataRequest request) {
+      final int current = concurrent.incrementAndGet();
+      try {
+        if (request.getRawODataPath().equals("/fail")) {
+          throw new ODataRuntimeException("failed");
+        }
+        synchronized (log) {
+          log.add(request.getMethod() + " " + request.getRawODataPath());
+          maxConcurrent = Math.max(maxConcurrent, current);
+        }
+        if (latch != null && latch.getCount() > 0) {
+          latch.countDown();
+          assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+        ODataResponse response = new ODataResponse();
+        if (request.getMethod() == HttpMethod.POST) {
+          response.setStatusCode(HttpStatusCode.CREATED.getStatusCode());
+          response.setHeader(HttpHeader.LOCATION, request.getRawRequestUri() + "(1)");
+        } else {
+          response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+          response.setHeader(HttpHeader.LOCATION, request.getRawODataPath());
+        }
+        return response;
+      } catch (final InterruptedException e) {
+        throw new ODataRuntimeException(e);
+      } finally {
+        concurrent.decrementAndGet();
+      }
+    }
+
+    int getMaxConcurrent() {
+      synchronized (log) {
+        return maxConcurrent;
+      }
+    }
+
+    /** Gets the log where the first two requests are sorted because their order is not defined. */
+    List<String> sortedLog() {
+      synchronized (log) {
+        final List<String> sorted = new ArrayList<String>(log);
+        Collections.sort(sorted.subList(0, 2));
+        return sorted;
+      }
+    }
+
+    @Override
+    public void register(final Processor processor) {
+      // not needed
+    }
+
+    @Override
+    public void register(final OlingoExtension extension) {
+      // not needed
+    }
+  }
+
+  private static class TestBatchProcessor implements BatchProcessor {
+
+    @Override
+    public void init(final OData odata, final ServiceMetadata serviceMetadata) {
+      // not needed
+    }
+
+    @Override
+    public void processBatch(final BatchFacade facade, final ODataRequest request, final ODataResponse response) {
+      // not needed
+    }
+
+    @Override
+    public ODataResponsePart processChangeSet(final BatchFacade facade, final List<ODataRequest> requests) {
+      final List<ODataResponse> responses = new ArrayList<ODataResponse>();
+      for (final ODataRequest request : requests) {
+        try {
+          responses.add(facade.handleODataRequest(request));
+        } catch (final Exception e) {
+          throw new ODataRuntimeException(e);
+        }
+      }
+      return new ODataResponsePart(responses, true);
+    }
+  }
+}
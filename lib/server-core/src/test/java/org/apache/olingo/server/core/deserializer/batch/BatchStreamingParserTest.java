@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.deserializer.batch;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
+import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException.MessageKeys;
+import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BatchStreamingParserTest {
+
+  private static final String SERVICE_ROOT = "http://localhost/odata";
+  private static final String PROPERTY_URI = "ESAllPrim(32767)/PropertyString";
+  private static final String HTTP_VERSION = " HTTP/1.1";
+  private static final String CRLF = "\r\n";
+  private static final String BOUNDARY = "batch_8194-cf13-1f56";
+  private static final String CHANGESET_BOUNDARY = "changeset_f980-1cb6-94dd";
+  private static final String MIME_HEADERS = HttpHeader.CONTENT_TYPE + ": application/http" + CRLF
+      + "Content-Transfer-Encoding: binary" + CRLF;
+
+  @Test
+  public void basic() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + MIME_HEADERS
+        + CRLF
+        + HttpMethod.GET + " " + PROPERTY_URI + "?$format=json" + HTTP_VERSION + CRLF
+        + HttpHeader.ACCEPT_LANGUAGE + ":en-US,en;q=0.7" + CRLF
+        + CRLF
+        + CRLF
+        + "--" + BOUNDARY + CRLF
+        + HttpHeader.CONTENT_TYPE + ": multipart/mixed; boundary=" + CHANGESET_BOUNDARY + CRLF
+        + CRLF
+        + "--" + CHANGESET_BOUNDARY + CRLF
+        + MIME_HEADERS
+        + HttpHeader.CONTENT_ID + ": 1" + CRLF
+        + CRLF
+        + HttpMethod.PUT + " " + PROPERTY_URI + HTTP_VERSION + CRLF
+        + HttpHeader.CONTENT_TYPE + ": application/json" + CRLF
+        + CRLF
+        + "{\"value\":\"€ MODIFIED\"}" + CRLF
+        + "--" + CHANGESET_BOUNDARY + CRLF
+        + MIME_HEADERS
+        + HttpHeader.CONTENT_ID + ": 2" + CRLF
+        + CRLF
+        + HttpMethod.DELETE + " $1" + HTTP_VERSION + CRLF
+        + CRLF
+        + CRLF
+        + "--" + CHANGESET_BOUNDARY + "--" + CRLF
+        + "--" + BOUNDARY + "--" + CRLF
+        + "epilogue";
+    final BatchRequestPartReader reader = read(batch.getBytes("UTF-8"));
+
+    BatchRequestPart part = reader.next();
+    Assert.assertFalse(part.isChangeSet());
+    ODataRequest request = part.getRequests().get(0);
+    Assert.assertEquals(HttpMethod.GET, request.getMethod());
+    Assert.assertEquals(SERVICE_ROOT + "/" + PROPERTY_URI + "?$format=json", request.getRawRequestUri());
+    Assert.assertEquals(2, request.getHeaders(HttpHeader.ACCEPT_LANGUAGE).size());
+
+    part = reader.next();
+    Assert.assertTrue(part.isChangeSet());
+    Assert.assertEquals(2, part.getRequests().size());
+    request = part.getRequests().get(0);
+    Assert.assertEquals(HttpMethod.PUT, request.getMethod());
+    Assert.assertEquals("1", request.getHeader(HttpHeader.CONTENT_ID));
+    Assert.assertEquals("{\"value\":\"€ MODIFIED\"}", IOUtils.toString(request.getBody(), "UTF-8"));
+    request = part.getRequests().get(1);
+    Assert.assertEquals(HttpMethod.DELETE, request.getMethod());
+    Assert.assertEquals("2", request.getHeader(HttpHeader.CONTENT_ID));
+    Assert.assertEquals("", IOUtils.toString(request.getBody()));
+
+    Assert.assertNull(reader.next());
+  }
+
+  @Test
+  public void bodyIsStreamed() throws Exception {
+    final byte[] content = new byte[100000];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) (i % 7 == 0 ? '\n' : i % 11 == 0 ? '\r' : i % 13 == 0 ? '-' : 'a' + i % 26);
+    }
+    final byte[] head = ("preamble" + CRLF
+        + "--" + BOUNDARY + CRLF
+        + MIME_HEADERS
+        + CRLF
+        + HttpMethod.POST + " ESAllPrim" + HTTP_VERSION + CRLF
+        + HttpHeader.CONTENT_TYPE + ": application/octet-stream" + CRLF
+        + CRLF).getBytes("ISO-8859-1");
+    final byte[] tail = (CRLF + "--" + BOUNDARY + "--").getBytes("ISO-8859-1");
+    final byte[] batch = new byte[head.length + content.length + tail.length];
+    System.arraycopy(head, 0, batch, 0, head.length);
+    System.arraycopy(content, 0, batch, head.length, content.length);
+    System.arraycopy(tail, 0, batch, head.length + content.length, tail.length);
+
+    final BatchRequestPartReader reader = read(batch);
+    final BatchRequestPart part = reader.next();
+    Assert.assertFalse(part.isChangeSet());
+    Assert.assertArrayEquals(content, IOUtils.toByteArray(part.getRequests().get(0).getBody()));
+    Assert.assertNull(reader.next());
+  }
+
+  @Test
+  public void unreadBodyIsSkipped() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + MIME_HEADERS
+        + CRLF
+        + HttpMethod.POST + " ESAllPrim" + HTTP_VERSION + CRLF
+        + CRLF
+        + "--" + BOUNDARY + "X is not a delimiter" + CRLF
+        + "--" + BOUNDARY + CRLF
+        + MIME_HEADERS
+        + CRLF
+        + HttpMethod.POST + " ESTwoPrim" + HTTP_VERSION + CRLF
+        + HttpHeader.CONTENT_LENGTH + ": 3" + CRLF
+        + CRLF
+        + "12345" + CRLF
+        + "--" + BOUNDARY + "--";
+    final BatchRequestPartReader reader = read(batch.getBytes("ISO-8859-1"));
+
+    Assert.assertEquals("/ESAllPrim", reader.next().getRequests().get(0).getRawODataPath());
+    final ODataRequest request = reader.next().getRequests().get(0);
+    Assert.assertEquals("/ESTwoPrim", request.getRawODataPath());
+    Assert.assertEquals("123", IOUtils.toString(request.getBody()));
+    Assert.assertNull(reader.next());
+  }
+
+  @Test
+  public void lineFeedsOnly() throws Exception {
+    final String batch = "--" + BOUNDARY + "\n"
+        + MIME_HEADERS.replace(CRLF, "\n")
+        + "\n"
+        + HttpMethod.POST + " ESAllPrim" + HTTP_VERSION + "\n"
+        + "\n"
+        + "body\n"
+        + "--" + BOUNDARY + "--\n";
+    final BatchRequestPartReader reader = read(batch.getBytes("ISO-8859-1"));
+
+    Assert.assertEquals("body", IOUtils.toString(reader.next().getRequests().get(0).getBody()));
+    Assert.assertNull(reader.next());
+  }
+
+  @Test
+  public void getRequestWithBody() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + MIME_HEADERS
+        + CRLF
+        + HttpMethod.GET + " " + PROPERTY_URI + HTTP_VERSION + CRLF
+        + CRLF
+        + "body" + CRLF
+        + "--" + BOUNDARY + "--";
+    readInvalid(batch, MessageKeys.INVALID_CONTENT);
+  }
+
+  @Test
+  public void missingBlankLine() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + MIME_HEADERS
+        + CRLF
+        + HttpMethod.GET + " " + PROPERTY_URI + HTTP_VERSION + CRLF
+        + CRLF
+        + "--" + BOUNDARY + "--";
+    readInvalid(batch, MessageKeys.MISSING_BLANK_LINE);
+  }
+
+  @Test
+  public void missingCloseDelimiter() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + MIME_HEADERS
+        + CRLF
+        + HttpMethod.GET + " " + PROPERTY_URI + HTTP_VERSION + CRLF
+        + CRLF
+        + CRLF;
+    readInvalid(batch, MessageKeys.MISSING_CLOSE_DELIMITER);
+    readInvalid("", MessageKeys.MISSING_CLOSE_DELIMITER);
+  }
+
+  @Test
+  public void changeSetBoundaryEqualsBatchBoundary() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + HttpHeader.CONTENT_TYPE + ": multipart/mixed;boundary=" + BOUNDARY + CRLF
+        + CRLF
+        + CRLF
+        + "--" + BOUNDARY + "--";
+    readInvalid(batch, MessageKeys.INVALID_BOUNDARY);
+  }
+
+  private BatchRequestPartReader read(final byte[] batch) {
+    final InputStream in = new ByteArrayInputStream(batch) {
+      // Return only a few bytes at a time to cover delimiters spanning more than one read operation.
+      @Override
+      public synchronized int read(final byte[] b, final int off, final int len) {
+        return super.read(b, off, Math.min(len, 17));
+      }
+    };
+    return new BatchStreamingParser(in, BOUNDARY, BatchOptions.with().rawBaseUri(SERVICE_ROOT).build());
+  }
+
+  private void readInvalid(final String batch, final MessageKeys key) throws Exception {
+    final BatchRequestPartReader reader = read(batch.getBytes("ISO-8859-1"));
+    try {
+      while (reader.next() != null) {
+        // Parts are read until the error occurs.
+      }
+      Assert.fail("No exception thrown. Expected: " + key);
+    } catch (final BatchDeserializerException e) {
+      Assert.assertEquals(key, e.getMessageKey());
+    }
+  }
+}
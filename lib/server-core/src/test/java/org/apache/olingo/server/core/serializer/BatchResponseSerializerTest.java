@@ -26,9 +26,14 @@ import static org.mockito.Mockito.mock;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
@@ -43,6 +48,7 @@ import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
@@ -678,4 +684,85 @@ public class BatchResponseSerializerTest {
     assertEquals("{\"@odata.context\":\"../../$metadata\",\"value\":[]}" + CRLF, body.get(line++));
     assertEquals("--" + BOUNDARY + "--" + CRLF, body.get(line++));
   }
+
+  @Test
+  public void streamedBatchResponse() throws Exception {
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.TEXT_PLAIN.toContentTypeString());
+    response.setContent(IOUtils.toInputStream("Walter Winter"));
+    ODataResponse response2 = new ODataResponse();
+    response2.setStatusCode(HttpStatusCode.NOT_FOUND.getStatusCode());
+    final List<ODataResponsePart> parts = Arrays.asList(
+        new ODataResponsePart(response, false),
+        new ODataResponsePart(response2, false));
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    new BatchResponseSerializer().serializeContent(parts.iterator(), BOUNDARY).write(output);
+
+    response.setContent(IOUtils.toInputStream("Walter Winter"));
+    assertArrayEquals(IOUtils.toByteArray(new BatchResponseSerializer().serialize(parts, BOUNDARY)),
+        output.toByteArray());
+  }
+
+  @Test
+  public void streamedChangeSetResponse() throws Exception {
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.NO_CONTENT.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_ID, "1");
+    ODataResponse response2 = new ODataResponse();
+    response2.setStatusCode(HttpStatusCode.CREATED.getStatusCode());
+    response2.setHeader(HttpHeader.CONTENT_ID, "2");
+    response2.setODataContent(new ODataContent() {
+      @Override
+      public void write(final WritableByteChannel channel) {
+        try {
+          channel.write(ByteBuffer.wrap("{}".getBytes(CS_ISO_8859_1)));
+          // Serializers close the channel after writing the content.
+          channel.close();
+        } catch (final IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+
+      @Override
+      public void write(final OutputStream stream) {
+        throw new UnsupportedOperationException();
+      }
+    });
+    final List<ODataResponsePart> parts =
+        Collections.singletonList(new ODataResponsePart(Arrays.asList(response, response2), true));
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    new BatchResponseSerializer().serializeContent(parts.iterator(), BOUNDARY).write(output);
+
+    final BatchLineReader reader = new BatchLineReader(new ByteArrayInputStream(output.toByteArray()));
+    final List<String> body = reader.toList();
+    reader.close();
+
+    int line = 0;
+    assertEquals(22, body.size());
+    assertEquals("--" + BOUNDARY + CRLF, body.get(line++));
+    assertTrue(body.get(line++).startsWith("Content-Type: multipart/mixed; boundary=changeset_"));
+    assertEquals(CRLF, body.get(line++));
+    assertTrue(body.get(line++).startsWith("--changeset_"));
+    assertEquals("Content-Type: application/http" + CRLF, body.get(line++));
+    assertEquals("Content-Transfer-Encoding: binary" + CRLF, body.get(line++));
+    assertEquals("Content-ID: 1" + CRLF, body.get(line++));
+    assertEquals(CRLF, body.get(line++));
+    assertEquals("HTTP/1.1 204 No Content" + CRLF, body.get(line++));
+    assertEquals("Content-Length: 0" + CRLF, body.get(line++));
+    assertEquals(CRLF, body.get(line++));
+    assertEquals(CRLF, body.get(line++));
+    assertTrue(body.get(line++).startsWith("--changeset_"));
+    assertEquals("Content-Type: application/http" + CRLF, body.get(line++));
+    assertEquals("Content-Transfer-Encoding: binary" + CRLF, body.get(line++));
+    assertEquals("Content-ID: 2" + CRLF, body.get(line++));
+    assertEquals(CRLF, body.get(line++));
+    assertEquals("HTTP/1.1 201 Created" + CRLF, body.get(line++));
+    assertEquals(CRLF, body.get(line++));
+    assertEquals("{}" + CRLF, body.get(line++));
+    assertTrue(body.get(line++).startsWith("--changeset_"));
+    assertEquals("--" + BOUNDARY + "--" + CRLF, body.get(line++));
+  }
 }
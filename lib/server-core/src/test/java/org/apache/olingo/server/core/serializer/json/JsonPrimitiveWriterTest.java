@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.UUID;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+public class JsonPrimitiveWriterTest {
+
+  @Test
+  public void numbers() throws Exception {
+    check(EdmPrimitiveTypeKind.Boolean, true, null, null, "true");
+    check(EdmPrimitiveTypeKind.Int16, (short) -32768, null, null, "-32768");
+    check(EdmPrimitiveTypeKind.Int32, Integer.MAX_VALUE, null, null, "2147483647");
+    check(EdmPrimitiveTypeKind.Int64, Long.MIN_VALUE, null, null, "-9223372036854775808");
+    check(EdmPrimitiveTypeKind.Byte, 255, null, null, "255");
+    check(EdmPrimitiveTypeKind.SByte, (byte) -128, null, null, "-128");
+    check(EdmPrimitiveTypeKind.Double, 1.5E300, null, null, "1.5E300");
+    check(EdmPrimitiveTypeKind.Double, -0.001, null, null, "-0.001");
+    check(EdmPrimitiveTypeKind.Single, 3.25F, null, null, "3.25");
+  }
+
+  @Test
+  public void decimal() throws Exception {
+    check(EdmPrimitiveTypeKind.Decimal, new BigDecimal("1E+3"), null, null, "1000");
+    check(EdmPrimitiveTypeKind.Decimal, new BigDecimal("-12.345"), 5, 3, "-12.345");
+    check(EdmPrimitiveTypeKind.Decimal, Long.MIN_VALUE, 19, null, "-9223372036854775808");
+    checkFacetsViolation(EdmPrimitiveTypeKind.Decimal, new BigDecimal("12.345"), 5, 2);
+    checkFacetsViolation(EdmPrimitiveTypeKind.Decimal, new BigDecimal("12.345"), 4, 3);
+    checkFacetsViolation(EdmPrimitiveTypeKind.Decimal, 123456L, 5, null);
+  }
+
+  @Test
+  public void dateAndTime() throws Exception {
+    check(EdmPrimitiveTypeKind.Date, new Date(1234567890123L), null, null);
+    check(EdmPrimitiveTypeKind.Date, new java.sql.Date(-5000000000000L), null, null);
+    check(EdmPrimitiveTypeKind.Date, 1234567890123L, null, null);
+
+    check(EdmPrimitiveTypeKind.DateTimeOffset, new Date(1234567890000L), null, null, "\"2009-02-13T23:31:30Z\"");
+    check(EdmPrimitiveTypeKind.DateTimeOffset, new Date(1234567890120L), 2, null,
+        "\"2009-02-13T23:31:30.12Z\"");
+    check(EdmPrimitiveTypeKind.DateTimeOffset, -1L, 3, null, "\"1969-12-31T23:59:59.999Z\"");
+    Timestamp timestamp = new Timestamp(-5000000000000L);
+    timestamp.setNanos(100200300);
+    check(EdmPrimitiveTypeKind.DateTimeOffset, timestamp, 9, null, "\"1811-07-23T15:06:40.1002003Z\"");
+    checkFacetsViolation(EdmPrimitiveTypeKind.DateTimeOffset, new Date(1234567890120L), 1, null);
+    checkFacetsViolation(EdmPrimitiveTypeKind.DateTimeOffset, timestamp, null, null);
+  }
+
+  @Test
+  public void guid() throws Exception {
+    check(EdmPrimitiveTypeKind.Guid, UUID.fromString("01234567-89ab-cdef-0123-456789abcdef"), null, null);
+    check(EdmPrimitiveTypeKind.Guid, UUID.randomUUID(), null, null);
+  }
+
+  @Test
+  public void unsupported() throws Exception {
+    assertFalse(write(EdmPrimitiveTypeKind.Int64, 1L, null, null, true, new StringWriter()));
+    assertFalse(write(EdmPrimitiveTypeKind.Decimal, BigDecimal.ONE, null, null, true, new StringWriter()));
+    assertFalse(write(EdmPrimitiveTypeKind.Double, Double.NaN, null, null, false, new StringWriter()));
+    assertFalse(write(EdmPrimitiveTypeKind.Double, Double.POSITIVE_INFINITY, null, null, false, new StringWriter()));
+    assertFalse(write(EdmPrimitiveTypeKind.Int32, 1L, null, null, false, new StringWriter()));
+    assertFalse(write(EdmPrimitiveTypeKind.String, "a", null, null, false, new StringWriter()));
+    assertFalse(write(EdmPrimitiveTypeKind.Date, new Date(-20000000000000L), null, null, false,
+        new StringWriter()));
+  }
+
+  /** Checks that the written value is the same as the one produced by the primitive type. */
+  private void check(final EdmPrimitiveTypeKind kind, final Object value, final Integer precision,
+      final Integer scale) throws Exception {
+    final EdmPrimitiveType type = EdmPrimitiveTypeFactory.getInstance(kind);
+    check(kind, value, precision, scale,
+        '"' + type.valueToString(value, null, null, precision, scale, null) + '"');
+  }
+
+  private void check(final EdmPrimitiveTypeKind kind, final Object value, final Integer precision,
+      final Integer scale, final String expected) throws Exception {
+    StringWriter writer = new StringWriter();
+    assertTrue(write(kind, value, precision, scale, false, writer));
+    assertEquals(expected, writer.toString());
+  }
+
+  private void checkFacetsViolation(final EdmPrimitiveTypeKind kind, final Object value,
+      final Integer precision, final Integer scale) throws Exception {
+    try {
+      write(kind, value, precision, scale, false, new StringWriter());
+      fail("Expected exception not thrown.");
+    } catch (final EdmPrimitiveTypeException e) {
+      assertTrue(e.getMessage().contains("facets"));
+    }
+  }
+
+  private boolean write(final EdmPrimitiveTypeKind kind, final Object value, final Integer precision,
+      final Integer scale, final boolean isIEEE754Compatible, final StringWriter writer) throws Exception {
+    JsonGenerator json = JsonFactoryProvider.getJsonFactory().createGenerator(writer);
+    final boolean written = JsonPrimitiveWriter.write(EdmPrimitiveTypeFactory.getInstance(kind), value,
+        precision, scale, isIEEE754Compatible, json);
+    json.close();
+    return written;
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoKind;
+import org.junit.Test;
+
+public class UriInfoCacheTest {
+
+  private static final OData odata = OData.newInstance();
+
+  @Test
+  public void cachedUriIsReused() throws Exception {
+    final UriInfoCache cache = new UriInfoCache(mock(Edm.class), 10);
+    final UriInfo uriInfo = cache.parseUri(odata, "/$metadata", "$format=xml", null);
+    assertEquals(UriInfoKind.metadata, uriInfo.getKind());
+    assertSame(uriInfo, cache.parseUri(odata, "/$metadata", "$format=xml", null));
+    assertNotSame(uriInfo, cache.parseUri(odata, "/$metadata", "$format=json", null));
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void emptyPathAndQueryAreNormalized() throws Exception {
+    final UriInfoCache cache = new UriInfoCache(mock(Edm.class), 10);
+    final UriInfo uriInfo = cache.parseUri(odata, "", null, null);
+    assertEquals(UriInfoKind.service, uriInfo.getKind());
+    assertSame(uriInfo, cache.parseUri(odata, "/", "", null));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void leastRecentlyUsedEntryIsEvicted() throws Exception {
+    final UriInfoCache cache = new UriInfoCache(mock(Edm.class), 2);
+    final UriInfo first = cache.parseUri(odata, "/", null, null);
+    cache.parseUri(odata, "/$metadata", null, null);
+    assertSame(first, cache.parseUri(odata, "/", null, null));
+    cache.parseUri(odata, "/$batch", null, null);
+    assertEquals(2, cache.size());
+    assertSame(first, cache.parseUri(odata, "/", null, null));
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertNotSame(first, cache.parseUri(odata, "/", null, null));
+  }
+
+  @Test
+  public void errorsAreNotCached() throws Exception {
+    final UriInfoCache cache = new UriInfoCache(mock(Edm.class), 10);
+    try {
+      cache.parseUri(odata, "/$metadata", "$unknown=1", null);
+      fail("Expected exception not thrown.");
+    } catch (final UriParserSyntaxException e) {
+      assertEquals(0, cache.size());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void wrongSize() {
+    new UriInfoCache(mock(Edm.class), 0);
+  }
+}
@@ -18,24 +18,29 @@
  */
 package org.apache.olingo.server.tecsvc.processor;
 
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.batch.BatchFacade;
+import org.apache.olingo.server.api.batch.ConcurrentBatchFacade;
+import org.apache.olingo.server.api.deserializer.FixedFormatStreamDeserializer;
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPartReader;
 import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
 import org.apache.olingo.server.api.prefer.PreferencesApplied;
 import org.apache.olingo.server.api.processor.BatchProcessor;
+import org.apache.olingo.server.api.serializer.FixedFormatStreamSerializer;
 import org.apache.olingo.server.tecsvc.async.AsyncProcessor;
 import org.apache.olingo.server.tecsvc.async.TechnicalAsyncService;
 import org.apache.olingo.server.tecsvc.data.DataProvider;
@@ -71,29 +76,19 @@ public class TechnicalBatchProcessor extends TechnicalProcessor implements Batch
     final BatchOptions options = BatchOptions.with()
         .rawBaseUri(request.getRawBaseUri())
         .rawServiceResolutionUri(request.getRawServiceResolutionUri()).build();
-    final List<BatchRequestPart> parts = odata.createFixedFormatDeserializer().parseBatchRequest(request.getBody(),
-        boundary, options);
-    final List<ODataResponsePart> responseParts = new ArrayList<ODataResponsePart>();
-
-    for (BatchRequestPart part : parts) {
-      final ODataResponsePart responsePart = facade.handleBatchRequest(part);
-      responseParts.add(responsePart); // Also add failed responses.
-      final int statusCode = responsePart.getResponses().get(0).getStatusCode();
-
-      if ((statusCode >= 400 && statusCode <= 600) && !continueOnError) {
-
-        // Perform some additional actions.
-        // ...
-
-        break; // Stop processing, but serialize responses to all recent requests.
-      }
-    }
+    // The parts are read one after the other, so large batch requests are not held in memory.
+    // All parts are executed before the response is started, so that any failure can still
+    // lead to an error response and every change set has been completed before its response is sent.
+    final BatchRequestPartReader parts = ((FixedFormatStreamDeserializer) odata.createFixedFormatDeserializer())
+        .readBatchRequest(request.getBody(), boundary, options);
+    final List<ODataResponsePart> responseParts = handleBatchRequestParts(facade, parts, continueOnError);
 
     final String responseBoundary = "batch_" + UUID.randomUUID().toString();
-    final InputStream responseContent =
-        odata.createFixedFormatSerializer().batchResponse(responseParts, responseBoundary);
+    // The response parts are serialized directly to the response; they are not copied into one buffer.
+    final ODataContent responseContent = ((FixedFormatStreamSerializer) odata.createFixedFormatSerializer())
+        .batchResponseContent(responseParts.iterator(), responseBoundary);
     response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.MULTIPART_MIXED + ";boundary=" + responseBoundary);
-    response.setContent(responseContent);
+    response.setODataContent(responseContent);
     response.setStatusCode(HttpStatusCode.OK.getStatusCode());
     if (continueOnError) {
       response.setHeader(HttpHeader.PREFERENCE_APPLIED,
@@ -132,4 +127,52 @@ public class TechnicalBatchProcessor extends TechnicalProcessor implements Batch
     return new ODataResponsePart(responses, true);
   }
 
+  /**
+   * Executes the parts of a batch request.
+   * GET requests outside of change sets are collected and handled together so that they can be executed
+   * concurrently if the handler has been configured to do so. Their responses are checked before
+   * the following part is executed.
+   */
+  private List<ODataResponsePart> handleBatchRequestParts(final BatchFacade facade,
+      final BatchRequestPartReader parts, final boolean continueOnError)
+      throws ODataApplicationException, ODataLibraryException {
+    List<ODataResponsePart> responseParts = new ArrayList<ODataResponsePart>();
+    BatchRequestPart part = parts.next();
+    while (part != null) {
+      List<BatchRequestPart> requestParts = new ArrayList<BatchRequestPart>();
+      while (part != null && !part.isChangeSet() && part.getRequests().get(0).getMethod() == HttpMethod.GET) {
+        requestParts.add(part);
+        part = parts.next();
+      }
+      if (requestParts.isEmpty()) {
+        requestParts.add(part);
+        part = parts.next();
+      }
+      for (final ODataResponsePart responsePart : handleBatchRequests(facade, requestParts)) {
+        responseParts.add(responsePart);
+        final int statusCode = responsePart.getResponses().get(0).getStatusCode();
+        if (!continueOnError && statusCode >= 400 && statusCode <= 600) {
+
+          // Perform some additional actions.
+          // ...
+
+          // Stop processing, but serialize responses to all recent requests, including the failed one.
+          return responseParts;
+        }
+      }
+    }
+    return responseParts;
+  }
+
+  private List<ODataResponsePart> handleBatchRequests(final BatchFacade facade,
+      final List<BatchRequestPart> requestParts) throws ODataApplicationException, ODataLibraryException {
+    if (facade instanceof ConcurrentBatchFacade) {
+      return ((ConcurrentBatchFacade) facade).handleBatchRequests(requestParts);
+    }
+    List<ODataResponsePart> responseParts = new ArrayList<ODataResponsePart>();
+    for (final BatchRequestPart requestPart : requestParts) {
+      responseParts.add(facade.handleBatchRequest(requestPart));
+    }
+    return responseParts;
+  }
 }
@@ -76,7 +76,9 @@ import org.apache.olingo.server.api.uri.queryoption.CountOption;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.IdOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.api.uri.queryoption.SkipOption;
 import org.apache.olingo.server.api.uri.queryoption.SystemQueryOption;
+import org.apache.olingo.server.api.uri.queryoption.TopOption;
 import org.apache.olingo.server.tecsvc.async.AsyncProcessor;
 import org.apache.olingo.server.tecsvc.async.TechnicalAsyncService;
 import org.apache.olingo.server.tecsvc.data.DataProvider;
@@ -607,11 +609,12 @@ public class TechnicalEntityProcessor extends TechnicalProcessor
     SearchHandler.applySearchSystemQueryOption(uriInfo.getSearchOption(), entitySet);
     FilterHandler.applyFilterSystemQuery(uriInfo.getFilterOption(), entitySet, uriInfo, serviceMetadata.getEdm());
     CountHandler.applyCountSystemQueryOption(uriInfo.getCountOption(), entitySet);
-    OrderByHandler.applyOrderByOption(uriInfo.getOrderByOption(), entitySet, uriInfo, serviceMetadata.getEdm());
+    final Integer pageSize = odata.createPreferences(request.getHeaders(HttpHeader.PREFER)).getMaxPageSize();
+    OrderByHandler.applyOrderByOption(uriInfo.getOrderByOption(), entitySet, uriInfo, serviceMetadata.getEdm(),
+        getRequiredSize(uriInfo, edmEntitySet, pageSize));
     SkipHandler.applySkipSystemQueryHandler(uriInfo.getSkipOption(), entitySet);
     TopHandler.applyTopSystemQueryOption(uriInfo.getTopOption(), entitySet);
 
-    final Integer pageSize = odata.createPreferences(request.getHeaders(HttpHeader.PREFER)).getMaxPageSize();
     final Integer serverPageSize = ServerSidePagingHandler.applyServerSidePaging(uriInfo.getSkipTokenOption(),
         entitySet,
         edmEntitySet,
@@ -714,6 +717,30 @@ public class TechnicalEntityProcessor extends TechnicalProcessor
       response.setHeader(HttpHeader.ODATA_VERSION,request.getHeaders(HttpHeader.ODATA_MAX_VERSION).get(0));
     }
   }
+  /**
+   * Determines how many entities from the start of the order are needed for $skip, $top, and server-side paging.
+   * @return the number of entities, or <code>null</code> if all are needed
+   */
+  private Integer getRequiredSize(final UriInfo uriInfo, final EdmEntitySet edmEntitySet, final Integer pageSize)
+      throws ODataApplicationException {
+    final TopOption topOption = uriInfo.getTopOption();
+    final SkipOption skipOption = uriInfo.getSkipOption();
+    if (topOption != null && topOption.getValue() < 0 || skipOption != null && skipOption.getValue() < 0) {
+      // The handlers report the error.
+      return null;
+    }
+    final Integer pagingSize =
+        ServerSidePagingHandler.getRequiredSize(uriInfo.getSkipTokenOption(), edmEntitySet, pageSize);
+    final Integer size = topOption == null ? pagingSize :
+        pagingSize == null ? Integer.valueOf(topOption.getValue()) :
+            Integer.valueOf(Math.min(topOption.getValue(), pagingSize));
+    if (size == null) {
+      return null;
+    }
+    final long required = (long) size + (skipOption == null ? 0 : skipOption.getValue());
+    return required > Integer.MAX_VALUE ? null : (int) required;
+  }
+
   private List<Entity> readNavigationEntities(final UriInfo uriInfo) {   
 
     final List<UriResource> resourcePaths = uriInfo.getUriResourceParts();
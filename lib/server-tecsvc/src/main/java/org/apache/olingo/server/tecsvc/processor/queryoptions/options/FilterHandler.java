@@ -32,6 +32,9 @@ import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.uri.UriInfoResource;
 import org.apache.olingo.server.api.uri.queryoption.FilterOption;
 import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.core.evaluation.EntityFilter;
+import org.apache.olingo.server.core.evaluation.EvaluationException;
+import org.apache.olingo.server.core.evaluation.ExpressionCompiler;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.ExpressionVisitorImpl;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.TypedOperand;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.VisitorOperand;
@@ -48,6 +51,17 @@ public class FilterHandler {
       return;
     }
 
+    final EntityFilter filter = compile(filterOption, uriInfo);
+    if (filter != null) {
+      try {
+        filter.filter(entitySet.getEntities());
+      } catch (final EvaluationException e) {
+        throw new ODataApplicationException(e.getMessage(), HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT,
+            e);
+      }
+      return;
+    }
+
     try {
       final Iterator<Entity> iter = entitySet.getEntities().iterator();
 
@@ -57,7 +71,7 @@ public class FilterHandler {
         final TypedOperand typedOperand = operand.asTypedOperand();
 
         if (typedOperand.is(primBoolean)) {
-          if (Boolean.FALSE.equals(typedOperand.getTypedValue(Boolean.class))) {
+          if (!Boolean.TRUE.equals(typedOperand.getTypedValue(Boolean.class))) {
             iter.remove();
           }
         } else {
@@ -72,4 +86,18 @@ public class FilterHandler {
           HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT);
     }
   }
+
+  /**
+   * Compiles the filter expression once for all entities.
+   * Returns <code>null</code> for expressions the compiler does not support, e.g., lambda operators,
+   * and for invalid expressions; they are evaluated entity by entity with the expression visitor,
+   * which also reports the errors.
+   */
+  private static EntityFilter compile(final FilterOption filterOption, final UriInfoResource uriInfo) {
+    try {
+      return new ExpressionCompiler(uriInfo).compileFilter(filterOption);
+    } catch (final ODataApplicationException e) {
+      return null;
+    }
+  }
 }
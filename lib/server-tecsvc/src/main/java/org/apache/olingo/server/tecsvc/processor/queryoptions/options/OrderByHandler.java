@@ -31,17 +31,46 @@ import org.apache.olingo.server.api.uri.UriInfoResource;
 import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
 import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
 import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.core.evaluation.EntityComparator;
+import org.apache.olingo.server.core.evaluation.EntitySorter;
+import org.apache.olingo.server.core.evaluation.EvaluationException;
+import org.apache.olingo.server.core.evaluation.ExpressionCompiler;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.ExpressionVisitorImpl;
 import org.apache.olingo.server.tecsvc.processor.queryoptions.expression.operand.TypedOperand;
 
 public class OrderByHandler {
   public static void applyOrderByOption(final OrderByOption orderByOption, final EntityCollection entitySet,
       final UriInfoResource uriInfo, final Edm edm) throws ODataApplicationException {
+    applyOrderByOption(orderByOption, entitySet, uriInfo, edm, null);
+  }
+
+  /**
+   * Sorts the entities.
+   * @param limit the number of entities needed from the start of the order, or <code>null</code> for all entities;
+   *              further entities may be removed from the collection
+   */
+  public static void applyOrderByOption(final OrderByOption orderByOption, final EntityCollection entitySet,
+      final UriInfoResource uriInfo, final Edm edm, final Integer limit) throws ODataApplicationException {
 
     if (orderByOption == null) {
       return;
     }
 
+    final EntityComparator comparator = compile(orderByOption, uriInfo);
+    if (comparator != null) {
+      try {
+        if (limit == null) {
+          new EntitySorter(comparator).sort(entitySet.getEntities());
+        } else {
+          new EntitySorter(comparator).sortTop(entitySet.getEntities(), limit);
+        }
+      } catch (final EvaluationException e) {
+        throw new ODataApplicationException(e.getMessage(), HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT,
+            e);
+      }
+      return;
+    }
+
     try {
       applyOrderByOptionInternal(orderByOption, entitySet, uriInfo, edm);
     } catch (SystemQueryOptionsRuntimeException e) {
@@ -55,6 +84,19 @@ public class OrderByHandler {
     }
   }
 
+  /**
+   * Compiles the orderby expressions once for all entities.
+   * Returns <code>null</code> for expressions the compiler does not support and for invalid expressions;
+   * they are evaluated for every comparison with the expression visitor, which also reports the errors.
+   */
+  private static EntityComparator compile(final OrderByOption orderByOption, final UriInfoResource uriInfo) {
+    try {
+      return new ExpressionCompiler(uriInfo).compileOrderBy(orderByOption);
+    } catch (final ODataApplicationException e) {
+      return null;
+    }
+  }
+
   private static void applyOrderByOptionInternal(final OrderByOption orderByOption, final EntityCollection entitySet,
       final UriInfoResource uriInfo, final Edm edm) throws ODataApplicationException {
     Collections.sort(entitySet.getEntities(), new Comparator<Entity>() {
@@ -19,7 +19,6 @@
 package org.apache.olingo.server.tecsvc.processor.queryoptions.options;
 
 import java.net.URI;
-import java.net.URISyntaxException;
 import java.util.Locale;
 
 import org.apache.olingo.commons.api.data.EntityCollection;
@@ -27,7 +26,7 @@ import org.apache.olingo.commons.api.edm.EdmEntitySet;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.uri.queryoption.SkipTokenOption;
-import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
+import org.apache.olingo.server.core.paging.NextLinkBuilder;
 
 public class ServerSidePagingHandler {
   private static final int MAX_PAGE_SIZE = 10;
@@ -74,24 +73,29 @@ public class ServerSidePagingHandler {
     return null;
   }
 
+  /**
+   * Determines how many entities server-side paging needs at most, so that entities after them
+   * do not have to be sorted.
+   * @return the number of entities, or <code>null</code> if no paging is done
+   * @throws ODataApplicationException
+   */
+  public static Integer getRequiredSize(final SkipTokenOption skipTokenOption, final EdmEntitySet edmEntitySet,
+      final Integer preferredPageSize) throws ODataApplicationException {
+    if (edmEntitySet != null && shouldApplyServerSidePaging(edmEntitySet)) {
+      final int pageSize = getPageSize(getPageSize(skipTokenOption), preferredPageSize);
+      // One more entity tells whether there is a next page.
+      final long size = (long) pageSize * (getPage(skipTokenOption) + 1) + 1;
+      return size > Integer.MAX_VALUE || size < 0 ? null : (int) size;
+    }
+    return null;
+  }
+
   private static URI createNextLink(final String rawRequestUri, final int page, final int pageSize)
       throws ODataApplicationException {
-    // Remove a maybe existing skiptoken, making sure that the query part is not empty.
-    String nextlink = rawRequestUri.contains("?") ?
-        rawRequestUri.replaceAll("(\\$|%24)skiptoken=.+&?", "").replaceAll("(\\?|&)$", "") :
-        rawRequestUri;
-
-    // Add a question mark or an ampersand, depending on the current query part.
-    nextlink += nextlink.contains("?") ? '&' : '?';
-
-    // Append the new skiptoken.
-    nextlink += SystemQueryOptionKind.SKIPTOKEN.toString().replace("$", "%24")  // poor man's percent encoding
-        + '='
-        + page + "%2A" + pageSize;  // "%2A" is a percent-encoded asterisk
-
     try {
-      return new URI(nextlink);
-    } catch (final URISyntaxException e) {
+      // The existing skiptoken is replaced; the asterisk gets percent-encoded.
+      return NextLinkBuilder.create(rawRequestUri, page + "*" + pageSize);
+    } catch (final IllegalArgumentException e) {
       throw new ODataApplicationException("Exception while constructing next link",
           HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, e);
     }
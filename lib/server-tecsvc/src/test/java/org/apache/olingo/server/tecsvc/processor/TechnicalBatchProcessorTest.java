@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.tecsvc.processor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.core.ODataHandlerImpl;
+import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TechnicalBatchProcessorTest {
+
+  private static final String CRLF = "\r\n";
+  private static final String BASE_URI = "http://localhost/odata";
+  private static final String ORIGINAL_VALUE = "First Resource - positive values";
+
+  private final OData odata = OData.newInstance();
+  private final ServiceMetadata metadata =
+      odata.createServiceMetadata(new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+  private final DataProvider dataProvider = new DataProvider(odata, metadata.getEdm());
+  private final EdmEntitySet esAllPrim = metadata.getEdm().getEntityContainer().getEntitySet("ESAllPrim");
+
+  @Test
+  public void failingGetStopsBeforeChangeSet() throws Exception {
+    final ODataResponse response = process(getFailingGetAndChangeSet(), false);
+    Assert.assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    final String content = write(response);
+
+    Assert.assertTrue(content.contains("HTTP/1.1 404 Not Found"));
+    Assert.assertFalse(content.contains("changeset"));
+    Assert.assertEquals(ORIGINAL_VALUE, getPropertyString());
+  }
+
+  @Test
+  public void failingGetWithContinueOnError() throws Exception {
+    final ODataResponse response = process(getFailingGetAndChangeSet(), true);
+    // All parts are executed before the response is written.
+    Assert.assertEquals("changed", getPropertyString());
+    final String content = write(response);
+
+    Assert.assertTrue(content.contains("HTTP/1.1 404 Not Found"));
+    Assert.assertTrue(content.contains("HTTP/1.1 200 OK"));
+  }
+
+  @Test
+  public void invalidBatchRequest() throws Exception {
+    final ODataResponse response = process("--batch_1" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-Transfer-Encoding: binary" + CRLF
+        + CRLF
+        + "GET" + CRLF
+        + CRLF
+        + "--batch_1--", false);
+    Assert.assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), response.getStatusCode());
+  }
+
+  @Test
+  public void invalidLaterPart() throws Exception {
+    // The error in a later part must not occur only while the response is written.
+    final ODataResponse response = process("--batch_1" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-Transfer-Encoding: binary" + CRLF
+        + CRLF
+        + "GET ESAllPrim(32767) HTTP/1.1" + CRLF
+        + "Accept: application/json" + CRLF
+        + CRLF
+        + CRLF
+        + "--batch_1" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-Transfer-Encoding: binary" + CRLF
+        + CRLF
+        + "GET" + CRLF
+        + CRLF
+        + "--batch_1--", false);
+    Assert.assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), response.getStatusCode());
+    Assert.assertNull(response.getODataContent());
+  }
+
+  private String getFailingGetAndChangeSet() {
+    return "--batch_1" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-Transfer-Encoding: binary" + CRLF
+        + CRLF
+        + "GET ESAllPrim(42) HTTP/1.1" + CRLF
+        + "Accept: application/json" + CRLF
+        + CRLF
+        + CRLF
+        + "--batch_1" + CRLF
+        + "Content-Type: multipart/mixed; boundary=changeset_1" + CRLF
+        + CRLF
+        + "--changeset_1" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-Transfer-Encoding: binary" + CRLF
+        + "Content-Id: 1" + CRLF
+        + CRLF
+        + "PATCH ESAllPrim(32767) HTTP/1.1" + CRLF
+        + "Content-Type: application/json" + CRLF
+        + "Prefer: return=representation" + CRLF
+        + CRLF
+        + "{\"PropertyString\":\"changed\"}" + CRLF
+        + "--changeset_1--" + CRLF
+        + CRLF
+        + "--batch_1--";
+  }
+
+  private ODataResponse process(final String body, final boolean continueOnError) {
+    ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.POST);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawRequestUri(BASE_URI + "/$batch");
+    request.setRawODataPath("$batch");
+    request.addHeader(HttpHeader.CONTENT_TYPE, "multipart/mixed;boundary=batch_1");
+    if (continueOnError) {
+      request.addHeader(HttpHeader.PREFER, "odata.continue-on-error");
+    }
+    request.setBody(new ByteArrayInputStream(body.getBytes()));
+
+    ODataHandlerImpl handler = new ODataHandlerImpl(odata, metadata, new ServerCoreDebugger(odata));
+    handler.register(new TechnicalEntityProcessor(dataProvider, metadata));
+    handler.register(new TechnicalBatchProcessor(dataProvider));
+    return handler.process(request);
+  }
+
+  private String write(final ODataResponse response) throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    response.getODataContent().write(output);
+    return new String(output.toByteArray(), "UTF-8");
+  }
+
+  private Object getPropertyString() throws Exception {
+    final Entity entity = dataProvider.readAll(esAllPrim).getEntities().get(0);
+    return entity.getProperty("PropertyString").getValue();
+  }
+}
@@ -19,9 +19,16 @@
 package org.apache.olingo.netty.server.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -34,20 +41,34 @@ import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.netty.server.api.ODataNetty;
 import org.apache.olingo.netty.server.api.ODataNettyHandler;
+import org.apache.olingo.netty.server.api.ODataNettyRequestBody;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.processor.EntityProcessor;
 import org.apache.olingo.server.api.processor.MetadataProcessor;
 import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
 import org.junit.Test;
 
+import io.netty.buffer.AbstractByteBufAllocator;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
 
 public class ODataNettyHandlerImplTest {
 
@@ -153,4 +174,128 @@ public class ODataNettyHandlerImplTest {
     nettyResponse.status();
     assertEquals(HttpStatusCode.CREATED.getStatusCode(), HttpResponseStatus.CREATED.code());
   }
+
+  @Test
+  public void testNettyReqResp_ChunkedGetMethod() throws Exception {
+    final ODataNetty odata = ODataNetty.newInstance();
+    final ServiceMetadata metadata = odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    ODataNettyHandler handler = odata.createNettyHandler(metadata);
+
+    ContextHolder holder = new ContextHolder();
+    EmbeddedChannel channel = new EmbeddedChannel(holder);
+    HttpRequest nettyRequest = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+        io.netty.handler.codec.http.HttpMethod.GET, "/odata.svc/$metadata");
+    Map<String, String> requestParams = new HashMap<String, String>();
+    requestParams.put("contextPath", "/odata.svc");
+    handler.processNettyRequest(nettyRequest, null, holder.context, requestParams);
+
+    HttpResponse nettyResponse = channel.readOutbound();
+    assertEquals(HttpResponseStatus.OK, nettyResponse.status());
+    assertTrue(HttpUtil.isTransferEncodingChunked(nettyResponse));
+
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    int chunks = 0;
+    HttpContent chunk;
+    do {
+      chunk = channel.readOutbound();
+      chunk.content().readBytes(content, chunk.content().readableBytes());
+      chunk.release();
+      chunks++;
+    } while (!(chunk instanceof LastHttpContent));
+    assertTrue(chunks > 2);
+    assertTrue(content.toString("UTF-8").startsWith("<?xml"));
+    assertTrue(content.toString("UTF-8").endsWith("</edmx:Edmx>"));
+    assertTrue(channel.isOpen());
+  }
+
+  @Test
+  public void testNettyReqResp_ChunkedContentFailure() throws Exception {
+    final List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+    ContextHolder holder = new ContextHolder();
+    EmbeddedChannel channel = new EmbeddedChannel(holder);
+    channel.config().setAllocator(new AbstractByteBufAllocator() {
+      @Override
+      protected ByteBuf newHeapBuffer(final int initialCapacity, final int maxCapacity) {
+        final ByteBuf buffer = Unpooled.buffer(initialCapacity, maxCapacity);
+        buffers.add(buffer);
+        return buffer;
+      }
+
+      @Override
+      protected ByteBuf newDirectBuffer(final int initialCapacity, final int maxCapacity) {
+        return newHeapBuffer(initialCapacity, maxCapacity);
+      }
+
+      @Override
+      public boolean isDirectBufferPooled() {
+        return false;
+      }
+    });
+    HttpRequest nettyRequest = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+        io.netty.handler.codec.http.HttpMethod.GET, "/odata.svc/ESAllPrim");
+    ODataResponse odResponse = new ODataResponse();
+    odResponse.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    odResponse.setODataContent(new ODataContent() {
+      @Override
+      public void write(final WritableByteChannel writeChannel) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void write(final OutputStream stream) {
+        try {
+          stream.write("{\"value\":[".getBytes("UTF-8"));
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+        throw new IllegalStateException("content failure");
+      }
+    });
+
+    ODataNettyHandlerImpl.writeChunkedResponse(nettyRequest, odResponse, holder.context);
+
+    // The connection is closed without ending the response, so the client cannot take it as complete.
+    assertFalse(channel.isOpen());
+    assertNull(channel.readOutbound());
+    assertEquals(1, buffers.size());
+    assertEquals(0, buffers.get(0).refCnt());
+  }
+
+  @Test
+  public void testNettyRequestBody() throws Exception {
+    EmbeddedChannel channel = new EmbeddedChannel();
+    ODataNettyRequestBody body = new ODataNettyRequestBody(channel, 6);
+
+    ByteBuf first = Unpooled.copiedBuffer("abcd".getBytes("UTF-8"));
+    body.offer(new DefaultHttpContent(first));
+    assertTrue(channel.config().isAutoRead());
+    ByteBuf second = Unpooled.copiedBuffer("efgh".getBytes("UTF-8"));
+    body.offer(new DefaultHttpContent(second));
+    assertFalse(channel.config().isAutoRead());
+    body.offer(new DefaultLastHttpContent(Unpooled.copiedBuffer("ij".getBytes("UTF-8"))));
+
+    byte[] bytes = new byte[3];
+    assertEquals(3, body.read(bytes));
+    assertEquals("abc", new String(bytes, "UTF-8"));
+    assertFalse(channel.config().isAutoRead());
+    assertEquals(1, body.read(bytes));
+    assertEquals('e', body.read());
+    assertTrue(channel.config().isAutoRead());
+    assertEquals(1, first.refCnt());
+    assertEquals(3, body.read(bytes));
+    assertEquals(2, body.read(bytes));
+    assertEquals(-1, body.read(bytes));
+    assertEquals(1, second.refCnt());
+    body.close();
+  }
+
+  private static class ContextHolder extends ChannelInboundHandlerAdapter {
+    private ChannelHandlerContext context;
+
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) {
+      context = ctx;
+    }
+  }
 }
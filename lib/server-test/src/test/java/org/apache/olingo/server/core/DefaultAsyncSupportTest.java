@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataHttpHandler;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.async.DefaultAsyncSupport;
+import org.apache.olingo.server.api.async.DefaultAsyncSupport.RejectionPolicy;
+import org.apache.olingo.server.api.processor.ServiceDocumentProcessor;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.After;
+import org.junit.Test;
+
+public class DefaultAsyncSupportTest {
+
+  private static final String BASE_URI = "http://localhost/odata.svc";
+
+  private final OData odata = OData.newInstance();
+  private final ServiceMetadata metadata =
+      odata.createServiceMetadata(new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+  private final CountDownLatch started = new CountDownLatch(1);
+  private final CountDownLatch release = new CountDownLatch(1);
+  private volatile boolean ignoreInterrupts;
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @After
+  public void shutdown() {
+    release.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void processAsync() throws Exception {
+    final DefaultAsyncSupport asyncSupport = new DefaultAsyncSupport(1);
+    try {
+      final ODataResponse response = process(asyncSupport, false, HttpMethod.GET, "/", "respond-async");
+      assertEquals(HttpStatusCode.ACCEPTED.getStatusCode(), response.getStatusCode());
+      assertEquals("respond-async", response.getHeader(HttpHeader.PREFERENCE_APPLIED));
+      final String location = response.getHeader(HttpHeader.LOCATION);
+      assertTrue(location.startsWith(BASE_URI + "/$async/"));
+      final String monitorPath = location.substring(BASE_URI.length());
+
+      ODataResponse monitorResponse = process(asyncSupport, false, HttpMethod.GET, monitorPath, null);
+      for (int i = 0; i < 100 && monitorResponse.getStatusCode() == HttpStatusCode.ACCEPTED.getStatusCode(); i++) {
+        assertEquals(location, monitorResponse.getHeader(HttpHeader.LOCATION));
+        Thread.sleep(10);
+        monitorResponse = process(asyncSupport, false, HttpMethod.GET, monitorPath, null);
+      }
+      assertEquals(HttpStatusCode.OK.getStatusCode(), monitorResponse.getStatusCode());
+      assertEquals(ContentType.APPLICATION_HTTP.toContentTypeString(),
+          monitorResponse.getHeader(HttpHeader.CONTENT_TYPE));
+      final String result = IOUtils.toString(monitorResponse.getContent());
+      assertTrue(result.startsWith("HTTP/1.1 200 OK\r\n"));
+      assertTrue(result.contains("\"@odata.context\":\"$metadata\""));
+
+      // The result is delivered only once.
+      assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(),
+          process(asyncSupport, false, HttpMethod.GET, monitorPath, null).getStatusCode());
+    } finally {
+      asyncSupport.shutdown();
+    }
+  }
+
+  @Test
+  public void cancel() throws Exception {
+    final DefaultAsyncSupport asyncSupport =
+        new DefaultAsyncSupport(executor, 10, 1, TimeUnit.MINUTES, RejectionPolicy.SERVICE_UNAVAILABLE);
+    final ODataResponse response = process(asyncSupport, true, HttpMethod.GET, "/", "respond-async");
+    assertEquals(HttpStatusCode.ACCEPTED.getStatusCode(), response.getStatusCode());
+    final String monitorPath = response.getHeader(HttpHeader.LOCATION).substring(BASE_URI.length());
+    assertEquals(HttpStatusCode.ACCEPTED.getStatusCode(),
+        process(asyncSupport, true, HttpMethod.GET, monitorPath, null).getStatusCode());
+    assertEquals(1, asyncSupport.getUnfinishedCount());
+
+    assertEquals(HttpStatusCode.NO_CONTENT.getStatusCode(),
+        process(asyncSupport, true, HttpMethod.DELETE, monitorPath, null).getStatusCode());
+    // The request counts as unfinished until the interrupted processing has returned.
+    for (int i = 0; i < 100 && asyncSupport.getUnfinishedCount() > 0; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, asyncSupport.getUnfinishedCount());
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(),
+        process(asyncSupport, true, HttpMethod.GET, monitorPath, null).getStatusCode());
+  }
+
+  @Test
+  public void cancelledRequestCountsUntilFinished() throws Exception {
+    ignoreInterrupts = true;
+    final DefaultAsyncSupport asyncSupport =
+        new DefaultAsyncSupport(executor, 1, 1, TimeUnit.MINUTES, RejectionPolicy.SERVICE_UNAVAILABLE);
+    final ODataResponse response = process(asyncSupport, true, HttpMethod.GET, "/", "respond-async");
+    final String monitorPath = response.getHeader(HttpHeader.LOCATION).substring(BASE_URI.length());
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    assertEquals(HttpStatusCode.NO_CONTENT.getStatusCode(),
+        process(asyncSupport, true, HttpMethod.DELETE, monitorPath, null).getStatusCode());
+
+    // The cancelled request is still being processed, so it still occupies its place.
+    assertEquals(1, asyncSupport.getUnfinishedCount());
+    assertEquals(HttpStatusCode.SERVICE_UNAVAILABLE.getStatusCode(),
+        process(asyncSupport, true, HttpMethod.GET, "/", "respond-async").getStatusCode());
+
+    release.countDown();
+    for (int i = 0; i < 100 && asyncSupport.getUnfinishedCount() > 0; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, asyncSupport.getUnfinishedCount());
+  }
+
+  @Test
+  public void rejectWhenBusy() throws Exception {
+    final DefaultAsyncSupport asyncSupport =
+        new DefaultAsyncSupport(executor, 1, 1, TimeUnit.MINUTES, RejectionPolicy.SERVICE_UNAVAILABLE);
+    assertEquals(HttpStatusCode.ACCEPTED.getStatusCode(),
+        process(asyncSupport, true, HttpMethod.GET, "/", "respond-async").getStatusCode());
+    assertEquals(HttpStatusCode.SERVICE_UNAVAILABLE.getStatusCode(),
+        process(asyncSupport, true, HttpMethod.GET, "/", "respond-async").getStatusCode());
+  }
+
+  @Test
+  public void processSynchronouslyWhenBusy() throws Exception {
+    final DefaultAsyncSupport asyncSupport =
+        new DefaultAsyncSupport(executor, 0, 1, TimeUnit.MINUTES, RejectionPolicy.PROCESS_SYNCHRONOUSLY);
+    final ODataResponse response = process(asyncSupport, false, HttpMethod.GET, "/", "respond-async");
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertNull(response.getHeader(HttpHeader.PREFERENCE_APPLIED));
+  }
+
+  @Test
+  public void unknownStatusMonitor() throws Exception {
+    final DefaultAsyncSupport asyncSupport =
+        new DefaultAsyncSupport(executor, 1, 1, TimeUnit.MINUTES, RejectionPolicy.SERVICE_UNAVAILABLE);
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(),
+        process(asyncSupport, false, HttpMethod.GET, "/$async/unknown", null).getStatusCode());
+  }
+
+  private ODataResponse process(final DefaultAsyncSupport asyncSupport, final boolean blocking,
+      final HttpMethod method, final String path, final String prefer) {
+    ODataHttpHandler handler = odata.createHandler(metadata);
+    handler.register(asyncSupport);
+    if (blocking) {
+      handler.register(new BlockingServiceDocumentProcessor());
+    }
+    ODataRequest request = new ODataRequest();
+    request.setMethod(method);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath(path);
+    request.setRawRequestUri(BASE_URI + path);
+    if (prefer != null) {
+      request.addHeader(HttpHeader.PREFER, prefer);
+    }
+    return handler.process(request);
+  }
+
+  private class BlockingServiceDocumentProcessor implements ServiceDocumentProcessor {
+
+    @Override
+    public void init(final OData odata, final ServiceMetadata serviceMetadata) {
+      // not needed
+    }
+
+    @Override
+    public void readServiceDocument(final ODataRequest request, final ODataResponse response,
+        final UriInfo uriInfo, final ContentType responseFormat) {
+      started.countDown();
+      boolean interrupted = false;
+      do {
+        try {
+          release.await();
+        } catch (final InterruptedException e) {
+          interrupted = true;
+        }
+      } while (ignoreInterrupts && release.getCount() > 0);
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      response.setStatusCode(HttpStatusCode.NO_CONTENT.getStatusCode());
+    }
+  }
+}
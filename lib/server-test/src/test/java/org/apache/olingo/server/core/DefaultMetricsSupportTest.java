@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataHttpHandler;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.metrics.DefaultMetricsSupport;
+import org.apache.olingo.server.api.metrics.RequestPhase;
+import org.apache.olingo.server.api.processor.EntityCollectionProcessor;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class DefaultMetricsSupportTest {
+
+  private static final String BASE_URI = "http://localhost/odata.svc";
+
+  private final OData odata = OData.newInstance();
+  private final ServiceMetadata metadata =
+      odata.createServiceMetadata(new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+  private final DefaultMetricsSupport metricsSupport = new DefaultMetricsSupport();
+
+  @Test
+  public void phasesPerEntitySet() throws Exception {
+    final ODataHttpHandler handler = createHandler();
+    for (int i = 0; i < 3; i++) {
+      assertEquals(HttpStatusCode.OK.getStatusCode(), process(handler, HttpMethod.GET, "/ESAllPrim").getStatusCode());
+    }
+    assertEquals(HttpStatusCode.OK.getStatusCode(), process(handler, HttpMethod.GET, "/ESTwoPrim").getStatusCode());
+
+    assertEquals(3, metricsSupport.getResponseCount("ESAllPrim", HttpMethod.GET, 2));
+    assertEquals(1, metricsSupport.getResponseCount("ESTwoPrim", HttpMethod.GET, 2));
+    for (final RequestPhase phase : new RequestPhase[] { RequestPhase.URI_PARSING, RequestPhase.URI_VALIDATION,
+        RequestPhase.DISPATCHING, RequestPhase.PROCESSING, RequestPhase.REQUEST }) {
+      assertEquals(3, metricsSupport.getHistogram("ESAllPrim", HttpMethod.GET, phase).getCount());
+    }
+    // The content is written by the caller of the handler.
+    assertNull(metricsSupport.getHistogram("ESAllPrim", HttpMethod.GET, RequestPhase.SERIALIZATION));
+    assertNull(metricsSupport.getBytesWritten("ESAllPrim", HttpMethod.GET));
+    assertNull(metricsSupport.getHistogram("ESAllPrim", HttpMethod.POST, RequestPhase.REQUEST));
+
+    // The processor sleeps, so its phase dominates the request.
+    final long processing =
+        metricsSupport.getHistogram("ESAllPrim", HttpMethod.GET, RequestPhase.PROCESSING).getValueAtPercentile(50);
+    assertTrue(processing >= 1000000);
+    assertTrue(metricsSupport.getHistogram("ESAllPrim", HttpMethod.GET, RequestPhase.REQUEST)
+        .getValueAtPercentile(50) >= processing);
+    assertEquals(2, metricsSupport.getEntitySetNames().size());
+  }
+
+  @Test
+  public void errors() throws Exception {
+    final ODataHttpHandler handler = createHandler();
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(),
+        process(handler, HttpMethod.GET, "/Unknown").getStatusCode());
+    assertEquals(HttpStatusCode.METHOD_NOT_ALLOWED.getStatusCode(),
+        process(handler, HttpMethod.DELETE, "/ESAllPrim").getStatusCode());
+
+    // The entity set is not known if the URI cannot be parsed.
+    assertEquals(1, metricsSupport.getResponseCount(null, HttpMethod.GET, 4));
+    assertEquals(1, metricsSupport.getHistogram(null, HttpMethod.GET, RequestPhase.REQUEST).getCount());
+    assertNull(metricsSupport.getHistogram(null, HttpMethod.GET, RequestPhase.URI_PARSING));
+    assertEquals(1, metricsSupport.getResponseCount("ESAllPrim", HttpMethod.DELETE, 4));
+    assertEquals(1, metricsSupport.getHistogram("ESAllPrim", HttpMethod.DELETE, RequestPhase.URI_PARSING).getCount());
+    // The dispatcher rejects the method before it selects a processor.
+    assertEquals(1, metricsSupport.getHistogram("ESAllPrim", HttpMethod.DELETE, RequestPhase.DISPATCHING).getCount());
+    assertNull(metricsSupport.getHistogram("ESAllPrim", HttpMethod.DELETE, RequestPhase.PROCESSING));
+  }
+
+  @Test
+  public void serviceDocument() throws Exception {
+    final ODataHttpHandler handler = createHandler();
+    assertEquals(HttpStatusCode.OK.getStatusCode(), process(handler, HttpMethod.GET, "/").getStatusCode());
+    assertNotNull(metricsSupport.getHistogram(null, HttpMethod.GET, RequestPhase.PROCESSING));
+    assertTrue(metricsSupport.getEntitySetNames().isEmpty());
+  }
+
+  private ODataHttpHandler createHandler() {
+    ODataHttpHandler handler = odata.createHandler(metadata);
+    handler.register(metricsSupport);
+    handler.register(new EntityCollectionProcessor() {
+      @Override
+      public void init(final OData odata, final ServiceMetadata serviceMetadata) {
+        // not needed
+      }
+
+      @Override
+      public void readEntityCollection(final ODataRequest request, final ODataResponse response,
+          final UriInfo uriInfo, final ContentType responseFormat) {
+        try {
+          Thread.sleep(2);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        response.setContent(new ByteArrayInputStream(new byte[] { '{', '}' }));
+        response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+      }
+    });
+    return handler;
+  }
+
+  private ODataResponse process(final ODataHttpHandler handler, final HttpMethod method, final String path) {
+    ODataRequest request = new ODataRequest();
+    request.setMethod(method);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath(path);
+    request.setRawRequestUri(BASE_URI + path);
+    return handler.process(request);
+  }
+}
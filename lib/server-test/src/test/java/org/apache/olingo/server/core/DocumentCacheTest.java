@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.processor.DefaultProcessor;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class DocumentCacheTest {
+
+  private final OData odata = OData.newInstance();
+
+  @Test
+  public void metadataDocument() throws Exception {
+    final ServiceMetadataImpl metadata = createServiceMetadata(false);
+    final ODataResponse response = readMetadata(metadata, HttpMethod.GET, ContentType.APPLICATION_XML, null, null);
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertEquals(ContentType.APPLICATION_XML.toContentTypeString(), response.getHeader(HttpHeader.CONTENT_TYPE));
+    final String eTag = response.getHeader(HttpHeader.ETAG);
+    assertNotNull(eTag);
+    assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+    final String content = IOUtils.toString(response.getContent());
+    assertThat(content, containsString("<edmx:Edmx Version=\"4.0\""));
+    assertNull(response.getHeader(HttpHeader.CONTENT_ENCODING));
+
+    final ODataResponse response2 = readMetadata(metadata, HttpMethod.GET, ContentType.APPLICATION_XML, null, null);
+    assertEquals(eTag, response2.getHeader(HttpHeader.ETAG));
+    assertEquals(content, IOUtils.toString(response2.getContent()));
+
+    final ODataResponse jsonResponse = readMetadata(metadata, HttpMethod.GET, ContentType.APPLICATION_JSON, null, null);
+    assertFalse(eTag.equals(jsonResponse.getHeader(HttpHeader.ETAG)));
+    assertThat(IOUtils.toString(jsonResponse.getContent()), containsString("\"$Version\""));
+  }
+
+  @Test
+  public void notModified() throws Exception {
+    final ServiceMetadataImpl metadata = createServiceMetadata(false);
+    final String eTag = readMetadata(metadata, HttpMethod.GET, ContentType.APPLICATION_XML, null, null)
+        .getHeader(HttpHeader.ETAG);
+
+    final ODataResponse response =
+        readMetadata(metadata, HttpMethod.GET, ContentType.APPLICATION_XML, HttpHeader.IF_NONE_MATCH, eTag);
+    assertEquals(HttpStatusCode.NOT_MODIFIED.getStatusCode(), response.getStatusCode());
+    assertEquals(eTag, response.getHeader(HttpHeader.ETAG));
+    assertNull(response.getContent());
+
+    final ODataResponse headResponse = readMetadata(metadata, HttpMethod.HEAD, ContentType.APPLICATION_XML, null, null);
+    assertEquals(HttpStatusCode.OK.getStatusCode(), headResponse.getStatusCode());
+    assertEquals(eTag, headResponse.getHeader(HttpHeader.ETAG));
+    assertNull(headResponse.getContent());
+  }
+
+  @Test
+  public void compressed() throws Exception {
+    final ServiceMetadataImpl metadata = createServiceMetadata(true);
+    final ODataResponse response =
+        readMetadata(metadata, HttpMethod.GET, ContentType.APPLICATION_XML, HttpHeader.ACCEPT_ENCODING, "gzip");
+    assertEquals("gzip", response.getHeader(HttpHeader.CONTENT_ENCODING));
+    assertEquals(HttpHeader.ACCEPT_ENCODING, response.getHeader(HttpHeader.VARY));
+    final String content = IOUtils.toString(new GZIPInputStream(response.getContent()));
+
+    final ODataResponse plainResponse = readMetadata(metadata, HttpMethod.GET, ContentType.APPLICATION_XML,
+        HttpHeader.ACCEPT_ENCODING, "deflate, gzip;q=0");
+    assertNull(plainResponse.getHeader(HttpHeader.CONTENT_ENCODING));
+    assertEquals(HttpHeader.ACCEPT_ENCODING, plainResponse.getHeader(HttpHeader.VARY));
+    assertEquals(content, IOUtils.toString(plainResponse.getContent()));
+    final String eTag = response.getHeader(HttpHeader.ETAG);
+    final String plainETag = plainResponse.getHeader(HttpHeader.ETAG);
+    assertNotNull(plainETag);
+    assertFalse(plainETag.equals(eTag));
+    assertEquals(plainETag.substring(0, plainETag.length() - 1) + "-gzip\"", eTag);
+
+    final ODataResponse identityResponse =
+        readMetadata(metadata, HttpMethod.GET, ContentType.APPLICATION_XML, HttpHeader.IF_NONE_MATCH, eTag);
+    assertEquals(HttpStatusCode.OK.getStatusCode(), identityResponse.getStatusCode());
+    assertEquals(plainETag, identityResponse.getHeader(HttpHeader.ETAG));
+
+    final ODataResponse headResponse =
+        readMetadata(metadata, HttpMethod.HEAD, ContentType.APPLICATION_XML, HttpHeader.ACCEPT_ENCODING, "gzip");
+    assertEquals(HttpStatusCode.OK.getStatusCode(), headResponse.getStatusCode());
+    assertEquals(eTag, headResponse.getHeader(HttpHeader.ETAG));
+    assertEquals("gzip", headResponse.getHeader(HttpHeader.CONTENT_ENCODING));
+    assertNull(headResponse.getContent());
+
+    final ODataResponse notModifiedResponse =
+        readMetadata(metadata, HttpMethod.GET, ContentType.APPLICATION_XML, HttpHeader.IF_NONE_MATCH, plainETag);
+    assertEquals(HttpStatusCode.NOT_MODIFIED.getStatusCode(), notModifiedResponse.getStatusCode());
+    assertNull(notModifiedResponse.getHeader(HttpHeader.CONTENT_ENCODING));
+  }
+
+  @Test
+  public void serviceDocument() throws Exception {
+    final ServiceMetadataImpl metadata = createServiceMetadata(false);
+    final ODataResponse response = readServiceDocument(metadata, ContentType.JSON, null, null);
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    final String eTag = response.getHeader(HttpHeader.ETAG);
+    assertNotNull(eTag);
+    assertThat(IOUtils.toString(response.getContent()), containsString("\"@odata.context\":\"$metadata\""));
+
+    final ODataResponse response2 = readServiceDocument(metadata, ContentType.JSON, HttpHeader.IF_NONE_MATCH, eTag);
+    assertEquals(HttpStatusCode.NOT_MODIFIED.getStatusCode(), response2.getStatusCode());
+  }
+
+  @Test
+  public void applicationETag() throws Exception {
+    final ServiceMetadataImpl metadata = (ServiceMetadataImpl) odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList(),
+        new ServiceMetadataETagSupport() {
+          @Override
+          public String getServiceDocumentETag() {
+            return "W/\"serviceDocumentETag\"";
+          }
+
+          @Override
+          public String getMetadataETag() {
+            return "W/\"metadataETag\"";
+          }
+        });
+    metadata.setDocumentCache(odata, true, true);
+    final ODataResponse response = readMetadata(metadata, HttpMethod.GET, ContentType.APPLICATION_XML, null, null);
+    assertEquals("W/\"metadataETag\"", response.getHeader(HttpHeader.ETAG));
+    assertThat(IOUtils.toString(response.getContent()), containsString("<edmx:Edmx Version=\"4.0\""));
+
+    final ODataResponse compressedResponse =
+        readMetadata(metadata, HttpMethod.GET, ContentType.APPLICATION_XML, HttpHeader.ACCEPT_ENCODING, "gzip");
+    assertEquals("gzip", compressedResponse.getHeader(HttpHeader.CONTENT_ENCODING));
+    assertEquals("W/\"metadataETag-gzip\"", compressedResponse.getHeader(HttpHeader.ETAG));
+  }
+
+  @Test
+  public void disabled() throws Exception {
+    final ServiceMetadataImpl metadata = createServiceMetadata(false);
+    metadata.setDocumentCache(odata, false, false);
+    assertNull(metadata.getMetadataDocument(ContentType.APPLICATION_XML));
+    final ODataResponse response = readMetadata(metadata, HttpMethod.GET, ContentType.APPLICATION_XML, null, null);
+    assertNull(response.getHeader(HttpHeader.ETAG));
+    assertNotNull(response.getContent());
+  }
+
+  private ServiceMetadataImpl createServiceMetadata(final boolean compress) {
+    final ServiceMetadataImpl metadata = (ServiceMetadataImpl) odata.createServiceMetadata(
+        new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+    metadata.setDocumentCache(odata, true, compress);
+    return metadata;
+  }
+
+  private ODataResponse readMetadata(final ServiceMetadata metadata, final HttpMethod method,
+      final ContentType contentType, final String headerName, final String headerValue) throws Exception {
+    final ODataResponse response = new ODataResponse();
+    createProcessor(metadata).readMetadata(createRequest(method, headerName, headerValue), response, null,
+        contentType);
+    return response;
+  }
+
+  private ODataResponse readServiceDocument(final ServiceMetadata metadata, final ContentType contentType,
+      final String headerName, final String headerValue) throws Exception {
+    final ODataResponse response = new ODataResponse();
+    createProcessor(metadata).readServiceDocument(createRequest(HttpMethod.GET, headerName, headerValue), response,
+        null, contentType);
+    return response;
+  }
+
+  private DefaultProcessor createProcessor(final ServiceMetadata metadata) {
+    final DefaultProcessor processor = new DefaultProcessor();
+    processor.init(odata, metadata);
+    return processor;
+  }
+
+  private ODataRequest createRequest(final HttpMethod method, final String headerName, final String headerValue) {
+    final ODataRequest request = new ODataRequest();
+    request.setMethod(method);
+    if (headerName != null) {
+      request.addHeader(headerName, headerValue);
+    }
+    return request;
+  }
+}
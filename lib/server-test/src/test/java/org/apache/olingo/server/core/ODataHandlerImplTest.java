@@ -29,6 +29,7 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
 import java.io.InputStream;
@@ -765,19 +766,19 @@ public class ODataHandlerImplTest {
     final MediaEntityProcessor processor = mock(MediaEntityProcessor.class);
 
     dispatch(HttpMethod.GET, uri, processor);
-    verifyZeroInteractions(processor);
+    verifyOnlyInitialized(processor, 1);
 
     dispatch(HttpMethod.POST, uri, processor);
-    verifyZeroInteractions(processor);
+    verifyOnlyInitialized(processor, 2);
 
     dispatch(HttpMethod.PUT, uri, processor);
-    verifyZeroInteractions(processor);
+    verifyOnlyInitialized(processor, 3);
 
     dispatch(HttpMethod.DELETE, uri, processor);
-    verifyZeroInteractions(processor);
-    
+    verifyOnlyInitialized(processor, 4);
+
     dispatch(HttpMethod.HEAD, uri, processor);
-    verifyZeroInteractions(processor);
+    verifyOnlyInitialized(processor, 5);
   }
 
   @Test
@@ -1067,7 +1068,7 @@ public class ODataHandlerImplTest {
     EntityProcessor processor = mock(EntityProcessor.class);
     final ODataResponse response = dispatch(HttpMethod.POST, "ESAllPrim", null,
         HttpHeader.CONTENT_TYPE, null, processor);
-    verifyZeroInteractions(processor);
+    verifyOnlyInitialized(processor, 1);
     assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), response.getStatusCode());
   }
 
@@ -1076,7 +1077,7 @@ public class ODataHandlerImplTest {
     EntityProcessor processor = mock(EntityProcessor.class);
     final ODataResponse response = dispatch(HttpMethod.POST, "ESAllPrim", null,
         HttpHeader.CONTENT_TYPE, "*/*", processor);
-    verifyZeroInteractions(processor);
+    verifyOnlyInitialized(processor, 1);
     assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), response.getStatusCode());
   }
 
@@ -1091,6 +1092,12 @@ public class ODataHandlerImplTest {
         any(ContentType.class));
   }
 
+  /** Verifies that the processor has only been initialized, once for every registration at a handler. */
+  private void verifyOnlyInitialized(final Processor processor, final int registrations) {
+    verify(processor, times(registrations)).init(any(OData.class), any(ServiceMetadata.class));
+    verifyNoMoreInteractions(processor);
+  }
+
   private ODataResponse dispatch(final HttpMethod method, final String path, final String query,
       final String headerName, final String headerValue, final Processor processor) {
     ODataRequest request = new ODataRequest();
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataHttpHandler;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.processor.EntityCollectionProcessor;
+import org.apache.olingo.server.api.processor.EntityProcessor;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+/** Tests one handler which is configured once and then shared by all requests. */
+public class SharedHandlerTest {
+
+  private static final String BASE_URI = "http://localhost/odata.svc";
+
+  private final OData odata = OData.newInstance();
+  private final ServiceMetadata metadata =
+      odata.createServiceMetadata(new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+
+  @Test
+  public void processorInitializedOnRegistration() throws Exception {
+    final ODataHttpHandler handler = odata.createHandler(metadata);
+    final EchoProcessor processor = new EchoProcessor("echo");
+    handler.register(processor);
+    assertEquals(1, processor.initCount.get());
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals("echo ESAllPrim", read(process(handler, "/ESAllPrim")));
+    }
+    assertEquals(1, processor.initCount.get());
+  }
+
+  @Test
+  public void latestRegistrationPerProcessorInterface() throws Exception {
+    final ODataHttpHandler handler = odata.createHandler(metadata);
+    handler.register(new EchoProcessor("first"));
+    handler.register(new EntityEchoProcessor("second"));
+
+    assertEquals("first ESAllPrim", read(process(handler, "/ESAllPrim")));
+    assertEquals("second ESAllPrim", read(process(handler, "/ESAllPrim(32767)")));
+    assertEquals(HttpStatusCode.OK.getStatusCode(), process(handler, "/$metadata").getStatusCode());
+  }
+
+  @Test
+  public void concurrentRequests() throws Exception {
+    final ODataHttpHandler handler = odata.createHandler(metadata);
+    handler.register(new EchoProcessor("echo"));
+    final String[] entitySets = { "ESAllPrim", "ESTwoPrim", "ESMixPrimCollComp", "ESKeyNav" };
+
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int thread = 0; thread < 8; thread++) {
+        final int offset = thread;
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            for (int i = 0; i < 200; i++) {
+              final int index = (offset + i) % (entitySets.length + 1);
+              if (index == entitySets.length) {
+                // Errors are handled with the state of their own request, too.
+                assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(),
+                    process(handler, "/Unknown").getStatusCode());
+              } else {
+                assertEquals("echo " + entitySets[index], read(process(handler, "/" + entitySets[index])));
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      for (final Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private ODataResponse process(final ODataHttpHandler handler, final String path) {
+    ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath(path);
+    request.setRawRequestUri(BASE_URI + path);
+    return handler.process(request);
+  }
+
+  private static String read(final ODataResponse response) throws Exception {
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    return IOUtils.toString(response.getContent(), "UTF-8");
+  }
+
+  private static void echo(final ODataResponse response, final String name, final UriInfo uriInfo) {
+    final String entitySetName =
+        ((UriResourceEntitySet) uriInfo.getUriResourceParts().get(0)).getEntitySet().getName();
+    response.setContent(new ByteArrayInputStream((name + ' ' + entitySetName).getBytes()));
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+  }
+
+  private static class EntityEchoProcessor implements EntityProcessor {
+
+    protected final String name;
+    protected final AtomicInteger initCount = new AtomicInteger();
+
+    EntityEchoProcessor(final String name) {
+      this.name = name;
+    }
+
+    @Override
+    public void init(final OData odata, final ServiceMetadata serviceMetadata) {
+      initCount.incrementAndGet();
+    }
+
+    @Override
+    public void readEntity(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
+        final ContentType responseFormat) {
+      echo(response, name, uriInfo);
+    }
+
+    @Override
+    public void createEntity(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
+        final ContentType requestFormat, final ContentType responseFormat) {
+      echo(response, name, uriInfo);
+    }
+
+    @Override
+    public void updateEntity(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
+        final ContentType requestFormat, final ContentType responseFormat) {
+      echo(response, name, uriInfo);
+    }
+
+    @Override
+    public void deleteEntity(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo) {
+      echo(response, name, uriInfo);
+    }
+  }
+
+  private static class EchoProcessor extends EntityEchoProcessor implements EntityCollectionProcessor {
+
+    EchoProcessor(final String name) {
+      super(name);
+    }
+
+    @Override
+    public void readEntityCollection(final ODataRequest request, final ODataResponse response,
+        final UriInfo uriInfo, final ContentType responseFormat) {
+      echo(response, name, uriInfo);
+    }
+  }
+}
@@ -19,6 +19,7 @@
 package org.apache.olingo.server.core.deserializer.json;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -35,6 +36,8 @@ import org.apache.olingo.commons.api.edm.FullQualifiedName;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.deserializer.EntityCollectionIterator;
+import org.apache.olingo.server.api.deserializer.EntityCollectionStreamDeserializer;
 import org.apache.olingo.server.core.deserializer.AbstractODataDeserializerTest;
 import org.junit.Test;
 
@@ -163,6 +166,50 @@ public class ODataDeserializerEntityCollectionTest extends AbstractODataDeserial
         DeserializerException.MessageKeys.NOT_IMPLEMENTED);
   }
 
+  @Test
+  public void iterator() throws Exception {
+    final EntityCollectionIterator iterator = ((EntityCollectionStreamDeserializer)
+        OData.newInstance().createDeserializer(ContentType.JSON, metadata)).entityCollectionIterator(
+            getFileAsStream("ESAllPrim.json"), edm.getEntityType(new FullQualifiedName(NAMESPACE, "ETAllPrim")));
+    assertTrue(iterator.hasNext());
+    assertEquals(new Short((short) 32767), iterator.next().getProperty("PropertyInt16").getValue());
+    assertTrue(iterator.hasNext());
+    assertTrue(iterator.hasNext());
+    assertEquals(new Short((short) -32768), iterator.next().getProperty("PropertyInt16").getValue());
+    assertNotNull(iterator.next());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void iteratorValidatesContentAfterEntities() throws Exception {
+    final EntityCollectionIterator iterator = ((EntityCollectionStreamDeserializer)
+        OData.newInstance().createDeserializer(ContentType.JSON, metadata)).entityCollectionIterator(
+            new ByteArrayInputStream("{\"value\":[{\"PropertyInt16\":1}],\"unknown\":null}".getBytes()),
+            edm.getEntityType(new FullQualifiedName(NAMESPACE, "ETAllPrim")));
+    assertEquals(new Short((short) 1), iterator.next().getProperty("PropertyInt16").getValue());
+    try {
+      iterator.hasNext();
+      fail("Expected exception not thrown.");
+    } catch (final DeserializerException e) {
+      assertEquals(DeserializerException.MessageKeys.UNKNOWN_CONTENT, e.getMessageKey());
+    }
+  }
+
+  @Test
+  public void controlInformationAfterValue() throws Exception {
+    final EntityCollection entityCollection = deserialize(
+        "{\"@odata.context\":\"$metadata#ESAllPrim\",\"value\":[{\"PropertyInt16\":1},{\"PropertyInt16\":2}],"
+            + "\"@odata.nextLink\":\"ESAllPrim?$skiptoken=2\"}",
+        "ETAllPrim");
+    assertEquals(2, entityCollection.getEntities().size());
+  }
+
+  @Test
+  public void duplicateValueTag() throws Exception {
+    expectException("{\"value\":[],\"value\":[]}", "ETAllPrim",
+        DeserializerException.MessageKeys.DUPLICATE_PROPERTY);
+  }
+
   private EntityCollection deserialize(final InputStream stream, final String entityTypeName)
       throws DeserializerException {
     return OData.newInstance().createDeserializer(ContentType.JSON, metadata)
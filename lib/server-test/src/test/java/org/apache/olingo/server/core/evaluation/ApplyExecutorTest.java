@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class ApplyExecutorTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+
+  private final DataProvider data = new DataProvider(odata, edm);
+
+  @Test
+  public void groupByAndAggregate() throws Exception {
+    final List<Entity> result = apply(new ApplyExecutor(null), "ESTwoPrim",
+        "groupby((PropertyString),aggregate(PropertyInt16 with sum as Total,$count as Count))", createEntities(700));
+    assertEquals(7, result.size());
+    final Map<String, Entity> groups = byKey(result, "PropertyString");
+    // Group "S3" contains the values 3, 10, 17, ..., 696.
+    assertEquals(new BigDecimal(100 * 3 + 7 * 99 * 100 / 2),
+        groups.get("S3").getProperty("Total").getValue());
+    assertEquals(100L, groups.get("S3").getProperty("Count").getValue());
+    assertEquals("Edm.Decimal", groups.get("S3").getProperty("Total").getType());
+  }
+
+  @Test
+  public void aggregateWithoutGroups() throws Exception {
+    List<Entity> result = apply(new ApplyExecutor(null), "ESTwoPrim",
+        "aggregate(PropertyInt16 with min as Min,PropertyInt16 with max as Max,"
+            + "PropertyString with countdistinct as Distinct,$count as Count)",
+        data.readAll(getEntitySet("ESTwoPrim")).getEntities());
+    assertEquals(1, result.size());
+    assertEquals(-32766L, result.get(0).getProperty("Min").getValue());
+    assertEquals(32767L, result.get(0).getProperty("Max").getValue());
+    assertEquals(3L, result.get(0).getProperty("Distinct").getValue());
+    assertEquals(4L, result.get(0).getProperty("Count").getValue());
+
+    // Aggregating no entities results in one entity.
+    result = apply(new ApplyExecutor(null), "ESTwoPrim", "aggregate(PropertyInt16 with sum as Total,$count as Count)",
+        Collections.<Entity> emptyList());
+    assertEquals(1, result.size());
+    assertNull(result.get(0).getProperty("Total").getValue());
+    assertEquals(0L, result.get(0).getProperty("Count").getValue());
+  }
+
+  @Test
+  public void filterAndComputeBeforeAggregation() throws Exception {
+    final List<Entity> result = apply(new ApplyExecutor(null), "ESTwoPrim",
+        "filter(PropertyInt16 gt 0)/compute(PropertyInt16 mul 2 as Double)"
+            + "/aggregate(Double with max as Max,Double with average as Average)",
+        data.readAll(getEntitySet("ESTwoPrim")).getEntities());
+    assertEquals(1, result.size());
+    assertEquals(65534L, result.get(0).getProperty("Max").getValue());
+    assertEquals(0, new BigDecimal(65533).compareTo((BigDecimal) result.get(0).getProperty("Average").getValue()));
+  }
+
+  @Test
+  public void filterInGroup() throws Exception {
+    final List<Entity> result = apply(new ApplyExecutor(null), "ESTwoPrim",
+        "groupby((PropertyString),filter(PropertyInt16 ge 690)/aggregate($count as Count))", createEntities(700));
+    // All groups are kept although most of their entities are filtered out.
+    assertEquals(7, result.size());
+    final Map<String, Entity> groups = byKey(result, "PropertyString");
+    assertEquals(2L, groups.get("S4").getProperty("Count").getValue());
+    assertEquals(1L, groups.get("S0").getProperty("Count").getValue());
+  }
+
+  @Test
+  public void compute() throws Exception {
+    final ApplyResult result = new ApplyExecutor(null).execute(
+        parse("ESTwoPrim", "$apply=compute(PropertyInt16 add 1 as Next)/filter(Next lt 0)").getApplyOption(),
+        getEntitySet("ESTwoPrim").getEntityType(),
+        data.readAll(getEntitySet("ESTwoPrim")).getEntities().iterator());
+    assertNotNull(result.getType().getProperty("Next"));
+    List<Long> values = new ArrayList<Long>();
+    while (result.hasNext()) {
+      values.add((Long) result.next().getProperty("Next").getValue());
+    }
+    assertEquals(Arrays.asList(-364L, -32765L), values);
+    // The input entities are not changed.
+    assertNull(data.readAll(getEntitySet("ESTwoPrim")).getEntities().get(0).getProperty("Next"));
+  }
+
+  @Test
+  public void spill() throws Exception {
+    final List<Entity> entities = createEntities(5000);
+    final List<Entity> result = apply(new ApplyExecutor(null).setMaxGroupsInMemory(10), "ESTwoPrim",
+        "groupby((PropertyInt16),aggregate(PropertyInt16 with sum as Total,$count as Count))", entities);
+    assertEquals(1000, result.size());
+    for (final Entity entity : result) {
+      final Long value = ((Number) entity.getProperty("PropertyInt16").getValue()).longValue();
+      assertEquals(5L, entity.getProperty("Count").getValue());
+      assertEquals(BigDecimal.valueOf(5 * value), entity.getProperty("Total").getValue());
+    }
+  }
+
+  @Test
+  public void parallel() throws Exception {
+    final ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      final String apply = "groupby((PropertyString,PropertyInt16),aggregate($count as Count))";
+      final List<Entity> entities = createEntities(20000);
+      final List<Entity> result = apply(new ApplyExecutor(null).setParallelism(4, executorService)
+          .setMaxGroupsInMemory(100), "ESTwoPrim", apply, entities);
+      assertEquals(7000, result.size());
+      long count = 0;
+      for (final Entity entity : result) {
+        count += (Long) entity.getProperty("Count").getValue();
+      }
+      assertEquals(20000L, count);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void bottomTop() throws Exception {
+    final List<Entity> entities = data.readAll(getEntitySet("ESTwoPrim")).getEntities();
+    assertEquals(Arrays.asList(32767, 32766), getKeys(apply(new ApplyExecutor(null), "ESTwoPrim",
+        "topcount(2,PropertyInt16)", entities)));
+    assertEquals(Arrays.asList(-32766), getKeys(apply(new ApplyExecutor(null), "ESTwoPrim",
+        "bottomcount(1,PropertyInt16)", entities)));
+    assertEquals(Arrays.asList(32767, 32766), getKeys(apply(new ApplyExecutor(null), "ESTwoPrim",
+        "topsum(40000,PropertyInt16)", entities)));
+    // The sum of all values is 32402, so the highest value alone exceeds it.
+    assertEquals(Arrays.asList(32767), getKeys(apply(new ApplyExecutor(null), "ESTwoPrim",
+        "toppercent(100,PropertyInt16)", entities)));
+  }
+
+  @Test
+  public void concat() throws Exception {
+    final List<Entity> result = apply(new ApplyExecutor(null), "ESTwoPrim",
+        "concat(topcount(1,PropertyInt16),aggregate($count as Count))",
+        data.readAll(getEntitySet("ESTwoPrim")).getEntities());
+    assertEquals(2, result.size());
+    assertEquals(32767, ((Number) result.get(0).getProperty("PropertyInt16").getValue()).intValue());
+    assertEquals(4L, result.get(1).getProperty("Count").getValue());
+  }
+
+  @Test
+  public void errors() throws Exception {
+    expectError("groupby((rollup($all,PropertyString)))", HttpStatusCode.NOT_IMPLEMENTED);
+    expectError("search(Test)", HttpStatusCode.NOT_IMPLEMENTED);
+    expectError("aggregate(PropertyString with sum as Total)", HttpStatusCode.BAD_REQUEST);
+    expectError("filter(PropertyInt16 div 0 eq 1)/aggregate($count as Count)", HttpStatusCode.BAD_REQUEST);
+  }
+
+  private void expectError(final String apply, final HttpStatusCode statusCode) throws Exception {
+    try {
+      apply(new ApplyExecutor(null), "ESTwoPrim", apply, data.readAll(getEntitySet("ESTwoPrim")).getEntities());
+      fail("Expected error for " + apply);
+    } catch (final ODataApplicationException e) {
+      assertEquals(statusCode.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  private List<Entity> apply(final ApplyExecutor executor, final String entitySetName, final String apply,
+      final List<Entity> entities) throws Exception {
+    final ApplyResult result = executor.execute(parse(entitySetName, "$apply=" + apply).getApplyOption(),
+        getEntitySet(entitySetName).getEntityType(), entities.iterator());
+    List<Entity> resultEntities = new ArrayList<Entity>();
+    while (result.hasNext()) {
+      resultEntities.add(result.next());
+    }
+    return resultEntities;
+  }
+
+  private List<Entity> createEntities(final int count) {
+    List<Entity> entities = new ArrayList<Entity>(count);
+    for (int i = 0; i < count; i++) {
+      entities.add(new Entity()
+          .addProperty(new Property(null, "PropertyInt16", ValueType.PRIMITIVE, (short) (i % 1000)))
+          .addProperty(new Property(null, "PropertyString", ValueType.PRIMITIVE, "S" + i % 7)));
+    }
+    return entities;
+  }
+
+  private Map<String, Entity> byKey(final List<Entity> entities, final String propertyName) {
+    Map<String, Entity> result = new HashMap<String, Entity>();
+    for (final Entity entity : entities) {
+      result.put((String) entity.getProperty(propertyName).getValue(), entity);
+    }
+    return result;
+  }
+
+  private List<Integer> getKeys(final List<Entity> entities) {
+    List<Integer> keys = new ArrayList<Integer>();
+    for (final Entity entity : entities) {
+      keys.add(((Number) entity.getProperty("PropertyInt16").getValue()).intValue());
+    }
+    return keys;
+  }
+
+  private EdmEntitySet getEntitySet(final String name) {
+    return edm.getEntityContainer().getEntitySet(name);
+  }
+
+  private UriInfo parse(final String entitySetName, final String query) throws Exception {
+    return new Parser(edm, odata).parseUri(entitySetName, query, null, null);
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class EntitySorterTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+
+  @Test
+  public void sortTopIsStable() throws Exception {
+    final EntityComparator comparator = compile("PropertyString desc");
+    final List<Entity> entities = createEntities(1000);
+    final List<Entity> expected = new ArrayList<Entity>(entities);
+    Collections.sort(expected, comparator);
+
+    List<Entity> top = new ArrayList<Entity>(entities);
+    new EntitySorter(comparator).sortTop(top, 20);
+    assertEquals(expected.subList(0, 20), top);
+
+    top = new ArrayList<Entity>(entities);
+    new EntitySorter(comparator).sortTop(top, 900);
+    assertEquals(expected.subList(0, 900), top);
+
+    top = new ArrayList<Entity>(entities);
+    new EntitySorter(comparator).sortTop(top, 0);
+    assertTrue(top.isEmpty());
+  }
+
+  @Test
+  public void sort() throws Exception {
+    final EntityComparator comparator = compile("PropertyString,PropertyInt16 desc");
+    final List<Entity> entities = createEntities(500);
+    final List<Entity> expected = new ArrayList<Entity>(entities);
+    Collections.sort(expected, comparator);
+
+    List<Entity> sorted = new ArrayList<Entity>(entities);
+    new EntitySorter(comparator).sort(sorted);
+    assertEquals(expected, sorted);
+  }
+
+  @Test
+  public void sortInParallel() throws Exception {
+    final ExecutorService executorService = Executors.newFixedThreadPool(3);
+    try {
+      final EntityComparator comparator = compile("PropertyString");
+      final List<Entity> entities = createEntities(10000);
+      final List<Entity> expected = new ArrayList<Entity>(entities);
+      Collections.sort(expected, comparator);
+
+      List<Entity> sorted = new ArrayList<Entity>(entities);
+      new EntitySorter(comparator).setParallelism(3, executorService).setParallelThreshold(100).sort(sorted);
+      assertEquals(expected, sorted);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private EntityComparator compile(final String orderBy) throws Exception {
+    final UriInfo uriInfo = new Parser(edm, odata).parseUri("ESTwoPrim", "$orderby=" + orderBy, null, null);
+    return new ExpressionCompiler(uriInfo).compileOrderBy(uriInfo.getOrderByOption());
+  }
+
+  /** Creates entities with many equal sort values, some of them null. */
+  private List<Entity> createEntities(final int count) {
+    final Random random = new Random(42);
+    List<Entity> entities = new ArrayList<Entity>(count);
+    for (int i = 0; i < count; i++) {
+      final int value = random.nextInt(50);
+      entities.add(new Entity()
+          .addProperty(new Property(null, "PropertyInt16", ValueType.PRIMITIVE, (short) i))
+          .addProperty(new Property(null, "PropertyString", ValueType.PRIMITIVE, value == 0 ? null : "S" + value)));
+    }
+    return entities;
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.evaluation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.IndexedEntity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.PropertyLayout;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class ExpressionCompilerTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+
+  private final DataProvider data = new DataProvider(odata, edm);
+
+  @Test
+  public void comparison() throws Exception {
+    assertEquals(Arrays.asList(32767), filter("ESAllPrim", "PropertyInt16 gt 0"));
+    assertEquals(Arrays.asList(-32768, 0), filter("ESAllPrim", "PropertyInt16 le 0"));
+    assertEquals(Arrays.asList(32767), filter("ESAllPrim", "PropertyInt64 eq 9223372036854775807"));
+    assertEquals(Arrays.asList(32767), filter("ESAllPrim", "PropertySingle gt 1.78E+20"));
+    assertEquals(Arrays.asList(-32768), filter("ESAllPrim", "PropertyDouble eq -179000"));
+    assertEquals(Arrays.asList(-32768), filter("ESAllPrim", "PropertyDecimal lt -33.5"));
+    assertEquals(Arrays.asList(32767), filter("ESAllPrim", "PropertyBoolean"));
+    assertEquals(Arrays.asList(0), filter("ESAllPrim", "PropertyString eq ''"));
+    assertEquals(Arrays.asList(-32768), filter("ESAllPrim", "PropertyDuration eq duration'PT9S'"));
+    assertEquals(Arrays.asList(0),
+        filter("ESAllPrim", "PropertyGuid eq 76543201-23ab-cdef-0123-456789cccddd"));
+    assertEquals(Arrays.asList(-32768, 0),
+        filter("ESAllPrim", "PropertyDateTimeOffset lt 2012-01-01T00:00:00Z"));
+  }
+
+  @Test
+  public void logicalOperators() throws Exception {
+    assertEquals(Arrays.asList(32767, -32768),
+        filter("ESAllPrim", "PropertyInt16 eq 32767 or PropertyInt32 lt 0"));
+    assertEquals(Arrays.asList(0), filter("ESAllPrim", "not (PropertyInt16 ne 0) and not PropertyBoolean"));
+  }
+
+  @Test
+  public void nullValues() throws Exception {
+    assertEquals(Collections.emptyList(), filter("ESAllPrim", "PropertyString eq null"));
+    assertEquals(Arrays.asList(32767, -32768, 0), filter("ESAllPrim", "PropertyString ne null"));
+    assertEquals(Arrays.asList(32767, -32768, 0), filter("ESAllPrim", "null eq null"));
+    assertEquals(Arrays.asList(32767, -32768, 0), filter("ESAllPrim", "endswith(PropertyString,null) eq null"));
+    assertEquals(Collections.emptyList(), filter("ESAllPrim", "PropertyInt16 add null eq 1"));
+    // Filters evaluating to null do not select the entity.
+    assertEquals(Collections.emptyList(), filter("ESAllPrim", "PropertyBoolean and null"));
+  }
+
+  @Test
+  public void arithmetic() throws Exception {
+    assertEquals(Arrays.asList(0), filter("ESAllPrim", "PropertyInt16 add 1 eq 1"));
+    assertEquals(Arrays.asList(32767), filter("ESAllPrim", "PropertyInt16 mul 2 eq 65534"));
+    assertEquals(Arrays.asList(32767), filter("ESAllPrim", "PropertyDecimal div 4 eq 8.5"));
+    assertEquals(Arrays.asList(-32768), filter("ESAllPrim", "-PropertyByte sub PropertyDouble eq 179000"));
+    assertEquals(Arrays.asList(32767, 0), filter("ESAllPrim", "PropertyInt32 mod 2 eq 1 or PropertyInt32 eq 0"));
+  }
+
+  @Test
+  public void methods() throws Exception {
+    assertEquals(Arrays.asList(32767, -32768), filter("ESAllPrim", "contains(PropertyString,'Resource')"));
+    assertEquals(Arrays.asList(32767), filter("ESAllPrim", "startswith(tolower(PropertyString),'first')"));
+    assertEquals(Arrays.asList(0), filter("ESAllPrim", "length(PropertyString) eq 0"));
+    assertEquals(Arrays.asList(-32768), filter("ESAllPrim", "substring(PropertyString,0,6) eq 'Second'"));
+    assertEquals(Arrays.asList(32767), filter("ESAllPrim", "indexof(PropertyString,'positive') eq 17"));
+    assertEquals(Arrays.asList(-32768), filter("ESAllPrim", "year(PropertyDate) eq 2015"));
+    assertEquals(Arrays.asList(32767, -32768), filter("ESAllPrim", "hour(PropertyDateTimeOffset) eq 7"));
+    assertEquals(Arrays.asList(-32768), filter("ESAllPrim", "minute(PropertyTimeOfDay) eq 49"));
+    assertEquals(Arrays.asList(32767), filter("ESAllPrim", "round(PropertyDecimal div 8) eq 4"));
+    assertEquals(Arrays.asList(-32768), filter("ESAllPrim", "floor(PropertyDecimal div 8) eq -5"));
+  }
+
+  @Test
+  public void complexProperties() throws Exception {
+    assertEquals(Arrays.asList(32767),
+        filter("ESCompAllPrim", "PropertyComp/PropertyString eq 'First Resource - first'"));
+    assertEquals(Arrays.asList(32767, 0),
+        filter("ESCompAllPrim", "fractionalseconds(PropertyComp/PropertyDateTimeOffset) eq 0.1234567"));
+  }
+
+  @Test
+  public void differentPropertyOrder() throws Exception {
+    final EntityFilter filter = new ExpressionCompiler(null).compileFilter(
+        parse("ESTwoPrim", "$filter=PropertyString eq 'b' and PropertyInt16 eq 1").getFilterOption());
+    final Entity entity1 = new Entity()
+        .addProperty(new Property(null, "PropertyInt16", ValueType.PRIMITIVE, (short) 1))
+        .addProperty(new Property(null, "PropertyString", ValueType.PRIMITIVE, "b"));
+    final Entity entity2 = new Entity()
+        .addProperty(new Property(null, "PropertyString", ValueType.PRIMITIVE, "b"))
+        .addProperty(new Property(null, "PropertyInt16", ValueType.PRIMITIVE, 1));
+    final Entity entity3 = new Entity()
+        .addProperty(new Property(null, "PropertyString", ValueType.PRIMITIVE, "b"));
+    for (int i = 0; i < 3; i++) {
+      assertTrue(filter.test(entity1));
+      assertTrue(filter.test(entity2));
+      assertFalse(filter.test(entity3));
+    }
+  }
+
+  @Test
+  public void indexedEntities() throws Exception {
+    final EntityFilter filter = new ExpressionCompiler(null).compileFilter(
+        parse("ESTwoPrim", "$filter=PropertyString eq 'b' and PropertyInt16 eq 1").getFilterOption());
+    final PropertyLayout layout =
+        new PropertyLayout(edm.getEntityContainer().getEntitySet("ESTwoPrim").getEntityType());
+    final IndexedEntity entity = new IndexedEntity(layout);
+    entity.setValue(layout.getSlot("PropertyString"), "b");
+    assertFalse(filter.test(entity));
+    entity.setValue(layout.getSlot("PropertyInt16"), (short) 1);
+    assertTrue(filter.test(entity));
+  }
+
+  @Test
+  public void aliases() throws Exception {
+    final UriInfo uriInfo = parse("ESAllPrim", "$filter=PropertyInt16 eq @p&@p=0");
+    final List<Entity> entities = new ArrayList<Entity>(data.readAll(edm.getEntityContainer()
+        .getEntitySet("ESAllPrim")).getEntities());
+    new ExpressionCompiler(uriInfo).compileFilter(uriInfo.getFilterOption()).filter(entities);
+    assertEquals(1, entities.size());
+    assertEquals((short) 0, entities.get(0).getProperty("PropertyInt16").getValue());
+  }
+
+  @Test
+  public void constantFolding() throws Exception {
+    final CompiledExpression expression = new ExpressionCompiler(null).compile(
+        parse("ESAllPrim", "$filter=1 add 2 mul 3 eq 7").getFilterOption().getExpression());
+    assertTrue(expression instanceof ConstantExpression);
+    assertEquals(Boolean.TRUE, expression.evaluate(null));
+  }
+
+  @Test
+  public void errors() throws Exception {
+    expectError("ESAllPrim", "$filter=PropertyInt16 div 0 eq 1", null);
+    expectError("ESAllPrim", "$filter=1 div 0 eq 1", HttpStatusCode.BAD_REQUEST);
+    expectError("ESKeyNav", "$filter=CollPropertyComp/any(d:d/PropertyInt16 eq 1)", HttpStatusCode.NOT_IMPLEMENTED);
+    expectError("ESAllPrim", "$filter=PropertyDate add duration'P1D' eq 2012-12-04",
+        HttpStatusCode.NOT_IMPLEMENTED);
+  }
+
+  @Test
+  public void orderBy() throws Exception {
+    final UriInfo uriInfo = parse("ESAllPrim", "$orderby=PropertyBoolean desc,PropertyString");
+    final EntityComparator comparator = new ExpressionCompiler(uriInfo).compileOrderBy(uriInfo.getOrderByOption());
+    final List<Entity> entities = new ArrayList<Entity>(data.readAll(edm.getEntityContainer()
+        .getEntitySet("ESAllPrim")).getEntities());
+    Collections.sort(entities, comparator);
+    assertEquals(Arrays.asList(32767, 0, -32768), getKeys(entities));
+
+    final Object[] key1 = comparator.getSortKey(entities.get(1));
+    final Object[] key2 = comparator.getSortKey(entities.get(2));
+    assertEquals(Boolean.FALSE, key1[0]);
+    assertTrue(comparator.compareSortKeys(key1, key2) < 0);
+    assertEquals(0, comparator.compareSortKeys(key2, comparator.getSortKey(entities.get(2))));
+  }
+
+  @Test
+  public void orderByNull() throws Exception {
+    final UriInfo uriInfo = parse("ESTwoPrim", "$orderby=PropertyString desc");
+    final EntityComparator comparator = new ExpressionCompiler(uriInfo).compileOrderBy(uriInfo.getOrderByOption());
+    final Object[] nullKey = { null };
+    assertNull(comparator.getSortKey(new Entity())[0]);
+    assertTrue(comparator.compareSortKeys(nullKey, new Object[] { "a" }) > 0);
+  }
+
+  private List<Integer> filter(final String entitySetName, final String filter) throws Exception {
+    final UriInfo uriInfo = parse(entitySetName, "$filter=" + filter);
+    final List<Entity> entities = new ArrayList<Entity>(data.readAll(edm.getEntityContainer()
+        .getEntitySet(entitySetName)).getEntities());
+    new ExpressionCompiler(uriInfo).compileFilter(uriInfo.getFilterOption()).filter(entities);
+    return getKeys(entities);
+  }
+
+  private List<Integer> getKeys(final List<Entity> entities) {
+    List<Integer> keys = new ArrayList<Integer>();
+    for (final Entity entity : entities) {
+      keys.add(((Number) entity.getProperty("PropertyInt16").getValue()).intValue());
+    }
+    return keys;
+  }
+
+  private UriInfo parse(final String entitySetName, final String query) throws Exception {
+    return new Parser(edm, odata).parseUri(entitySetName, query, null, null);
+  }
+
+  private void expectError(final String entitySetName, final String query, final HttpStatusCode statusCode)
+      throws Exception {
+    final UriInfo uriInfo = parse(entitySetName, query);
+    try {
+      final EntityFilter filter = new ExpressionCompiler(uriInfo).compileFilter(uriInfo.getFilterOption());
+      if (statusCode != null) {
+        fail("Expected compilation error.");
+      }
+      filter.filter(new ArrayList<Entity>(data.readAll(edm.getEntityContainer()
+          .getEntitySet(entitySetName)).getEntities()));
+      fail("Expected evaluation error.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(statusCode.getStatusCode(), e.getStatusCode());
+    } catch (final EvaluationException e) {
+      assertNull(statusCode);
+    }
+  }
+}
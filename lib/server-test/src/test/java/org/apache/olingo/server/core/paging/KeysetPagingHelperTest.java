@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.paging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.paging.KeysetPage;
+import org.apache.olingo.server.api.paging.KeysetPagingHelper;
+import org.apache.olingo.server.api.paging.SkipTokenException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class KeysetPagingHelperTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+
+  private final EdmEntitySet entitySet = edm.getEntityContainer().getEntitySet("ESAllPrim");
+  private final KeysetPagingHelper helper = odata.createKeysetPagingHelper("secret".getBytes());
+
+  @Test
+  public void keyPartsAndFirstPage() throws Exception {
+    final KeysetPage page = createPage(helper, "$orderby=PropertyString desc", 10);
+    assertEquals("[PropertyString desc, PropertyInt16 asc]", page.getKeyParts().toString());
+    assertNull(page.getStartAfter());
+    assertEquals(10, page.getPageSize());
+
+    final KeysetPage keyPage = createPage(helper, "$orderby=PropertyInt16 desc,PropertyInt16", 10);
+    assertEquals("[PropertyInt16 desc]", keyPage.getKeyParts().toString());
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    final Entity entity = readAll().get(0);
+    final KeysetPage first = createPage(helper, "$orderby=PropertyString,PropertyDecimal desc", 2);
+    final String skipToken = first.createSkipToken(entity);
+    assertTrue(skipToken.matches("[A-Za-z0-9_-]+"));
+
+    final KeysetPage next = createPage(helper,
+        "$orderby=PropertyString,PropertyDecimal desc&$skiptoken=" + skipToken, 10);
+    assertEquals(first.getKeyValues(entity), next.getStartAfter());
+    assertEquals(2, next.getPageSize());
+    assertFalse(next.isAfterStart(entity));
+  }
+
+  @Test
+  public void pageThroughEntitySet() throws Exception {
+    final List<Entity> entities = readAll();
+    List<Object> keys = new ArrayList<Object>();
+    KeysetPage page = createPage(helper, "$orderby=PropertyInt16 desc", 1);
+    while (true) {
+      Entity next = null;
+      for (final Entity entity : entities) {
+        if (page.isAfterStart(entity) && (next == null || getKey(entity) > getKey(next))) {
+          next = entity;
+        }
+      }
+      if (next == null) {
+        break;
+      }
+      keys.add(getKey(next));
+      final String nextLink = page.createNextLink("http://host/service/ESAllPrim?$orderby=PropertyInt16%20desc",
+          next).toASCIIString();
+      page = createPage(helper, "$orderby=PropertyInt16 desc&$skiptoken="
+          + nextLink.substring(nextLink.indexOf("%24skiptoken=") + 13), 10);
+    }
+    assertEquals(Arrays.<Object> asList(32767, 0, -32768), keys);
+  }
+
+  @Test
+  public void forgedPageSize() throws Exception {
+    // Without a signing key, a client can create a skiptoken with any page size.
+    final KeysetPagingHelper unsignedHelper = odata.createKeysetPagingHelper(null);
+    final String skipToken = createPage(unsignedHelper, "$orderby=PropertyString", Integer.MAX_VALUE)
+        .createSkipToken(readAll().get(0));
+    final KeysetPage next = createPage(unsignedHelper, "$orderby=PropertyString&$skiptoken=" + skipToken, 10);
+    assertEquals(10, next.getPageSize());
+  }
+
+  @Test
+  public void rejectInvalidTokens() throws Exception {
+    final KeysetPage first = createPage(helper, "$orderby=PropertyString", 5);
+    final String skipToken = first.createSkipToken(readAll().get(0));
+
+    final char last = skipToken.charAt(skipToken.length() - 1);
+    expectInvalid(helper, "$orderby=PropertyString&$skiptoken="
+        + skipToken.substring(0, skipToken.length() - 1) + (last == 'A' ? 'B' : 'A'));
+    expectInvalid(helper, "$orderby=PropertyInt16&$skiptoken=" + skipToken);
+    expectInvalid(odata.createKeysetPagingHelper("other".getBytes()),
+        "$orderby=PropertyString&$skiptoken=" + skipToken);
+    expectInvalid(odata.createKeysetPagingHelper(null), "$skiptoken=invalid");
+  }
+
+  @Test
+  public void unsupportedOrderExpression() throws Exception {
+    try {
+      createPage(helper, "$orderby=length(PropertyString)", 5);
+      fail("Expected exception not thrown.");
+    } catch (final SkipTokenException e) {
+      assertEquals(SkipTokenException.MessageKeys.UNSUPPORTED_ORDER_EXPRESSION, e.getMessageKey());
+    }
+  }
+
+  @Test
+  public void nextLink() throws Exception {
+    assertEquals("http://host/service/ES?$top=5&$format=json&%24skiptoken=a%2Ab%20%C3%A4",
+        helper.createNextLink("http://host/service/ES?$top=5&$skiptoken=old&$format=json", "a*b \u00E4")
+            .toASCIIString());
+    assertEquals("http://host/service/ES?$skiptokens=1&%24skiptoken=x",
+        helper.createNextLink("http://host/service/ES?%24SkipToken=old&$skiptokens=1", "x").toASCIIString());
+    assertEquals("http://host/service/ES?%24skiptoken=x",
+        helper.createNextLink("http://host/service/ES", "x").toASCIIString());
+  }
+
+  private void expectInvalid(final KeysetPagingHelper pagingHelper, final String query) throws Exception {
+    try {
+      createPage(pagingHelper, query, 5);
+      fail("Expected exception not thrown.");
+    } catch (final SkipTokenException e) {
+      assertEquals(SkipTokenException.MessageKeys.INVALID_SKIPTOKEN, e.getMessageKey());
+    }
+  }
+
+  private KeysetPage createPage(final KeysetPagingHelper pagingHelper, final String query, final int pageSize)
+      throws Exception {
+    final UriInfo uriInfo = new Parser(edm, odata).parseUri("ESAllPrim", query, null, null);
+    return pagingHelper.createPage(entitySet.getEntityType(), uriInfo.getOrderByOption(),
+        uriInfo.getSkipTokenOption(), pageSize);
+  }
+
+  private List<Entity> readAll() throws Exception {
+    return new DataProvider(odata, edm).readAll(entitySet).getEntities();
+  }
+
+  private static int getKey(final Entity entity) {
+    return ((Number) entity.getProperty("PropertyInt16").getValue()).intValue();
+  }
+}
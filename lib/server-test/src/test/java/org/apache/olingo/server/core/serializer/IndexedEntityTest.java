@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.data.Annotation;
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.ContextURL.Suffix;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.IndexedEntity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.PropertyLayout;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
+import org.apache.olingo.server.tecsvc.MetadataETagSupport;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class IndexedEntityTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final ServiceMetadata metadata = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList(), new MetadataETagSupport("W/\"metadataETag\""));
+  private static final EdmEntitySet entitySet = metadata.getEdm().getEntityContainer().getEntitySet("ESAllPrim");
+  private static final PropertyLayout layout = new PropertyLayout(entitySet.getEntityType());
+
+  @Test
+  public void layout() {
+    assertEquals(entitySet.getEntityType().getPropertyNames().size(), layout.getSlotCount());
+    assertEquals(0, layout.getSlot("PropertyInt16"));
+    assertEquals("PropertyInt16", layout.getName(0));
+    assertEquals("Edm.Int16", layout.getTypeName(0));
+    assertEquals(ValueType.PRIMITIVE, layout.getValueType(0));
+    assertEquals(-1, layout.getSlot("Unknown"));
+  }
+
+  @Test
+  public void values() {
+    final IndexedEntity entity = new IndexedEntity(layout);
+    entity.addProperty(new Property(null, "PropertyInt16", ValueType.PRIMITIVE, (short) 7))
+        .addProperty(new Property(null, "PropertyInt64", ValueType.PRIMITIVE, Long.MIN_VALUE))
+        .addProperty(new Property(null, "PropertyDouble", ValueType.PRIMITIVE, -1.5E-300))
+        .addProperty(new Property(null, "PropertySingle", ValueType.PRIMITIVE, 1.25F))
+        .addProperty(new Property(null, "PropertyBoolean", ValueType.PRIMITIVE, true))
+        .addProperty(new Property(null, "PropertySByte", ValueType.PRIMITIVE, (byte) -3))
+        .addProperty(new Property(null, "PropertyInt32", ValueType.PRIMITIVE, 5L))
+        .addProperty(new Property("Edm.String", "PropertyString", ValueType.PRIMITIVE, null));
+    assertEquals((short) 7, entity.getValue(layout.getSlot("PropertyInt16")));
+    assertEquals(Long.MIN_VALUE, entity.getValue(layout.getSlot("PropertyInt64")));
+    assertEquals(-1.5E-300, entity.getValue(layout.getSlot("PropertyDouble")));
+    assertEquals(1.25F, entity.getValue(layout.getSlot("PropertySingle")));
+    assertEquals(Boolean.TRUE, entity.getValue(layout.getSlot("PropertyBoolean")));
+    assertEquals((byte) -3, entity.getValue(layout.getSlot("PropertySByte")));
+    // Values of other Java types are kept as they are.
+    assertEquals(5L, entity.getValue(layout.getSlot("PropertyInt32")));
+    assertTrue(entity.isSet(layout.getSlot("PropertyString")));
+    assertNull(entity.getValue(layout.getSlot("PropertyString")));
+    assertFalse(entity.isSet(layout.getSlot("PropertyDate")));
+
+    assertEquals(8, entity.getProperties().size());
+    assertEquals("PropertyInt16", entity.getProperties().get(0).getName());
+    assertEquals("PropertyString", entity.getProperties().get(1).getName());
+    assertEquals("Edm.String", entity.getProperties().get(1).getType());
+    assertNull(entity.readProperty("PropertyInt16").getType());
+    assertNull(entity.readProperty("PropertyDate"));
+  }
+
+  @Test
+  public void boundProperties() {
+    final IndexedEntity entity = new IndexedEntity(layout);
+    entity.setValue(layout.getSlot("PropertyInt16"), (short) 1);
+    entity.setValue(layout.getSlot("PropertyString"), "a");
+
+    final Property property = entity.getProperty("PropertyString");
+    assertSame(property, entity.getProperty("PropertyString"));
+    assertSame(property, entity.readProperty("PropertyString"));
+    property.setValue(ValueType.PRIMITIVE, "b");
+    assertEquals("b", entity.getValue(layout.getSlot("PropertyString")));
+    entity.setValue(layout.getSlot("PropertyString"), "c");
+    assertEquals("c", property.getValue());
+
+    // Properties read without binding are not kept.
+    entity.readProperty("PropertyInt16").setValue(ValueType.PRIMITIVE, (short) 2);
+    assertEquals((short) 1, entity.getValue(layout.getSlot("PropertyInt16")));
+
+    Property annotated = new Property(null, "PropertyDate", ValueType.PRIMITIVE, null);
+    annotated.getAnnotations().add(new Annotation());
+    entity.addProperty(annotated);
+    assertSame(annotated, entity.getProperty("PropertyDate"));
+
+    final Property dynamic = new Property(null, "Dynamic", ValueType.PRIMITIVE, 1);
+    entity.getProperties().add(dynamic);
+    assertSame(dynamic, entity.getProperty("Dynamic"));
+    assertEquals(4, entity.getProperties().size());
+    assertSame(dynamic, entity.getProperties().get(3));
+
+    assertEquals("PropertyInt16", entity.getProperties().remove(0).getName());
+    assertFalse(entity.isSet(layout.getSlot("PropertyInt16")));
+    assertEquals(3, entity.getProperties().size());
+    assertTrue(entity.getProperties().remove(dynamic));
+    assertEquals("[PropertyString=c, PropertyDate=null]", entity.toString());
+  }
+
+  @Test
+  public void iterator() {
+    final IndexedEntity entity = new IndexedEntity(layout);
+    entity.setValue(layout.getSlot("PropertyString"), "a");
+    entity.setValue(layout.getSlot("PropertyInt16"), (short) 1);
+    entity.setValue(layout.getSlot("PropertyDate"), null);
+    entity.getProperties().add(new Property(null, "Dynamic", ValueType.PRIMITIVE, 1));
+
+    Iterator<Property> iterator = entity.getProperties().iterator();
+    assertEquals("PropertyInt16", iterator.next().getName());
+    final Property property = iterator.next();
+    assertEquals("PropertyString", property.getName());
+    assertSame(property, entity.getProperty("PropertyString"));
+    iterator.remove();
+    assertFalse(entity.isSet(layout.getSlot("PropertyString")));
+    assertEquals("PropertyDate", iterator.next().getName());
+    assertEquals("Dynamic", iterator.next().getName());
+    iterator.remove();
+    assertFalse(iterator.hasNext());
+    assertEquals("[PropertyInt16=1, PropertyDate=null]", entity.toString());
+  }
+
+  @Test
+  public void equality() {
+    final IndexedEntity entity = new IndexedEntity(layout);
+    entity.setValue(layout.getSlot("PropertyInt16"), (short) 1);
+    entity.setValue(layout.getSlot("PropertyString"), "a");
+    entity.addProperty(new Property("Edm.Double", "PropertyDouble", ValueType.PRIMITIVE, 1.5));
+    final IndexedEntity other = new IndexedEntity(layout);
+    other.setValue(layout.getSlot("PropertyDouble"), 1.5);
+    other.setValue(layout.getSlot("PropertyString"), "a");
+    other.getProperty("PropertyString");
+    other.setValue(layout.getSlot("PropertyInt16"), (short) 1);
+    // The type name has only been set explicitly for one of the properties.
+    assertFalse(entity.equals(other));
+    other.addProperty(new Property("Edm.Double", "PropertyDouble", ValueType.PRIMITIVE, 1.5));
+    assertEquals(entity, other);
+    assertEquals(entity.hashCode(), other.hashCode());
+    // Comparing does not bind property objects.
+    assertNotSame(entity.readProperty("PropertyInt16"), entity.readProperty("PropertyInt16"));
+
+    other.setValue(layout.getSlot("PropertyInt16"), (short) 2);
+    assertFalse(entity.equals(other));
+    assertEquals(Arrays.asList(entity.readProperty("PropertyInt16"), entity.readProperty("PropertyString"),
+        entity.readProperty("PropertyDouble")), entity.getProperties());
+    assertEquals(entity.getProperties().hashCode(), Arrays.asList(entity.readProperty("PropertyInt16"),
+        entity.readProperty("PropertyString"), entity.readProperty("PropertyDouble")).hashCode());
+  }
+
+  @Test
+  public void sameSerialization() throws Exception {
+    for (final Entity entity : new DataProvider(odata, metadata.getEdm()).readAll(entitySet).getEntities()) {
+      IndexedEntity indexedEntity = new IndexedEntity(layout);
+      indexedEntity.setType(entity.getType());
+      indexedEntity.getNavigationLinks().addAll(entity.getNavigationLinks());
+      indexedEntity.getOperations().addAll(entity.getOperations());
+      for (final Property property : entity.getProperties()) {
+        indexedEntity.addProperty(property);
+      }
+      for (final ContentType contentType : new ContentType[] {
+          ContentType.JSON, ContentType.JSON_FULL_METADATA, ContentType.APPLICATION_XML }) {
+        assertEquals(serialize(contentType, entity), serialize(contentType, indexedEntity));
+      }
+    }
+  }
+
+  private String serialize(final ContentType contentType, final Entity entity) throws Exception {
+    return IOUtils.toString(odata.createSerializer(contentType).entity(metadata, entitySet.getEntityType(), entity,
+        EntitySerializerOptions.with()
+            .contextURL(ContextURL.with().entitySet(entitySet).suffix(Suffix.ENTITY).build())
+            .build()).getContent());
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataContentWriteErrorCallback;
+import org.apache.olingo.server.api.ODataContentWriteErrorContext;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.RowBatch;
+import org.apache.olingo.server.api.serializer.RowBatchSource;
+import org.apache.olingo.server.tecsvc.MetadataETagSupport;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.apache.olingo.server.core.uri.queryoption.CountOptionImpl;
+import org.junit.Test;
+
+public class RowBatchSerializerTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final ServiceMetadata metadata = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList(), new MetadataETagSupport("W/\"metadataETag\""));
+  private static final EdmEntitySet entitySet = metadata.getEdm().getEntityContainer().getEntitySet("ESAllPrim");
+  private static final ContentType[] CONTENT_TYPES = new ContentType[] {
+      ContentType.JSON, ContentType.JSON_NO_METADATA, ContentType.JSON_FULL_METADATA,
+      ContentType.create(ContentType.JSON, ContentType.PARAMETER_IEEE754_COMPATIBLE, "true"),
+      ContentType.APPLICATION_XML };
+
+  @Test
+  public void sameSerialization() throws Exception {
+    final List<Entity> entities = readEntities();
+    for (final ContentType contentType : CONTENT_TYPES) {
+      assertEquals(contentType.toContentTypeString(),
+          serializeEntities(contentType, entities), serializeRows(contentType, entities, 2));
+    }
+  }
+
+  @Test
+  public void missingColumns() throws Exception {
+    List<Entity> entities = new ArrayList<Entity>();
+    for (final Entity entity : readEntities()) {
+      Entity partial = new Entity();
+      partial.setType(entity.getType());
+      partial.setId(entity.getId());
+      partial.addProperty(entity.getProperty("PropertyInt16"));
+      partial.addProperty(entity.getProperty("PropertyString"));
+      entities.add(partial);
+    }
+    for (final ContentType contentType : CONTENT_TYPES) {
+      assertEquals(contentType.toContentTypeString(),
+          serializeEntities(contentType, entities), serializeRows(contentType, entities, 1));
+    }
+  }
+
+  @Test
+  public void unsuitableColumn() throws Exception {
+    final RowBatch batch = new RowBatch(1)
+        .addColumn("PropertyInt16", new long[] { 1 }, null)
+        .addColumn("PropertyString", new boolean[] { true }, null);
+    for (final ContentType contentType : new ContentType[] { ContentType.JSON, ContentType.APPLICATION_XML }) {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      odata.createRowBatchSerializer(contentType).entityCollectionStreamed(metadata, entitySet.getEntityType(),
+          new ListSource(Collections.singletonList(batch)),
+          EntityCollectionSerializerOptions.with()
+              .contextURL(ContextURL.with().entitySet(entitySet).build())
+              .writeContentErrorCallback(new ODataContentWriteErrorCallback() {
+                @Override
+                public void handleError(final ODataContentWriteErrorContext context,
+                    final WritableByteChannel channel) {
+                  try {
+                    channel.write(ByteBuffer.wrap(
+                        ("ERROR: " + context.getODataLibraryException().getMessageKey().getKey()).getBytes("UTF-8")));
+                  } catch (final IOException e) {
+                    throw new RuntimeException(e);
+                  }
+                }
+              })
+              .build())
+          .getODataContent().write(output);
+      assertTrue(new String(output.toByteArray(), "UTF-8").endsWith("ERROR: UNSUPPORTED_COLUMN"));
+    }
+  }
+
+  @Test
+  public void nullBitmap() {
+    long[] nulls = new long[2];
+    nulls[1] = 1L << 2;
+    final RowBatch batch = new RowBatch(70).addColumn("PropertyInt64", new long[70], nulls);
+    assertTrue(batch.isNull(0, 66));
+    assertEquals(0L, batch.getValue(0, 65));
+    assertEquals(null, batch.getValue(0, 66));
+  }
+
+  private List<Entity> readEntities() throws Exception {
+    List<Entity> entities = new ArrayList<Entity>();
+    // Only properties and ids can be given as rows.
+    for (final Entity entity : new DataProvider(odata, metadata.getEdm()).readAll(entitySet).getEntities()) {
+      Entity copy = new Entity();
+      copy.setType(entity.getType());
+      copy.setId(entity.getId());
+      copy.getProperties().addAll(entity.getProperties());
+      entities.add(copy);
+    }
+    return entities;
+  }
+
+  private EntityCollectionSerializerOptions options() {
+    return EntityCollectionSerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(entitySet).build())
+        .count(new CountOptionImpl().setValue(true))
+        .build();
+  }
+
+  private String serializeEntities(final ContentType contentType, final List<Entity> entities) throws Exception {
+    EntityCollection collection = new EntityCollection();
+    collection.getEntities().addAll(entities);
+    collection.setCount(entities.size());
+    collection.setNext(URI.create("ESAllPrim?$skiptoken=1"));
+    return withoutUpdated(IOUtils.toString(odata.createSerializer(contentType).entityCollection(
+        metadata, entitySet.getEntityType(), collection, options()).getContent(), "UTF-8"));
+  }
+
+  /** Serializes the entities as rows, with the given number of rows per batch. */
+  private String serializeRows(final ContentType contentType, final List<Entity> entities, final int batchSize)
+      throws Exception {
+    List<RowBatch> batches = new ArrayList<RowBatch>();
+    for (int start = 0; start < entities.size(); start += batchSize) {
+      batches.add(toBatch(entities.subList(start, Math.min(start + batchSize, entities.size()))));
+    }
+    RowBatchSource source = new ListSource(batches);
+    source.setCount(entities.size());
+    source.setNext(URI.create("ESAllPrim?$skiptoken=1"));
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    odata.createRowBatchSerializer(contentType).entityCollectionStreamed(metadata, entitySet.getEntityType(), source,
+        options()).getODataContent().write(output);
+    return withoutUpdated(new String(output.toByteArray(), "UTF-8"));
+  }
+
+  /** Creates columns of the kind which fits the Java type of the property values. */
+  private RowBatch toBatch(final List<Entity> entities) {
+    final int rows = entities.size();
+    RowBatch batch = new RowBatch(rows);
+    for (final Property property : entities.get(0).getProperties()) {
+      final String name = property.getName();
+      Object[] values = new Object[rows];
+      for (int row = 0; row < rows; row++) {
+        values[row] = entities.get(row).getProperty(name).getValue();
+      }
+      final Object sample = property.getValue();
+      long[] nulls = new long[(rows + 63) / 64];
+      if (sample instanceof Short || sample instanceof Integer || sample instanceof Long || sample instanceof Byte) {
+        long[] longs = new long[rows];
+        for (int row = 0; row < rows; row++) {
+          if (values[row] == null) {
+            nulls[row >>> 6] |= 1L << row;
+          } else {
+            longs[row] = ((Number) values[row]).longValue();
+          }
+        }
+        batch.addColumn(name, longs, nulls);
+      } else if (sample instanceof Double || sample instanceof Float) {
+        double[] doubles = new double[rows];
+        for (int row = 0; row < rows; row++) {
+          if (values[row] == null) {
+            nulls[row >>> 6] |= 1L << row;
+          } else {
+            doubles[row] = ((Number) values[row]).doubleValue();
+          }
+        }
+        batch.addColumn(name, doubles, nulls);
+      } else if (sample instanceof Boolean) {
+        boolean[] booleans = new boolean[rows];
+        for (int row = 0; row < rows; row++) {
+          if (values[row] == null) {
+            nulls[row >>> 6] |= 1L << row;
+          } else {
+            booleans[row] = (Boolean) values[row];
+          }
+        }
+        batch.addColumn(name, booleans, nulls);
+      } else {
+        batch.addColumn(name, values);
+      }
+    }
+    return batch;
+  }
+
+  /** Removes the update times of Atom entries which are set to the current time. */
+  private static String withoutUpdated(final String content) {
+    return content.replaceAll("<a:updated>[^<]*</a:updated>", "");
+  }
+
+  private static final class ListSource extends RowBatchSource {
+    private final List<RowBatch> batches;
+    private int next;
+
+    private ListSource(final List<RowBatch> batches) {
+      this.batches = batches;
+    }
+
+    @Override
+    public RowBatch nextBatch() {
+      return next < batches.size() ? batches.get(next++) : null;
+    }
+  }
+}
@@ -45,11 +45,15 @@ import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.serializer.EdmAssistedSerializer;
 import org.apache.olingo.server.api.serializer.EdmAssistedSerializerOptions;
 import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.core.ODataImpl;
 import org.apache.olingo.server.tecsvc.MetadataETagSupport;
 import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
 public class EdmAssistedJsonSerializerTest {
   private static final OData oData = OData.newInstance();
   private static final ServiceMetadata metadata = oData.createServiceMetadata(
@@ -665,4 +669,18 @@ public class EdmAssistedJsonSerializerTest {
         serialize(serializerMin, metadata, null, entityCollection, null));
   }
   
+  @Test
+  public void configuredJsonFactory() throws Exception {
+    ODataImpl customOData = new ODataImpl();
+    JsonFactory jsonFactory = new JsonFactory();
+    jsonFactory.enable(JsonGenerator.Feature.ESCAPE_NON_ASCII);
+    customOData.setJsonFactory(jsonFactory);
+    Entity entity = new Entity();
+    entity.addProperty(new Property(null, "Property1", ValueType.PRIMITIVE, "\u00E4"));
+    EntityCollection entityCollection = new EntityCollection();
+    entityCollection.getEntities().add(entity);
+    Assert.assertEquals("{\"value\":[{\"Property1\":\"\\u00E4\"}]}",
+        serialize(customOData.createEdmAssistedSerializer(ContentType.JSON_NO_METADATA), metadata,
+            null, entityCollection, null));
+  }
 }
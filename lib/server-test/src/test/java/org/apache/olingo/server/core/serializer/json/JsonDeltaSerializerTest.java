@@ -46,6 +46,7 @@ import org.apache.olingo.server.api.uri.UriHelper;
 import org.apache.olingo.server.api.uri.queryoption.CountOption;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.ODataImpl;
 import org.apache.olingo.server.core.serializer.ExpandSelectMock;
 import org.apache.olingo.server.tecsvc.MetadataETagSupport;
 import org.apache.olingo.server.tecsvc.data.DataProvider;
@@ -54,6 +55,9 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
 public class JsonDeltaSerializerTest {
 
   final EdmDeltaSerializer ser;
@@ -728,4 +732,25 @@ public class JsonDeltaSerializerTest {
       
      } 
   
+  @Test
+  public void configuredJsonFactory() throws Exception {
+    ODataImpl customOData = new ODataImpl();
+    JsonFactory jsonFactory = new JsonFactory();
+    jsonFactory.enable(JsonGenerator.Feature.ESCAPE_NON_ASCII);
+    customOData.setJsonFactory(jsonFactory);
+    final EdmDeltaSerializer customSerializer =
+        customOData.createEdmDeltaSerializer(ContentType.JSON, Collections.singletonList("4.0"));
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESDelta");
+    Delta delta = new Delta();
+    DeltaLink link = new DeltaLink();
+    link.setRelationship("NavPropertyETAllPrimOne");
+    link.setSource(new URI("ESDelta(100)"));
+    link.setTarget(new URI("ESAllPrim('\u00E4')"));
+    delta.getAddedLinks().add(link);
+    InputStream stream = customSerializer.entityCollection(metadata, edmEntitySet.getEntityType(), delta,
+        EntityCollectionSerializerOptions.with()
+            .contextURL(ContextURL.with().entitySet(edmEntitySet).build())
+            .build()).getContent();
+    Assert.assertTrue(IOUtils.toString(stream).contains("\"target\":\"ESAllPrim('\\u00E4')\""));
+  }
 }
@@ -34,6 +34,7 @@ import java.util.List;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.ContextURL.Suffix;
@@ -94,6 +95,10 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
 public class ODataJsonSerializerTest {
   private static final OData odata = OData.newInstance();
   private static final ServiceMetadata metadata = odata.createServiceMetadata(
@@ -2776,4 +2781,50 @@ public class ODataJsonSerializerTest {
         + "\"ESTwoKeyNav(PropertyInt16=1,PropertyString='2')\","
         + "\"NavPropertyETMediaOne@odata.navigationLink\":\"ESMedia(2)\"}",resultString);
   }
+
+  @Test
+  public void selectComparedToAllProperties() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final EntityCollection entitySet = data.readAll(edmEntitySet);
+    final SelectOption select = ExpandSelectMock.mockSelectOption(Arrays.asList(
+        ExpandSelectMock.mockSelectItem(edmEntitySet, "PropertyDate"),
+        ExpandSelectMock.mockSelectItem(edmEntitySet, "PropertyInt16"),
+        ExpandSelectMock.mockSelectItem(edmEntitySet, "PropertyString")));
+    final JsonNode all = serializeValue(edmEntitySet, entitySet, null, null);
+    final JsonNode selected = serializeValue(edmEntitySet, entitySet, select, null);
+    for (final JsonNode entity : all) {
+      ((ObjectNode) entity).retain("PropertyInt16", "PropertyString", "PropertyDate");
+    }
+    Assert.assertEquals(all, selected);
+
+    // The order of the properties in the entities must not matter.
+    for (final Entity entity : entitySet) {
+      Collections.reverse(entity.getProperties());
+    }
+    Assert.assertEquals(selected, serializeValue(edmEntitySet, entitySet, select, null));
+  }
+
+  @Test
+  public void expandComparedToNoExpand() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESTwoPrim");
+    final EntityCollection entitySet = data.readAll(edmEntitySet);
+    final ExpandOption expand = ExpandSelectMock.mockExpandOption(Collections.singletonList(
+        ExpandSelectMock.mockExpandItem(edmEntitySet, "NavPropertyETAllPrimOne")));
+    final JsonNode expanded = serializeValue(edmEntitySet, entitySet, null, expand);
+    Assert.assertEquals(32767, expanded.get(3).get("NavPropertyETAllPrimOne").get("PropertyInt16").intValue());
+    for (final JsonNode entity : expanded) {
+      Assert.assertNotNull(((ObjectNode) entity).remove("NavPropertyETAllPrimOne"));
+    }
+    Assert.assertEquals(serializeValue(edmEntitySet, entitySet, null, null), expanded);
+  }
+
+  private JsonNode serializeValue(final EdmEntitySet edmEntitySet, final EntityCollection entitySet,
+      final SelectOption select, final ExpandOption expand) throws Exception {
+    final InputStream result = serializer.entityCollection(metadata, edmEntitySet.getEntityType(), entitySet,
+        EntityCollectionSerializerOptions.with()
+            .contextURL(ContextURL.with().entitySet(edmEntitySet).build())
+            .select(select).expand(expand)
+            .build()).getContent();
+    return new ObjectMapper().readTree(result).get(Constants.VALUE);
+  }
 }
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmEntityContainer;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.serializer.ExpandSelectMock;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class SerializationPlanTest {
+
+  private static final EdmEntityContainer entityContainer = OData.newInstance().createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm().getEntityContainer();
+
+  @Test
+  public void allProperties() throws Exception {
+    final EdmEntityType entityType = entityContainer.getEntitySet("ESAllPrim").getEntityType();
+    final SerializationPlan plan = SerializationPlan.create(entityType, null, null);
+    assertSame(entityType, plan.getType());
+    assertEquals(entityType.getPropertyNames().size(), plan.getPropertyCount());
+    for (int index = 0; index < plan.getPropertyCount(); index++) {
+      assertEquals(entityType.getPropertyNames().get(index), plan.getProperty(index).getName());
+      assertSame(entityType.getStructuralProperty(plan.getProperty(index).getName()),
+          plan.getProperty(index).getEdmProperty());
+      assertNull(plan.getProperty(index).getSelectedPaths());
+    }
+    assertTrue(plan.areKeyPredicateNamesSelected());
+    assertTrue(plan.getExpandedPaths().isEmpty());
+  }
+
+  @Test
+  public void selectedProperties() throws Exception {
+    final EdmEntitySet entitySet = entityContainer.getEntitySet("ESAllPrim");
+    SerializationPlan plan = SerializationPlan.create(entitySet.getEntityType(),
+        ExpandSelectMock.mockSelectOption(Arrays.asList(
+            ExpandSelectMock.mockSelectItem(entitySet, "PropertyDate"),
+            ExpandSelectMock.mockSelectItem(entitySet, "PropertyString"))),
+        null);
+    assertEquals(Arrays.asList("PropertyInt16", "PropertyString", "PropertyDate"), getNames(plan));
+    assertFalse(plan.areKeyPredicateNamesSelected());
+
+    plan = SerializationPlan.create(entitySet.getEntityType(),
+        ExpandSelectMock.mockSelectOption(Arrays.asList(
+            ExpandSelectMock.mockSelectItem(entitySet, "PropertyString"),
+            ExpandSelectMock.mockSelectItem(entitySet, "PropertyInt16"))),
+        null);
+    assertEquals(Arrays.asList("PropertyInt16", "PropertyString"), getNames(plan));
+    assertTrue(plan.areKeyPredicateNamesSelected());
+  }
+
+  @Test
+  public void selectedPathsInComplexProperty() throws Exception {
+    final EdmEntitySet entitySet = entityContainer.getEntitySet("ESFourKeyAlias");
+    final SerializationPlan plan = SerializationPlan.create(entitySet.getEntityType(),
+        ExpandSelectMock.mockSelectOption(Arrays.asList(
+            ExpandSelectMock.mockSelectItem(entitySet, "PropertyInt16"),
+            ExpandSelectMock.mockSelectItem(entitySet, "PropertyCompComp", "PropertyComp", "PropertyString"))),
+        null);
+    assertEquals(Arrays.asList("PropertyInt16", "PropertyCompComp"), getNames(plan));
+    assertNull(plan.getProperty(0).getSelectedPaths());
+    assertEquals(Collections.singleton(Arrays.asList("PropertyComp", "PropertyString")),
+        plan.getProperty(1).getSelectedPaths());
+  }
+
+  @Test
+  public void findProperty() throws Exception {
+    final SerializationPlan plan = SerializationPlan.create(
+        entityContainer.getEntitySet("ESTwoPrim").getEntityType(), null, null);
+    final List<Property> properties = Arrays.asList(
+        new Property(null, "PropertyString", ValueType.PRIMITIVE, "test"),
+        new Property(null, "PropertyInt16", ValueType.PRIMITIVE, (short) 1));
+    assertEquals(1, plan.findProperty(0, properties, 0));
+    assertEquals(0, plan.findProperty(1, properties, 2));
+    assertEquals(-1, plan.findProperty(1, Collections.<Property> emptyList(), 0));
+  }
+
+  @Test
+  public void cache() throws Exception {
+    final EdmEntitySet entitySet = entityContainer.getEntitySet("ESAllPrim");
+    final EdmEntityType entityType = entitySet.getEntityType();
+    final SelectOption select = ExpandSelectMock.mockSelectOption(Collections.singletonList(
+        ExpandSelectMock.mockSelectItem(entitySet, "PropertyString")));
+    final ExpandOption expand = ExpandSelectMock.mockExpandOption(Collections.singletonList(
+        ExpandSelectMock.mockExpandItem(entitySet, "NavPropertyETTwoPrimOne")));
+    SerializationPlan.Cache cache = new SerializationPlan.Cache();
+    final SerializationPlan plan = cache.get(entityType, select, expand);
+    assertTrue(plan.isFor(entityType, select, expand));
+    assertSame(plan, cache.get(entityType, select, expand));
+    assertNotSame(plan, cache.get(entityType, select, null));
+    assertNotSame(plan, cache.get(entityType, ExpandSelectMock.mockSelectOption(select.getSelectItems()), expand));
+
+    // The oldest plans are replaced if more option objects are used than the cache can hold.
+    for (int count = 0; count < 32; count++) {
+      cache.get(entityType, null, ExpandSelectMock.mockExpandOption(expand.getExpandItems()));
+    }
+    assertNotSame(plan, cache.get(entityType, select, expand));
+  }
+
+  private List<String> getNames(final SerializationPlan plan) {
+    List<String> names = new ArrayList<String>();
+    for (int index = 0; index < plan.getPropertyCount(); index++) {
+      names.add(plan.getProperty(index).getName());
+    }
+    return names;
+  }
+}
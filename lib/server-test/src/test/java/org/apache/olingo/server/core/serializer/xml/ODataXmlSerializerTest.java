@@ -2648,6 +2648,29 @@ public class ODataXmlSerializerTest {
     Assert.assertEquals(expected, resultString);
   }
 
+  @Test
+  public void primitivePropertyEscaping() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final EdmProperty edmProperty = (EdmProperty) edmEntitySet.getEntityType().getProperty("PropertyString");
+    final Property property = data.readAll(edmEntitySet).getEntities().get(0).getProperty(edmProperty.getName());
+    property.setValue(ValueType.PRIMITIVE, "<a> & \"b\" 'c' \u00E4\u20AC\uD83D\uDE00");
+    final InputStream content = serializer
+        .primitive(metadata, (EdmPrimitiveType) edmProperty.getType(), property,
+            PrimitiveSerializerOptions.with()
+                .contextURL(ContextURL.with()
+                    .entitySet(edmEntitySet).keyPath("'a&b'").navOrPropertyPath(edmProperty.getName())
+                    .build())
+                .build()).getContent();
+    final String resultString = IOUtils.toString(content, "UTF-8");
+
+    String expected = "<?xml version='1.0' encoding='UTF-8'?>"
+        + "<m:value xmlns:m=\"http://docs.oasis-open.org/odata/ns/metadata\" "
+        + "m:context=\"$metadata#ESAllPrim(&apos;a&amp;b&apos;)/PropertyString\" "
+        + "m:metadata-etag=\"metadataETag\">"
+        + "&lt;a> &amp; \"b\" 'c' \u00E4\u20AC\uD83D\uDE00</m:value>";
+    Assert.assertEquals(expected, resultString);
+  }
+
   @Test
   public void testXML10ReplacementChar() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.paging.KeysetPage;
+import org.apache.olingo.server.api.paging.KeysetPagingHelper;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class SqlTranslatorTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+
+  private final SqlTranslator translator = new SqlTranslator(new DefaultTableMapping(), new DefaultSqlDialect());
+
+  @Test
+  public void comparison() throws Exception {
+    SqlFragment where = filter("ESAllPrim", "PropertyInt16 gt 5 and PropertyString eq 'a''b'");
+    assertEquals("((\"PropertyInt16\" > ?) AND (\"PropertyString\" = ?))", where.getSql());
+    assertEquals(5, ((Number) where.getParameters().get(0)).intValue());
+    assertEquals("a'b", where.getParameters().get(1));
+
+    where = filter("ESAllPrim", "PropertyDate le 2012-12-03");
+    assertEquals("(\"PropertyDate\" <= ?)", where.getSql());
+    assertEquals(Date.class, where.getParameters().get(0).getClass());
+
+    where = filter("ESAllPrim", "PropertyDecimal mul 2 lt 1.5");
+    assertEquals("((\"PropertyDecimal\" * ?) < ?)", where.getSql());
+    assertEquals(new BigDecimal("1.5"), where.getParameters().get(1));
+  }
+
+  @Test
+  public void nullValues() throws Exception {
+    assertEquals("(\"PropertyString\" IS NULL)", filter("ESAllPrim", "PropertyString eq null").getSql());
+    assertEquals("(\"PropertyString\" IS NOT NULL)", filter("ESAllPrim", "null ne PropertyString").getSql());
+    assertEquals("(1 = 0)", filter("ESAllPrim", "PropertyInt16 gt null").getSql());
+
+    final SqlFragment where = filter("ESAllPrim", "PropertyString ne 'x'");
+    assertEquals("((\"PropertyString\" <> ?) OR \"PropertyString\" IS NULL)", where.getSql());
+    assertEquals(Arrays.<Object> asList("x"), where.getParameters());
+  }
+
+  @Test
+  public void methods() throws Exception {
+    SqlFragment where = filter("ESAllPrim", "contains(PropertyString,'5%25_!')");
+    assertEquals("(\"PropertyString\" LIKE ? ESCAPE '!')", where.getSql());
+    assertEquals(Arrays.<Object> asList("%5!%!_!!%"), where.getParameters());
+    assertEquals(Arrays.<Object> asList("x%"), filter("ESAllPrim", "startswith(PropertyString,'x')").getParameters());
+    assertEquals(Arrays.<Object> asList("%x"), filter("ESAllPrim", "endswith(PropertyString,'x')").getParameters());
+
+    assertEquals("(CHAR_LENGTH(LOWER(\"PropertyString\")) = ?)",
+        filter("ESAllPrim", "length(tolower(PropertyString)) eq 3").getSql());
+    assertEquals("(EXTRACT(YEAR FROM \"PropertyDate\") = ?)",
+        filter("ESAllPrim", "year(PropertyDate) eq 2012").getSql());
+    where = filter("ESAllPrim", "substring(PropertyString,1,2) eq PropertyString");
+    assertEquals("((SUBSTRING(\"PropertyString\" FROM ? + 1 FOR ?) = \"PropertyString\")"
+        + " OR (SUBSTRING(\"PropertyString\" FROM ? + 1 FOR ?) IS NULL AND \"PropertyString\" IS NULL))",
+        where.getSql());
+    assertEquals(4, where.getParameters().size());
+  }
+
+  @Test
+  public void negation() throws Exception {
+    // A nullable property which is null makes the comparison false, so its negation must be true.
+    SqlFragment where = filter("ESAllPrim", "not (PropertyString eq 'x')");
+    assertEquals("(NOT (CASE WHEN (\"PropertyString\" = ?) THEN 1 ELSE 0 END = 1))", where.getSql());
+    assertEquals(Arrays.<Object> asList("x"), where.getParameters());
+
+    assertEquals("(NOT (\"PropertyInt16\" = ?))", filter("ESAllPrim", "not (PropertyInt16 eq 5)").getSql());
+    assertEquals("(NOT ((\"PropertyString\" <> ?) OR \"PropertyString\" IS NULL))",
+        filter("ESAllPrim", "not (PropertyString ne 'x')").getSql());
+
+    where = filter("ESAllPrim", "not (PropertyInt32 gt 1 or PropertyInt16 lt 5)");
+    assertEquals("(NOT ((CASE WHEN (\"PropertyInt32\" > ?) THEN 1 ELSE 0 END = 1) OR (\"PropertyInt16\" < ?)))",
+        where.getSql());
+    assertEquals(2, where.getParameters().size());
+  }
+
+  @Test
+  public void columnComparison() throws Exception {
+    // In OData, null is equal to null but not to any other value.
+    SqlFragment where = filter("ESAllPrim", "PropertyInt32 eq PropertyInt64");
+    assertEquals("((\"PropertyInt32\" = \"PropertyInt64\")"
+        + " OR (\"PropertyInt32\" IS NULL AND \"PropertyInt64\" IS NULL))", where.getSql());
+    assertTrue(where.getParameters().isEmpty());
+
+    where = filter("ESAllPrim", "PropertyInt32 ne PropertyInt64");
+    assertEquals("((\"PropertyInt32\" <> \"PropertyInt64\")"
+        + " OR (\"PropertyInt32\" IS NULL AND \"PropertyInt64\" IS NOT NULL)"
+        + " OR (\"PropertyInt32\" IS NOT NULL AND \"PropertyInt64\" IS NULL))", where.getSql());
+
+    assertEquals("(NOT (CASE WHEN ((\"PropertyInt32\" = \"PropertyInt64\")"
+        + " OR (\"PropertyInt32\" IS NULL AND \"PropertyInt64\" IS NULL)) THEN 1 ELSE 0 END = 1))",
+        filter("ESAllPrim", "not (PropertyInt32 eq PropertyInt64)").getSql());
+
+    assertEquals("(\"PropertyInt16\" = \"PropertyInt16\")",
+        filter("ESAllPrim", "PropertyInt16 eq PropertyInt16").getSql());
+  }
+
+  @Test
+  public void query() throws Exception {
+    final SqlQuery query = new SqlTranslator(new DefaultTableMapping(), new LimitOffsetSqlDialect())
+        .translate(getEntityType("ESAllPrim"), parse("ESAllPrim",
+            "$filter=PropertyInt16 ge 0&$orderby=PropertyString desc,PropertyInt16"
+                + "&$select=PropertyString&$top=10&$skip=20&$count=true"));
+    assertEquals("\"ETAllPrim\"", query.getTable());
+    assertEquals(Arrays.asList("PropertyInt16", "PropertyString"), query.getSelectedProperties());
+    assertTrue(query.isCountRequested());
+
+    final SqlFragment select = query.getSelect();
+    assertEquals("SELECT \"PropertyInt16\", \"PropertyString\" FROM \"ETAllPrim\" WHERE (\"PropertyInt16\" >= ?)"
+        + " ORDER BY \"PropertyString\" DESC NULLS LAST, \"PropertyInt16\" ASC NULLS FIRST LIMIT ? OFFSET ?",
+        select.getSql());
+    assertEquals(0, ((Number) select.getParameters().get(0)).intValue());
+    assertEquals(Arrays.<Object> asList(10, 20), select.getParameters().subList(1, 3));
+
+    final SqlFragment count = query.getCount();
+    assertEquals("SELECT COUNT(*) FROM \"ETAllPrim\" WHERE (\"PropertyInt16\" >= ?)", count.getSql());
+    assertEquals(1, count.getParameters().size());
+  }
+
+  @Test
+  public void defaultQuery() throws Exception {
+    final SqlQuery query = translator.translate(getEntityType("ESAllPrim"), parse("ESAllPrim", "$skip=5"));
+    assertEquals(16, query.getColumns().size());
+    assertNull(query.getWhereClause());
+    assertNull(query.getOrderByClause());
+    assertFalse(query.isCountRequested());
+    assertEquals("OFFSET ? ROWS", query.getLimitClause().getSql());
+  }
+
+  @Test
+  public void complexProperties() throws Exception {
+    final SqlQuery query = translator.translate(getEntityType("ESCompAllPrim"),
+        parse("ESCompAllPrim", "$filter=PropertyComp/PropertyString eq 'x'&$select=PropertyComp"));
+    assertEquals("(\"PropertyComp_PropertyString\" = ?)", query.getWhereClause().getSql());
+    assertEquals("PropertyComp/PropertyString", query.getSelectedProperties().get(1));
+    assertEquals("\"PropertyComp_PropertyString\"", query.getColumns().get(1));
+  }
+
+  @Test
+  public void seek() throws Exception {
+    final KeysetPagingHelper helper = odata.createKeysetPagingHelper(null);
+    final EdmEntityType entityType = getEntityType("ESAllPrim");
+    UriInfo uriInfo = parse("ESAllPrim", "$orderby=PropertyString desc");
+    final KeysetPage first = helper.createPage(entityType, uriInfo.getOrderByOption(), null, 10);
+    assertEquals("\"PropertyString\" DESC NULLS LAST, \"PropertyInt16\" ASC NULLS FIRST",
+        translator.translateSeekOrderBy(entityType, first).getSql());
+    assertNull(translator.translateSeekCondition(entityType, first));
+
+    final Entity last = new Entity()
+        .addProperty(new Property(null, "PropertyInt16", ValueType.PRIMITIVE, (short) 5))
+        .addProperty(new Property(null, "PropertyString", ValueType.PRIMITIVE, "b"));
+    uriInfo = parse("ESAllPrim", "$orderby=PropertyString desc&$skiptoken=" + first.createSkipToken(last));
+    SqlFragment where = translator.translateSeekCondition(entityType,
+        helper.createPage(entityType, uriInfo.getOrderByOption(), uriInfo.getSkipTokenOption(), 10));
+    assertEquals("(((\"PropertyString\" < ? OR \"PropertyString\" IS NULL))"
+        + " OR (\"PropertyString\" = ? AND \"PropertyInt16\" > ?))", where.getSql());
+    assertEquals(Arrays.<Object> asList("b", "b", (short) 5), where.getParameters());
+
+    last.getProperty("PropertyString").setValue(ValueType.PRIMITIVE, null);
+    uriInfo = parse("ESAllPrim", "$orderby=PropertyString desc&$skiptoken=" + first.createSkipToken(last));
+    where = translator.translateSeekCondition(entityType,
+        helper.createPage(entityType, uriInfo.getOrderByOption(), uriInfo.getSkipTokenOption(), 10));
+    assertEquals("((\"PropertyString\" IS NULL AND \"PropertyInt16\" > ?))", where.getSql());
+  }
+
+  @Test
+  public void notSupported() throws Exception {
+    expectNotSupported(translator, "ESAllPrim", "$search=test");
+    expectNotSupported(translator, "ESMixPrimCollComp", "$filter=CollPropertyString/any(d:d eq 'x')");
+    expectNotSupported(translator, "ESAllPrim", "$filter=PropertyDate add duration'P1D' gt 2012-12-03");
+    expectNotSupported(new SqlTranslator(new DefaultTableMapping() {
+          @Override
+          public String getColumnName(final EdmEntityType entityType, final List<String> path) {
+            return "PropertyString".equals(path.get(0)) ? null : super.getColumnName(entityType, path);
+          }
+        }, new DefaultSqlDialect()),
+        "ESAllPrim", "$filter=PropertyString eq 'x'");
+  }
+
+  private void expectNotSupported(final SqlTranslator sqlTranslator, final String entitySetName,
+      final String query) throws Exception {
+    try {
+      sqlTranslator.translate(getEntityType(entitySetName), parse(entitySetName, query));
+      fail("Expected error for " + query);
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  private SqlFragment filter(final String entitySetName, final String filter) throws Exception {
+    return translator.translateFilter(getEntityType(entitySetName),
+        parse(entitySetName, "$filter=" + filter).getFilterOption());
+  }
+
+  private EdmEntityType getEntityType(final String entitySetName) {
+    return edm.getEntityContainer().getEntitySet(entitySetName).getEntityType();
+  }
+
+  private UriInfo parse(final String entitySetName, final String query) throws Exception {
+    return new Parser(edm, odata).parseUri(entitySetName, query, null, null);
+  }
+}
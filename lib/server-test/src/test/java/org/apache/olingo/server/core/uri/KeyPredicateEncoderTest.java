@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.core.Encoder;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class KeyPredicateEncoderTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+
+  @Test
+  public void stringKeys() throws Exception {
+    final KeyPredicateEncoder encoder = KeyPredicateEncoder.create(getEntityType("ESTwoKeyNav"));
+    for (final String value : new String[] { "abc", "O'Neil", "a b/c?d#e%f",
+        "\u00E4\u20AC", "\uD83D\uDE00", "\uD800x", "" }) {
+      final Entity entity = new Entity()
+          .addProperty(new Property(null, "PropertyInt16", ValueType.PRIMITIVE, (short) 1))
+          .addProperty(new Property(null, "PropertyString", ValueType.PRIMITIVE, value));
+      assertEquals("PropertyInt16=1,PropertyString=" + Encoder.encode("'" + value.replace("'", "''") + "'"),
+          encoder.buildKeyPredicate(entity));
+    }
+  }
+
+  @Test
+  public void entityId() throws Exception {
+    final KeyPredicateEncoder encoder = KeyPredicateEncoder.create(getEntityType("ESAllPrim"));
+    final Entity entity = new Entity()
+        .addProperty(new Property(null, "PropertyInt16", ValueType.PRIMITIVE, -5));
+    assertEquals("ESAllPrim(-5)", encoder.buildEntityId("ESAllPrim", entity));
+    assertEquals("%C3%84(-5)", encoder.buildEntityId("\u00C4", entity));
+
+    entity.getProperty("PropertyInt16").setValue(ValueType.PRIMITIVE, 70000);
+    try {
+      encoder.buildEntityId("ESAllPrim", entity);
+      fail("Expected exception not thrown.");
+    } catch (final SerializerException e) {
+      assertEquals(SerializerException.MessageKeys.WRONG_PROPERTY_VALUE, e.getMessageKey());
+    }
+  }
+
+  @Test
+  public void keyInComplexProperty() throws Exception {
+    final KeyPredicateEncoder encoder = KeyPredicateEncoder.create(getEntityType("ESFourKeyAlias"));
+    final Entity entity = new Entity()
+        .addProperty(new Property(null, "PropertyInt16", ValueType.PRIMITIVE, (short) 1));
+    try {
+      encoder.buildKeyPredicate(entity);
+      fail("Expected exception not thrown.");
+    } catch (final SerializerException e) {
+      assertEquals(SerializerException.MessageKeys.WRONG_PROPERTY_VALUE, e.getMessageKey());
+    }
+
+    entity.addProperty(createComplex("PropertyComp", (short) 11, "Num11"))
+        .addProperty(new Property(null, "PropertyCompComp", ValueType.COMPLEX,
+            createComplexValue(createComplex("PropertyComp", (short) 111, "Num111"))));
+    assertEquals("PropertyInt16=1,KeyAlias1=11,KeyAlias2='Num11',KeyAlias3='Num111'",
+        encoder.buildKeyPredicate(entity));
+  }
+
+  @Test
+  public void cache() {
+    final KeyPredicateEncoder.Cache cache = new KeyPredicateEncoder.Cache();
+    final KeyPredicateEncoder encoder = cache.get(getEntityType("ESAllPrim"));
+    assertTrue(encoder.isFor(getEntityType("ESAllPrim")));
+    assertSame(encoder, cache.get(getEntityType("ESAllPrim")));
+    assertSame(encoder, cache.get(getEntityType("ESAllPrim")));
+  }
+
+  private static Property createComplex(final String name, final short number, final String string) {
+    return new Property(null, name, ValueType.COMPLEX, createComplexValue(
+        new Property(null, "PropertyInt16", ValueType.PRIMITIVE, number),
+        new Property(null, "PropertyString", ValueType.PRIMITIVE, string)));
+  }
+
+  private static ComplexValue createComplexValue(final Property... properties) {
+    ComplexValue complexValue = new ComplexValue();
+    complexValue.getValue().addAll(Arrays.asList(properties));
+    return complexValue;
+  }
+
+  private EdmEntityType getEntityType(final String entitySetName) {
+    return edm.getEntityContainer().getEntitySet(entitySetName).getEntityType();
+  }
+}